@@ -13,13 +13,21 @@
  */
 package com.google.dart.command.analyze;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.index.SdkIndex;
+import com.google.dart.engine.internal.summary.LibrarySummaryStore;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileBasedSource;
@@ -29,16 +37,69 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Scans, parses, and analyzes a library.
+ * Scans, parses, and analyzes libraries.
+ * <p>
+ * The analysis context used for a package root is kept between invocations, so the SDK and package
+ * libraries resolved for one invocation are reused by the following ones. Before a context is
+ * reused, the files that were modified since they were analyzed are reported to it as changed.
  */
 class AnalyzerImpl {
 
+  /**
+   * The interface {@code LibraryListener} defines the behavior of objects that are notified when
+   * the analysis of a library has finished.
+   */
+  interface LibraryListener {
+    /**
+     * The library defined by the given file has been analyzed.
+     * 
+     * @param sourceFile the file defining the library
+     * @param errors the errors found in the library
+     */
+    public void libraryAnalyzed(File sourceFile, List<AnalysisError> errors);
+  }
+
+  /**
+   * Instances of the class {@code WarmContext} hold an analysis context kept between invocations
+   * together with the modification stamps of the sources that were analyzed in it.
+   */
+  private static class WarmContext {
+    private final AnalysisContext context;
+
+    /**
+     * A table mapping the sources analyzed in the context to their modification stamps.
+     */
+    private final Map<Source, Long> modificationStamps = new HashMap<Source, Long>();
+
+    /**
+     * A table mapping the sources analyzed in the context to the sources of the libraries they
+     * belong to.
+     */
+    private final Map<Source, Source> librarySources = new HashMap<Source, Source>();
+
+    public WarmContext(AnalysisContext context) {
+      this.context = context;
+    }
+  }
+
   private static ErrorSeverity getMaxErrorSeverity(List<AnalysisError> errors) {
     ErrorSeverity status = ErrorSeverity.NONE;
 
@@ -51,86 +112,372 @@ class AnalyzerImpl {
     return status;
   }
 
+  /**
+   * Return the modification stamp of the given source, which was first read by the analysis that
+   * started at the given time, or {@code -1} if the source might have been modified after it was
+   * read, so that it is reported as changed to the next invocation.
+   */
+  private static long getModificationStamp(Source source, long analysisStart) {
+    long modificationStamp = source.getModificationStamp();
+
+    if (modificationStamp > analysisStart - MODIFICATION_STAMP_RESOLUTION) {
+      return -1L;
+    }
+
+    return modificationStamp;
+  }
+
+  /**
+   * The number of milliseconds by which the modification stamp of a file can precede the time at
+   * which the file was actually modified, because of the resolution of the file system.
+   */
+  private static final long MODIFICATION_STAMP_RESOLUTION = 2000L;
+
   private AnalyzerOptions options;
   private DartSdk sdk;
+  private LibrarySummaryStore summaryStore;
+
+  /**
+   * A table mapping package roots to the contexts used to analyze libraries with that package root.
+   * The {@code null} key is used for libraries analyzed without a package root.
+   */
+  private final Map<File, WarmContext> contexts = new HashMap<File, WarmContext>();
 
   public AnalyzerImpl(AnalyzerOptions options) {
     this.options = options;
 
     // This sdk is shared between multiple runs of the analyzer.
     sdk = new DartSdk(options.getDartSdkPath());
+
+    // So are the summaries of the SDK and package libraries.
+    if (options.getSummaryDirectory() != null) {
+      summaryStore = new LibrarySummaryStore(options.getSummaryDirectory(), sdk.getSdkVersion());
+    }
   }
 
   /**
-   * Treats the {@code sourceFile} as the top level library and analyzes the unit for warnings and
-   * errors.
+   * Treats each of the {@code sourceFiles} as a top level library and analyzes it for warnings and
+   * errors. The given listener is notified as soon as the analysis of each library has finished.
+   * If {@link AnalyzerOptions#getJobCount()} is greater than one, independent libraries are
+   * analyzed concurrently and the listener is notified in the order in which they finish, always on
+   * the calling thread.
    * 
-   * @param sourceFile file to analyze
+   * @param sourceFiles the files to analyze
    * @param options configuration for this analysis pass
-   * @param errors the list to add errors to
-   * @return {@code  true} on success, {@code false} on failure.
+   * @param listener the listener to notify when a library has been analyzed
+   * @return the maximum severity of the errors found in all of the libraries
+   */
+  public ErrorSeverity analyze(List<File> sourceFiles, AnalyzerOptions options,
+      LibraryListener listener) throws AnalysisException {
+    if (sourceFiles == null) {
+      throw new IllegalArgumentException("sourceFiles cannot be null");
+    }
+
+    WarmContext warmContext = getContext(options.getPackageRootPath());
+    ErrorSeverity status = ErrorSeverity.NONE;
+
+    // The modification stamps are captured before the analysis, so that the files modified while
+    // they are analyzed are reported as changed to the next invocation.
+    Map<Source, Long> modificationStamps = getModificationStamps(warmContext.context, sourceFiles);
+    long analysisStart = System.currentTimeMillis();
+
+    try {
+      int jobCount = Math.min(options.getJobCount(), sourceFiles.size());
+
+      if (jobCount <= 1) {
+        for (File sourceFile : sourceFiles) {
+          List<AnalysisError> errors = analyze(warmContext.context, sourceFile);
+
+          listener.libraryAnalyzed(sourceFile, errors);
+          status = status.max(getMaxErrorSeverity(errors));
+        }
+
+        return status;
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(jobCount);
+
+      try {
+        BlockingQueue<Future<List<AnalysisError>>> completedTasks = Queues.newLinkedBlockingQueue();
+        CompletionService<List<AnalysisError>> completionService = new ExecutorCompletionService<List<AnalysisError>>(
+            executor,
+            completedTasks);
+        Map<Future<List<AnalysisError>>, File> futures = Maps.newHashMap();
+
+        for (File sourceFile : sourceFiles) {
+          futures.put(
+              completionService.submit(newAnalyzeTask(warmContext.context, sourceFile)),
+              sourceFile);
+        }
+
+        for (int i = 0; i < sourceFiles.size(); i++) {
+          Future<List<AnalysisError>> future = Uninterruptibles.takeUninterruptibly(completedTasks);
+          List<AnalysisError> errors = getErrors(future);
+
+          listener.libraryAnalyzed(futures.get(future), errors);
+          status = status.max(getMaxErrorSeverity(errors));
+        }
+
+        return status;
+      } finally {
+        executor.shutdownNow();
+      }
+    } finally {
+      recordModificationStamps(warmContext, sourceFiles, modificationStamps, analysisStart);
+    }
+  }
+
+  /**
+   * Create the prebuilt index of the SDK in the directory given by
+   * {@link AnalyzerOptions#getSdkIndexLocation()}. The libraries are resolved and indexed using one
+   * thread per processor.
+   * 
+   * @return true on success, false if an error occurred
+   */
+  public boolean createSdkIndex() {
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      SdkIndex.create(sdk, options.getSdkIndexLocation(), executor);
+
+      return true;
+    } catch (IOException ioe) {
+      ioe.printStackTrace();
+
+      return false;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Analyzes the library defined by the given file in the given context.
+   * 
+   * @return the errors found in the library
+   */
+  private List<AnalysisError> analyze(AnalysisContext context, File sourceFile)
+      throws AnalysisException {
+    Source librarySource = new FileBasedSource(context.getSourceFactory(), sourceFile);
+    LibraryElement library = context.getLibraryElement(librarySource);
+
+    CompilationUnit unit = context.resolve(librarySource, library);
+
+    // TODO: implement options.getShowSdkWarnings() && library.getName().startsWith("dart.")
+
+    // TODO: this needs to be changed to collect all errors from this library and referenced
+    // libraries (modulo the --show-sdk-warnings flag).
+
+    return new ArrayList<AnalysisError>(Arrays.asList(unit.getErrors()));
+  }
+
+  /**
+   * Return the context used to analyze libraries with the given package root, creating it if this
+   * is the first time it is requested. The sources that were modified since the context was last
+   * used are reported to it as changed.
+   * 
+   * @param packageRoot the package root, or {@code null} if there is none
+   * @return the context used to analyze libraries with the given package root
    */
-  public ErrorSeverity analyze(File sourceFile, List<AnalysisError> errors) throws IOException,
-      AnalysisException {
-    if (sourceFile == null) {
-      throw new IllegalArgumentException("sourceFile cannot be null");
+  private WarmContext getContext(File packageRoot) {
+    WarmContext warmContext = contexts.get(packageRoot);
+
+    if (warmContext != null) {
+      ChangeSet changeSet = new ChangeSet();
+      Set<Source> changedLibrarySources = new HashSet<Source>();
+
+      for (Map.Entry<Source, Long> entry : warmContext.modificationStamps.entrySet()) {
+        long modificationStamp = entry.getKey().getModificationStamp();
+
+        if (modificationStamp != entry.getValue().longValue()) {
+          Source librarySource = warmContext.librarySources.get(entry.getKey());
+
+          changeSet.changed(entry.getKey());
+          changeSet.changed(librarySource);
+          changedLibrarySources.add(librarySource);
+          entry.setValue(modificationStamp);
+        }
+      }
+
+      warmContext.context.applyChanges(changeSet);
+
+      // The libraries that depend on a changed library are only invalidated once the changed
+      // library has been resolved again and its API is known to have changed.
+      for (Source librarySource : changedLibrarySources) {
+        warmContext.context.getLibraryElement(librarySource);
+      }
+
+      return warmContext;
     }
 
     AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    if (context instanceof AnalysisContextImpl) {
+      // The analyzer only reports errors, so it never needs to walk the token streams.
+      ((AnalysisContextImpl) context).setCompactTokenStreams(true);
+      if (summaryStore != null) {
+        ((AnalysisContextImpl) context).setSummaryStore(summaryStore);
+      }
+    }
 
     SourceFactory sourceFactory;
 
-    if (options.getPackageRootPath() != null) {
+    if (packageRoot != null) {
       sourceFactory = new SourceFactory(
           new DartUriResolver(sdk),
           new FileUriResolver(),
-          new PackageUriResolver(options.getPackageRootPath()));
+          new PackageUriResolver(packageRoot));
     } else {
       sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
     }
 
     context.setSourceFactory(sourceFactory);
 
-    Source librarySource = new FileBasedSource(sourceFactory, sourceFile);
-    LibraryElement library = context.getLibraryElement(librarySource);
+    warmContext = new WarmContext(context);
+    contexts.put(packageRoot, warmContext);
 
-    CompilationUnit unit = context.resolve(librarySource, library);
+    return warmContext;
+  }
 
-    // TODO: implement options.getShowSdkWarnings() && library.getName().startsWith("dart.")
+  /**
+   * Return the errors computed by the given completed task, rethrowing the exception with which it
+   * failed, if any.
+   */
+  private List<AnalysisError> getErrors(Future<List<AnalysisError>> future)
+      throws AnalysisException {
+    try {
+      return future.get();
+    } catch (InterruptedException exception) {
+      throw new AnalysisException(exception);
+    } catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
 
-    // TODO: this needs to be changed to collect all errors from this library and referenced
-    // libraries (modulo the --show-sdk-warnings flag).
+      if (cause instanceof AnalysisException) {
+        throw (AnalysisException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new AnalysisException(cause);
+    }
+  }
+
+  /**
+   * Return a table mapping the sources of the given library files to their current modification
+   * stamps.
+   */
+  private Map<Source, Long> getModificationStamps(AnalysisContext context, List<File> sourceFiles) {
+    Map<Source, Long> modificationStamps = new HashMap<Source, Long>();
+
+    for (File sourceFile : sourceFiles) {
+      Source librarySource = new FileBasedSource(context.getSourceFactory(), sourceFile);
 
-    errors.addAll(Arrays.asList(unit.getErrors()));
+      modificationStamps.put(librarySource, librarySource.getModificationStamp());
+    }
 
-    return getMaxErrorSeverity(errors);
+    return modificationStamps;
   }
 
   /**
-   * Create the serialized element file for the SDK.
-   * 
-   * @return true on success, false if an error occurred
+   * @return the {@link Callable} which analyzes the library defined by the given file.
    */
-  public boolean createSdkIndex() {
-    @SuppressWarnings("unused")
-    DartSdk sdk = new DartSdk(options.getDartSdkPath());
+  private Callable<List<AnalysisError>> newAnalyzeTask(final AnalysisContext context,
+      final File sourceFile) {
+    return new Callable<List<AnalysisError>>() {
+      @Override
+      public List<AnalysisError> call() throws AnalysisException {
+        return analyze(context, sourceFile);
+      }
+    };
+  }
 
-    try {
-      // TODO(devoncarew): call analysis engine methods to create an index file
+  /**
+   * Record the modification stamps of the sources of the given library and, transitively, of the
+   * libraries it imports and exports, other than the SDK libraries. The sources that are seen for
+   * the first time are added to the given change set, so that the context can later be told that
+   * they have changed. Their modification stamps are taken from the given table if they were
+   * captured before the analysis that started at the given time.
+   */
+  private void recordModificationStamps(WarmContext warmContext, LibraryElement library,
+      ChangeSet changeSet, Set<LibraryElement> visitedLibraries,
+      Map<Source, Long> modificationStamps, long analysisStart) {
+    if (library == null || !visitedLibraries.add(library)) {
+      return;
+    }
 
-      FileOutputStream out = new FileOutputStream(options.getSdkIndexLocation());
-      out.write(0);
-      out.write(0);
-      out.write(0);
-      out.write(0);
-      out.close();
+    Source librarySource = library.getDefiningCompilationUnit().getSource();
 
-      return true;
-    } catch (IOException ioe) {
-      ioe.printStackTrace();
+    if (librarySource.isInSystemLibrary()) {
+      return;
+    }
 
-      return false;
+    List<Source> unitSources = new ArrayList<Source>();
+    unitSources.add(librarySource);
+
+    for (CompilationUnitElement part : library.getParts()) {
+      unitSources.add(part.getSource());
     }
+
+    for (Source unitSource : unitSources) {
+      if (!warmContext.modificationStamps.containsKey(unitSource)) {
+        Long modificationStamp = modificationStamps.get(unitSource);
+
+        if (modificationStamp == null) {
+          modificationStamp = getModificationStamp(unitSource, analysisStart);
+        }
+
+        warmContext.modificationStamps.put(unitSource, modificationStamp);
+        warmContext.librarySources.put(unitSource, librarySource);
+        changeSet.added(unitSource);
+      }
+    }
+
+    for (LibraryElement importedLibrary : library.getImportedLibraries()) {
+      recordModificationStamps(
+          warmContext,
+          importedLibrary,
+          changeSet,
+          visitedLibraries,
+          modificationStamps,
+          analysisStart);
+    }
+
+    for (LibraryElement exportedLibrary : library.getExportedLibraries()) {
+      recordModificationStamps(
+          warmContext,
+          exportedLibrary,
+          changeSet,
+          visitedLibraries,
+          modificationStamps,
+          analysisStart);
+    }
+  }
+
+  /**
+   * Record the modification stamps of the sources of the libraries that have been analyzed in the
+   * given context, so that the next invocation can tell whether they have changed. The given table
+   * holds the modification stamps of the library files captured before the analysis that started
+   * at the given time.
+   */
+  private void recordModificationStamps(WarmContext warmContext, List<File> sourceFiles,
+      Map<Source, Long> modificationStamps, long analysisStart) {
+    AnalysisContext context = warmContext.context;
+    ChangeSet changeSet = new ChangeSet();
+    Set<LibraryElement> visitedLibraries = new HashSet<LibraryElement>();
+
+    for (File sourceFile : sourceFiles) {
+      Source librarySource = new FileBasedSource(context.getSourceFactory(), sourceFile);
+
+      recordModificationStamps(
+          warmContext,
+          context.getLibraryElementOrNull(librarySource),
+          changeSet,
+          visitedLibraries,
+          modificationStamps,
+          analysisStart);
+    }
+
+    context.applyChanges(changeSet);
   }
 
 }
@@ -13,6 +13,7 @@
  */
 package com.google.dart.command.analyze;
 
+import com.google.dart.command.analyze.AnalyzerImpl.LibraryListener;
 import com.google.dart.command.analyze.BatchRunner.BatchRunnerInvocation;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.error.AnalysisError;
@@ -115,9 +116,7 @@ public class AnalyzerMain {
           System.exit(result.ordinal());
         }
       } else {
-        String sourceFilePath = options.getSourceFile();
-
-        if (sourceFilePath == null) {
+        if (options.getSourceFiles().isEmpty()) {
           System.out.println(PROGRAM_NAME + ": no source files were specified.");
           showUsage(options, System.out);
           System.exit(1);
@@ -142,32 +141,39 @@ public class AnalyzerMain {
   }
 
   /**
-   * Invoke the compiler to build all of the files passed on the command line
+   * Invoke the analyzer on all of the files passed on the command line, reporting the errors of each
+   * library as soon as it has been analyzed.
    * 
    * @param analyzerOptions parsed command line arguments
-   * @return {@code  true} on success, {@code false} on failure.
+   * @return the maximum severity of the errors found
    */
   protected static ErrorSeverity runAnalyzer(AnalyzerImpl analyzer, AnalyzerOptions options)
       throws IOException, AnalysisException {
-    File sourceFile = new File(options.getSourceFile());
-
-    if (!sourceFile.exists()) {
-      System.out.println(PROGRAM_NAME + ": file not found: " + sourceFile);
-      System.out.println();
-      showUsage(options, System.out);
-      return ErrorSeverity.ERROR;
-    }
+    List<File> sourceFiles = new ArrayList<File>();
 
-    ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
-        : System.out, options);
+    for (String sourceFilePath : options.getSourceFiles()) {
+      File sourceFile = new File(sourceFilePath);
 
-    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+      if (!sourceFile.exists()) {
+        System.out.println(PROGRAM_NAME + ": file not found: " + sourceFile);
+        System.out.println();
+        showUsage(options, System.out);
+        return ErrorSeverity.ERROR;
+      }
 
-    formatter.startAnalysis();
+      sourceFiles.add(sourceFile);
+    }
 
-    ErrorSeverity status = analyzer.analyze(sourceFile, errors);
+    final ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
+        : System.out, options);
 
-    formatter.formatErrors(errors);
+    ErrorSeverity status = analyzer.analyze(sourceFiles, options, new LibraryListener() {
+      @Override
+      public void libraryAnalyzed(File sourceFile, List<AnalysisError> errors) {
+        formatter.startAnalysis(sourceFile);
+        formatter.formatErrors(errors);
+      }
+    });
 
     if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
       status = ErrorSeverity.ERROR;
@@ -136,9 +136,20 @@ public class AnalyzerOptions {
   private boolean fatalTypeError = false;
 
   @Option(name = "--create-sdk-index", //
-  metaVar = "<file>")
+  metaVar = "<dir>", //
+  usage = "Create the prebuilt index of the SDK in the given directory")
   private File sdkIndexLocation = null;
 
+  @Option(name = "--summary-dir", //
+  metaVar = "<dir>", //
+  usage = "The directory in which summaries of SDK and package libraries are cached")
+  private File summaryDirectory = null;
+
+  @Option(name = "--jobs", //
+  metaVar = "<n>", //
+  usage = "The number of libraries to analyze concurrently")
+  private int jobCount = 1;
+
   @Option(name = "--test")
   private boolean runTests = false;
 
@@ -147,7 +158,7 @@ public class AnalyzerOptions {
   private boolean ignoreUnrecognizedFlags;
 
   @Argument
-  private final String sourceFile = null;
+  private final List<String> sourceFiles = new ArrayList<String>();
 
   public AnalyzerOptions() {
 
@@ -160,6 +171,13 @@ public class AnalyzerOptions {
     return dartSdkPath;
   }
 
+  /**
+   * @return the number of libraries to analyze concurrently
+   */
+  public int getJobCount() {
+    return jobCount;
+  }
+
   public boolean getMachineFormat() {
     return machineFormat;
   }
@@ -176,7 +194,7 @@ public class AnalyzerOptions {
   }
 
   /**
-   * @return the output location to use when creating an SDK index
+   * @return the output directory to use when creating an SDK index
    */
   public File getSdkIndexLocation() {
     return sdkIndexLocation;
@@ -196,11 +214,18 @@ public class AnalyzerOptions {
     return showVersion;
   }
 
+  /**
+   * @return the directory in which library summaries are cached, if specified
+   */
+  public File getSummaryDirectory() {
+    return summaryDirectory;
+  }
+
   /**
    * Returns the list of files passed to the analyzer.
    */
-  public String getSourceFile() {
-    return sourceFile;
+  public List<String> getSourceFiles() {
+    return sourceFiles;
   }
 
   /**
@@ -235,6 +260,9 @@ public class AnalyzerOptions {
    * <p>
    * (In batch mode, command line arguments are received through stdin and returning pass/fail
    * status through stdout. Batch mode is used in test execution.)
+   * <p>
+   * The SDK and package libraries resolved for one command line are reused by the following ones,
+   * so batch mode is also the cheapest way to analyze many entry points.
    */
   public boolean shouldBatch() {
     return batch;
@@ -22,6 +22,7 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.LineInfo;
 import com.google.dart.engine.utilities.source.LineInfo.Location;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.nio.CharBuffer;
 import java.util.Collections;
@@ -153,9 +154,9 @@ public class ErrorFormatter {
     }
   }
 
-  public void startAnalysis() {
+  public void startAnalysis(File sourceFile) {
     if (!options.getMachineFormat()) {
-      out.println("Analyzing " + options.getSourceFile() + "...");
+      out.println("Analyzing " + sourceFile + "...");
     }
   }
 
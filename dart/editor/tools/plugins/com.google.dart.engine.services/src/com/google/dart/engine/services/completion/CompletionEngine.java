@@ -1104,6 +1104,17 @@ public class CompletionEngine {
     return filter.match(element);
   }
 
+  /**
+   * Return a search pattern matching the names that pass the current filter, so that the index only
+   * returns the top-level declarations that can be proposed.
+   */
+  private SearchPattern createFilterPattern() {
+    if (filter == null || filter.prefix.length() == 0) {
+      return SearchPatternFactory.createWildcardPattern("*", false);
+    }
+    return SearchPatternFactory.createPrefixPattern(filter.prefix, true);
+  }
+
   private boolean filterDisallows(Element element) {
     return !filter.match(element);
   }
@@ -1115,7 +1126,7 @@ public class CompletionEngine {
   private Element[] findAllFunctions() {
     SearchEngine engine = context.getSearchEngine();
     SearchScope scope = SearchScopeFactory.createUniverseScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
+    SearchPattern pattern = createFilterPattern();
     List<SearchMatch> matches = engine.searchFunctionDeclarations(scope, pattern, null);
     return extractElementsFromSearchMatches(matches);
   }
@@ -1123,7 +1134,7 @@ public class CompletionEngine {
   private Element[] findAllTypes() {
     SearchEngine engine = context.getSearchEngine();
     SearchScope scope = SearchScopeFactory.createUniverseScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
+    SearchPattern pattern = createFilterPattern();
     List<SearchMatch> matches = engine.searchTypeDeclarations(scope, pattern, null);
     return extractElementsFromSearchMatches(matches);
   }
@@ -1131,7 +1142,7 @@ public class CompletionEngine {
   private Element[] findAllVariables() {
     SearchEngine engine = context.getSearchEngine();
     SearchScope scope = SearchScopeFactory.createUniverseScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
+    SearchPattern pattern = createFilterPattern();
     List<SearchMatch> matches = engine.searchVariableDeclarations(scope, pattern, null);
     return extractElementsFromSearchMatches(matches);
   }
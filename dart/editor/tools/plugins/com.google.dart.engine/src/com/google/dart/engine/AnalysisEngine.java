@@ -15,6 +15,7 @@ package com.google.dart.engine;
 
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.source.FileContentCache;
 import com.google.dart.engine.utilities.io.FileUtilities;
 import com.google.dart.engine.utilities.logging.Logger;
 
@@ -81,6 +82,11 @@ public final class AnalysisEngine {
     return extension.equalsIgnoreCase(SUFFIX_HTML) || extension.equalsIgnoreCase(SUFFIX_HTM);
   }
 
+  /**
+   * The cache holding the contents of files, shared by the source factories of all contexts.
+   */
+  private final FileContentCache fileContentCache = new FileContentCache();
+
   /**
    * The logger that should receive information about errors within the analysis engine.
    */
@@ -102,6 +108,17 @@ public final class AnalysisEngine {
     return new AnalysisContextImpl();
   }
 
+  /**
+   * Return the cache holding the contents of files, which is shared by all of the source factories
+   * that are not given a cache of their own, so that a file read in several contexts is held in
+   * memory only once.
+   * 
+   * @return the cache holding the contents of files
+   */
+  public FileContentCache getFileContentCache() {
+    return fileContentCache;
+  }
+
   /**
    * Return the logger that should receive information about errors within the analysis engine.
    * 
@@ -156,6 +156,15 @@ public class Comment extends ASTNode {
     return references;
   }
 
+  /**
+   * Return the tokens representing the comment.
+   * 
+   * @return the tokens representing the comment
+   */
+  public Token[] getTokens() {
+    return tokens;
+  }
+
   /**
    * Return {@code true} if this is a block comment.
    * 
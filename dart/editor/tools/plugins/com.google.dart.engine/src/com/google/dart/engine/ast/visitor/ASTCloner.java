@@ -0,0 +1,1038 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.*;
+import com.google.dart.engine.scanner.BeginToken;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenType;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Instances of the class {@code ASTCloner} create copies of AST structures. A copy shares neither
+ * nodes nor tokens with the original, so the copy can be modified without affecting clients that
+ * are still using the original. Only the structure is copied: the copy has not been resolved, even
+ * if the original had been.
+ * <p>
+ * When a compilation unit is {@link #cloneUnit(CompilationUnit) cloned}, its token stream is copied
+ * as well, and the line information and parsing errors of the unit are shared with the copy. The
+ * copy of any node or token that was cloned can be found using one of the {@code getCopy} methods.
+ * 
+ * @coverage dart.engine.ast
+ */
+public class ASTCloner implements ASTVisitor<ASTNode> {
+  /**
+   * A table mapping the nodes that have been cloned to their copies.
+   */
+  private final IdentityHashMap<ASTNode, ASTNode> nodeMap = new IdentityHashMap<ASTNode, ASTNode>();
+
+  /**
+   * A table mapping the tokens that have been copied to their copies.
+   */
+  private final IdentityHashMap<Token, Token> tokenMap = new IdentityHashMap<Token, Token>();
+
+  /**
+   * Initialize a newly created cloner.
+   */
+  public ASTCloner() {
+    super();
+  }
+
+  /**
+   * Return a copy of the given compilation unit, including a copy of its token stream.
+   * 
+   * @param unit the compilation unit to be cloned
+   * @return a copy of the given compilation unit
+   */
+  public CompilationUnit cloneUnit(CompilationUnit unit) {
+    copyTokens(unit.getBeginToken());
+    return cloneNode(unit);
+  }
+
+  /**
+   * Return the copy of the given node, or {@code null} if the node has not been cloned.
+   * 
+   * @param node the node whose copy is to be returned
+   * @return the copy of the given node
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends ASTNode> E getCopy(E node) {
+    return (E) nodeMap.get(node);
+  }
+
+  /**
+   * Return the copy of the given token, or {@code null} if the given token is {@code null}. Tokens
+   * that are not part of a token stream that was copied, such as the synthetic tokens created by
+   * the parser, are copied the first time they are requested.
+   * 
+   * @param token the token whose copy is to be returned
+   * @return the copy of the given token
+   */
+  public Token getCopy(Token token) {
+    if (token == null) {
+      return null;
+    }
+    Token copy = tokenMap.get(token);
+    if (copy == null) {
+      copy = token.copy();
+      tokenMap.put(token, copy);
+    }
+    return copy;
+  }
+
+  @Override
+  public AdjacentStrings visitAdjacentStrings(AdjacentStrings node) {
+    return new AdjacentStrings(cloneNodeList(node.getStrings()));
+  }
+
+  @Override
+  public Annotation visitAnnotation(Annotation node) {
+    return new Annotation(
+        getCopy(node.getAtSign()),
+        cloneNode(node.getName()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getConstructorName()),
+        cloneNode(node.getArguments()));
+  }
+
+  @Override
+  public ArgumentDefinitionTest visitArgumentDefinitionTest(ArgumentDefinitionTest node) {
+    return new ArgumentDefinitionTest(getCopy(node.getQuestion()), cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public ArgumentList visitArgumentList(ArgumentList node) {
+    return new ArgumentList(
+        getCopy(node.getLeftParenthesis()),
+        cloneNodeList(node.getArguments()),
+        getCopy(node.getRightParenthesis()));
+  }
+
+  @Override
+  public AsExpression visitAsExpression(AsExpression node) {
+    return new AsExpression(
+        cloneNode(node.getExpression()),
+        getCopy(node.getAsOperator()),
+        cloneNode(node.getType()));
+  }
+
+  @Override
+  public AssertStatement visitAssertStatement(AssertStatement node) {
+    return new AssertStatement(
+        getCopy(node.getKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getCondition()),
+        getCopy(node.getRightParenthesis()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public AssignmentExpression visitAssignmentExpression(AssignmentExpression node) {
+    return new AssignmentExpression(
+        cloneNode(node.getLeftHandSide()),
+        getCopy(node.getOperator()),
+        cloneNode(node.getRightHandSide()));
+  }
+
+  @Override
+  public BinaryExpression visitBinaryExpression(BinaryExpression node) {
+    return new BinaryExpression(
+        cloneNode(node.getLeftOperand()),
+        getCopy(node.getOperator()),
+        cloneNode(node.getRightOperand()));
+  }
+
+  @Override
+  public Block visitBlock(Block node) {
+    return new Block(
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getStatements()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public BlockFunctionBody visitBlockFunctionBody(BlockFunctionBody node) {
+    return new BlockFunctionBody(cloneNode(node.getBlock()));
+  }
+
+  @Override
+  public BooleanLiteral visitBooleanLiteral(BooleanLiteral node) {
+    return new BooleanLiteral(getCopy(node.getLiteral()), node.getValue());
+  }
+
+  @Override
+  public BreakStatement visitBreakStatement(BreakStatement node) {
+    return new BreakStatement(
+        getCopy(node.getKeyword()),
+        cloneNode(node.getLabel()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public CascadeExpression visitCascadeExpression(CascadeExpression node) {
+    return new CascadeExpression(
+        cloneNode(node.getTarget()),
+        cloneNodeList(node.getCascadeSections()));
+  }
+
+  @Override
+  public CatchClause visitCatchClause(CatchClause node) {
+    return new CatchClause(
+        getCopy(node.getOnKeyword()),
+        cloneNode(node.getExceptionType()),
+        getCopy(node.getCatchKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getExceptionParameter()),
+        getCopy(node.getComma()),
+        cloneNode(node.getStackTraceParameter()),
+        getCopy(node.getRightParenthesis()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public ClassDeclaration visitClassDeclaration(ClassDeclaration node) {
+    return new ClassDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getAbstractKeyword()),
+        getCopy(node.getClassKeyword()),
+        cloneNode(node.getName()),
+        cloneNode(node.getTypeParameters()),
+        cloneNode(node.getExtendsClause()),
+        cloneNode(node.getWithClause()),
+        cloneNode(node.getImplementsClause()),
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getMembers()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public ClassTypeAlias visitClassTypeAlias(ClassTypeAlias node) {
+    return new ClassTypeAlias(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getName()),
+        cloneNode(node.getTypeParameters()),
+        getCopy(node.getEquals()),
+        getCopy(node.getAbstractKeyword()),
+        cloneNode(node.getSuperclass()),
+        cloneNode(node.getWithClause()),
+        cloneNode(node.getImplementsClause()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public Comment visitComment(Comment node) {
+    Token[] tokens = node.getTokens();
+    Token[] copies = new Token[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      copies[i] = getCopy(tokens[i]);
+    }
+    if (node.isDocumentation()) {
+      return Comment.createDocumentationComment(copies, cloneNodeList(node.getReferences()));
+    } else if (node.isBlock()) {
+      return Comment.createBlockComment(copies);
+    }
+    return Comment.createEndOfLineComment(copies);
+  }
+
+  @Override
+  public CommentReference visitCommentReference(CommentReference node) {
+    return new CommentReference(getCopy(node.getNewKeyword()), cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public CompilationUnit visitCompilationUnit(CompilationUnit node) {
+    CompilationUnit copy = new CompilationUnit(
+        getCopy(node.getBeginToken()),
+        cloneNode(node.getScriptTag()),
+        cloneNodeList(node.getDirectives()),
+        cloneNodeList(node.getDeclarations()),
+        getCopy(node.getEndToken()));
+    copy.setLineInfo(node.getLineInfo());
+    copy.setParsingErrors(node.getParsingErrors());
+    return copy;
+  }
+
+  @Override
+  public ConditionalExpression visitConditionalExpression(ConditionalExpression node) {
+    return new ConditionalExpression(
+        cloneNode(node.getCondition()),
+        getCopy(node.getQuestion()),
+        cloneNode(node.getThenExpression()),
+        getCopy(node.getColon()),
+        cloneNode(node.getElseExpression()));
+  }
+
+  @Override
+  public ConstructorDeclaration visitConstructorDeclaration(ConstructorDeclaration node) {
+    return new ConstructorDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getExternalKeyword()),
+        getCopy(node.getConstKeyword()),
+        getCopy(node.getFactoryKeyword()),
+        cloneNode(node.getReturnType()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getName()),
+        cloneNode(node.getParameters()),
+        getCopy(node.getSeparator()),
+        cloneNodeList(node.getInitializers()),
+        cloneNode(node.getRedirectedConstructor()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public ConstructorFieldInitializer visitConstructorFieldInitializer(
+      ConstructorFieldInitializer node) {
+    return new ConstructorFieldInitializer(
+        getCopy(node.getKeyword()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getFieldName()),
+        getCopy(node.getEquals()),
+        cloneNode(node.getExpression()));
+  }
+
+  @Override
+  public ConstructorName visitConstructorName(ConstructorName node) {
+    return new ConstructorName(
+        cloneNode(node.getType()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getName()));
+  }
+
+  @Override
+  public ContinueStatement visitContinueStatement(ContinueStatement node) {
+    return new ContinueStatement(
+        getCopy(node.getKeyword()),
+        cloneNode(node.getLabel()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public DeclaredIdentifier visitDeclaredIdentifier(DeclaredIdentifier node) {
+    return new DeclaredIdentifier(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getType()),
+        cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public DefaultFormalParameter visitDefaultFormalParameter(DefaultFormalParameter node) {
+    return new DefaultFormalParameter(
+        cloneNode(node.getParameter()),
+        node.getKind(),
+        getCopy(node.getSeparator()),
+        cloneNode(node.getDefaultValue()));
+  }
+
+  @Override
+  public DoStatement visitDoStatement(DoStatement node) {
+    return new DoStatement(
+        getCopy(node.getDoKeyword()),
+        cloneNode(node.getBody()),
+        getCopy(node.getWhileKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getCondition()),
+        getCopy(node.getRightParenthesis()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public DoubleLiteral visitDoubleLiteral(DoubleLiteral node) {
+    return new DoubleLiteral(getCopy(node.getLiteral()), node.getValue());
+  }
+
+  @Override
+  public EmptyFunctionBody visitEmptyFunctionBody(EmptyFunctionBody node) {
+    return new EmptyFunctionBody(getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public EmptyStatement visitEmptyStatement(EmptyStatement node) {
+    return new EmptyStatement(getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public ExportDirective visitExportDirective(ExportDirective node) {
+    return new ExportDirective(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getUri()),
+        cloneNodeList(node.getCombinators()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public ExpressionFunctionBody visitExpressionFunctionBody(ExpressionFunctionBody node) {
+    return new ExpressionFunctionBody(
+        getCopy(node.getFunctionDefinition()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public ExpressionStatement visitExpressionStatement(ExpressionStatement node) {
+    return new ExpressionStatement(cloneNode(node.getExpression()), getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public ExtendsClause visitExtendsClause(ExtendsClause node) {
+    return new ExtendsClause(getCopy(node.getKeyword()), cloneNode(node.getSuperclass()));
+  }
+
+  @Override
+  public FieldDeclaration visitFieldDeclaration(FieldDeclaration node) {
+    return new FieldDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getFields()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public FieldFormalParameter visitFieldFormalParameter(FieldFormalParameter node) {
+    return new FieldFormalParameter(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getType()),
+        getCopy(node.getThisToken()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public ForEachStatement visitForEachStatement(ForEachStatement node) {
+    return new ForEachStatement(
+        getCopy(node.getForKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getLoopVariable()),
+        getCopy(node.getInKeyword()),
+        cloneNode(node.getIterator()),
+        getCopy(node.getRightParenthesis()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public FormalParameterList visitFormalParameterList(FormalParameterList node) {
+    return new FormalParameterList(
+        getCopy(node.getLeftParenthesis()),
+        cloneNodeList(node.getParameters()),
+        getCopy(node.getLeftDelimiter()),
+        getCopy(node.getRightDelimiter()),
+        getCopy(node.getRightParenthesis()));
+  }
+
+  @Override
+  public ForStatement visitForStatement(ForStatement node) {
+    return new ForStatement(
+        getCopy(node.getForKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getVariables()),
+        cloneNode(node.getInitialization()),
+        getCopy(node.getLeftSeparator()),
+        cloneNode(node.getCondition()),
+        getCopy(node.getRightSeparator()),
+        cloneNodeList(node.getUpdaters()),
+        getCopy(node.getRightParenthesis()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public FunctionDeclaration visitFunctionDeclaration(FunctionDeclaration node) {
+    return new FunctionDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getExternalKeyword()),
+        cloneNode(node.getReturnType()),
+        getCopy(node.getPropertyKeyword()),
+        cloneNode(node.getName()),
+        cloneNode(node.getFunctionExpression()));
+  }
+
+  @Override
+  public FunctionDeclarationStatement visitFunctionDeclarationStatement(
+      FunctionDeclarationStatement node) {
+    return new FunctionDeclarationStatement(cloneNode(node.getFunctionDeclaration()));
+  }
+
+  @Override
+  public FunctionExpression visitFunctionExpression(FunctionExpression node) {
+    return new FunctionExpression(cloneNode(node.getParameters()), cloneNode(node.getBody()));
+  }
+
+  @Override
+  public FunctionExpressionInvocation visitFunctionExpressionInvocation(
+      FunctionExpressionInvocation node) {
+    return new FunctionExpressionInvocation(
+        cloneNode(node.getFunction()),
+        cloneNode(node.getArgumentList()));
+  }
+
+  @Override
+  public FunctionTypeAlias visitFunctionTypeAlias(FunctionTypeAlias node) {
+    return new FunctionTypeAlias(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getReturnType()),
+        cloneNode(node.getName()),
+        cloneNode(node.getTypeParameters()),
+        cloneNode(node.getParameters()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public FunctionTypedFormalParameter visitFunctionTypedFormalParameter(
+      FunctionTypedFormalParameter node) {
+    return new FunctionTypedFormalParameter(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        cloneNode(node.getReturnType()),
+        cloneNode(node.getIdentifier()),
+        cloneNode(node.getParameters()));
+  }
+
+  @Override
+  public HideCombinator visitHideCombinator(HideCombinator node) {
+    return new HideCombinator(getCopy(node.getKeyword()), cloneNodeList(node.getHiddenNames()));
+  }
+
+  @Override
+  public IfStatement visitIfStatement(IfStatement node) {
+    return new IfStatement(
+        getCopy(node.getIfKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getCondition()),
+        getCopy(node.getRightParenthesis()),
+        cloneNode(node.getThenStatement()),
+        getCopy(node.getElseKeyword()),
+        cloneNode(node.getElseStatement()));
+  }
+
+  @Override
+  public ImplementsClause visitImplementsClause(ImplementsClause node) {
+    return new ImplementsClause(getCopy(node.getKeyword()), cloneNodeList(node.getInterfaces()));
+  }
+
+  @Override
+  public ImportDirective visitImportDirective(ImportDirective node) {
+    return new ImportDirective(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getUri()),
+        getCopy(node.getAsToken()),
+        cloneNode(node.getPrefix()),
+        cloneNodeList(node.getCombinators()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public IndexExpression visitIndexExpression(IndexExpression node) {
+    Expression target = node.getArray();
+    if (target == null) {
+      return new IndexExpression(
+          getCopy(node.getPeriod()),
+          getCopy(node.getLeftBracket()),
+          cloneNode(node.getIndex()),
+          getCopy(node.getRightBracket()));
+    }
+    return new IndexExpression(
+        cloneNode(target),
+        getCopy(node.getLeftBracket()),
+        cloneNode(node.getIndex()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public InstanceCreationExpression visitInstanceCreationExpression(
+      InstanceCreationExpression node) {
+    return new InstanceCreationExpression(
+        getCopy(node.getKeyword()),
+        cloneNode(node.getConstructorName()),
+        cloneNode(node.getArgumentList()));
+  }
+
+  @Override
+  public IntegerLiteral visitIntegerLiteral(IntegerLiteral node) {
+    return new IntegerLiteral(getCopy(node.getLiteral()), node.getValue());
+  }
+
+  @Override
+  public InterpolationExpression visitInterpolationExpression(InterpolationExpression node) {
+    return new InterpolationExpression(
+        getCopy(node.getLeftBracket()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public InterpolationString visitInterpolationString(InterpolationString node) {
+    return new InterpolationString(getCopy(node.getContents()), node.getValue());
+  }
+
+  @Override
+  public IsExpression visitIsExpression(IsExpression node) {
+    return new IsExpression(
+        cloneNode(node.getExpression()),
+        getCopy(node.getIsOperator()),
+        getCopy(node.getNotOperator()),
+        cloneNode(node.getType()));
+  }
+
+  @Override
+  public Label visitLabel(Label node) {
+    return new Label(cloneNode(node.getLabel()), getCopy(node.getColon()));
+  }
+
+  @Override
+  public LabeledStatement visitLabeledStatement(LabeledStatement node) {
+    return new LabeledStatement(cloneNodeList(node.getLabels()), cloneNode(node.getStatement()));
+  }
+
+  @Override
+  public LibraryDirective visitLibraryDirective(LibraryDirective node) {
+    return new LibraryDirective(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getLibraryToken()),
+        cloneNode(node.getName()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public LibraryIdentifier visitLibraryIdentifier(LibraryIdentifier node) {
+    return new LibraryIdentifier(cloneNodeList(node.getComponents()));
+  }
+
+  @Override
+  public ListLiteral visitListLiteral(ListLiteral node) {
+    return new ListLiteral(
+        getCopy(node.getModifier()),
+        cloneNode(node.getTypeArguments()),
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getElements()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public MapLiteral visitMapLiteral(MapLiteral node) {
+    return new MapLiteral(
+        getCopy(node.getModifier()),
+        cloneNode(node.getTypeArguments()),
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getEntries()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public MapLiteralEntry visitMapLiteralEntry(MapLiteralEntry node) {
+    return new MapLiteralEntry(
+        cloneNode(node.getKey()),
+        getCopy(node.getSeparator()),
+        cloneNode(node.getValue()));
+  }
+
+  @Override
+  public MethodDeclaration visitMethodDeclaration(MethodDeclaration node) {
+    return new MethodDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getExternalKeyword()),
+        getCopy(node.getModifierKeyword()),
+        cloneNode(node.getReturnType()),
+        getCopy(node.getPropertyKeyword()),
+        getCopy(node.getOperatorKeyword()),
+        cloneNode(node.getName()),
+        cloneNode(node.getParameters()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public MethodInvocation visitMethodInvocation(MethodInvocation node) {
+    return new MethodInvocation(
+        cloneNode(node.getTarget()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getMethodName()),
+        cloneNode(node.getArgumentList()));
+  }
+
+  @Override
+  public NamedExpression visitNamedExpression(NamedExpression node) {
+    return new NamedExpression(cloneNode(node.getName()), cloneNode(node.getExpression()));
+  }
+
+  @Override
+  public NullLiteral visitNullLiteral(NullLiteral node) {
+    return new NullLiteral(getCopy(node.getLiteral()));
+  }
+
+  @Override
+  public ParenthesizedExpression visitParenthesizedExpression(ParenthesizedExpression node) {
+    return new ParenthesizedExpression(
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getRightParenthesis()));
+  }
+
+  @Override
+  public PartDirective visitPartDirective(PartDirective node) {
+    return new PartDirective(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getPartToken()),
+        cloneNode(node.getUri()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public PartOfDirective visitPartOfDirective(PartOfDirective node) {
+    return new PartOfDirective(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getPartToken()),
+        getCopy(node.getOfToken()),
+        cloneNode(node.getLibraryName()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public PostfixExpression visitPostfixExpression(PostfixExpression node) {
+    return new PostfixExpression(cloneNode(node.getOperand()), getCopy(node.getOperator()));
+  }
+
+  @Override
+  public PrefixedIdentifier visitPrefixedIdentifier(PrefixedIdentifier node) {
+    return new PrefixedIdentifier(
+        cloneNode(node.getPrefix()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public PrefixExpression visitPrefixExpression(PrefixExpression node) {
+    return new PrefixExpression(getCopy(node.getOperator()), cloneNode(node.getOperand()));
+  }
+
+  @Override
+  public PropertyAccess visitPropertyAccess(PropertyAccess node) {
+    return new PropertyAccess(
+        cloneNode(node.getTarget()),
+        getCopy(node.getOperator()),
+        cloneNode(node.getPropertyName()));
+  }
+
+  @Override
+  public RedirectingConstructorInvocation visitRedirectingConstructorInvocation(
+      RedirectingConstructorInvocation node) {
+    return new RedirectingConstructorInvocation(
+        getCopy(node.getKeyword()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getConstructorName()),
+        cloneNode(node.getArgumentList()));
+  }
+
+  @Override
+  public ReturnStatement visitReturnStatement(ReturnStatement node) {
+    return new ReturnStatement(
+        getCopy(node.getKeyword()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public ScriptTag visitScriptTag(ScriptTag node) {
+    return new ScriptTag(getCopy(node.getScriptTag()));
+  }
+
+  @Override
+  public ShowCombinator visitShowCombinator(ShowCombinator node) {
+    return new ShowCombinator(getCopy(node.getKeyword()), cloneNodeList(node.getShownNames()));
+  }
+
+  @Override
+  public SimpleFormalParameter visitSimpleFormalParameter(SimpleFormalParameter node) {
+    return new SimpleFormalParameter(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getType()),
+        cloneNode(node.getIdentifier()));
+  }
+
+  @Override
+  public SimpleIdentifier visitSimpleIdentifier(SimpleIdentifier node) {
+    return new SimpleIdentifier(getCopy(node.getToken()));
+  }
+
+  @Override
+  public SimpleStringLiteral visitSimpleStringLiteral(SimpleStringLiteral node) {
+    return new SimpleStringLiteral(getCopy(node.getLiteral()), node.getValue());
+  }
+
+  @Override
+  public StringInterpolation visitStringInterpolation(StringInterpolation node) {
+    return new StringInterpolation(cloneNodeList(node.getElements()));
+  }
+
+  @Override
+  public SuperConstructorInvocation visitSuperConstructorInvocation(
+      SuperConstructorInvocation node) {
+    return new SuperConstructorInvocation(
+        getCopy(node.getKeyword()),
+        getCopy(node.getPeriod()),
+        cloneNode(node.getConstructorName()),
+        cloneNode(node.getArgumentList()));
+  }
+
+  @Override
+  public SuperExpression visitSuperExpression(SuperExpression node) {
+    return new SuperExpression(getCopy(node.getKeyword()));
+  }
+
+  @Override
+  public SwitchCase visitSwitchCase(SwitchCase node) {
+    return new SwitchCase(
+        cloneNodeList(node.getLabels()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getColon()),
+        cloneNodeList(node.getStatements()));
+  }
+
+  @Override
+  public SwitchDefault visitSwitchDefault(SwitchDefault node) {
+    return new SwitchDefault(
+        cloneNodeList(node.getLabels()),
+        getCopy(node.getKeyword()),
+        getCopy(node.getColon()),
+        cloneNodeList(node.getStatements()));
+  }
+
+  @Override
+  public SwitchStatement visitSwitchStatement(SwitchStatement node) {
+    return new SwitchStatement(
+        getCopy(node.getKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getExpression()),
+        getCopy(node.getRightParenthesis()),
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getMembers()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public ThisExpression visitThisExpression(ThisExpression node) {
+    return new ThisExpression(getCopy(node.getKeyword()));
+  }
+
+  @Override
+  public ThrowExpression visitThrowExpression(ThrowExpression node) {
+    return new ThrowExpression(getCopy(node.getKeyword()), cloneNode(node.getExpression()));
+  }
+
+  @Override
+  public TopLevelVariableDeclaration visitTopLevelVariableDeclaration(
+      TopLevelVariableDeclaration node) {
+    return new TopLevelVariableDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        cloneNode(node.getVariables()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public TryStatement visitTryStatement(TryStatement node) {
+    return new TryStatement(
+        getCopy(node.getTryKeyword()),
+        cloneNode(node.getBody()),
+        cloneNodeList(node.getCatchClauses()),
+        getCopy(node.getFinallyKeyword()),
+        cloneNode(node.getFinallyClause()));
+  }
+
+  @Override
+  public TypeArgumentList visitTypeArgumentList(TypeArgumentList node) {
+    return new TypeArgumentList(
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getArguments()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public TypeName visitTypeName(TypeName node) {
+    return new TypeName(cloneNode(node.getName()), cloneNode(node.getTypeArguments()));
+  }
+
+  @Override
+  public TypeParameter visitTypeParameter(TypeParameter node) {
+    return new TypeParameter(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        cloneNode(node.getName()),
+        getCopy(node.getKeyword()),
+        cloneNode(node.getBound()));
+  }
+
+  @Override
+  public TypeParameterList visitTypeParameterList(TypeParameterList node) {
+    return new TypeParameterList(
+        getCopy(node.getLeftBracket()),
+        cloneNodeList(node.getTypeParameters()),
+        getCopy(node.getRightBracket()));
+  }
+
+  @Override
+  public VariableDeclaration visitVariableDeclaration(VariableDeclaration node) {
+    return new VariableDeclaration(
+        cloneNode(node.getDocumentationComment()),
+        cloneNodeList(node.getMetadata()),
+        cloneNode(node.getName()),
+        getCopy(node.getEquals()),
+        cloneNode(node.getInitializer()));
+  }
+
+  @Override
+  public VariableDeclarationList visitVariableDeclarationList(VariableDeclarationList node) {
+    return new VariableDeclarationList(
+        getCopy(node.getKeyword()),
+        cloneNode(node.getType()),
+        cloneNodeList(node.getVariables()));
+  }
+
+  @Override
+  public VariableDeclarationStatement visitVariableDeclarationStatement(
+      VariableDeclarationStatement node) {
+    return new VariableDeclarationStatement(
+        cloneNode(node.getVariables()),
+        getCopy(node.getSemicolon()));
+  }
+
+  @Override
+  public WhileStatement visitWhileStatement(WhileStatement node) {
+    return new WhileStatement(
+        getCopy(node.getKeyword()),
+        getCopy(node.getLeftParenthesis()),
+        cloneNode(node.getCondition()),
+        getCopy(node.getRightParenthesis()),
+        cloneNode(node.getBody()));
+  }
+
+  @Override
+  public WithClause visitWithClause(WithClause node) {
+    return new WithClause(getCopy(node.getWithKeyword()), cloneNodeList(node.getMixinTypes()));
+  }
+
+  /**
+   * Return a copy of the given node, or {@code null} if the node is {@code null}.
+   * 
+   * @param node the node to be cloned
+   * @return a copy of the given node
+   */
+  @SuppressWarnings("unchecked")
+  private <E extends ASTNode> E cloneNode(E node) {
+    if (node == null) {
+      return null;
+    }
+    E copy = (E) node.accept(this);
+    nodeMap.put(node, copy);
+    return copy;
+  }
+
+  /**
+   * Return a list containing copies of the nodes in the given list.
+   * 
+   * @param nodes the nodes to be cloned
+   * @return a list containing copies of the given nodes
+   */
+  private <E extends ASTNode> List<E> cloneNodeList(NodeList<E> nodes) {
+    ArrayList<E> copies = new ArrayList<E>(nodes.size());
+    for (E node : nodes) {
+      copies.add(cloneNode(node));
+    }
+    return copies;
+  }
+
+  /**
+   * Copy the token stream starting with the given token, up to and including the end-of-file token.
+   * If the stream has been compacted, only the tokens that are still linked are copied, and the
+   * remaining tokens are copied when they are requested.
+   * 
+   * @param firstToken the first token in the token stream to be copied
+   */
+  private void copyTokens(Token firstToken) {
+    Token tail = null;
+    Token previous = firstToken.getPrevious();
+    if (previous != null) {
+      // This is the end-of-file token that is used as the head of the token stream.
+      tail = previous.copy();
+      tail.setNext(tail);
+      tokenMap.put(previous, tail);
+    }
+    Token token = firstToken;
+    while (token != null) {
+      Token copy = token.copy();
+      tokenMap.put(token, copy);
+      mapComments(token.getPrecedingComments(), copy.getPrecedingComments());
+      if (token.getType() == TokenType.EOF) {
+        // The end-of-file token points to itself, but its previous token is the last real token.
+        copy.setNext(copy);
+      }
+      if (tail != null) {
+        tail.setNext(copy);
+      }
+      if (token.getType() == TokenType.EOF) {
+        break;
+      }
+      tail = copy;
+      token = token.getNext();
+    }
+    for (Token original = firstToken; original != null; original = original.getNext()) {
+      if (original instanceof BeginToken) {
+        Token endToken = ((BeginToken) original).getEndToken();
+        if (endToken != null) {
+          ((BeginToken) tokenMap.get(original)).setEndToken(getCopy(endToken));
+        }
+      }
+      if (original.getType() == TokenType.EOF) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Record the copies of the comments in the given list of comments, which is a copy of the other
+   * given list of comments.
+   * 
+   * @param comment the first comment in the list of comments that was copied
+   * @param copy the first comment in the copy of the list of comments
+   */
+  private void mapComments(Token comment, Token copy) {
+    while (comment != null) {
+      tokenMap.put(comment, copy);
+      comment = comment.getNext();
+      copy = copy.getNext();
+    }
+  }
+}
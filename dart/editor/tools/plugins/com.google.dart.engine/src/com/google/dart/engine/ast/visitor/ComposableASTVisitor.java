@@ -0,0 +1,558 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.*;
+
+/**
+ * Instances of the class {@code ComposableASTVisitor} implement an AST visitor that will
+ * recursively visit all of the nodes in an AST structure, either on its own, in the same way as a
+ * {@link RecursiveASTVisitor}, or together with other visitors as part of a
+ * {@link CompositeASTVisitor}, in which case the structure is traversed only once for all of them.
+ * <p>
+ * Subclasses that override a visit method must invoke the overridden visit method exactly once,
+ * and must not ask the visited node to visit its children themselves. Failure to do so will cause
+ * the node to not be visited by the visitors that follow this one in a composite visitor.
+ * 
+ * @coverage dart.engine.ast
+ */
+public class ComposableASTVisitor<R> implements ASTVisitor<R> {
+  /**
+   * The visitor used to continue visiting a node after this visitor has visited it, or
+   * {@code null} if this visitor visits the children of the node itself.
+   */
+  private ASTVisitor<?> successor;
+
+  @Override
+  public R visitAdjacentStrings(AdjacentStrings node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitAnnotation(Annotation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitArgumentDefinitionTest(ArgumentDefinitionTest node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitArgumentList(ArgumentList node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitAsExpression(AsExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitAssertStatement(AssertStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitAssignmentExpression(AssignmentExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitBinaryExpression(BinaryExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitBlock(Block node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitBlockFunctionBody(BlockFunctionBody node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitBooleanLiteral(BooleanLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitBreakStatement(BreakStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitCascadeExpression(CascadeExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitCatchClause(CatchClause node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitClassDeclaration(ClassDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitClassTypeAlias(ClassTypeAlias node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitComment(Comment node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitCommentReference(CommentReference node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitCompilationUnit(CompilationUnit node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitConditionalExpression(ConditionalExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitConstructorDeclaration(ConstructorDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitConstructorFieldInitializer(ConstructorFieldInitializer node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitConstructorName(ConstructorName node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitContinueStatement(ContinueStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitDeclaredIdentifier(DeclaredIdentifier node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitDefaultFormalParameter(DefaultFormalParameter node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitDoStatement(DoStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitDoubleLiteral(DoubleLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitEmptyFunctionBody(EmptyFunctionBody node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitEmptyStatement(EmptyStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitExportDirective(ExportDirective node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitExpressionFunctionBody(ExpressionFunctionBody node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitExpressionStatement(ExpressionStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitExtendsClause(ExtendsClause node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFieldDeclaration(FieldDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFieldFormalParameter(FieldFormalParameter node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitForEachStatement(ForEachStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFormalParameterList(FormalParameterList node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitForStatement(ForStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionDeclaration(FunctionDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionDeclarationStatement(FunctionDeclarationStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionExpression(FunctionExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionExpressionInvocation(FunctionExpressionInvocation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionTypeAlias(FunctionTypeAlias node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitFunctionTypedFormalParameter(FunctionTypedFormalParameter node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitHideCombinator(HideCombinator node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitIfStatement(IfStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitImplementsClause(ImplementsClause node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitImportDirective(ImportDirective node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitIndexExpression(IndexExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitInstanceCreationExpression(InstanceCreationExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitIntegerLiteral(IntegerLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitInterpolationExpression(InterpolationExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitInterpolationString(InterpolationString node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitIsExpression(IsExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitLabel(Label node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitLabeledStatement(LabeledStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitLibraryDirective(LibraryDirective node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitLibraryIdentifier(LibraryIdentifier node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitListLiteral(ListLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitMapLiteral(MapLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitMapLiteralEntry(MapLiteralEntry node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitMethodDeclaration(MethodDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitMethodInvocation(MethodInvocation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitNamedExpression(NamedExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitNullLiteral(NullLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitParenthesizedExpression(ParenthesizedExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPartDirective(PartDirective node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPartOfDirective(PartOfDirective node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPostfixExpression(PostfixExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPrefixedIdentifier(PrefixedIdentifier node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPrefixExpression(PrefixExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitPropertyAccess(PropertyAccess node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitRedirectingConstructorInvocation(RedirectingConstructorInvocation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitReturnStatement(ReturnStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitScriptTag(ScriptTag node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitShowCombinator(ShowCombinator node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSimpleFormalParameter(SimpleFormalParameter node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSimpleIdentifier(SimpleIdentifier node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSimpleStringLiteral(SimpleStringLiteral node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitStringInterpolation(StringInterpolation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSuperConstructorInvocation(SuperConstructorInvocation node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSuperExpression(SuperExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSwitchCase(SwitchCase node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSwitchDefault(SwitchDefault node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitSwitchStatement(SwitchStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitThisExpression(ThisExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitThrowExpression(ThrowExpression node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTopLevelVariableDeclaration(TopLevelVariableDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTryStatement(TryStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTypeArgumentList(TypeArgumentList node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTypeName(TypeName node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTypeParameter(TypeParameter node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitTypeParameterList(TypeParameterList node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitVariableDeclaration(VariableDeclaration node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitVariableDeclarationList(VariableDeclarationList node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitVariableDeclarationStatement(VariableDeclarationStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitWhileStatement(WhileStatement node) {
+    return visitChildren(node);
+  }
+
+  @Override
+  public R visitWithClause(WithClause node) {
+    return visitChildren(node);
+  }
+
+  /**
+   * Visit the children of the given node. If this visitor is part of a {@link CompositeASTVisitor},
+   * the node is first visited by the next visitor in the composite, and the children are visited
+   * by all of the visitors in the composite only once the last one has visited the node.
+   * 
+   * @param node the node whose children are to be visited
+   * @return the value returned by visiting the children, which is always {@code null}
+   */
+  protected R visitChildren(ASTNode node) {
+    if (successor == null) {
+      node.visitChildren(this);
+    } else {
+      node.accept(successor);
+    }
+    return null;
+  }
+
+  /**
+   * Set the visitor used to continue visiting a node after this visitor has visited it to the
+   * given visitor.
+   * 
+   * @param successor the visitor used to continue visiting a node
+   */
+  void setSuccessor(ASTVisitor<?> successor) {
+    this.successor = successor;
+  }
+}
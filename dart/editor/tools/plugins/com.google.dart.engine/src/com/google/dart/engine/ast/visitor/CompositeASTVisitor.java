@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.ASTVisitor;
+
+/**
+ * Instances of the class {@code CompositeASTVisitor} visit an AST structure with several
+ * {@link ComposableASTVisitor composable visitors} in a single traversal of the structure.
+ * <p>
+ * Each node is visited by each of the visitors in the order in which they were given. The visits
+ * are nested, so that the first visitor is the first to start visiting a node and the last to
+ * finish visiting it, and the children of the node are visited between the point at which the last
+ * visitor asks for them to be visited and the point at which it finishes visiting the node. As a
+ * result every visitor observes the same sequence of visits as it would if it were used on its own,
+ * including any state it maintains while visiting the children of a node, but the structure is
+ * only traversed once no matter how many visitors are composed.
+ * <p>
+ * A composable visitor must not be used by more than one composite visitor at a time, and should
+ * not be used on its own while it is part of a composite visitor.
+ * 
+ * @coverage dart.engine.ast
+ */
+public class CompositeASTVisitor extends GeneralizingASTVisitor<Void> {
+  /**
+   * The visitor that visits each node first.
+   */
+  private final ASTVisitor<?> firstVisitor;
+
+  /**
+   * Initialize a newly created visitor to visit each node with the given visitors, in order.
+   * 
+   * @param visitors the visitors that will visit each node
+   */
+  public CompositeASTVisitor(ComposableASTVisitor<?>... visitors) {
+    ASTVisitor<?> nextVisitor = new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        node.visitChildren(CompositeASTVisitor.this);
+        return null;
+      }
+    };
+    for (int i = visitors.length - 1; i >= 0; i--) {
+      visitors[i].setSuccessor(nextVisitor);
+      nextVisitor = visitors[i];
+    }
+    firstVisitor = nextVisitor;
+  }
+
+  @Override
+  public Void visitNode(ASTNode node) {
+    node.accept(firstVisitor);
+    return null;
+  }
+}
@@ -25,6 +25,8 @@ import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
 
+import java.util.List;
+
 /**
  * The interface {@code AnalysisContext} defines the behavior of objects that represent a context in
  * which analysis can be performed. The context includes such information as the version of the SDK
@@ -239,9 +241,12 @@ public interface AnalysisContext {
   /**
    * Perform the next unit of work required to keep the analysis results up-to-date and return
    * information about the consequent changes to the analysis results. If there were no results the
-   * returned array will be empty. This method can be long running.
+   * returned array will be empty. If there is no more work to be performed then {@code null} will
+   * be returned. Each unit of work is small enough that clients can interleave calls to this method
+   * with other work, such as responding to the user.
    * 
-   * @return an array containing notices of changes to the analysis results
+   * @return an array containing notices of changes to the analysis results, or {@code null} if
+   *         there is no more work to be performed
    */
   public ChangeNotice[] performAnalysisTask();
 
@@ -255,6 +260,16 @@ public interface AnalysisContext {
    */
   public CompilationUnit resolve(Source source, LibraryElement library) throws AnalysisException;
 
+  /**
+   * Set the order in which sources will be analyzed by {@link #performAnalysisTask()} to match the
+   * order of the sources in the given list. Sources that are not in the list will be analyzed after
+   * the sources in the list, typically because the sources in the list are open in an editor.
+   * 
+   * @param sources the sources that are to be given priority, in the order in which they are to be
+   *          analyzed
+   */
+  public void setAnalysisPriorityOrder(List<Source> sources);
+
   /**
    * Set the source factory used to create the sources that can be analyzed in this context to the
    * given source factory. Clients can safely assume that all analysis results have been
@@ -163,6 +163,17 @@ public interface ClassElement extends Element {
    */
   public PropertyAccessorElement lookUpGetter(String getterName, LibraryElement library);
 
+  /**
+   * Return the element representing the getter with the given name that is declared in this class
+   * or in one of the classes it implements or extends, either directly or indirectly, or
+   * {@code null} if there is no such getter. The interfaces of a class are searched before its
+   * superclass, and privacy is not taken into account.
+   * 
+   * @param getterName the name of the getter being looked up
+   * @return the getter with the given name that is declared in this class or its supertypes
+   */
+  public PropertyAccessorElement lookUpGetterInInterfaces(String getterName);
+
   /**
    * Return the element representing the method that results from looking up the given method in
    * this class with respect to the given library, or {@code null} if the look up fails. The
@@ -184,6 +195,17 @@ public interface ClassElement extends Element {
    */
   public MethodElement lookUpMethod(String methodName, LibraryElement library);
 
+  /**
+   * Return the element representing the method with the given name that is declared in this class
+   * or in one of the classes it implements or extends, either directly or indirectly, or
+   * {@code null} if there is no such method. The interfaces of a class are searched before its
+   * superclass, and privacy is not taken into account.
+   * 
+   * @param methodName the name of the method being looked up
+   * @return the method with the given name that is declared in this class or its supertypes
+   */
+  public MethodElement lookUpMethodInInterfaces(String methodName);
+
   /**
    * Return the element representing the setter that results from looking up the given setter in
    * this class with respect to the given library, or {@code null} if the look up fails. The
@@ -205,4 +227,15 @@ public interface ClassElement extends Element {
    *         library
    */
   public PropertyAccessorElement lookUpSetter(String setterName, LibraryElement library);
+
+  /**
+   * Return the element representing the setter with the given name that is declared in this class
+   * or in one of the classes it implements or extends, either directly or indirectly, or
+   * {@code null} if there is no such setter. The interfaces of a class are searched before its
+   * superclass, and privacy is not taken into account.
+   * 
+   * @param setterName the name of the setter being looked up
+   * @return the setter with the given name that is declared in this class or its supertypes
+   */
+  public PropertyAccessorElement lookUpSetterInInterfaces(String setterName);
 }
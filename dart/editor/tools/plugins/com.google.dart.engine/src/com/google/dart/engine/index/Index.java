@@ -46,6 +46,21 @@ public interface Index {
    */
   void getRelationships(Element element, Relationship relationship, RelationshipCallback callback);
 
+  /**
+   * Asynchronously invoke the given callback with an array containing the locations of the elements
+   * that have the given relationship with the given element and whose names start with the given
+   * prefix, ignoring case. For example, if the element is the universe and the relationship is the
+   * defines-class relationship, then the locations that will be passed into the callback will be
+   * the declarations of the classes whose names start with the prefix.
+   * 
+   * @param element the element that has the relationship with the locations to be returned
+   * @param relationship the relationship between the given element and the locations to be returned
+   * @param namePrefix the prefix with which the names of the elements at the locations start
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  void getRelationships(Element element, Relationship relationship, String namePrefix,
+      RelationshipCallback callback);
+
   /**
    * Asynchronously process the given {@link CompilationUnit} in order to record the relationships.
    * 
@@ -13,23 +13,47 @@
  */
 package com.google.dart.engine.index;
 
+import com.google.dart.engine.internal.index.CompactIndexStoreImpl;
 import com.google.dart.engine.internal.index.IndexImpl;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
+import com.google.dart.engine.internal.index.SegmentedIndexStoreImpl;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
 import com.google.dart.engine.internal.index.operation.OperationQueue;
 
+import java.util.concurrent.Executor;
+
 /**
  * Factory for {@link Index} and {@link IndexStore}.
  * 
  * @coverage dart.engine.index
  */
 public class IndexFactory {
+  /**
+   * @return the new instance of {@link IndexStore} which keeps the index in memory using packed
+   *         primitive arrays, trading the ability to be written to a stream for a much smaller
+   *         footprint than {@link #newMemoryIndexStore()}.
+   */
+  public static IndexStore newCompactIndexStore() {
+    return new CompactIndexStoreImpl();
+  }
+
   /**
    * @return the new instance of {@link Index} which uses given {@link IndexStore}.
    */
   public static Index newIndex(IndexStore store) {
+    return newIndex(store, 1);
+  }
+
+  /**
+   * @param store the {@link IndexStore} to keep relationships in
+   * @param indexingThreadCount the number of threads to compute relationships of units on,
+   *          {@code 1} to index all units on the thread running the {@link Index}
+   * @return the new instance of {@link Index} which uses given {@link IndexStore} and indexes units
+   *         on the given number of threads.
+   */
+  public static Index newIndex(IndexStore store, int indexingThreadCount) {
     OperationQueue queue = new OperationQueue();
-    OperationProcessor processor = new OperationProcessor(queue);
+    OperationProcessor processor = new OperationProcessor(queue, indexingThreadCount);
     return new IndexImpl(store, queue, processor);
   }
 
@@ -39,4 +63,13 @@ public class IndexFactory {
   public static MemoryIndexStore newMemoryIndexStore() {
     return new MemoryIndexStoreImpl();
   }
+
+  /**
+   * @param compactionExecutor the {@link Executor} to compact segments in background, may be
+   *          <code>null</code>
+   * @return the new instance of {@link SegmentedIndexStore}.
+   */
+  public static SegmentedIndexStore newSegmentedIndexStore(Executor compactionExecutor) {
+    return new SegmentedIndexStoreImpl(compactionExecutor);
+  }
 }
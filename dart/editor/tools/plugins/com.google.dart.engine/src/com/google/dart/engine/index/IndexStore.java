@@ -24,7 +24,7 @@ import com.google.dart.engine.source.SourceContainer;
  * 
  * @coverage dart.engine.index
  */
-public interface IndexStore {
+public interface IndexStore extends RelationshipRecorder {
   /**
    * Remove all data from this index.
    */
@@ -58,30 +58,19 @@ public interface IndexStore {
   Location[] getRelationships(Element element, Relationship relationship);
 
   /**
-   * Record that the given element and location have the given relationship. For example, if the
-   * relationship is the is-referenced-by relationship, then the element would be the element being
-   * referenced and the location would be the point at which it is referenced. Each element can have
-   * the same relationship with multiple locations. In other words, if the following code were
-   * executed
+   * Return the locations of the elements that have the given relationship with the given element
+   * and whose names start with the given prefix, ignoring case. This is used to find declarations by
+   * name. Stores can index the declarations related to the {@link UniverseElement universe} by name
+   * so that they are found without visiting all of the declarations.
    * 
-   * <pre>
-   *   recordRelationship(element, isReferencedBy, location1);
-   *   recordRelationship(element, isReferencedBy, location2);
-   * </pre>
-   * 
-   * then both relationships would be maintained in the index and the result of executing
-   * 
-   * <pre>
-   *   getRelationship(element, isReferencedBy);
-   * </pre>
-   * 
-   * would be an array containing both <code>location1</code> and <code>location2</code>.
-   * 
-   * @param element the element that is related to the location
-   * @param relationship the {@link Relationship} between the element and the location
-   * @param location the {@link Location} where relationship happens
+   * @param element the the element that has the relationship with the locations to be returned
+   * @param relationship the {@link Relationship} between the given element and the locations to be
+   *          returned
+   * @param namePrefix the prefix with which the names of the elements at the returned locations
+   *          start
+   * @return the locations that have the given relationship with the given element
    */
-  void recordRelationship(Element element, Relationship relationship, Location location);
+  Location[] getRelationships(Element element, Relationship relationship, String namePrefix);
 
   /**
    * Remove from the index all of the information associated with {@link AnalysisContext}.
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.context.AnalysisContext;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * {@link IndexStore} which keeps the index of each {@link AnalysisContext} in segment files, which
+ * are mapped into memory and searched without reading the whole index.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface SegmentedIndexStore extends IndexStore {
+  /**
+   * Merges all segments of the given {@link AnalysisContext} into a single segment.
+   * 
+   * @param context the {@link AnalysisContext} to compact segments of
+   * @throws IOException if the merged segment could not be written
+   */
+  void compact(AnalysisContext context) throws IOException;
+
+  /**
+   * Writes the information recorded for the given {@link AnalysisContext} since the last flush as
+   * a new segment.
+   * 
+   * @param context the {@link AnalysisContext} to flush
+   * @throws IOException if the segment could not be written
+   */
+  void flush(AnalysisContext context) throws IOException;
+
+  /**
+   * Specifies the directory to keep the segments of the given {@link AnalysisContext} in, and
+   * opens the segments which are already in this directory.
+   * 
+   * @param context the {@link AnalysisContext} to open segments of
+   * @param directory the directory with segment files
+   * @throws IOException if the segments could not be opened (for example because of version
+   *           mismatch)
+   */
+  void openContext(AnalysisContext context, File directory) throws IOException;
+}
@@ -142,6 +142,7 @@ public class HtmlUnitBuilder implements XmlVisitor<Void> {
           CompilationUnitBuilder builder = new CompilationUnitBuilder(context, errorListener);
           CompilationUnitElementImpl elem = builder.buildCompilationUnit(htmlSource, unit);
           LibraryElementImpl library = new LibraryElementImpl(context, null);
+          context.initializeLibraryElement(library);
           library.setDefiningCompilationUnit(elem);
           script.setScriptLibrary(library);
         } catch (AnalysisException e) {
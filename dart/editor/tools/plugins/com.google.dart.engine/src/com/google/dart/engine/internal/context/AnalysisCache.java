@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.internal.context.CacheRetentionPolicy.ResultKind;
+import com.google.dart.engine.internal.context.CacheRetentionPolicy.RetentionPriority;
+import com.google.dart.engine.source.Source;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Instances of the class {@code AnalysisCache} implement a bounded cache mapping sources to some
+ * analysis result associated with the source. When either the number of entries or the estimated
+ * number of bytes occupied by the entries exceeds the configured limits, entries are evicted
+ * according to the priority assigned to them by a {@link CacheRetentionPolicy retention policy}.
+ * Evicted results are expected to be recomputed on demand.
+ * <p>
+ * Instances of this class are not thread safe; clients are responsible for synchronizing access.
+ * 
+ * @param <V> the type of the values stored in the cache
+ * @coverage dart.engine
+ */
+public class AnalysisCache<V> {
+  /**
+   * Instances of the class {@code Entry} hold a cached value together with its estimated size.
+   */
+  private static class Entry<V> {
+    /**
+     * The value being cached.
+     */
+    private final V value;
+
+    /**
+     * The number of bytes the value is estimated to occupy.
+     */
+    private final long size;
+
+    /**
+     * Initialize a newly created entry.
+     * 
+     * @param value the value being cached
+     * @param size the number of bytes the value is estimated to occupy
+     */
+    private Entry(V value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+
+  /**
+   * The interface {@code SizeEstimator} defines the behavior of objects that can estimate the
+   * number of bytes occupied by the values stored in a cache.
+   * 
+   * @param <V> the type of the values whose size can be estimated
+   */
+  public interface SizeEstimator<V> {
+    /**
+     * Return an estimate of the number of bytes occupied by the given value.
+     * 
+     * @param value the value whose size is to be estimated
+     * @return an estimate of the number of bytes occupied by the value
+     */
+    public long estimateSize(V value);
+  }
+
+  /**
+   * A size estimator that does not bound the cache by size.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final SizeEstimator NO_SIZE = new SizeEstimator() {
+    @Override
+    public long estimateSize(Object value) {
+      return 0L;
+    }
+  };
+
+  /**
+   * Return a size estimator that estimates every value as having no size, so that a cache using
+   * it is bounded only by the number of entries.
+   * 
+   * @return a size estimator that estimates every value as having no size
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> SizeEstimator<V> noSizeEstimator() {
+    return NO_SIZE;
+  }
+
+  /**
+   * The name of the cache, used when reporting statistics.
+   */
+  private final String name;
+
+  /**
+   * The policy used to determine which entries should be evicted.
+   */
+  private final CacheRetentionPolicy policy;
+
+  /**
+   * The kind of information held by the cache, which is passed to the policy.
+   */
+  private final ResultKind kind;
+
+  /**
+   * The maximum number of entries in the cache.
+   */
+  private final int maxEntries;
+
+  /**
+   * The maximum number of bytes the entries in the cache are estimated to occupy, or a negative
+   * value if the cache is not bounded by size.
+   */
+  private final long maxBytes;
+
+  /**
+   * The object used to estimate the number of bytes occupied by the values in the cache.
+   */
+  private final SizeEstimator<V> estimator;
+
+  /**
+   * The sources that the client has asked the context to give priority to. The set is owned by the
+   * context and is only read by this cache.
+   */
+  private final Set<Source> prioritySources;
+
+  /**
+   * A table mapping sources to the entries for those sources, in least recently used order.
+   */
+  private final LinkedHashMap<Source, Entry<V>> entryMap = new LinkedHashMap<Source, Entry<V>>(
+      16,
+      0.75f,
+      true);
+
+  /**
+   * The number of bytes the entries in the cache are currently estimated to occupy.
+   */
+  private long estimatedBytes = 0L;
+
+  /**
+   * The number of times a value was requested and found in the cache.
+   */
+  private long hitCount = 0L;
+
+  /**
+   * The number of times a value was requested and not found in the cache.
+   */
+  private long missCount = 0L;
+
+  /**
+   * The number of entries that have been evicted in order to keep the cache within its limits.
+   */
+  private long evictionCount = 0L;
+
+  /**
+   * Initialize a newly created cache.
+   * 
+   * @param name the name of the cache, used when reporting statistics
+   * @param policy the policy used to determine which entries should be evicted
+   * @param kind the kind of information held by the cache
+   * @param maxEntries the maximum number of entries in the cache
+   * @param maxBytes the maximum number of bytes the entries in the cache are estimated to occupy, or
+   *          a negative value if the cache is not bounded by size
+   * @param estimator the object used to estimate the number of bytes occupied by the values
+   * @param prioritySources the sources that the client has asked the context to give priority to
+   */
+  public AnalysisCache(String name, CacheRetentionPolicy policy, ResultKind kind, int maxEntries,
+      long maxBytes, SizeEstimator<V> estimator, Set<Source> prioritySources) {
+    this.name = name;
+    this.policy = policy;
+    this.kind = kind;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.estimator = estimator;
+    this.prioritySources = prioritySources;
+  }
+
+  /**
+   * Remove all of the entries from this cache. Removing entries is not counted as an eviction.
+   */
+  public void clear() {
+    entryMap.clear();
+    estimatedBytes = 0L;
+  }
+
+  /**
+   * Return {@code true} if this cache contains a value for the given source. Unlike
+   * {@link #get(Source)}, this method does not affect either the order in which entries will be
+   * evicted or the hit and miss counts.
+   * 
+   * @param source the source being tested
+   * @return {@code true} if this cache contains a value for the given source
+   */
+  public boolean containsKey(Source source) {
+    return entryMap.containsKey(source);
+  }
+
+  /**
+   * Return the value associated with the given source, or {@code null} if there is no value
+   * associated with the source.
+   * 
+   * @param source the source whose value is to be returned
+   * @return the value associated with the given source
+   */
+  public V get(Source source) {
+    Entry<V> entry = entryMap.get(source);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.value;
+  }
+
+  /**
+   * Return a snapshot of the statistics describing the behavior of this cache.
+   * 
+   * @return a snapshot of the statistics describing the behavior of this cache
+   */
+  public CacheStatistics getStatistics() {
+    return new CacheStatistics(
+        name,
+        entryMap.size(),
+        estimatedBytes,
+        hitCount,
+        missCount,
+        evictionCount);
+  }
+
+  /**
+   * Associate the given value with the given source, evicting other entries if necessary in order
+   * to keep the cache within its limits.
+   * 
+   * @param source the source with which the value is to be associated
+   * @param value the value to be associated with the source
+   */
+  public void put(Source source, V value) {
+    long size = estimator.estimateSize(value);
+    Entry<V> oldEntry = entryMap.put(source, new Entry<V>(value, size));
+    if (oldEntry != null) {
+      estimatedBytes -= oldEntry.size;
+    }
+    estimatedBytes += size;
+    evictIfNecessary(source);
+  }
+
+  /**
+   * Associate each of the values in the given table with the corresponding source.
+   * 
+   * @param values a table mapping sources to the values to be associated with them
+   */
+  public void putAll(Map<Source, V> values) {
+    for (Map.Entry<Source, V> entry : values.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Remove the value associated with the given source, returning the value that was removed, or
+   * {@code null} if there was no value associated with the source. Removing an entry is not counted
+   * as an eviction.
+   * 
+   * @param source the source whose value is to be removed
+   * @return the value that was removed
+   */
+  public V remove(Source source) {
+    Entry<V> entry = entryMap.remove(source);
+    if (entry == null) {
+      return null;
+    }
+    estimatedBytes -= entry.size;
+    return entry.value;
+  }
+
+  /**
+   * Return the number of entries in this cache.
+   * 
+   * @return the number of entries in this cache
+   */
+  public int size() {
+    return entryMap.size();
+  }
+
+  @Override
+  public String toString() {
+    return getStatistics().toString();
+  }
+
+  /**
+   * Evict entries until the cache is within its limits or there are no more entries that can be
+   * evicted. The entry for the given source, which was just added, is never evicted.
+   * 
+   * @param addedSource the source whose entry was just added
+   */
+  private void evictIfNecessary(Source addedSource) {
+    while (isOverLimit()) {
+      Source victim = selectVictim(addedSource);
+      if (victim == null) {
+        return;
+      }
+      remove(victim);
+      evictionCount++;
+    }
+  }
+
+  /**
+   * Return {@code true} if the cache currently exceeds either of its limits.
+   * 
+   * @return {@code true} if the cache currently exceeds either of its limits
+   */
+  private boolean isOverLimit() {
+    return entryMap.size() > maxEntries || (maxBytes >= 0L && estimatedBytes > maxBytes);
+  }
+
+  /**
+   * Return the source whose entry should be evicted next, or {@code null} if no entry can be
+   * evicted. The victim is the least recently used entry among the entries with the lowest
+   * priority, ignoring entries whose priority is {@link RetentionPriority#HIGH}.
+   * 
+   * @param addedSource the source whose entry was just added and should not be evicted
+   * @return the source whose entry should be evicted next
+   */
+  private Source selectVictim(Source addedSource) {
+    Source mediumVictim = null;
+    Iterator<Source> iterator = entryMap.keySet().iterator();
+    while (iterator.hasNext()) {
+      Source source = iterator.next();
+      if (source.equals(addedSource)) {
+        continue;
+      }
+      RetentionPriority priority = policy.getPriority(
+          source,
+          kind,
+          prioritySources.contains(source));
+      if (priority == RetentionPriority.LOW) {
+        return source;
+      } else if (priority == RetentionPriority.MEDIUM && mediumVictim == null) {
+        mediumVictim = source;
+      }
+    }
+    return mediumVictim;
+  }
+}
@@ -21,6 +21,7 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.ChangeNotice;
 import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.HtmlElement;
@@ -31,24 +32,39 @@ import com.google.dart.engine.html.parser.HtmlParseResult;
 import com.google.dart.engine.html.parser.HtmlParser;
 import com.google.dart.engine.html.scanner.HtmlScanResult;
 import com.google.dart.engine.html.scanner.HtmlScanner;
+import com.google.dart.engine.internal.context.CacheRetentionPolicy.ResultKind;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
+import com.google.dart.engine.internal.summary.LibrarySummaryStore;
+import com.google.dart.engine.internal.type.TypeRelationCache;
+import com.google.dart.engine.parser.IncrementalParser;
 import com.google.dart.engine.parser.Parser;
 import com.google.dart.engine.scanner.CharBufferScanner;
 import com.google.dart.engine.scanner.StringScanner;
 import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenStreamCompactor;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.utilities.source.LineInfo;
 
+import java.io.File;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -57,6 +73,34 @@ import java.util.Map;
  * @coverage dart.engine
  */
 public class AnalysisContextImpl implements AnalysisContext {
+  /**
+   * Instances of the class {@code ReparseCandidate} record a compilation unit that was parsed from
+   * a source, together with the contents from which it was parsed, so that a compilation unit for
+   * the contents of the source can be produced incrementally after the contents have changed.
+   */
+  private static class ReparseCandidate {
+    /**
+     * The compilation unit that was parsed from the contents.
+     */
+    private final CompilationUnit unit;
+
+    /**
+     * The contents from which the compilation unit was parsed.
+     */
+    private final CharSequence contents;
+
+    /**
+     * Initialize a newly created candidate to record the given compilation unit and contents.
+     * 
+     * @param unit the compilation unit that was parsed from the contents
+     * @param contents the contents from which the compilation unit was parsed
+     */
+    private ReparseCandidate(CompilationUnit unit, CharSequence contents) {
+      this.unit = unit;
+      this.contents = contents;
+    }
+  }
+
   /**
    * Instances of the class {@code ScanResult} represent the results of scanning a source.
    */
@@ -71,6 +115,12 @@ public class AnalysisContextImpl implements AnalysisContext {
      */
     private int[] lineStarts;
 
+    /**
+     * The contents that were scanned if they were provided as a string, or {@code null} if they
+     * were provided as a buffer.
+     */
+    private String contents;
+
     /**
      * Initialize a newly created result object to be empty.
      */
@@ -79,6 +129,32 @@ public class AnalysisContextImpl implements AnalysisContext {
     }
   }
 
+  /**
+   * An estimate of the number of bytes occupied by the tokens and AST nodes produced for each
+   * character of source, used to estimate the size of cached ASTs.
+   */
+  private static final long ESTIMATED_BYTES_PER_CHARACTER = 24L;
+
+  /**
+   * The object used to estimate the number of bytes occupied by a cached compilation unit.
+   */
+  private static final AnalysisCache.SizeEstimator<CompilationUnit> UNIT_SIZE_ESTIMATOR = new AnalysisCache.SizeEstimator<CompilationUnit>() {
+    @Override
+    public long estimateSize(CompilationUnit unit) {
+      return unit.getLength() * ESTIMATED_BYTES_PER_CHARACTER;
+    }
+  };
+
+  /**
+   * The object used to estimate the number of bytes occupied by a cached html parse result.
+   */
+  private static final AnalysisCache.SizeEstimator<HtmlParseResult> HTML_SIZE_ESTIMATOR = new AnalysisCache.SizeEstimator<HtmlParseResult>() {
+    @Override
+    public long estimateSize(HtmlParseResult result) {
+      return result.getHtmlUnit().getLength() * ESTIMATED_BYTES_PER_CHARACTER;
+    }
+  };
+
   /**
    * The source factory used to create the sources that can be analyzed in this context.
    */
@@ -89,36 +165,156 @@ public class AnalysisContextImpl implements AnalysisContext {
    */
   private final HashMap<Source, SourceInfo> sourceMap = new HashMap<Source, SourceInfo>();
 
+  /**
+   * A table mapping the full names of the sources known to this context to those sources, used to
+   * find the library referenced by an element location. The table is rebuilt when a name is not
+   * found in it.
+   */
+  private final HashMap<String, Source> sourcesByName = new HashMap<String, Source>();
+
+  /**
+   * The policy used to bound the amount of information cached by this context.
+   */
+  private CacheRetentionPolicy retentionPolicy = new CacheRetentionPolicy();
+
+  /**
+   * The sources that the client has asked this context to give priority to, typically because they
+   * are open in an editor. The information associated with these sources is never evicted.
+   */
+  private final HashSet<Source> prioritySources = new HashSet<Source>();
+
+  /**
+   * The sources that the client has asked this context to give priority to, in the order in which
+   * they should be analyzed.
+   */
+  private final ArrayList<Source> priorityOrder = new ArrayList<Source>();
+
+  /**
+   * The sources that need to be parsed before their results can be reported by
+   * {@link #performAnalysisTask()}, in the order in which they became known to need parsing.
+   */
+  private final LinkedHashSet<Source> sourcesToParse = new LinkedHashSet<Source>();
+
+  /**
+   * The sources of the libraries that need to be resolved before their results can be reported by
+   * {@link #performAnalysisTask()}, in the order in which they became known to need resolution.
+   */
+  private final LinkedHashSet<Source> librariesToResolve = new LinkedHashSet<Source>();
+
+  /**
+   * A table mapping the sources of libraries whose element was discarded because the library
+   * changed to the element that was discarded, or to {@code null} if the element had already been
+   * evicted from the cache. When such a library is resolved again, the API of the old element is
+   * compared to the API of the new element in order to decide whether the libraries that import or
+   * export it need to be resolved again as well.
+   */
+  private final HashMap<Source, LibraryElement> replacedLibraries = new HashMap<Source, LibraryElement>();
+
+  /**
+   * The graph recording the import, export and part relationships between the libraries that have
+   * been resolved in this context.
+   */
+  private final LibraryDependencyGraph dependencyGraph = new LibraryDependencyGraph();
+
   /**
    * A cache mapping sources to the compilation units that were produced for the contents of the
    * source.
    */
-  // TODO(brianwilkerson) Replace this with a real cache.
-  private HashMap<Source, CompilationUnit> parseCache = new HashMap<Source, CompilationUnit>();
+  private AnalysisCache<CompilationUnit> parseCache;
+
+  /**
+   * A table mapping sources whose contents were provided as a string, such as sources whose
+   * contents have been overridden, to the compilation unit most recently parsed from the source and
+   * the contents it was parsed from. The compilation unit is reparsed incrementally when possible
+   * once the contents of the source have changed. Contents provided as a buffer, such as the
+   * contents of files on disk, are not retained, so those sources are always parsed in full.
+   */
+  private final HashMap<Source, ReparseCandidate> reparseCandidates = new HashMap<Source, ReparseCandidate>();
 
   /**
    * A cache mapping sources to the html parse results that were produced for the contents of the
    * source.
    */
-  // TODO (danrubel): Replace this with a real cache.
-  private HashMap<Source, HtmlParseResult> htmlParseCache = new HashMap<Source, HtmlParseResult>();
+  private AnalysisCache<HtmlParseResult> htmlParseCache;
 
   /**
    * A cache mapping sources (of the defining compilation units of libraries) to the library
    * elements for those libraries.
    */
-  // TODO(brianwilkerson) Replace this with a real cache.
-  private HashMap<Source, LibraryElement> libraryElementCache = new HashMap<Source, LibraryElement>();
+  private AnalysisCache<LibraryElement> libraryElementCache;
 
   /**
    * A cache mapping sources (of the defining compilation units of libraries) to the public
    * namespace for that library.
    */
-  // TODO(brianwilkerson) Replace this with a real cache.
-  private HashMap<Source, Namespace> publicNamespaceCache = new HashMap<Source, Namespace>();
+  private AnalysisCache<Namespace> publicNamespaceCache;
+
+  /**
+   * The table used to compute the compilation units for sources at most once.
+   */
+  private PendingResultTable<CompilationUnit> parseResults;
+
+  /**
+   * The table used to compute the html parse results for sources at most once.
+   */
+  private PendingResultTable<HtmlParseResult> htmlParseResults;
+
+  /**
+   * The table used to compute the library elements for sources at most once.
+   */
+  private PendingResultTable<LibraryElement> libraryElementResults;
+
+  /**
+   * The table used to compute the public namespaces for sources at most once.
+   */
+  private PendingResultTable<Namespace> publicNamespaceResults;
+
+  /**
+   * The executor used to resolve independent libraries concurrently, or {@code null} if libraries
+   * are resolved sequentially.
+   */
+  private ExecutorService resolutionExecutor;
+
+  /**
+   * The store from which the element models of rarely changing libraries are loaded and in which
+   * they are saved after they have been resolved, or {@code null} if summaries are not used.
+   */
+  private LibrarySummaryStore summaryStore;
+
+  /**
+   * The sources of the libraries that must be resolved from source rather than loaded from a
+   * summary, because resolved ASTs were requested for them and summaries do not contain ASTs.
+   */
+  private final HashSet<Source> unsummarizedLibraries = new HashSet<Source>();
+
+  /**
+   * The sources of the libraries whose cached element model was loaded from a summary rather than
+   * being produced by resolving the library.
+   */
+  private final HashSet<Source> librariesLoadedFromSummaries = new HashSet<Source>();
+
+  /**
+   * The counter of the changes to the classes defined in this context whose members or supertypes
+   * might have been used to compute cached results.
+   */
+  private final AtomicInteger hierarchyVersion = new AtomicInteger();
+
+  /**
+   * The cache of the relations between the types defined in this context, or {@code null} if the
+   * relations are not cached.
+   */
+  private volatile TypeRelationCache typeRelationCache = new TypeRelationCache(hierarchyVersion);
 
   /**
-   * The object used to synchronize access to all of the caches.
+   * A flag indicating whether the token streams of parsed compilation units should be compacted,
+   * dropping the comments that are not documentation comments and the links between tokens.
+   */
+  private volatile boolean compactTokenStreams = false;
+
+  /**
+   * The object used to synchronize access to the source map and to all of the caches. This lock is
+   * only held while the caches are being read or updated, never while results are being computed;
+   * the computation of results is coordinated on a per-source basis by the pending result tables.
    */
   private Object cacheLock = new Object();
 
@@ -127,6 +323,7 @@ public class AnalysisContextImpl implements AnalysisContext {
    */
   public AnalysisContextImpl() {
     super();
+    createCaches();
   }
 
   @Override
@@ -134,18 +331,18 @@ public class AnalysisContextImpl implements AnalysisContext {
     if (changeSet.isEmpty()) {
       return;
     }
+    ArrayList<Source> addedSources = new ArrayList<Source>();
+    ArrayList<Source> changedSources = new ArrayList<Source>();
     synchronized (cacheLock) {
       //
       // First, update the contents of the sources while computing lists of sources that have been
       // added, changed or removed.
       //
-      ArrayList<Source> addedSources = new ArrayList<Source>();
       for (Map.Entry<Source, String> entry : changeSet.getAddedWithContent().entrySet()) {
         Source source = entry.getKey();
         sourceFactory.setContents(source, entry.getValue());
         addedSources.add(source);
       }
-      ArrayList<Source> changedSources = new ArrayList<Source>();
       for (Map.Entry<Source, String> entry : changeSet.getChangedWithContent().entrySet()) {
         Source source = entry.getKey();
         sourceFactory.setContents(source, entry.getValue());
@@ -156,13 +353,9 @@ public class AnalysisContextImpl implements AnalysisContext {
         addSourcesInContainer(removedSources, container);
       }
       //
-      // Then determine which cached results are no longer valid and what the new structure of the
-      // sources is.
+      // Then determine which cached results are no longer valid.
       // TODO(brianwilkerson) The code below is incomplete.
       //
-      for (Source source : addedSources) {
-        sourceAvailable(source);
-      }
       for (Source source : changedSources) {
         sourceChanged(source);
       }
@@ -170,16 +363,23 @@ public class AnalysisContextImpl implements AnalysisContext {
         sourceRemoved(source);
       }
     }
+    //
+    // Finally, determine what the new structure of the sources is. Computing the kind of a source
+    // requires it to be parsed, which is done without holding the lock.
+    //
+    for (Source source : addedSources) {
+      sourceAvailable(source);
+    }
+    for (Source source : changedSources) {
+      updateKindOf(source);
+    }
   }
 
   @Override
   public void clearResolution() {
     synchronized (cacheLock) {
       // TODO (danrubel): Optimize to only discard resolution information
-      parseCache.clear();
-      htmlParseCache.clear();
-      libraryElementCache.clear();
-      publicNamespaceCache.clear();
+      clearCaches();
     }
   }
 
@@ -188,10 +388,10 @@ public class AnalysisContextImpl implements AnalysisContext {
     synchronized (cacheLock) {
       // TODO (danrubel): Optimize to recache the token stream and/or ASTs in a global context
       sourceMap.clear();
-      parseCache.clear();
-      htmlParseCache.clear();
-      libraryElementCache.clear();
-      publicNamespaceCache.clear();
+      sourcesToParse.clear();
+      librariesToResolve.clear();
+      dependencyGraph.clear();
+      clearCaches();
     }
   }
 
@@ -222,19 +422,47 @@ public class AnalysisContextImpl implements AnalysisContext {
     return newContext;
   }
 
+  /**
+   * Return snapshots of the statistics describing the behavior of the caches maintained by this
+   * context, in the order parse cache, html parse cache, library element cache and public namespace
+   * cache.
+   * 
+   * @return snapshots of the statistics describing the behavior of the caches
+   */
+  public CacheStatistics[] getCacheStatistics() {
+    synchronized (cacheLock) {
+      return new CacheStatistics[] {
+          parseCache.getStatistics(), htmlParseCache.getStatistics(),
+          libraryElementCache.getStatistics(), publicNamespaceCache.getStatistics()};
+    }
+  }
+
+  /**
+   * Return the graph recording the import, export and part relationships between the libraries
+   * that have been resolved in this context. Batch tools can use the graph to determine the
+   * smallest set of libraries that need to be rebuilt after a change.
+   * 
+   * @return the graph recording the dependencies between libraries
+   */
+  public LibraryDependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+
   @Override
   public Element getElement(ElementLocation location) {
-    throw new UnsupportedOperationException();
-//    String[] components = ((ElementLocationImpl) location).getComponents();
-//    Source librarySource = findSource(components[0]);
-//    ElementImpl element = (ElementImpl) getLibraryElement(librarySource);
-//    for (int i = 1; i < components.length; i++) {
-//      if (element == null) {
-//        return null;
-//      }
-//      element = element.getChild(components[i]);
-//    }
-//    return element;
+    String[] components = ((ElementLocationImpl) location).getComponents();
+    Source librarySource = findSource(components[0]);
+    if (librarySource == null) {
+      return null;
+    }
+    ElementImpl element = (ElementImpl) getLibraryElement(librarySource);
+    for (int i = 1; i < components.length; i++) {
+      if (element == null) {
+        return null;
+      }
+      element = element.getChild(components[i]);
+    }
+    return element;
   }
 
   @Override
@@ -301,29 +529,31 @@ public class AnalysisContextImpl implements AnalysisContext {
   }
 
   @Override
-  public LibraryElement getLibraryElement(Source source) {
+  public LibraryElement getLibraryElement(final Source source) {
     if (!AnalysisEngine.isDartFileName(source.getShortName())) {
       return null;
     }
-    synchronized (cacheLock) {
-      LibraryElement element = libraryElementCache.get(source);
-      if (element == null) {
-        if (getOrComputeKindOf(source) != SourceKind.LIBRARY) {
-          return null;
-        }
-        LibraryResolver resolver = new LibraryResolver(this);
-        try {
-          element = resolver.resolveLibrary(source, true);
-          if (element != null) {
-            libraryElementCache.put(source, element);
+    try {
+      return libraryElementResults.get(source, new PendingResultTable.Computation<LibraryElement>() {
+        @Override
+        public LibraryElement compute() throws AnalysisException {
+          LibraryElement library = loadSummary(source);
+          if (library != null) {
+            return library;
+          }
+          if (getOrComputeKindOf(source) != SourceKind.LIBRARY) {
+            return null;
           }
-        } catch (AnalysisException exception) {
-          AnalysisEngine.getInstance().getLogger().logError(
-              "Could not resolve the library " + source.getFullName(),
-              exception);
+          LibraryResolver resolver = new LibraryResolver(AnalysisContextImpl.this);
+          resolver.setExecutor(resolutionExecutor);
+          return resolver.resolveLibrary(source, true);
         }
-      }
-      return element;
+      });
+    } catch (AnalysisException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not resolve the library " + source.getFullName(),
+          exception);
+      return null;
     }
   }
 
@@ -362,16 +592,18 @@ public class AnalysisContextImpl implements AnalysisContext {
    * @param library the library whose public namespace is to be returned
    * @return the public namespace of the given library
    */
-  public Namespace getPublicNamespace(LibraryElement library) {
+  public Namespace getPublicNamespace(final LibraryElement library) {
     Source source = library.getDefiningCompilationUnit().getSource();
-    synchronized (cacheLock) {
-      Namespace namespace = publicNamespaceCache.get(source);
-      if (namespace == null) {
-        NamespaceBuilder builder = new NamespaceBuilder();
-        namespace = builder.createPublicNamespace(library);
-        publicNamespaceCache.put(source, namespace);
-      }
-      return namespace;
+    try {
+      return publicNamespaceResults.get(source, new PendingResultTable.Computation<Namespace>() {
+        @Override
+        public Namespace compute() {
+          return new NamespaceBuilder().createPublicNamespace(library);
+        }
+      });
+    } catch (AnalysisException exception) {
+      // This cannot happen because the computation does not throw an exception.
+      return null;
     }
   }
 
@@ -382,27 +614,119 @@ public class AnalysisContextImpl implements AnalysisContext {
    * @param source the source defining the library whose public namespace is to be returned
    * @return the public namespace corresponding to the library defined by the given source
    */
-  public Namespace getPublicNamespace(Source source) {
-    synchronized (cacheLock) {
-      Namespace namespace = publicNamespaceCache.get(source);
-      if (namespace == null) {
-        LibraryElement library = getLibraryElement(source);
-        if (library == null) {
-          return null;
+  public Namespace getPublicNamespace(final Source source) {
+    try {
+      return publicNamespaceResults.get(source, new PendingResultTable.Computation<Namespace>() {
+        @Override
+        public Namespace compute() {
+          LibraryElement library = getLibraryElement(source);
+          if (library == null) {
+            return null;
+          }
+          return new NamespaceBuilder().createPublicNamespace(library);
         }
-        NamespaceBuilder builder = new NamespaceBuilder();
-        namespace = builder.createPublicNamespace(library);
-        publicNamespaceCache.put(source, namespace);
-      }
-      return namespace;
+      });
+    } catch (AnalysisException exception) {
+      // This cannot happen because the computation does not throw an exception.
+      return null;
     }
   }
 
+  /**
+   * Return the executor used to resolve independent libraries concurrently, or {@code null} if
+   * libraries are resolved sequentially.
+   * 
+   * @return the executor used to resolve independent libraries concurrently
+   */
+  public ExecutorService getResolutionExecutor() {
+    return resolutionExecutor;
+  }
+
+  /**
+   * Return the policy used to bound the amount of information cached by this context.
+   * 
+   * @return the policy used to bound the amount of information cached by this context
+   */
+  public CacheRetentionPolicy getRetentionPolicy() {
+    return retentionPolicy;
+  }
+
   @Override
   public SourceFactory getSourceFactory() {
     return sourceFactory;
   }
 
+  /**
+   * Return the element model corresponding to the library defined by the given source if the
+   * library can be summarized and its element model has already been computed or can be loaded from
+   * a summary, or {@code null} if the library would need to be resolved. This is used while
+   * resolving other libraries to avoid parsing libraries whose element models are available without
+   * doing so.
+   * 
+   * @param source the source defining the library whose element model is to be returned
+   * @return the element model corresponding to the library defined by the given source
+   */
+  public LibraryElement getSummarizedLibraryElement(final Source source) {
+    if (summaryStore == null || !summaryStore.isSummarized(source)) {
+      return null;
+    }
+    try {
+      return libraryElementResults.get(source, new PendingResultTable.Computation<LibraryElement>() {
+        @Override
+        public LibraryElement compute() {
+          return loadSummary(source);
+        }
+      });
+    } catch (AnalysisException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Return the store from which the element models of rarely changing libraries are loaded, or
+   * {@code null} if summaries are not used.
+   * 
+   * @return the store from which the element models of libraries are loaded
+   */
+  public LibrarySummaryStore getSummaryStore() {
+    return summaryStore;
+  }
+
+  /**
+   * Return the cache of the relations between the types defined in this context, or {@code null}
+   * if the relations are not cached.
+   * 
+   * @return the cache of the relations between the types defined in this context
+   */
+  public TypeRelationCache getTypeRelationCache() {
+    return typeRelationCache;
+  }
+
+  /**
+   * Give the given library, which is being built in this context, the state that this context
+   * shares between the classes it defines: the counter of the changes to its class hierarchy and
+   * the cache of the relations between its types.
+   * 
+   * @param library the library being built in this context
+   */
+  public void initializeLibraryElement(LibraryElementImpl library) {
+    library.setHierarchyVersion(hierarchyVersion);
+    library.setTypeRelationCache(typeRelationCache);
+  }
+
+  /**
+   * Return {@code true} if the library defined by the given source must be resolved from source
+   * rather than loaded from a summary because resolved ASTs have been requested for it.
+   * 
+   * @param librarySource the source defining the library
+   * @return {@code true} if the library must be resolved from source
+   */
+  public boolean isUnsummarizedLibrary(Source librarySource) {
+    synchronized (cacheLock) {
+      return unsummarizedLibraries.contains(librarySource);
+    }
+  }
+
   @Override
   public void mergeContext(AnalysisContext context) {
     synchronized (cacheLock) {
@@ -420,54 +744,69 @@ public class AnalysisContextImpl implements AnalysisContext {
   }
 
   @Override
-  public CompilationUnit parse(Source source) throws AnalysisException {
-    synchronized (cacheLock) {
-      CompilationUnit unit = parseCache.get(source);
-      if (unit == null) {
-        RecordingErrorListener errorListener = new RecordingErrorListener();
-        ScanResult scanResult = internalScan(source, errorListener);
-        Parser parser = new Parser(source, errorListener);
-        unit = parser.parseCompilationUnit(scanResult.token);
-        unit.setParsingErrors(errorListener.getErrors(source));
-        unit.setLineInfo(new LineInfo(scanResult.lineStarts));
-        parseCache.put(source, unit);
+  public CompilationUnit parse(final Source source) throws AnalysisException {
+    return parseResults.get(source, new PendingResultTable.Computation<CompilationUnit>() {
+      @Override
+      public CompilationUnit compute() throws AnalysisException {
+        return internalParse(source, null);
       }
-      return unit;
-    }
+    });
   }
 
   // TODO (danrubel): Either remove this method 
   // or ensure that the unit's syntax errors are cached in the unit itself
-  public CompilationUnit parse(Source source, AnalysisErrorListener errorListener)
+  public CompilationUnit parse(final Source source, final AnalysisErrorListener errorListener)
       throws AnalysisException {
-    synchronized (cacheLock) {
-      CompilationUnit unit = parseCache.get(source);
-      if (unit == null) {
-        ScanResult scanResult = internalScan(source, errorListener);
-        Parser parser = new Parser(source, errorListener);
-        unit = parser.parseCompilationUnit(scanResult.token);
-        unit.setLineInfo(new LineInfo(scanResult.lineStarts));
-        parseCache.put(source, unit);
+    return parseResults.get(source, new PendingResultTable.Computation<CompilationUnit>() {
+      @Override
+      public CompilationUnit compute() throws AnalysisException {
+        return internalParse(source, errorListener);
       }
-      return unit;
-    }
+    });
   }
 
   @Override
-  public HtmlParseResult parseHtml(Source source) throws AnalysisException {
-    synchronized (cacheLock) {
-      HtmlParseResult result = htmlParseCache.get(source);
-      if (result == null) {
-        result = new HtmlParser(source).parse(scanHtml(source));
-        htmlParseCache.put(source, result);
+  public HtmlParseResult parseHtml(final Source source) throws AnalysisException {
+    return htmlParseResults.get(source, new PendingResultTable.Computation<HtmlParseResult>() {
+      @Override
+      public HtmlParseResult compute() throws AnalysisException {
+        return new HtmlParser(source).parse(scanHtml(source));
       }
-      return result;
-    }
+    });
   }
 
+  /**
+   * Perform the next unit of work required to keep the analysis results up-to-date and return
+   * information about the consequent changes to the analysis results.
+   * <p>
+   * Each unit of work is bounded: it either parses a single source or resolves (and verifies) a
+   * single library together with the libraries in the same import cycle. All of the sources that
+   * need to be parsed are parsed before any library is resolved, because parsing is cheap and
+   * produces the syntax errors and the structure of the sources. Within each kind of work, the
+   * sources that were passed to {@link #setAnalysisPriorityOrder(List)} are processed first, in the
+   * order given.
+   * 
+   * @return an array containing notices of changes to the analysis results, or {@code null} if
+   *         there is no more work to be performed
+   */
   @Override
   public ChangeNotice[] performAnalysisTask() {
-    return ChangeNotice.EMPTY_ARRAY;
+    Source source;
+    boolean parse;
+    synchronized (cacheLock) {
+      source = selectNextSource(sourcesToParse);
+      parse = source != null;
+      if (!parse) {
+        source = selectNextSource(librariesToResolve);
+        if (source == null) {
+          return null;
+        }
+      }
+    }
+    if (parse) {
+      return performParseTask(source);
+    }
+    return performResolveTask(source);
   }
 
   /**
@@ -478,17 +817,135 @@ public class AnalysisContextImpl implements AnalysisContext {
    *          the elements representing the libraries
    */
   public void recordLibraryElements(Map<Source, LibraryElement> elementMap) {
+    HashMap<Source, LibraryElement> oldElements = new HashMap<Source, LibraryElement>();
     synchronized (cacheLock) {
       libraryElementCache.putAll(elementMap);
+      for (Map.Entry<Source, LibraryElement> entry : elementMap.entrySet()) {
+        Source librarySource = entry.getKey();
+        librariesLoadedFromSummaries.remove(librarySource);
+        recordContainingLibrary(librarySource, entry.getValue());
+        recordDependencies(librarySource, entry.getValue());
+        if (replacedLibraries.containsKey(librarySource)) {
+          oldElements.put(librarySource, replacedLibraries.remove(librarySource));
+        }
+      }
+    }
+    //
+    // Compare the API of the libraries that were resolved again because they changed. This is done
+    // without holding the lock because building the signatures requires walking the elements.
+    //
+    ArrayList<Source> changedLibraries = new ArrayList<Source>();
+    for (Map.Entry<Source, LibraryElement> entry : oldElements.entrySet()) {
+      LibraryElement oldElement = entry.getValue();
+      if (oldElement == null
+          || !new LibraryApiSignature(oldElement).equals(
+              new LibraryApiSignature(elementMap.get(entry.getKey())))) {
+        changedLibraries.add(entry.getKey());
+      }
+    }
+    if (!changedLibraries.isEmpty()) {
+      synchronized (cacheLock) {
+        invalidateDependents(changedLibraries);
+      }
+    }
+    if (summaryStore != null) {
+      synchronized (cacheLock) {
+        for (Source librarySource : elementMap.keySet()) {
+          if (unsummarizedLibraries.contains(librarySource)) {
+            return;
+          }
+        }
+      }
+      summaryStore.store(this, elementMap);
     }
   }
 
   @Override
   public CompilationUnit resolve(Source source, LibraryElement library) throws AnalysisException {
-    // TODO (jwren/brianwilkerson/danrubel) not implemented correctly, this method works only if
-    // the queried source has been previously resolved and happens to be in the parseCache. This was
-    // included for testing purposes.
-    return parse(source);
+    Source librarySource = library == null ? source
+        : library.getDefiningCompilationUnit().getSource();
+    if (getLibraryElement(librarySource) == null) {
+      return parse(source);
+    }
+    CompilationUnit unit = parse(source);
+    //
+    // Either the library was loaded from a summary, which does not contain ASTs, or the resolved
+    // AST was evicted from the cache after the library was resolved, so the library needs to be
+    // resolved again in order to produce a resolved AST. A library that was loaded from a summary
+    // is resolved from source until it changes. This is attempted at most twice because a library
+    // whose AST was evicted might be loaded from the summary written when it was resolved. The
+    // library is discarded the same way it is when it changes, so that the API of the new element
+    // model is compared with the API of the old one and the dependents are invalidated if they
+    // differ.
+    //
+    for (int attempt = 0; attempt < 2 && unit.getElement() == null; attempt++) {
+      synchronized (cacheLock) {
+        if (librariesLoadedFromSummaries.contains(librarySource)) {
+          unsummarizedLibraries.add(librarySource);
+        }
+        discardLibrary(librarySource);
+      }
+      getLibraryElement(librarySource);
+      unit = parse(source);
+    }
+    return unit;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The information associated with these sources will not be evicted from the caches.
+   */
+  @Override
+  public void setAnalysisPriorityOrder(List<Source> sources) {
+    synchronized (cacheLock) {
+      prioritySources.clear();
+      prioritySources.addAll(sources);
+      priorityOrder.clear();
+      priorityOrder.addAll(sources);
+    }
+  }
+
+  /**
+   * Set whether the token streams of the compilation units parsed by this context should be
+   * compacted. When they are, comments other than documentation comments are discarded while
+   * scanning and the links between tokens are removed once a compilation unit has been parsed, so
+   * that only the tokens referenced by the AST are retained. This reduces the memory held by cached
+   * compilation units, but {@link Token#getNext()} and {@link Token#getPrevious()} cannot be used
+   * on the tokens of those units, so it should only be enabled by clients, such as command-line
+   * tools, that never display, format or modify the ASTs. Compaction is disabled by default.
+   * 
+   * @param compact {@code true} if the token streams of parsed compilation units should be
+   *          compacted
+   * @see TokenStreamCompactor
+   */
+  public void setCompactTokenStreams(boolean compact) {
+    compactTokenStreams = compact;
+  }
+
+  /**
+   * Set the executor used to resolve independent libraries concurrently to the given executor. If
+   * the executor is {@code null}, which is the default, libraries will be resolved sequentially on
+   * the thread that requested them. The context does not shut the executor down.
+   * 
+   * @param executor the executor used to resolve independent libraries concurrently
+   * @see LibraryResolver#setExecutor(ExecutorService)
+   */
+  public void setResolutionExecutor(ExecutorService executor) {
+    resolutionExecutor = executor;
+  }
+
+  /**
+   * Set the policy used to bound the amount of information cached by this context to the given
+   * policy. Any information that is currently cached will be discarded.
+   * 
+   * @param policy the policy used to bound the amount of information cached by this context
+   */
+  public void setRetentionPolicy(CacheRetentionPolicy policy) {
+    synchronized (cacheLock) {
+      retentionPolicy = policy;
+      createCaches();
+    }
   }
 
   @Override
@@ -504,17 +961,57 @@ public class AnalysisContextImpl implements AnalysisContext {
     sourceFactory = factory;
   }
 
+  /**
+   * Set the store from which the element models of rarely changing libraries are loaded, and in
+   * which they are saved after they have been resolved, to the given store. If the store is
+   * {@code null}, which is the default, all libraries are resolved from source.
+   * 
+   * @param store the store from which the element models of libraries are loaded
+   */
+  public void setSummaryStore(LibrarySummaryStore store) {
+    summaryStore = store;
+  }
+
+  /**
+   * Set the cache of the relations between the types defined in this context to the given cache.
+   * If the cache is {@code null} the relations will be computed every time they are requested. The
+   * cache is only used by the libraries that are built after it has been set.
+   * 
+   * @param cache the cache of the relations between the types defined in this context
+   */
+  public void setTypeRelationCache(TypeRelationCache cache) {
+    typeRelationCache = cache;
+  }
+
   @Override
   public Iterable<Source> sourcesToResolve(Source[] changedSources) {
-    // TODO(keertip): revisit to include dependent libraries that are not in changed sources but
-    // have to be re-resolved.
-    List<Source> librarySources = new ArrayList<Source>();
+    ArrayList<Source> changedLibraries = new ArrayList<Source>();
     for (Source source : changedSources) {
       if (getOrComputeKindOf(source) == SourceKind.LIBRARY) {
-        librarySources.add(source);
+        changedLibraries.add(source);
+      } else {
+        changedLibraries.addAll(dependencyGraph.getContainingLibraries(source));
       }
     }
-    return librarySources;
+    return dependencyGraph.getAffectedLibraries(changedLibraries);
+  }
+
+  /**
+   * Add notices describing the resolved AST and the errors of the compilation unit with the given
+   * source to the given list of notices.
+   * 
+   * @param notices the list to which the notices are to be added
+   * @param source the source of the compilation unit that was resolved
+   */
+  private void addResolutionNotice(ArrayList<ChangeNotice> notices, Source source) {
+    CompilationUnit unit;
+    synchronized (cacheLock) {
+      unit = parseCache.get(source);
+    }
+    if (unit != null && unit.getElement() != null) {
+      notices.add(new ChangeNotice(source, unit));
+      notices.add(new ChangeNotice(source, unit.getErrors(), unit.getLineInfo()));
+    }
   }
 
   /**
@@ -533,6 +1030,31 @@ public class AnalysisContextImpl implements AnalysisContext {
     }
   }
 
+  /**
+   * Discard all of the cached results, as well as any results that are currently being computed.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   */
+  private void clearCaches() {
+    parseCache.clear();
+    reparseCandidates.clear();
+    htmlParseCache.clear();
+    libraryElementCache.clear();
+    publicNamespaceCache.clear();
+    parseResults.clear();
+    htmlParseResults.clear();
+    libraryElementResults.clear();
+    publicNamespaceResults.clear();
+    replacedLibraries.clear();
+    unsummarizedLibraries.clear();
+    librariesLoadedFromSummaries.clear();
+    sourcesByName.clear();
+    TypeRelationCache cache = typeRelationCache;
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
   private SourceKind computeKindOf(Source source) {
     try {
       if (hasPartOfDirective(parse(source))) {
@@ -544,6 +1066,104 @@ public class AnalysisContextImpl implements AnalysisContext {
     return SourceKind.LIBRARY;
   }
 
+  /**
+   * Create the caches used by this context, bounded according to the current retention policy.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   */
+  private void createCaches() {
+    parseCache = new AnalysisCache<CompilationUnit>(
+        "parseCache",
+        retentionPolicy,
+        ResultKind.AST,
+        retentionPolicy.getMaxAstEntries(),
+        retentionPolicy.getMaxAstBytes(),
+        UNIT_SIZE_ESTIMATOR,
+        prioritySources);
+    htmlParseCache = new AnalysisCache<HtmlParseResult>(
+        "htmlParseCache",
+        retentionPolicy,
+        ResultKind.AST,
+        retentionPolicy.getMaxAstEntries(),
+        retentionPolicy.getMaxAstBytes(),
+        HTML_SIZE_ESTIMATOR,
+        prioritySources);
+    libraryElementCache = new AnalysisCache<LibraryElement>(
+        "libraryElementCache",
+        retentionPolicy,
+        ResultKind.ELEMENT,
+        retentionPolicy.getMaxElementEntries(),
+        -1L,
+        AnalysisCache.<LibraryElement> noSizeEstimator(),
+        prioritySources);
+    publicNamespaceCache = new AnalysisCache<Namespace>(
+        "publicNamespaceCache",
+        retentionPolicy,
+        ResultKind.ELEMENT,
+        retentionPolicy.getMaxElementEntries(),
+        -1L,
+        AnalysisCache.<Namespace> noSizeEstimator(),
+        prioritySources);
+    parseResults = new PendingResultTable<CompilationUnit>(cacheLock, parseCache);
+    htmlParseResults = new PendingResultTable<HtmlParseResult>(cacheLock, htmlParseCache);
+    libraryElementResults = new PendingResultTable<LibraryElement>(cacheLock, libraryElementCache);
+    publicNamespaceResults = new PendingResultTable<Namespace>(cacheLock, publicNamespaceCache);
+  }
+
+  /**
+   * Discard the element and public namespace of the library defined by the given source because
+   * one of the compilation units in the library has changed, remembering the discarded element so
+   * that its API can be compared with the API of the library once it has been resolved again.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source defining the library to be discarded
+   */
+  private void discardLibrary(Source librarySource) {
+    LibraryElement library = libraryElementCache.remove(librarySource);
+    librariesLoadedFromSummaries.remove(librarySource);
+    if (!replacedLibraries.containsKey(librarySource)) {
+      replacedLibraries.put(librarySource, library);
+    }
+    invalidate(librarySource, libraryElementCache, libraryElementResults);
+    invalidate(librarySource, publicNamespaceCache, publicNamespaceResults);
+    librariesToResolve.add(librarySource);
+  }
+
+  /**
+   * Return the source with the given full name, or {@code null} if there is no such source. The
+   * sources added to this context and the sources of the libraries resolved in it are searched
+   * first, so that the sources of the SDK are found even if the source factory cannot create them
+   * from a file name.
+   * 
+   * @param fullName the full name of the source to be returned
+   * @return the source with the given full name
+   */
+  private Source findSource(String fullName) {
+    synchronized (cacheLock) {
+      Source source = sourcesByName.get(fullName);
+      if (source != null) {
+        return source;
+      }
+      sourcesByName.clear();
+      for (Source knownSource : sourceMap.keySet()) {
+        sourcesByName.put(knownSource.getFullName(), knownSource);
+      }
+      for (Source librarySource : dependencyGraph.getLibraries()) {
+        sourcesByName.put(librarySource.getFullName(), librarySource);
+      }
+      source = sourcesByName.get(fullName);
+      if (source != null) {
+        return source;
+      }
+    }
+    SourceFactory factory = sourceFactory;
+    if (factory == null) {
+      return null;
+    }
+    return factory.forUri(new File(fullName).toURI().toString());
+  }
+
   /**
    * Return an array containing all of the sources known to this context that have the given kind.
    * 
@@ -577,6 +1197,60 @@ public class AnalysisContextImpl implements AnalysisContext {
     return false;
   }
 
+  /**
+   * Parse the given source, reparsing only the declaration affected by the most recent change to
+   * the source when the compilation unit parsed from the previous contents of the source is known
+   * and the change can be applied to it incrementally.
+   * 
+   * @param source the source to be parsed
+   * @param errorListener the listener to which the parsing errors are to be reported, or
+   *          {@code null} if they are only to be associated with the compilation unit
+   * @return the compilation unit that was produced
+   * @throws AnalysisException if the contents of the source could not be read
+   */
+  private CompilationUnit internalParse(Source source, AnalysisErrorListener errorListener)
+      throws AnalysisException {
+    ReparseCandidate candidate;
+    synchronized (cacheLock) {
+      candidate = reparseCandidates.get(source);
+    }
+    CompilationUnit unit = null;
+    String contents = null;
+    if (candidate != null) {
+      CharSequence newContents = readContents(source);
+      IncrementalParser parser = new IncrementalParser(source);
+      unit = parser.reparse(candidate.unit, candidate.contents, newContents);
+      if (newContents instanceof String) {
+        contents = (String) newContents;
+      }
+    }
+    if (unit == null) {
+      RecordingErrorListener recordingListener = new RecordingErrorListener();
+      ScanResult scanResult = internalScan(source, recordingListener);
+      Parser parser = new Parser(source, recordingListener);
+      unit = parser.parseCompilationUnit(scanResult.token);
+      if (compactTokenStreams) {
+        TokenStreamCompactor.compact(scanResult.token);
+      }
+      unit.setParsingErrors(recordingListener.getErrors(source));
+      unit.setLineInfo(new LineInfo(scanResult.lineStarts));
+      contents = scanResult.contents;
+    }
+    synchronized (cacheLock) {
+      if (contents != null && !compactTokenStreams) {
+        reparseCandidates.put(source, new ReparseCandidate(unit, contents));
+      } else {
+        reparseCandidates.remove(source);
+      }
+    }
+    if (errorListener != null) {
+      for (AnalysisError error : unit.getParsingErrors()) {
+        errorListener.onError(error);
+      }
+    }
+    return unit;
+  }
+
   private ScanResult internalScan(final Source source, final AnalysisErrorListener errorListener)
       throws AnalysisException {
     final ScanResult result = new ScanResult();
@@ -584,6 +1258,7 @@ public class AnalysisContextImpl implements AnalysisContext {
       @Override
       public void accept(CharBuffer contents) {
         CharBufferScanner scanner = new CharBufferScanner(source, contents, errorListener);
+        scanner.setPreserveComments(!compactTokenStreams);
         result.token = scanner.tokenize();
         result.lineStarts = scanner.getLineStarts();
       }
@@ -591,8 +1266,10 @@ public class AnalysisContextImpl implements AnalysisContext {
       @Override
       public void accept(String contents) {
         StringScanner scanner = new StringScanner(source, contents, errorListener);
+        scanner.setPreserveComments(!compactTokenStreams);
         result.token = scanner.tokenize();
         result.lineStarts = scanner.getLineStarts();
+        result.contents = contents;
       }
     };
     try {
@@ -603,6 +1280,233 @@ public class AnalysisContextImpl implements AnalysisContext {
     return result;
   }
 
+  /**
+   * Discard the cached result associated with the given source, as well as any result that is
+   * currently being computed for the source.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose result is to be discarded
+   * @param cache the cache containing the result
+   * @param results the table used to compute the result
+   */
+  private <V> void invalidate(Source source, AnalysisCache<V> cache,
+      PendingResultTable<V> results) {
+    cache.remove(source);
+    results.invalidate(source);
+  }
+
+  /**
+   * Discard the elements of the libraries that import or export any of the given libraries, whose
+   * API has changed. Libraries that export a changed library have themselves changed API, so the
+   * libraries that depend on them are discarded as well.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param changedLibraries the sources defining the libraries whose API has changed
+   */
+  private void invalidateDependents(List<Source> changedLibraries) {
+    HashSet<Source> visited = new HashSet<Source>(changedLibraries);
+    LinkedList<Source> workList = new LinkedList<Source>(changedLibraries);
+    while (!workList.isEmpty()) {
+      Source changedSource = workList.removeFirst();
+      for (Source dependentSource : dependencyGraph.getImportingLibraries(changedSource)) {
+        discardLibrary(dependentSource);
+      }
+      for (Source dependentSource : dependencyGraph.getExportingLibraries(changedSource)) {
+        discardLibrary(dependentSource);
+        if (visited.add(dependentSource)) {
+          workList.add(dependentSource);
+        }
+      }
+    }
+  }
+
+  /**
+   * Load the element model of the library defined by the given source from a summary, recording
+   * the element models of all of the libraries in the same import cycle. Return the element model
+   * of the library, or {@code null} if there is no up-to-date summary of it.
+   * 
+   * @param source the source defining the library to be loaded
+   * @return the element model of the library that was loaded
+   */
+  private LibraryElement loadSummary(Source source) {
+    if (summaryStore == null || isUnsummarizedLibrary(source)) {
+      return null;
+    }
+    Map<Source, LibraryElement> elementMap = summaryStore.load(this, source);
+    if (elementMap == null) {
+      return null;
+    }
+    synchronized (cacheLock) {
+      libraryElementCache.putAll(elementMap);
+      librariesLoadedFromSummaries.addAll(elementMap.keySet());
+      for (Map.Entry<Source, LibraryElement> entry : elementMap.entrySet()) {
+        recordContainingLibrary(entry.getKey(), entry.getValue());
+        recordDependencies(entry.getKey(), entry.getValue());
+      }
+    }
+    return elementMap.get(source);
+  }
+
+  /**
+   * Parse the given source and return notices describing the results.
+   * 
+   * @param source the source to be parsed
+   * @return notices describing the results of parsing the source
+   */
+  private ChangeNotice[] performParseTask(Source source) {
+    if (AnalysisEngine.isHtmlFileName(source.getShortName())) {
+      try {
+        parseHtml(source);
+      } catch (AnalysisException exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Could not parse " + source.getFullName(),
+            exception);
+      }
+      synchronized (cacheLock) {
+        sourcesToParse.remove(source);
+      }
+      return ChangeNotice.EMPTY_ARRAY;
+    }
+    CompilationUnit unit = null;
+    try {
+      unit = parse(source);
+    } catch (AnalysisException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not parse " + source.getFullName(),
+          exception);
+    }
+    synchronized (cacheLock) {
+      sourcesToParse.remove(source);
+      if (unit == null) {
+        return ChangeNotice.EMPTY_ARRAY;
+      }
+      if (!hasPartOfDirective(unit)) {
+        librariesToResolve.add(source);
+      }
+    }
+    return new ChangeNotice[] {
+        new ChangeNotice(source, unit.getParsingErrors(), unit.getLineInfo())};
+  }
+
+  /**
+   * Resolve the library defined by the given source, together with the libraries in the same
+   * import cycle, and return notices describing the results for every compilation unit in every
+   * library that was resolved.
+   * 
+   * @param librarySource the source defining the library to be resolved
+   * @return notices describing the results of resolving the library
+   */
+  private ChangeNotice[] performResolveTask(Source librarySource) {
+    getLibraryElement(librarySource);
+    ArrayList<LibraryElement> resolvedLibraries = new ArrayList<LibraryElement>();
+    synchronized (cacheLock) {
+      librariesToResolve.remove(librarySource);
+      LibraryElement library = libraryElementCache.get(librarySource);
+      if (library != null) {
+        resolvedLibraries.add(library);
+      }
+      Iterator<Source> iterator = librariesToResolve.iterator();
+      while (iterator.hasNext()) {
+        // Other libraries in the same cycle were resolved at the same time.
+        library = libraryElementCache.get(iterator.next());
+        if (library != null) {
+          resolvedLibraries.add(library);
+          iterator.remove();
+        }
+      }
+    }
+    ArrayList<ChangeNotice> notices = new ArrayList<ChangeNotice>();
+    for (LibraryElement library : resolvedLibraries) {
+      addResolutionNotice(notices, library.getDefiningCompilationUnit().getSource());
+      for (CompilationUnitElement part : library.getParts()) {
+        addResolutionNotice(notices, part.getSource());
+      }
+    }
+    return notices.toArray(new ChangeNotice[notices.size()]);
+  }
+
+  /**
+   * Return the contents of the given source, which are either a string or a buffer depending on how
+   * the source provided them.
+   * 
+   * @param source the source whose contents are to be returned
+   * @return the contents of the given source
+   * @throws AnalysisException if the contents of the source could not be read
+   */
+  private CharSequence readContents(Source source) throws AnalysisException {
+    final CharSequence[] result = new CharSequence[1];
+    Source.ContentReceiver receiver = new Source.ContentReceiver() {
+      @Override
+      public void accept(CharBuffer contents) {
+        result[0] = contents;
+      }
+
+      @Override
+      public void accept(String contents) {
+        result[0] = contents;
+      }
+    };
+    try {
+      source.getContents(receiver);
+    } catch (Exception exception) {
+      throw new AnalysisException(exception);
+    }
+    return result[0];
+  }
+
+  /**
+   * Record that the given library contains the compilation units that make it up.
+   * <p>
+   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source defining the library
+   * @param library the element representing the library
+   */
+  private void recordContainingLibrary(Source librarySource, LibraryElement library) {
+    SourceInfo info = sourceMap.get(librarySource);
+    if (info != null) {
+      info.addLibrarySource(librarySource);
+    }
+    for (CompilationUnitElement part : library.getParts()) {
+      info = sourceMap.get(part.getSource());
+      if (info != null) {
+        info.addLibrarySource(librarySource);
+      }
+    }
+  }
+
+  /**
+   * Record the import, export and part relationships of the given library in the dependency graph.
+   * 
+   * @param librarySource the source defining the library
+   * @param library the element representing the library
+   */
+  private void recordDependencies(Source librarySource, LibraryElement library) {
+    //
+    // The imported and exported libraries will be null if the URI does not reference a valid
+    // library.
+    //
+    ArrayList<Source> importedLibraries = new ArrayList<Source>();
+    for (LibraryElement importedLibrary : library.getImportedLibraries()) {
+      if (importedLibrary != null) {
+        importedLibraries.add(importedLibrary.getDefiningCompilationUnit().getSource());
+      }
+    }
+    ArrayList<Source> exportedLibraries = new ArrayList<Source>();
+    for (LibraryElement exportedLibrary : library.getExportedLibraries()) {
+      if (exportedLibrary != null) {
+        exportedLibraries.add(exportedLibrary.getDefiningCompilationUnit().getSource());
+      }
+    }
+    ArrayList<Source> parts = new ArrayList<Source>();
+    for (CompilationUnitElement part : library.getParts()) {
+      parts.add(part.getSource());
+    }
+    dependencyGraph.setDependencies(librarySource, importedLibraries, exportedLibraries, parts);
+  }
+
   private HtmlScanResult scanHtml(final Source source) throws AnalysisException {
     HtmlScanner scanner = new HtmlScanner(source);
     try {
@@ -614,15 +1518,55 @@ public class AnalysisContextImpl implements AnalysisContext {
   }
 
   /**
+   * Return the source in the given work list that should be processed next, or {@code null} if the
+   * list is empty. Priority sources, and the libraries containing them, are selected before any
+   * other source.
+   * <p>
    * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
    * 
+   * @param workList the sources that need to be processed
+   * @return the source that should be processed next
+   */
+  private Source selectNextSource(LinkedHashSet<Source> workList) {
+    if (workList.isEmpty()) {
+      return null;
+    }
+    for (Source source : priorityOrder) {
+      if (workList.contains(source)) {
+        return source;
+      }
+      SourceInfo info = sourceMap.get(source);
+      if (info != null) {
+        for (Source librarySource : info.getLibrarySources()) {
+          if (workList.contains(librarySource)) {
+            return librarySource;
+          }
+        }
+      }
+    }
+    return workList.iterator().next();
+  }
+
+  /**
+   * Record the kind of the given source, which has been added to this context.
+   * <p>
+   * Note: This method must not be invoked while we are synchronized on {@link #cacheLock} because
+   * computing the kind of the source requires it to be parsed.
+   * 
    * @param source the source that has been added
    */
   private void sourceAvailable(Source source) {
-    SourceInfo existingInfo = sourceMap.get(source);
-    if (existingInfo == null) {
-      SourceKind kind = computeKindOf(source);
-      sourceMap.put(source, new SourceInfo(source, kind));
+    synchronized (cacheLock) {
+      if (sourceMap.containsKey(source)) {
+        return;
+      }
+    }
+    SourceKind kind = computeKindOf(source);
+    synchronized (cacheLock) {
+      if (!sourceMap.containsKey(source)) {
+        sourceMap.put(source, new SourceInfo(source, kind));
+        sourcesToParse.add(source);
+      }
     }
   }
 
@@ -637,21 +1581,21 @@ public class AnalysisContextImpl implements AnalysisContext {
       // TODO(brianwilkerson) Figure out how to report this error.
       return;
     }
-    parseCache.remove(source);
-    htmlParseCache.remove(source);
-    // TODO(brianwilkerson) Remove the two lines below once we are recording the library source.
-    libraryElementCache.remove(source);
-    publicNamespaceCache.remove(source);
-    SourceKind oldKind = info.getKind();
-    SourceKind newKind = computeKindOf(source);
-    if (newKind != oldKind) {
-      info.setKind(newKind);
+    invalidate(source, parseCache, parseResults);
+    invalidate(source, htmlParseCache, htmlParseResults);
+    sourcesToParse.add(source);
+    if (info.getKind() == SourceKind.LIBRARY) {
+      unsummarizedLibraries.remove(source);
+      discardLibrary(source);
     }
+    //
+    // The libraries containing the source must be resolved again, but the libraries that depend on
+    // them are only invalidated once it is known that the API of the changed library has changed
+    // (see recordLibraryElements), so an edit inside a method body does not ripple outward.
+    //
     for (Source librarySource : info.getLibrarySources()) {
-      // TODO(brianwilkerson) This could be optimized. There's no need to flush these caches if the
-      // public namespace hasn't changed, which will be a fairly common case.
-      libraryElementCache.remove(librarySource);
-      publicNamespaceCache.remove(librarySource);
+      unsummarizedLibraries.remove(librarySource);
+      discardLibrary(librarySource);
     }
   }
 
@@ -669,16 +1613,62 @@ public class AnalysisContextImpl implements AnalysisContext {
       // TODO(brianwilkerson) Figure out how to report this error.
       return;
     }
-    parseCache.remove(source);
-    // TODO(brianwilkerson) Remove the two lines below once we are recording the library source.
-    libraryElementCache.remove(source);
-    publicNamespaceCache.remove(source);
+    invalidate(source, parseCache, parseResults);
+    reparseCandidates.remove(source);
+    invalidate(source, htmlParseCache, htmlParseResults);
+    invalidate(source, libraryElementCache, libraryElementResults);
+    invalidate(source, publicNamespaceCache, publicNamespaceResults);
     for (Source librarySource : info.getLibrarySources()) {
-      // TODO(brianwilkerson) This could be optimized. There's no need to flush these caches if the
-      // public namespace hasn't changed, which will be a fairly common case.
-      libraryElementCache.remove(librarySource);
-      publicNamespaceCache.remove(librarySource);
+      if (!librarySource.equals(source)) {
+        discardLibrary(librarySource);
+      }
     }
+    sourcesToParse.remove(source);
+    librariesToResolve.remove(source);
+    replacedLibraries.remove(source);
+    unsummarizedLibraries.remove(source);
+    librariesLoadedFromSummaries.remove(source);
     sourceMap.remove(source);
+    if (info.getKind() == SourceKind.LIBRARY) {
+      dependencyGraph.removeLibrary(source);
+      ArrayList<Source> removedLibraries = new ArrayList<Source>();
+      removedLibraries.add(source);
+      invalidateDependents(removedLibraries);
+    }
+  }
+
+  /**
+   * Recompute the kind of the given source, which has been changed.
+   * <p>
+   * Note: This method must not be invoked while we are synchronized on {@link #cacheLock} because
+   * computing the kind of the source requires it to be parsed.
+   * 
+   * @param source the source that has been changed
+   */
+  private void updateKindOf(Source source) {
+    synchronized (cacheLock) {
+      if (!sourceMap.containsKey(source)) {
+        return;
+      }
+    }
+    SourceKind newKind = computeKindOf(source);
+    synchronized (cacheLock) {
+      SourceInfo info = sourceMap.get(source);
+      if (info != null && info.getKind() != newKind) {
+        if (info.getKind() == SourceKind.LIBRARY) {
+          //
+          // The source no longer defines a library, so it will not be resolved again and the
+          // libraries that depend on it need to be invalidated now.
+          //
+          librariesToResolve.remove(source);
+          replacedLibraries.remove(source);
+          dependencyGraph.removeLibrary(source);
+          ArrayList<Source> removedLibraries = new ArrayList<Source>();
+          removedLibraries.add(source);
+          invalidateDependents(removedLibraries);
+        }
+        info.setKind(newKind);
+      }
+    }
   }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.source.Source;
+
+/**
+ * Instances of the class {@code CacheRetentionPolicy} define the limits used by an analysis context
+ * to bound the amount of information it caches, and the priority with which the information
+ * associated with individual sources is retained when those limits are exceeded.
+ * <p>
+ * Clients may subclass this class in order to change the priority assigned to sources.
+ * 
+ * @coverage dart.engine
+ */
+public class CacheRetentionPolicy {
+  /**
+   * The enumeration {@code RetentionPriority} defines the priorities with which cached information
+   * is retained. When a cache is over its limits, entries with a lower priority are evicted before
+   * entries with a higher priority, and entries with the same priority are evicted in least
+   * recently used order.
+   */
+  public static enum RetentionPriority {
+    /**
+     * The information is cheap to recompute or is unlikely to be asked for again, such as the ASTs
+     * of sources in the SDK.
+     */
+    LOW,
+
+    /**
+     * The information has no special value, such as the ASTs of sources that are not open.
+     */
+    MEDIUM,
+
+    /**
+     * The information is expected to be asked for frequently, such as the ASTs of sources that are
+     * open in an editor, or cannot be freed by evicting it, such as the element models of the
+     * libraries in the SDK. Information with this priority is never evicted.
+     */
+    HIGH;
+  }
+
+  /**
+   * The enumeration {@code ResultKind} defines the kinds of information that are cached. The same
+   * source can have a different priority for each kind of information.
+   */
+  public static enum ResultKind {
+    /**
+     * The AST structures produced by parsing a source, which can be recomputed from the source.
+     */
+    AST,
+
+    /**
+     * The element models and public namespaces of libraries. The element models of the libraries
+     * that depend on a library refer to its elements, so evicting them does not free the memory they
+     * occupy as long as those libraries are retained, and recomputing them produces a second copy
+     * of the elements.
+     */
+    ELEMENT;
+  }
+
+  /**
+   * The default maximum number of ASTs that will be retained.
+   */
+  public static final int DEFAULT_MAX_AST_ENTRIES = 512;
+
+  /**
+   * The default maximum number of bytes that the retained ASTs are estimated to occupy.
+   */
+  public static final long DEFAULT_MAX_AST_BYTES = 256L * 1024L * 1024L;
+
+  /**
+   * The default maximum number of library elements and public namespaces that will be retained.
+   */
+  public static final int DEFAULT_MAX_ELEMENT_ENTRIES = 2048;
+
+  /**
+   * The maximum number of ASTs that will be retained.
+   */
+  private final int maxAstEntries;
+
+  /**
+   * The maximum number of bytes that the retained ASTs are estimated to occupy.
+   */
+  private final long maxAstBytes;
+
+  /**
+   * The maximum number of library elements and public namespaces that will be retained.
+   */
+  private final int maxElementEntries;
+
+  /**
+   * Initialize a newly created policy to use the default limits.
+   */
+  public CacheRetentionPolicy() {
+    this(DEFAULT_MAX_AST_ENTRIES, DEFAULT_MAX_AST_BYTES, DEFAULT_MAX_ELEMENT_ENTRIES);
+  }
+
+  /**
+   * Initialize a newly created policy to use the given limits.
+   * 
+   * @param maxAstEntries the maximum number of ASTs that will be retained
+   * @param maxAstBytes the maximum number of bytes that the retained ASTs are estimated to occupy
+   * @param maxElementEntries the maximum number of library elements and public namespaces that will
+   *          be retained
+   */
+  public CacheRetentionPolicy(int maxAstEntries, long maxAstBytes, int maxElementEntries) {
+    this.maxAstEntries = maxAstEntries;
+    this.maxAstBytes = maxAstBytes;
+    this.maxElementEntries = maxElementEntries;
+  }
+
+  /**
+   * Return the maximum number of bytes that the retained ASTs are estimated to occupy.
+   * 
+   * @return the maximum number of bytes that the retained ASTs are estimated to occupy
+   */
+  public long getMaxAstBytes() {
+    return maxAstBytes;
+  }
+
+  /**
+   * Return the maximum number of ASTs that will be retained.
+   * 
+   * @return the maximum number of ASTs that will be retained
+   */
+  public int getMaxAstEntries() {
+    return maxAstEntries;
+  }
+
+  /**
+   * Return the maximum number of library elements and public namespaces that will be retained.
+   * 
+   * @return the maximum number of library elements and public namespaces that will be retained
+   */
+  public int getMaxElementEntries() {
+    return maxElementEntries;
+  }
+
+  /**
+   * Return the priority with which the information of the given kind associated with the given
+   * source should be retained. The ASTs of sources in the SDK are evicted first, but the element
+   * models of the libraries in the SDK, which every other library depends on, are never evicted.
+   * 
+   * @param source the source whose information might be evicted
+   * @param kind the kind of information that might be evicted
+   * @param isPrioritySource {@code true} if the source is one of the sources the client has asked
+   *          the context to give priority to, typically because it is open in an editor
+   * @return the priority with which the information associated with the source should be retained
+   */
+  public RetentionPriority getPriority(Source source, ResultKind kind, boolean isPrioritySource) {
+    if (isPrioritySource) {
+      return RetentionPriority.HIGH;
+    } else if (source.isInSystemLibrary()) {
+      return kind == ResultKind.ELEMENT ? RetentionPriority.HIGH : RetentionPriority.LOW;
+    }
+    return RetentionPriority.MEDIUM;
+  }
+}
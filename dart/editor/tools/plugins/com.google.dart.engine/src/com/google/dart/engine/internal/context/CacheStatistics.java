@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+/**
+ * Instances of the class {@code CacheStatistics} represent a snapshot of the behavior of an
+ * {@link AnalysisCache analysis cache}, used to tune the limits of a {@link CacheRetentionPolicy}.
+ * 
+ * @coverage dart.engine
+ */
+public class CacheStatistics {
+  /**
+   * The name of the cache.
+   */
+  private final String name;
+
+  /**
+   * The number of entries in the cache.
+   */
+  private final int size;
+
+  /**
+   * The number of bytes the entries in the cache are estimated to occupy.
+   */
+  private final long estimatedBytes;
+
+  /**
+   * The number of times a value was requested and found in the cache.
+   */
+  private final long hitCount;
+
+  /**
+   * The number of times a value was requested and not found in the cache.
+   */
+  private final long missCount;
+
+  /**
+   * The number of entries that have been evicted in order to keep the cache within its limits.
+   */
+  private final long evictionCount;
+
+  /**
+   * Initialize a newly created snapshot.
+   * 
+   * @param name the name of the cache
+   * @param size the number of entries in the cache
+   * @param estimatedBytes the number of bytes the entries in the cache are estimated to occupy
+   * @param hitCount the number of times a value was requested and found in the cache
+   * @param missCount the number of times a value was requested and not found in the cache
+   * @param evictionCount the number of entries that have been evicted
+   */
+  public CacheStatistics(String name, int size, long estimatedBytes, long hitCount,
+      long missCount, long evictionCount) {
+    this.name = name;
+    this.size = size;
+    this.estimatedBytes = estimatedBytes;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+  }
+
+  /**
+   * Return the number of bytes the entries in the cache are estimated to occupy.
+   * 
+   * @return the number of bytes the entries in the cache are estimated to occupy
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  /**
+   * Return the number of entries that have been evicted in order to keep the cache within its
+   * limits.
+   * 
+   * @return the number of entries that have been evicted
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Return the number of times a value was requested and found in the cache.
+   * 
+   * @return the number of times a value was requested and found in the cache
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the fraction of requests that were satisfied by the cache, or {@code 0.0} if no values
+   * have been requested.
+   * 
+   * @return the fraction of requests that were satisfied by the cache
+   */
+  public double getHitRate() {
+    long requestCount = hitCount + missCount;
+    if (requestCount == 0L) {
+      return 0.0;
+    }
+    return (double) hitCount / requestCount;
+  }
+
+  /**
+   * Return the number of times a value was requested and not found in the cache.
+   * 
+   * @return the number of times a value was requested and not found in the cache
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Return the name of the cache.
+   * 
+   * @return the name of the cache
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Return the number of entries in the cache.
+   * 
+   * @return the number of entries in the cache
+   */
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(name);
+    builder.append(": size = ");
+    builder.append(size);
+    builder.append(", estimatedBytes = ");
+    builder.append(estimatedBytes);
+    builder.append(", hits = ");
+    builder.append(hitCount);
+    builder.append(", misses = ");
+    builder.append(missCount);
+    builder.append(", evictions = ");
+    builder.append(evictionCount);
+    return builder.toString();
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.HideCombinator;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.ShowCombinator;
+import com.google.dart.engine.element.TypeVariableElement;
+import com.google.dart.engine.element.VariableElement;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.element.VariableElementImpl;
+import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceBuilder;
+import com.google.dart.engine.internal.scope.Scope;
+import com.google.dart.engine.type.FunctionType;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Instances of the class {@code LibraryApiSignature} summarize the part of a library that is
+ * visible to the libraries that import or export it: the names in its public namespace together
+ * with the kind and type of the element associated with each name, and the export directives of
+ * the library. Two signatures are equal if and only if no library depending on the summarized
+ * library could be resolved differently, which allows the context to avoid re-resolving the
+ * dependents of a library when an edit did not change its API, such as an edit inside a method
+ * body.
+ * <p>
+ * Types are described together with the library that defines them, and the signature remembers
+ * the element models of the other libraries whose types it refers to. A library that is resolved
+ * again gets a new element model, so the signatures of a library taken before and after one of the
+ * libraries whose types it exposes was resolved again, because its API changed, are not equal.
+ * 
+ * @coverage dart.engine
+ */
+public class LibraryApiSignature {
+  /**
+   * The library whose API is summarized.
+   */
+  private final LibraryElement library;
+
+  /**
+   * A table mapping the names in the public namespace of the library to a description of the kind
+   * and type of the element associated with the name.
+   */
+  private final TreeMap<String, String> publicNames = new TreeMap<String, String>();
+
+  /**
+   * A description of each of the export directives of the library.
+   */
+  private final ArrayList<String> exports = new ArrayList<String>();
+
+  /**
+   * The element models of the other libraries that define the types referenced by the API of the
+   * library, compared by identity.
+   */
+  private final Set<LibraryElement> referencedLibraries = Collections.newSetFromMap(new IdentityHashMap<LibraryElement, Boolean>());
+
+  /**
+   * Initialize a newly created signature to summarize the API of the given library.
+   * 
+   * @param library the library whose API is to be summarized
+   */
+  public LibraryApiSignature(LibraryElement library) {
+    this.library = library;
+    Namespace namespace = new NamespaceBuilder().createPublicNamespace(library);
+    for (Map.Entry<String, Element> entry : namespace.getDefinedNames().entrySet()) {
+      publicNames.put(entry.getKey(), describe(entry.getValue()));
+    }
+    for (ExportElement export : library.getExports()) {
+      exports.add(describe(export));
+    }
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (!(object instanceof LibraryApiSignature)) {
+      return false;
+    }
+    LibraryApiSignature signature = (LibraryApiSignature) object;
+    return publicNames.equals(signature.publicNames) && exports.equals(signature.exports)
+        && referencedLibraries.equals(signature.referencedLibraries);
+  }
+
+  @Override
+  public int hashCode() {
+    return publicNames.hashCode() * 31 + exports.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, String> entry : publicNames.entrySet()) {
+      builder.append(entry.getKey());
+      builder.append(" = ");
+      builder.append(entry.getValue());
+      builder.append("\n");
+    }
+    for (String export : exports) {
+      builder.append(export);
+      builder.append("\n");
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Append a description of the given type to the given builder. Interface types are described
+   * together with the source of the library that defines them, so that replacing a type by a type
+   * with the same name from a different library changes the description.
+   * 
+   * @param builder the builder to which the description is to be appended
+   * @param type the type to be described
+   */
+  private void append(StringBuilder builder, Type type) {
+    if (type instanceof InterfaceType) {
+      InterfaceType interfaceType = (InterfaceType) type;
+      builder.append(interfaceType.getName());
+      LibraryElement definingLibrary = interfaceType.getElement().getLibrary();
+      if (definingLibrary != library) {
+        builder.append("@");
+        if (definingLibrary == null) {
+          builder.append("?");
+        } else {
+          builder.append(definingLibrary.getDefiningCompilationUnit().getSource().getFullName());
+          referencedLibraries.add(definingLibrary);
+        }
+      }
+      Type[] typeArguments = interfaceType.getTypeArguments();
+      if (typeArguments.length > 0) {
+        append(builder, typeArguments);
+      }
+    } else if (type instanceof FunctionType) {
+      FunctionType functionType = (FunctionType) type;
+      builder.append("(");
+      append(builder, functionType.getNormalParameterTypes());
+      append(builder, functionType.getOptionalParameterTypes());
+      builder.append("{");
+      for (Map.Entry<String, Type> entry : functionType.getNamedParameterTypes().entrySet()) {
+        builder.append(entry.getKey());
+        builder.append(": ");
+        append(builder, entry.getValue());
+        builder.append(", ");
+      }
+      builder.append("}) -> ");
+      append(builder, functionType.getReturnType());
+    } else {
+      builder.append(type == null ? "?" : type.toString());
+    }
+  }
+
+  /**
+   * Append a description of the given types to the given builder.
+   * 
+   * @param builder the builder to which the description is to be appended
+   * @param types the types to be described
+   */
+  private void append(StringBuilder builder, Type[] types) {
+    builder.append("[");
+    for (int i = 0; i < types.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      append(builder, types[i]);
+    }
+    builder.append("]");
+  }
+
+  /**
+   * Append a description of the given type variables to the given builder.
+   * 
+   * @param builder the builder to which the description is to be appended
+   * @param typeVariables the type variables to be described
+   */
+  private void append(StringBuilder builder, TypeVariableElement[] typeVariables) {
+    builder.append("<");
+    for (int i = 0; i < typeVariables.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(typeVariables[i].getName());
+      builder.append(" extends ");
+      append(builder, typeVariables[i].getBound());
+    }
+    builder.append(">");
+  }
+
+  /**
+   * Append the given names to the given builder.
+   * 
+   * @param builder the builder to which the names are to be appended
+   * @param names the names to be appended
+   */
+  private void appendNames(StringBuilder builder, String[] names) {
+    for (int i = 0; i < names.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(names[i]);
+    }
+  }
+
+  /**
+   * Append a description of the value of the given constant variable to the given builder. The
+   * value is part of the API because constant expressions in other libraries that reference the
+   * variable are evaluated using it.
+   * 
+   * @param builder the builder to which the description is to be appended
+   * @param variable the constant variable whose value is to be described
+   */
+  private void appendValue(StringBuilder builder, VariableElement variable) {
+    builder.append(" = ");
+    EvaluationResultImpl result = null;
+    if (variable instanceof VariableElementImpl) {
+      result = ((VariableElementImpl) variable).getEvaluationResult();
+    }
+    if (result == ValidResult.RESULT_OBJECT) {
+      builder.append("<object>");
+    } else if (result instanceof ValidResult) {
+      Object value = ((ValidResult) result).getValue();
+      if (value instanceof String) {
+        builder.append("'");
+        builder.append(value);
+        builder.append("'");
+      } else {
+        builder.append(value);
+      }
+    } else {
+      builder.append("<invalid>");
+    }
+  }
+
+  /**
+   * Return a description of the API of the given class: its type variables, supertypes and
+   * non-private members.
+   * 
+   * @param element the class to be described
+   * @return a description of the API of the given class
+   */
+  private String describe(ClassElement element) {
+    StringBuilder builder = new StringBuilder();
+    if (element.isAbstract()) {
+      builder.append("abstract ");
+    }
+    builder.append(element.isTypedef() ? "typedef " : "class ");
+    append(builder, element.getTypeVariables());
+    builder.append(" extends ");
+    append(builder, element.getSupertype());
+    builder.append(" with ");
+    append(builder, element.getMixins());
+    builder.append(" implements ");
+    append(builder, element.getInterfaces());
+    ArrayList<String> members = new ArrayList<String>();
+    for (FieldElement field : element.getFields()) {
+      if (isPublic(field)) {
+        members.add(describe(field));
+      }
+    }
+    for (PropertyAccessorElement accessor : element.getAccessors()) {
+      if (isPublic(accessor)) {
+        members.add(describe(accessor));
+      }
+    }
+    for (MethodElement method : element.getMethods()) {
+      if (isPublic(method)) {
+        members.add(describe(method));
+      }
+    }
+    for (ConstructorElement constructor : element.getConstructors()) {
+      if (isPublic(constructor)) {
+        members.add(describe(constructor));
+      }
+    }
+    //
+    // The order in which members are declared does not affect the libraries that reference them.
+    //
+    Collections.sort(members);
+    builder.append(" {");
+    for (String member : members) {
+      builder.append(member);
+      builder.append("; ");
+    }
+    builder.append("}");
+    return builder.toString();
+  }
+
+  /**
+   * Return a description of the given element that includes the kind, name and type of the element,
+   * together with any modifiers that affect the libraries that reference the element.
+   * 
+   * @param element the element to be described
+   * @return a description of the given element
+   */
+  private String describe(Element element) {
+    if (element instanceof ClassElement) {
+      return describe((ClassElement) element);
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(element.getKind().name());
+    builder.append(" ");
+    String name = element.getName();
+    builder.append(name == null ? "" : name);
+    builder.append(" : ");
+    if (element instanceof ExecutableElement) {
+      ExecutableElement executable = (ExecutableElement) element;
+      if (executable.isStatic()) {
+        builder.append("static ");
+      }
+      if (element instanceof MethodElement && ((MethodElement) element).isAbstract()) {
+        builder.append("abstract ");
+      }
+      if (element instanceof ConstructorElement) {
+        ConstructorElement constructor = (ConstructorElement) element;
+        if (constructor.isConst()) {
+          builder.append("const ");
+        }
+        if (constructor.isFactory()) {
+          builder.append("factory ");
+        }
+      }
+      append(builder, executable.getType());
+      if (element instanceof PropertyAccessorElement) {
+        PropertyAccessorElement accessor = (PropertyAccessorElement) element;
+        if (accessor.isGetter() && accessor.getVariable().isConst()) {
+          appendValue(builder, accessor.getVariable());
+        }
+      }
+    } else if (element instanceof VariableElement) {
+      VariableElement variable = (VariableElement) element;
+      if (variable instanceof FieldElement && ((FieldElement) variable).isStatic()) {
+        builder.append("static ");
+      }
+      if (variable.isConst()) {
+        builder.append("const ");
+      } else if (variable.isFinal()) {
+        builder.append("final ");
+      }
+      append(builder, variable.getType());
+      if (variable.isConst()) {
+        appendValue(builder, variable);
+      }
+    } else if (element instanceof FunctionTypeAliasElement) {
+      FunctionTypeAliasElement alias = (FunctionTypeAliasElement) element;
+      append(builder, alias.getTypeVariables());
+      append(builder, alias.getType());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Return a description of the given export directive: the library being exported and the
+   * combinators applied to it.
+   * 
+   * @param export the export directive to be described
+   * @return a description of the given export directive
+   */
+  private String describe(ExportElement export) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("export ");
+    LibraryElement exportedLibrary = export.getExportedLibrary();
+    if (exportedLibrary == null) {
+      builder.append("?");
+    } else {
+      builder.append(exportedLibrary.getDefiningCompilationUnit().getSource().getFullName());
+    }
+    for (NamespaceCombinator combinator : export.getCombinators()) {
+      if (combinator instanceof HideCombinator) {
+        builder.append(" hide ");
+        appendNames(builder, ((HideCombinator) combinator).getHiddenNames());
+      } else if (combinator instanceof ShowCombinator) {
+        builder.append(" show ");
+        appendNames(builder, ((ShowCombinator) combinator).getShownNames());
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Return {@code true} if the given class member is visible outside the library in which it is
+   * declared.
+   * 
+   * @param element the class member being tested
+   * @return {@code true} if the given class member is visible outside its library
+   */
+  private boolean isPublic(Element element) {
+    return !Scope.isPrivateName(element.getName());
+  }
+}
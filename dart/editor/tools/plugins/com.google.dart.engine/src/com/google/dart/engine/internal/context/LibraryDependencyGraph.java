@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.source.Source;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * Instances of the class {@code LibraryDependencyGraph} record the import, export and part
+ * relationships between the libraries in an analysis context, indexed in both directions so that
+ * the libraries affected by a change can be found without visiting every library in the context.
+ * <p>
+ * The dependencies of a library are recorded each time the library is resolved. Instances of this
+ * class are thread safe, so batch tools can use the graph to schedule the minimal amount of work
+ * while the context continues to update it.
+ * 
+ * @coverage dart.engine
+ */
+public class LibraryDependencyGraph {
+  /**
+   * Instances of the class {@code Dependencies} record the sources referenced by the directives of
+   * a single library.
+   */
+  private static class Dependencies {
+    /**
+     * The sources of the libraries imported by the library.
+     */
+    private final HashSet<Source> importedLibraries;
+
+    /**
+     * The sources of the libraries exported by the library.
+     */
+    private final HashSet<Source> exportedLibraries;
+
+    /**
+     * The sources of the parts of the library.
+     */
+    private final HashSet<Source> parts;
+
+    /**
+     * Initialize a newly created set of dependencies.
+     * 
+     * @param importedLibraries the sources of the libraries imported by the library
+     * @param exportedLibraries the sources of the libraries exported by the library
+     * @param parts the sources of the parts of the library
+     */
+    private Dependencies(Collection<Source> importedLibraries, Collection<Source> exportedLibraries,
+        Collection<Source> parts) {
+      this.importedLibraries = new HashSet<Source>(importedLibraries);
+      this.exportedLibraries = new HashSet<Source>(exportedLibraries);
+      this.parts = new HashSet<Source>(parts);
+    }
+  }
+
+  /**
+   * A table mapping the sources of libraries to the sources referenced by their directives.
+   */
+  private final HashMap<Source, Dependencies> dependencyMap = new HashMap<Source, Dependencies>();
+
+  /**
+   * A table mapping the sources of libraries to the sources of the libraries that import them.
+   */
+  private final HashMap<Source, HashSet<Source>> importingLibraries = new HashMap<Source, HashSet<Source>>();
+
+  /**
+   * A table mapping the sources of libraries to the sources of the libraries that export them.
+   */
+  private final HashMap<Source, HashSet<Source>> exportingLibraries = new HashMap<Source, HashSet<Source>>();
+
+  /**
+   * A table mapping the sources of parts to the sources of the libraries that contain them.
+   */
+  private final HashMap<Source, HashSet<Source>> containingLibraries = new HashMap<Source, HashSet<Source>>();
+
+  /**
+   * Initialize a newly created, empty graph.
+   */
+  public LibraryDependencyGraph() {
+    super();
+  }
+
+  /**
+   * Remove all of the dependencies from this graph.
+   */
+  public synchronized void clear() {
+    dependencyMap.clear();
+    importingLibraries.clear();
+    exportingLibraries.clear();
+    containingLibraries.clear();
+  }
+
+  /**
+   * Return the sources of the given libraries together with the sources of all of the libraries
+   * that directly or indirectly import or export any of them. These are the libraries that might
+   * need to be resolved again when the given libraries change.
+   * 
+   * @param librarySources the sources of the libraries that have changed
+   * @return the sources of the libraries that are affected by the change
+   */
+  public synchronized Set<Source> getAffectedLibraries(Collection<Source> librarySources) {
+    LinkedHashSet<Source> affectedLibraries = new LinkedHashSet<Source>(librarySources);
+    LinkedList<Source> workList = new LinkedList<Source>(librarySources);
+    while (!workList.isEmpty()) {
+      Source librarySource = workList.removeFirst();
+      for (Source dependent : getSet(importingLibraries, librarySource)) {
+        if (affectedLibraries.add(dependent)) {
+          workList.add(dependent);
+        }
+      }
+      for (Source dependent : getSet(exportingLibraries, librarySource)) {
+        if (affectedLibraries.add(dependent)) {
+          workList.add(dependent);
+        }
+      }
+    }
+    return affectedLibraries;
+  }
+
+  /**
+   * Return the sources of the libraries that contain the given source as a part.
+   * 
+   * @param source the source of the part
+   * @return the sources of the libraries that contain the given part
+   */
+  public synchronized Set<Source> getContainingLibraries(Source source) {
+    return new HashSet<Source>(getSet(containingLibraries, source));
+  }
+
+  /**
+   * Return the sources of the libraries that export the library defined by the given source.
+   * 
+   * @param librarySource the source defining the exported library
+   * @return the sources of the libraries that export the given library
+   */
+  public synchronized Set<Source> getExportingLibraries(Source librarySource) {
+    return new HashSet<Source>(getSet(exportingLibraries, librarySource));
+  }
+
+  /**
+   * Return the sources of the libraries that import the library defined by the given source.
+   * 
+   * @param librarySource the source defining the imported library
+   * @return the sources of the libraries that import the given library
+   */
+  public synchronized Set<Source> getImportingLibraries(Source librarySource) {
+    return new HashSet<Source>(getSet(importingLibraries, librarySource));
+  }
+
+  /**
+   * Return the sources of the libraries whose dependencies are recorded in this graph.
+   * 
+   * @return the sources of the libraries whose dependencies are recorded
+   */
+  public synchronized Set<Source> getLibraries() {
+    return new HashSet<Source>(dependencyMap.keySet());
+  }
+
+  /**
+   * Remove the dependencies of the library defined by the given source from this graph. The
+   * dependencies of other libraries on the library are retained so that they can be found when the
+   * library is added back or when the dependents need to be told that it is gone.
+   * 
+   * @param librarySource the source defining the library that was removed
+   */
+  public synchronized void removeLibrary(Source librarySource) {
+    Dependencies dependencies = dependencyMap.remove(librarySource);
+    if (dependencies != null) {
+      removeEdges(importingLibraries, dependencies.importedLibraries, librarySource);
+      removeEdges(exportingLibraries, dependencies.exportedLibraries, librarySource);
+      removeEdges(containingLibraries, dependencies.parts, librarySource);
+    }
+  }
+
+  /**
+   * Record the dependencies of the library defined by the given source, replacing any dependencies
+   * that were previously recorded for it.
+   * 
+   * @param librarySource the source defining the library
+   * @param importedLibraries the sources of the libraries imported by the library
+   * @param exportedLibraries the sources of the libraries exported by the library
+   * @param parts the sources of the parts of the library
+   */
+  public synchronized void setDependencies(Source librarySource,
+      Collection<Source> importedLibraries, Collection<Source> exportedLibraries,
+      Collection<Source> parts) {
+    removeLibrary(librarySource);
+    Dependencies dependencies = new Dependencies(importedLibraries, exportedLibraries, parts);
+    dependencyMap.put(librarySource, dependencies);
+    addEdges(importingLibraries, dependencies.importedLibraries, librarySource);
+    addEdges(exportingLibraries, dependencies.exportedLibraries, librarySource);
+    addEdges(containingLibraries, dependencies.parts, librarySource);
+  }
+
+  /**
+   * Record in the given reverse table that the given library depends on each of the given targets.
+   * 
+   * @param reverseMap the table mapping targets to the libraries that depend on them
+   * @param targets the sources the library depends on
+   * @param librarySource the source defining the library
+   */
+  private void addEdges(HashMap<Source, HashSet<Source>> reverseMap, Set<Source> targets,
+      Source librarySource) {
+    for (Source target : targets) {
+      HashSet<Source> dependents = reverseMap.get(target);
+      if (dependents == null) {
+        dependents = new HashSet<Source>();
+        reverseMap.put(target, dependents);
+      }
+      dependents.add(librarySource);
+    }
+  }
+
+  /**
+   * Return the set associated with the given source in the given table, or an empty set if there is
+   * no such set.
+   * 
+   * @param map the table from which the set is to be returned
+   * @param source the source whose set is to be returned
+   * @return the set associated with the given source
+   */
+  private Set<Source> getSet(HashMap<Source, HashSet<Source>> map, Source source) {
+    HashSet<Source> set = map.get(source);
+    if (set == null) {
+      return new HashSet<Source>();
+    }
+    return set;
+  }
+
+  /**
+   * Remove from the given reverse table the record that the given library depends on each of the
+   * given targets.
+   * 
+   * @param reverseMap the table mapping targets to the libraries that depend on them
+   * @param targets the sources the library depended on
+   * @param librarySource the source defining the library
+   */
+  private void removeEdges(HashMap<Source, HashSet<Source>> reverseMap, Set<Source> targets,
+      Source librarySource) {
+    for (Source target : targets) {
+      HashSet<Source> dependents = reverseMap.get(target);
+      if (dependents != null) {
+        dependents.remove(librarySource);
+        if (dependents.isEmpty()) {
+          reverseMap.remove(target);
+        }
+      }
+    }
+  }
+}
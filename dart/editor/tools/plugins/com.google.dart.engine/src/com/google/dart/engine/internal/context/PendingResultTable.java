@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.source.Source;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Instances of the class {@code PendingResultTable} compute analysis results on a per-source basis
+ * so that each result is computed at most once no matter how many threads ask for it, while
+ * requests for the results associated with different sources proceed in parallel. Completed
+ * results are published into an {@link AnalysisCache}.
+ * <p>
+ * The cache is only accessed while holding the given lock, and the lock is never held while a
+ * result is being computed, so readers of completed results never wait for unrelated work. A
+ * result that has been published is never computed a second time unless it has been evicted or
+ * invalidated, so all of the clients asking for it receive the same object.
+ * 
+ * @param <V> the type of the results being computed
+ * @coverage dart.engine
+ */
+public class PendingResultTable<V> {
+  /**
+   * The interface {@code Computation} defines the behavior of objects that compute a result
+   * associated with a source.
+   * 
+   * @param <V> the type of the result being computed
+   */
+  public interface Computation<V> {
+    /**
+     * Compute and return the result, or {@code null} if there is no result.
+     * 
+     * @return the result that was computed
+     * @throws AnalysisException if the result could not be computed
+     */
+    public V compute() throws AnalysisException;
+  }
+
+  /**
+   * Instances of the class {@code PendingResult} represent a computation that has been started by
+   * some thread and whose result can be waited for by other threads.
+   */
+  private static class PendingResult<V> extends FutureTask<V> {
+    /**
+     * The thread that is computing the result.
+     */
+    private final Thread owner;
+
+    /**
+     * Initialize a newly created pending result to perform the given computation on the current
+     * thread.
+     * 
+     * @param computation the computation used to produce the result
+     */
+    public PendingResult(final Computation<V> computation) {
+      super(new Callable<V>() {
+        @Override
+        public V call() throws Exception {
+          return computation.compute();
+        }
+      });
+      owner = Thread.currentThread();
+    }
+
+    /**
+     * Complete this computation, without performing it, by producing the given result.
+     * 
+     * @param value the result of the computation
+     */
+    public void complete(V value) {
+      set(value);
+    }
+  }
+
+  /**
+   * The object used to synchronize access to the cache.
+   */
+  private final Object lock;
+
+  /**
+   * The cache into which completed results are published.
+   */
+  private final AnalysisCache<V> cache;
+
+  /**
+   * A table mapping sources to the computations that are currently producing results for them.
+   */
+  private final ConcurrentHashMap<Source, PendingResult<V>> pendingMap = new ConcurrentHashMap<Source, PendingResult<V>>();
+
+  /**
+   * Initialize a newly created table to publish results into the given cache.
+   * 
+   * @param lock the object used to synchronize access to the cache
+   * @param cache the cache into which completed results are published
+   */
+  public PendingResultTable(Object lock, AnalysisCache<V> cache) {
+    this.lock = lock;
+    this.cache = cache;
+  }
+
+  /**
+   * Return the result associated with the given source. If the result is cached it is returned
+   * immediately. If another thread is already computing the result, wait for that thread to finish
+   * and return its result. Otherwise use the given computation to compute the result on the
+   * current thread.
+   * <p>
+   * If the computation of the result (indirectly) asks for the result itself on the same thread,
+   * waiting would deadlock, so the nested request computes the result again and returns it without
+   * publishing it. The nested request therefore receives a different object than the one that is
+   * eventually cached. Computations must not depend on their own result; for library elements this
+   * cannot happen because the libraries in an import cycle are resolved together.
+   * 
+   * @param source the source with which the result is associated
+   * @param computation the computation used to produce the result if it is not available
+   * @return the result associated with the given source
+   * @throws AnalysisException if the result could not be computed
+   */
+  public V get(Source source, Computation<V> computation) throws AnalysisException {
+    synchronized (lock) {
+      V value = cache.get(source);
+      if (value != null) {
+        return value;
+      }
+    }
+    PendingResult<V> pending = new PendingResult<V>(computation);
+    PendingResult<V> existing = pendingMap.putIfAbsent(source, pending);
+    if (existing != null) {
+      if (existing.owner == Thread.currentThread()) {
+        //
+        // The computation of this result (indirectly) requires the result itself. Waiting would
+        // deadlock, so compute the result again without publishing it (see above).
+        //
+        return computation.compute();
+      }
+      return waitFor(existing);
+    }
+    try {
+      //
+      // Another thread might have published the result after we found that it was not cached but
+      // before we registered our computation. Computing the result again would replace the
+      // published result with a second copy of it.
+      //
+      V published = getPublished(source);
+      if (published != null) {
+        pending.complete(published);
+        return published;
+      }
+      pending.run();
+      V value = waitFor(pending);
+      synchronized (lock) {
+        if (pendingMap.remove(source, pending) && value != null) {
+          cache.put(source, value);
+        }
+      }
+      return value;
+    } finally {
+      pendingMap.remove(source, pending);
+    }
+  }
+
+  /**
+   * Discard any computation that is in progress for any source. Results that are currently being
+   * computed will be returned to the threads waiting for them but will not be cached.
+   */
+  public void clear() {
+    pendingMap.clear();
+  }
+
+  /**
+   * Discard any computation that is in progress for the given source. A result that is currently
+   * being computed will be returned to the threads waiting for it but will not be cached, so that
+   * the next request computes a result that reflects the current state of the source.
+   * 
+   * @param source the source whose pending computation is to be discarded
+   */
+  public void invalidate(Source source) {
+    pendingMap.remove(source);
+  }
+
+  /**
+   * Return {@code true} if a result is currently being computed for the given source.
+   * 
+   * @param source the source being tested
+   * @return {@code true} if a result is currently being computed for the given source
+   */
+  public boolean isPending(Source source) {
+    return pendingMap.containsKey(source);
+  }
+
+  /**
+   * Return the result that has been published for the given source, or {@code null} if there is
+   * none. Unlike a request for the result, this is not counted as a miss if there is no result.
+   * 
+   * @param source the source whose result is to be returned
+   * @return the result that has been published for the given source
+   */
+  private V getPublished(Source source) {
+    synchronized (lock) {
+      return cache.containsKey(source) ? cache.get(source) : null;
+    }
+  }
+
+  /**
+   * Wait for the given computation to complete and return its result.
+   * 
+   * @param pending the computation being waited for
+   * @return the result of the computation
+   * @throws AnalysisException if the result could not be computed
+   */
+  private V waitFor(PendingResult<V> pending) throws AnalysisException {
+    try {
+      return Uninterruptibles.getUninterruptibly(pending);
+    } catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof AnalysisException) {
+        throw (AnalysisException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AnalysisException(cause);
+    }
+  }
+}
@@ -29,7 +29,7 @@ import java.util.Set;
 /**
  * Instances of the class {@code RecordingErrorListener} implement an error listener that will
  * record the errors that are reported to it in a way that is appropriate for caching those errors
- * within an analysis context.
+ * within an analysis context. Instances of this class are thread safe.
  * 
  * @coverage dart.engine
  */
@@ -45,7 +45,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
    * 
    * @return an array of errors (not {@code null}, contains no {@code null}s)
    */
-  public AnalysisError[] getErrors() {
+  public synchronized AnalysisError[] getErrors() {
     Set<Entry<Source, List<AnalysisError>>> entrySet = errors.entrySet();
     if (entrySet.size() == 0) {
       return NO_ERRORS;
@@ -64,7 +64,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
    *          collected by this listener
    * @return the errors collected by the listener for the passed {@link Source}
    */
-  public AnalysisError[] getErrors(Source source) {
+  public synchronized AnalysisError[] getErrors(Source source) {
     List<AnalysisError> errorsForSource = errors.get(source);
     if (errorsForSource == null) {
       return NO_ERRORS;
@@ -74,7 +74,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
   }
 
   @Override
-  public void onError(AnalysisError event) {
+  public synchronized void onError(AnalysisError event) {
     Source source = event.getSource();
     List<AnalysisError> errorsForSource = errors.get(source);
     if (errors.get(source) == null) {
@@ -59,13 +59,15 @@ public class SourceInfo {
 
   /**
    * Add the given source to the list of sources for the defining compilation units for the
-   * libraries containing this source.
+   * libraries containing this source. The source is not added if it is already in the list.
    * 
    * @param source the source to be added to the list
    */
   public void addLibrarySource(Source source) {
     if (librarySources == null) {
       librarySources = new ArrayList<Source>();
+    } else if (librarySources.contains(source)) {
+      return;
     }
     librarySources.add(source);
   }
@@ -13,9 +13,11 @@
  */
 package com.google.dart.engine.internal.element;
 
+import com.google.common.collect.Maps;
 import com.google.dart.engine.ast.Identifier;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.element.ElementVisitor;
 import com.google.dart.engine.element.FieldElement;
@@ -27,7 +29,10 @@ import com.google.dart.engine.internal.type.InterfaceTypeImpl;
 import com.google.dart.engine.type.InterfaceType;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Instances of the class {@code ClassElementImpl} implement a {@code ClassElement}.
@@ -35,6 +40,139 @@ import java.util.HashSet;
  * @coverage dart.engine.element
  */
 public class ClassElementImpl extends ElementImpl implements ClassElement {
+  /**
+   * Instances of the class {@code MemberTable} cache the members declared in a class, keyed by
+   * name, and the results of looking up members in the class. A table is only valid while no class
+   * whose members or supertypes were used to compute a cached result has been changed, which is
+   * detected by comparing the version of the table with the
+   * {@link ClassElementImpl#getHierarchyVersion(Element) version of the class hierarchy}.
+   */
+  private static class MemberTable {
+    /**
+     * The counter of the changes to the class hierarchy that this table depends on.
+     */
+    private final AtomicInteger hierarchyVersion;
+
+    /**
+     * The value of the {@link #hierarchyVersion} when this table was created.
+     */
+    private final int version;
+
+    /**
+     * Tables mapping the names of the getters, methods and setters declared in the class to the
+     * declared elements.
+     */
+    private final HashMap<String, PropertyAccessorElement> declaredGetters = Maps.newHashMap();
+
+    private final HashMap<String, MethodElement> declaredMethods = Maps.newHashMap();
+
+    private final HashMap<String, PropertyAccessorElement> declaredSetters = Maps.newHashMap();
+
+    /**
+     * Tables mapping public names to the results of looking them up in the class, with
+     * {@link #NOT_FOUND} recording a failed look up. The results of looking up private names depend
+     * on the library and are not cached.
+     */
+    private final ConcurrentMap<String, Object> getters = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<String, Object> methods = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<String, Object> setters = Maps.newConcurrentMap();
+
+    /**
+     * Tables mapping names to the results of looking them up in the class and its interfaces, with
+     * {@link #NOT_FOUND} recording a failed look up.
+     */
+    private final ConcurrentMap<String, Object> interfaceGetters = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<String, Object> interfaceMethods = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<String, Object> interfaceSetters = Maps.newConcurrentMap();
+
+    /**
+     * All of the supertypes of the class, or {@code null} if they have not yet been computed.
+     */
+    private volatile InterfaceType[] allSupertypes;
+
+    public MemberTable(AtomicInteger hierarchyVersion, int version,
+        PropertyAccessorElement[] accessors, MethodElement[] methods) {
+      this.hierarchyVersion = hierarchyVersion;
+      this.version = version;
+      for (PropertyAccessorElement accessor : accessors) {
+        if (accessor.isGetter()) {
+          putFirst(declaredGetters, accessor.getName(), accessor);
+        } else if (accessor.isSetter()) {
+          putFirst(declaredSetters, accessor.getName(), accessor);
+        }
+      }
+      for (MethodElement method : methods) {
+        putFirst(declaredMethods, method.getName(), method);
+      }
+    }
+
+    /**
+     * Add the given element to the given table unless an element with the same name was declared
+     * before it, so that look ups find the first declaration, as a linear search would.
+     */
+    private <E> void putFirst(HashMap<String, E> table, String name, E element) {
+      if (!table.containsKey(name)) {
+        table.put(name, element);
+      }
+    }
+  }
+
+  /**
+   * The object recorded in a {@link MemberTable} to indicate that a look up has failed.
+   */
+  private static final Object NOT_FOUND = new Object();
+
+  /**
+   * The counter of the changes to the hierarchy of the classes that are not part of a library built
+   * by an analysis context, such as classes that are still being built.
+   */
+  private static final AtomicInteger DETACHED_HIERARCHY_VERSION = new AtomicInteger();
+
+  /**
+   * Return the counter of the changes to the class hierarchy of the analysis context containing the
+   * given element, which the context gives to the libraries it builds. The counter is incremented
+   * whenever a class in that context whose members or supertypes might have been used to compute a
+   * cached result is changed. Classes only refer to classes in the same context, so results
+   * computed from the given element that are cached together with the value of the counter remain
+   * valid as long as the counter has the same value.
+   * 
+   * @param element the element whose class hierarchy is being used
+   * @return the counter of the changes to the class hierarchy containing the element
+   * @see #markHierarchyUsed()
+   */
+  public static AtomicInteger getHierarchyVersion(Element element) {
+    LibraryElement library = element.getLibrary();
+    if (library instanceof LibraryElementImpl) {
+      AtomicInteger hierarchyVersion = ((LibraryElementImpl) library).getHierarchyVersion();
+      if (hierarchyVersion != null) {
+        return hierarchyVersion;
+      }
+    }
+    return DETACHED_HIERARCHY_VERSION;
+  }
+
+  /**
+   * Return the given cached look up result as an element.
+   * 
+   * @param result the result recorded in a {@link MemberTable}, or {@code NOT_FOUND}
+   * @return the element that was found, or {@code null} if the look up failed
+   */
+  @SuppressWarnings("unchecked")
+  private static <E> E fromCachedResult(Object result) {
+    return result == NOT_FOUND ? null : (E) result;
+  }
+
+  /**
+   * Return the given look up result in the form in which it is recorded in a {@link MemberTable}.
+   */
+  private static Object toCachedResult(Object element) {
+    return element == null ? NOT_FOUND : element;
+  }
+
   /**
    * An array containing all of the accessors (getters and setters) contained in this class.
    */
@@ -81,6 +219,19 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   private TypeVariableElement[] typeVariables = TypeVariableElementImpl.EMPTY_ARRAY;
 
+  /**
+   * The table caching the members of this class and the results of looking up members in it, or
+   * {@code null} if members have not yet been looked up.
+   */
+  private volatile MemberTable memberTable;
+
+  /**
+   * A flag indicating whether the members or supertypes of this class might have been used to
+   * compute a cached look up result, so that changing them must invalidate all of the cached
+   * results.
+   */
+  private volatile boolean usedInLookUp = false;
+
   /**
    * An empty array of type elements.
    */
@@ -107,9 +258,15 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public InterfaceType[] getAllSupertypes() {
-    Collection<InterfaceType> list = new HashSet<InterfaceType>();
-    collectAllSupertypes(list);
-    return list.toArray(new InterfaceType[list.size()]);
+    MemberTable table = getMemberTable();
+    InterfaceType[] supertypes = table.allSupertypes;
+    if (supertypes == null) {
+      Collection<InterfaceType> list = new HashSet<InterfaceType>();
+      collectAllSupertypes(list);
+      supertypes = list.toArray(new InterfaceType[list.size()]);
+      table.allSupertypes = supertypes;
+    }
+    return supertypes.clone();
   }
 
   @Override
@@ -226,83 +383,101 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public PropertyAccessorElement lookUpGetter(String getterName, LibraryElement library) {
-    PropertyAccessorElement element = getGetter(getterName);
-    if (element != null && element.isAccessibleIn(library)) {
-      return element;
+    if (Identifier.isPrivateName(getterName)) {
+      return computeGetter(getterName, library);
     }
-    for (InterfaceType mixin : mixins) {
-      ClassElement mixinElement = mixin.getElement();
-      if (mixinElement != null) {
-        element = ((ClassElementImpl) mixinElement).getGetter(getterName);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    MemberTable table = getMemberTable();
+    Object result = table.getters.get(getterName);
+    if (result == null) {
+      PropertyAccessorElement element = computeGetter(getterName, library);
+      table.getters.put(getterName, toCachedResult(element));
+      return element;
     }
-    if (supertype != null) {
-      ClassElement supertypeElement = supertype.getElement();
-      if (supertypeElement != null) {
-        element = supertypeElement.lookUpGetter(getterName, library);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    return fromCachedResult(result);
+  }
+
+  @Override
+  public PropertyAccessorElement lookUpGetterInInterfaces(String getterName) {
+    MemberTable table = getMemberTable();
+    Object result = table.interfaceGetters.get(getterName);
+    if (result == null) {
+      PropertyAccessorElement element = computeGetterInInterfaces(
+          this,
+          getterName,
+          new HashSet<ClassElement>());
+      table.interfaceGetters.put(getterName, toCachedResult(element));
+      return element;
     }
-    return null;
+    return fromCachedResult(result);
   }
 
   @Override
   public MethodElement lookUpMethod(String methodName, LibraryElement library) {
-    MethodElement element = getMethod(methodName);
-    if (element != null && element.isAccessibleIn(library)) {
-      return element;
+    if (Identifier.isPrivateName(methodName)) {
+      return computeMethod(methodName, library);
     }
-    for (InterfaceType mixin : mixins) {
-      ClassElement mixinElement = mixin.getElement();
-      if (mixinElement != null) {
-        element = ((ClassElementImpl) mixinElement).getMethod(methodName);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    MemberTable table = getMemberTable();
+    Object result = table.methods.get(methodName);
+    if (result == null) {
+      MethodElement element = computeMethod(methodName, library);
+      table.methods.put(methodName, toCachedResult(element));
+      return element;
     }
-    if (supertype != null) {
-      ClassElement supertypeElement = supertype.getElement();
-      if (supertypeElement != null) {
-        element = supertypeElement.lookUpMethod(methodName, library);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    return fromCachedResult(result);
+  }
+
+  @Override
+  public MethodElement lookUpMethodInInterfaces(String methodName) {
+    MemberTable table = getMemberTable();
+    Object result = table.interfaceMethods.get(methodName);
+    if (result == null) {
+      MethodElement element = computeMethodInInterfaces(
+          this,
+          methodName,
+          new HashSet<ClassElement>());
+      table.interfaceMethods.put(methodName, toCachedResult(element));
+      return element;
     }
-    return null;
+    return fromCachedResult(result);
   }
 
   @Override
   public PropertyAccessorElement lookUpSetter(String setterName, LibraryElement library) {
-    PropertyAccessorElement element = getSetter(setterName);
-    if (element != null && element.isAccessibleIn(library)) {
-      return element;
+    if (Identifier.isPrivateName(setterName)) {
+      return computeSetter(setterName, library);
     }
-    for (InterfaceType mixin : mixins) {
-      ClassElement mixinElement = mixin.getElement();
-      if (mixinElement != null) {
-        element = ((ClassElementImpl) mixinElement).getSetter(setterName);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    MemberTable table = getMemberTable();
+    Object result = table.setters.get(setterName);
+    if (result == null) {
+      PropertyAccessorElement element = computeSetter(setterName, library);
+      table.setters.put(setterName, toCachedResult(element));
+      return element;
     }
-    if (supertype != null) {
-      ClassElement supertypeElement = supertype.getElement();
-      if (supertypeElement != null) {
-        element = supertypeElement.lookUpSetter(setterName, library);
-        if (element != null && element.isAccessibleIn(library)) {
-          return element;
-        }
-      }
+    return fromCachedResult(result);
+  }
+
+  @Override
+  public PropertyAccessorElement lookUpSetterInInterfaces(String setterName) {
+    MemberTable table = getMemberTable();
+    Object result = table.interfaceSetters.get(setterName);
+    if (result == null) {
+      PropertyAccessorElement element = computeSetterInInterfaces(
+          this,
+          setterName,
+          new HashSet<ClassElement>());
+      table.interfaceSetters.put(setterName, toCachedResult(element));
+      return element;
     }
-    return null;
+    return fromCachedResult(result);
+  }
+
+  /**
+   * Record that the members or supertypes of this class are being used to compute a result that is
+   * cached outside of this class, so that changing them will change the
+   * {@link #getHierarchyVersion(Element) version of the class hierarchy}.
+   */
+  public void markHierarchyUsed() {
+    usedInLookUp = true;
   }
 
   /**
@@ -324,6 +499,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((PropertyAccessorElementImpl) accessor).setEnclosingElement(this);
     }
     this.accessors = accessors;
+    hierarchyChanged();
   }
 
   /**
@@ -357,6 +533,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setInterfaces(InterfaceType[] interfaces) {
     this.interfaces = interfaces;
+    hierarchyChanged();
   }
 
   /**
@@ -369,6 +546,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((MethodElementImpl) method).setEnclosingElement(this);
     }
     this.methods = methods;
+    hierarchyChanged();
   }
 
   /**
@@ -379,6 +557,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setMixins(InterfaceType[] mixins) {
     this.mixins = mixins;
+    hierarchyChanged();
   }
 
   /**
@@ -388,6 +567,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setSupertype(InterfaceType supertype) {
     this.supertype = supertype;
+    hierarchyChanged();
   }
 
   /**
@@ -461,6 +641,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
   }
 
   private void collectAllSupertypes(Collection<InterfaceType> list) {
+    usedInLookUp = true;
     if (supertype == null || list.contains(supertype)) {
       return;
     }
@@ -479,6 +660,217 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
     }
   }
 
+  /**
+   * Look up the getter with the given name in this class, its mixins and its superclasses without
+   * using the cached results of previous look ups in this class.
+   * 
+   * @see #lookUpGetter(String, LibraryElement)
+   */
+  private PropertyAccessorElement computeGetter(String getterName, LibraryElement library) {
+    PropertyAccessorElement element = getGetter(getterName);
+    if (element != null && element.isAccessibleIn(library)) {
+      return element;
+    }
+    for (InterfaceType mixin : mixins) {
+      ClassElement mixinElement = mixin.getElement();
+      if (mixinElement != null) {
+        element = ((ClassElementImpl) mixinElement).getGetter(getterName);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    if (supertype != null) {
+      ClassElement supertypeElement = supertype.getElement();
+      if (supertypeElement != null) {
+        element = supertypeElement.lookUpGetter(getterName, library);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Look up the name of a getter in the given class and the interfaces it implements, either
+   * directly or indirectly, and then in its superclass.
+   * 
+   * @param targetClass the class in which the getter is being looked up
+   * @param getterName the name of the getter being looked up
+   * @param visitedClasses a set containing all of the classes that have been examined, used to
+   *          prevent infinite recursion and to optimize the search
+   * @return the element representing the getter that was found
+   * @see #lookUpGetterInInterfaces(String)
+   */
+  private PropertyAccessorElement computeGetterInInterfaces(ClassElement targetClass,
+      String getterName, HashSet<ClassElement> visitedClasses) {
+    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
+    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
+    // finding the inherited member. We need to follow that scheme. The code below should cover the
+    // 80% case.
+    if (targetClass == null || !visitedClasses.add(targetClass)) {
+      return null;
+    }
+    PropertyAccessorElement member = getGetter(targetClass, getterName);
+    if (member != null) {
+      return member;
+    }
+    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
+      member = computeGetterInInterfaces(interfaceType.getElement(), getterName, visitedClasses);
+      if (member != null) {
+        return member;
+      }
+    }
+    return computeGetterInInterfaces(getSuperclass(targetClass), getterName, visitedClasses);
+  }
+
+  /**
+   * Look up the method with the given name in this class, its mixins and its superclasses without
+   * using the cached results of previous look ups in this class.
+   * 
+   * @see #lookUpMethod(String, LibraryElement)
+   */
+  private MethodElement computeMethod(String methodName, LibraryElement library) {
+    MethodElement element = getMethod(methodName);
+    if (element != null && element.isAccessibleIn(library)) {
+      return element;
+    }
+    for (InterfaceType mixin : mixins) {
+      ClassElement mixinElement = mixin.getElement();
+      if (mixinElement != null) {
+        element = ((ClassElementImpl) mixinElement).getMethod(methodName);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    if (supertype != null) {
+      ClassElement supertypeElement = supertype.getElement();
+      if (supertypeElement != null) {
+        element = supertypeElement.lookUpMethod(methodName, library);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Look up the name of a method in the given class and the interfaces it implements, either
+   * directly or indirectly, and then in its superclass.
+   * 
+   * @param targetClass the class in which the method is being looked up
+   * @param methodName the name of the method being looked up
+   * @param visitedClasses a set containing all of the classes that have been examined, used to
+   *          prevent infinite recursion and to optimize the search
+   * @return the element representing the method that was found
+   * @see #lookUpMethodInInterfaces(String)
+   */
+  private MethodElement computeMethodInInterfaces(ClassElement targetClass, String methodName,
+      HashSet<ClassElement> visitedClasses) {
+    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
+    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
+    // finding the inherited member. We need to follow that scheme. The code below should cover the
+    // 80% case.
+    if (targetClass == null || !visitedClasses.add(targetClass)) {
+      return null;
+    }
+    MethodElement member = getMethod(targetClass, methodName);
+    if (member != null) {
+      return member;
+    }
+    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
+      member = computeMethodInInterfaces(interfaceType.getElement(), methodName, visitedClasses);
+      if (member != null) {
+        return member;
+      }
+    }
+    return computeMethodInInterfaces(getSuperclass(targetClass), methodName, visitedClasses);
+  }
+
+  /**
+   * Look up the setter with the given name in this class, its mixins and its superclasses without
+   * using the cached results of previous look ups in this class.
+   * 
+   * @see #lookUpSetter(String, LibraryElement)
+   */
+  private PropertyAccessorElement computeSetter(String setterName, LibraryElement library) {
+    PropertyAccessorElement element = getSetter(setterName);
+    if (element != null && element.isAccessibleIn(library)) {
+      return element;
+    }
+    for (InterfaceType mixin : mixins) {
+      ClassElement mixinElement = mixin.getElement();
+      if (mixinElement != null) {
+        element = ((ClassElementImpl) mixinElement).getSetter(setterName);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    if (supertype != null) {
+      ClassElement supertypeElement = supertype.getElement();
+      if (supertypeElement != null) {
+        element = supertypeElement.lookUpSetter(setterName, library);
+        if (element != null && element.isAccessibleIn(library)) {
+          return element;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Look up the name of a setter in the given class and the interfaces it implements, either
+   * directly or indirectly, and then in its superclass.
+   * 
+   * @param targetClass the class in which the setter is being looked up
+   * @param setterName the name of the setter being looked up
+   * @param visitedClasses a set containing all of the classes that have been examined, used to
+   *          prevent infinite recursion and to optimize the search
+   * @return the element representing the setter that was found
+   * @see #lookUpSetterInInterfaces(String)
+   */
+  private PropertyAccessorElement computeSetterInInterfaces(ClassElement targetClass,
+      String setterName, HashSet<ClassElement> visitedClasses) {
+    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
+    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
+    // finding the inherited member. We need to follow that scheme. The code below should cover the
+    // 80% case.
+    if (targetClass == null || !visitedClasses.add(targetClass)) {
+      return null;
+    }
+    PropertyAccessorElement member = getSetter(targetClass, setterName);
+    if (member != null) {
+      return member;
+    }
+    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
+      member = computeSetterInInterfaces(interfaceType.getElement(), setterName, visitedClasses);
+      if (member != null) {
+        return member;
+      }
+    }
+    return computeSetterInInterfaces(getSuperclass(targetClass), setterName, visitedClasses);
+  }
+
+  /**
+   * Return the element representing the getter with the given name that is declared in the given
+   * class, or {@code null} if the class does not declare a getter with the given name.
+   */
+  private PropertyAccessorElement getGetter(ClassElement element, String getterName) {
+    if (element instanceof ClassElementImpl) {
+      return ((ClassElementImpl) element).getGetter(getterName);
+    }
+    for (PropertyAccessorElement accessor : element.getAccessors()) {
+      if (accessor.isGetter() && accessor.getName().equals(getterName)) {
+        return accessor;
+      }
+    }
+    return null;
+  }
+
   /**
    * Return the element representing the getter with the given name that is declared in this class,
    * or {@code null} if this class does not declare a getter with the given name.
@@ -487,9 +879,38 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    * @return the getter declared in this class with the given name
    */
   private PropertyAccessorElement getGetter(String getterName) {
-    for (PropertyAccessorElement accessor : accessors) {
-      if (accessor.isGetter() && accessor.getName().equals(getterName)) {
-        return accessor;
+    return getMemberTable().declaredGetters.get(getterName);
+  }
+
+  /**
+   * Return the table caching the members of this class, creating a new table if there is none or if
+   * a class has been changed since the table was created.
+   * 
+   * @return the table caching the members of this class
+   */
+  private MemberTable getMemberTable() {
+    usedInLookUp = true;
+    AtomicInteger hierarchyVersion = getHierarchyVersion(this);
+    int version = hierarchyVersion.get();
+    MemberTable table = memberTable;
+    if (table == null || table.hierarchyVersion != hierarchyVersion || table.version != version) {
+      table = new MemberTable(hierarchyVersion, version, accessors, methods);
+      memberTable = table;
+    }
+    return table;
+  }
+
+  /**
+   * Return the element representing the method with the given name that is declared in the given
+   * class, or {@code null} if the class does not declare a method with the given name.
+   */
+  private MethodElement getMethod(ClassElement element, String methodName) {
+    if (element instanceof ClassElementImpl) {
+      return ((ClassElementImpl) element).getMethod(methodName);
+    }
+    for (MethodElement method : element.getMethods()) {
+      if (method.getName().equals(methodName)) {
+        return method;
       }
     }
     return null;
@@ -503,9 +924,20 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    * @return the method declared in this class with the given name
    */
   private MethodElement getMethod(String methodName) {
-    for (MethodElement method : methods) {
-      if (method.getName().equals(methodName)) {
-        return method;
+    return getMemberTable().declaredMethods.get(methodName);
+  }
+
+  /**
+   * Return the element representing the setter with the given name that is declared in the given
+   * class, or {@code null} if the class does not declare a setter with the given name.
+   */
+  private PropertyAccessorElement getSetter(ClassElement element, String setterName) {
+    if (element instanceof ClassElementImpl) {
+      return ((ClassElementImpl) element).getSetter(setterName);
+    }
+    for (PropertyAccessorElement accessor : element.getAccessors()) {
+      if (accessor.isSetter() && accessor.getName().equals(setterName)) {
+        return accessor;
       }
     }
     return null;
@@ -519,11 +951,30 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    * @return the getter declared in this class with the given name
    */
   private PropertyAccessorElement getSetter(String setterName) {
-    for (PropertyAccessorElement accessor : accessors) {
-      if (accessor.isSetter() && accessor.getName().equals(setterName)) {
-        return accessor;
-      }
+    return getMemberTable().declaredSetters.get(setterName);
+  }
+
+  /**
+   * Return the element representing the superclass of the given class, or {@code null} if it does
+   * not have one.
+   */
+  private ClassElement getSuperclass(ClassElement targetClass) {
+    InterfaceType superType = targetClass.getSupertype();
+    if (superType == null) {
+      return null;
+    }
+    return superType.getElement();
+  }
+
+  /**
+   * Record that the members or supertypes of this class have been changed. If they might have been
+   * used to compute cached look up results, all of the cached results that were computed from the
+   * classes in the same analysis context are invalidated.
+   */
+  private void hierarchyChanged() {
+    memberTable = null;
+    if (usedInLookUp) {
+      getHierarchyVersion(this).incrementAndGet();
     }
-    return null;
   }
 }
@@ -24,12 +24,14 @@ import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.internal.type.TypeRelationCache;
 import com.google.dart.engine.source.Source;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Instances of the class {@code LibraryElementImpl} implement a {@code LibraryElement}.
@@ -115,6 +117,18 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
    */
   private CompilationUnitElement[] parts = CompilationUnitElementImpl.EMPTY_ARRAY;
 
+  /**
+   * The counter of the changes to the class hierarchy of the analysis context in which this library
+   * is defined, or {@code null} if the library was not built by an analysis context.
+   */
+  private AtomicInteger hierarchyVersion;
+
+  /**
+   * The cache of the relations between the types defined in the analysis context in which this
+   * library is defined, or {@code null} if the relations are not cached.
+   */
+  private TypeRelationCache typeRelationCache;
+
   /**
    * Initialize a newly created library element to have the given name.
    * 
@@ -181,6 +195,16 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     return exports;
   }
 
+  /**
+   * Return the counter of the changes to the class hierarchy of the analysis context in which this
+   * library is defined, or {@code null} if the library was not built by an analysis context.
+   * 
+   * @return the counter of the changes to the class hierarchy containing this library
+   */
+  public AtomicInteger getHierarchyVersion() {
+    return hierarchyVersion;
+  }
+
   @Override
   public String getIdentifier() {
     return definingCompilationUnit.getSource().getFullName();
@@ -223,6 +247,16 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     return prefixes.toArray(new PrefixElement[prefixes.size()]);
   }
 
+  /**
+   * Return the cache of the relations between the types defined in the analysis context in which
+   * this library is defined, or {@code null} if the relations are not cached.
+   * 
+   * @return the cache of the relations between the types defined in the context of this library
+   */
+  public TypeRelationCache getTypeRelationCache() {
+    return typeRelationCache;
+  }
+
   @Override
   public int hashCode() {
     return definingCompilationUnit.hashCode();
@@ -276,6 +310,17 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     this.exports = exports;
   }
 
+  /**
+   * Set the counter of the changes to the class hierarchy of the analysis context in which this
+   * library is defined to the given counter.
+   * 
+   * @param hierarchyVersion the counter of the changes to the class hierarchy containing this
+   *          library
+   */
+  public void setHierarchyVersion(AtomicInteger hierarchyVersion) {
+    this.hierarchyVersion = hierarchyVersion;
+  }
+
   /**
    * Set the specifications of all of the imports defined in this library to the given array.
    * 
@@ -305,6 +350,17 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     this.parts = parts;
   }
 
+  /**
+   * Set the cache of the relations between the types defined in the analysis context in which this
+   * library is defined to the given cache.
+   * 
+   * @param cache the cache of the relations between the types defined in the context of this
+   *          library
+   */
+  public void setTypeRelationCache(TypeRelationCache cache) {
+    typeRelationCache = cache;
+  }
+
   @Override
   public void visitChildren(ElementVisitor<?> visitor) {
     super.visitChildren(visitor);
@@ -127,16 +127,31 @@ public class ClassElementHandle extends ElementHandle implements ClassElement {
     return getActualElement().lookUpGetter(getterName, library);
   }
 
+  @Override
+  public PropertyAccessorElement lookUpGetterInInterfaces(String getterName) {
+    return getActualElement().lookUpGetterInInterfaces(getterName);
+  }
+
   @Override
   public MethodElement lookUpMethod(String methodName, LibraryElement library) {
     return getActualElement().lookUpMethod(methodName, library);
   }
 
+  @Override
+  public MethodElement lookUpMethodInInterfaces(String methodName) {
+    return getActualElement().lookUpMethodInInterfaces(methodName);
+  }
+
   @Override
   public PropertyAccessorElement lookUpSetter(String setterName, LibraryElement library) {
     return getActualElement().lookUpSetter(setterName, library);
   }
 
+  @Override
+  public PropertyAccessorElement lookUpSetterInInterfaces(String setterName) {
+    return getActualElement().lookUpSetterInInterfaces(setterName);
+  }
+
   @Override
   protected ClassElement getActualElement() {
     return (ClassElement) super.getActualElement();
@@ -0,0 +1,623 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.utilities.collection.IntList;
+import com.google.dart.engine.utilities.collection.IntStack;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link IndexStore} which keeps full index in memory using a compact representation.
+ * <p>
+ * Elements, relationships and import prefixes are interned to <code>int</code> identifiers. The
+ * locations recorded for an (element, relationship) pair are stored in a single packed
+ * <code>int[]</code> "bucket", four values per location, instead of as one
+ * {@link ContributedLocation} and one {@link Location} object linked into two lists per location.
+ * {@link Location} objects are only created when the relationships are requested.
+ * <p>
+ * Every interned element is owned by the {@link Source} which declares it. Each source remembers
+ * the elements it owns and the buckets it contributed locations to, so removing a source filters
+ * only those primitive arrays and never walks object graphs.
+ * 
+ * @coverage dart.engine.index
+ */
+public class CompactIndexStoreImpl implements IndexStore {
+  /**
+   * Information about a single {@link Source} in a single {@link AnalysisContext}.
+   */
+  private static class SourceData {
+    /**
+     * The {@link AnalysisContext} the source belongs to.
+     */
+    final AnalysisContext context;
+
+    /**
+     * The {@link Source}, may be <code>null</code> for elements without a source.
+     */
+    final Source source;
+
+    /**
+     * The identifiers of the elements which are declared in this source.
+     */
+    final IntList elementIds = new IntList(8);
+
+    /**
+     * The identifiers of the buckets this source contributed locations to. May contain duplicates
+     * and identifiers of buckets which were reused for other keys, both of which are harmless.
+     */
+    final IntList bucketIds = new IntList(8);
+
+    SourceData(AnalysisContext context, Source source) {
+      this.context = context;
+      this.source = source;
+    }
+  }
+
+  /**
+   * The number of <code>int</code> values used to encode a single location in a bucket: the
+   * identifier of the location element, the offset, the length and the identifier of the import
+   * prefix.
+   */
+  @VisibleForTesting
+  static final int LOCATION_SIZE = 4;
+
+  /**
+   * The import prefix identifier used when a location has no import prefix.
+   */
+  private static final int NO_PREFIX = -1;
+
+  /**
+   * The initial capacity of the per-element and per-bucket arrays.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * A table mapping elements to their identifiers.
+   */
+  private final Map<Element, Integer> elementIdMap = Maps.newHashMapWithExpectedSize(4096);
+
+  /**
+   * The elements, indexed by identifier; <code>null</code> for free identifiers.
+   */
+  private Element[] elements = new Element[INITIAL_CAPACITY];
+
+  /**
+   * The {@link SourceData} owning each element, indexed by element identifier.
+   */
+  private SourceData[] elementSources = new SourceData[INITIAL_CAPACITY];
+
+  /**
+   * The identifiers of the buckets keyed by each element, indexed by element identifier.
+   */
+  private int[][] elementBuckets = new int[INITIAL_CAPACITY][];
+
+  /**
+   * The number of used values in each array of {@link #elementBuckets}.
+   */
+  private int[] elementBucketCounts = new int[INITIAL_CAPACITY];
+
+  /**
+   * The first element identifier which was never used.
+   */
+  private int nextElementId = 0;
+
+  /**
+   * The element identifiers which were released and can be reused.
+   */
+  private final IntStack freeElementIds = new IntStack(64);
+
+  /**
+   * The number of elements which have at least one relationship.
+   */
+  private int keyElementCount = 0;
+
+  /**
+   * A table mapping relationships to their identifiers.
+   */
+  private final Map<Relationship, Integer> relationshipIdMap = Maps.newHashMap();
+
+  /**
+   * A table mapping import prefixes to their identifiers.
+   */
+  private final Map<String, Integer> prefixIdMap = Maps.newHashMap();
+
+  /**
+   * The import prefixes, indexed by identifier.
+   */
+  private final List<String> prefixes = Lists.newArrayList();
+
+  /**
+   * The packed locations in each bucket, indexed by bucket identifier; <code>null</code> for free
+   * identifiers.
+   */
+  private int[][] bucketLocations = new int[INITIAL_CAPACITY][];
+
+  /**
+   * The number of locations in each bucket, indexed by bucket identifier.
+   */
+  private int[] bucketSizes = new int[INITIAL_CAPACITY];
+
+  /**
+   * The identifier of the element each bucket is keyed by, indexed by bucket identifier.
+   */
+  private int[] bucketElements = new int[INITIAL_CAPACITY];
+
+  /**
+   * The identifier of the relationship each bucket is keyed by, indexed by bucket identifier.
+   */
+  private int[] bucketRelationships = new int[INITIAL_CAPACITY];
+
+  /**
+   * The {@link SourceData} which most recently contributed a location to each bucket, used to
+   * avoid remembering the same bucket for a source many times.
+   */
+  private SourceData[] bucketLastSources = new SourceData[INITIAL_CAPACITY];
+
+  /**
+   * The first bucket identifier which was never used.
+   */
+  private int nextBucketId = 0;
+
+  /**
+   * The bucket identifiers which were released and can be reused.
+   */
+  private final IntStack freeBucketIds = new IntStack(64);
+
+  /**
+   * The total number of locations in all buckets.
+   */
+  private int relationshipCount = 0;
+
+  /**
+   * {@link SourceData}s by {@link AnalysisContext} and {@link Source}.
+   */
+  private final Map<AnalysisContext, Map<Source, SourceData>> sourceMap = Maps.newHashMapWithExpectedSize(64);
+
+  @Override
+  public void clear() {
+    elementIdMap.clear();
+    elements = new Element[INITIAL_CAPACITY];
+    elementSources = new SourceData[INITIAL_CAPACITY];
+    elementBuckets = new int[INITIAL_CAPACITY][];
+    elementBucketCounts = new int[INITIAL_CAPACITY];
+    nextElementId = 0;
+    freeElementIds.clear();
+    keyElementCount = 0;
+    bucketLocations = new int[INITIAL_CAPACITY][];
+    bucketSizes = new int[INITIAL_CAPACITY];
+    bucketElements = new int[INITIAL_CAPACITY];
+    bucketRelationships = new int[INITIAL_CAPACITY];
+    bucketLastSources = new SourceData[INITIAL_CAPACITY];
+    nextBucketId = 0;
+    freeBucketIds.clear();
+    relationshipCount = 0;
+    sourceMap.clear();
+  }
+
+  @Override
+  public int getElementCount() {
+    return keyElementCount;
+  }
+
+  @VisibleForTesting
+  public int getLocationCount(AnalysisContext context) {
+    int count = 0;
+    Map<Source, SourceData> contextSources = sourceMap.get(context);
+    if (contextSources != null) {
+      for (SourceData sourceData : contextSources.values()) {
+        Set<Integer> bucketIds = Sets.newHashSet();
+        for (int i = 0; i < sourceData.bucketIds.size(); i++) {
+          bucketIds.add(sourceData.bucketIds.get(i));
+        }
+        for (int bucketId : bucketIds) {
+          count += countLocations(bucketId, sourceData);
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int getRelationshipCount() {
+    return relationshipCount;
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    Integer elementId = elementIdMap.get(element);
+    Integer relationshipId = relationshipIdMap.get(relationship);
+    if (elementId == null || relationshipId == null) {
+      return Location.EMPTY_ARRAY;
+    }
+    int bucketId = findBucket(elementId.intValue(), relationshipId.intValue());
+    if (bucketId == -1) {
+      return Location.EMPTY_ARRAY;
+    }
+    int[] packed = bucketLocations[bucketId];
+    int count = bucketSizes[bucketId];
+    Location[] locations = new Location[count];
+    for (int i = 0, index = 0; i < count; i++, index += LOCATION_SIZE) {
+      int prefixId = packed[index + 3];
+      locations[i] = new Location(
+          elements[packed[index]],
+          packed[index + 1],
+          packed[index + 2],
+          prefixId == NO_PREFIX ? null : prefixes.get(prefixId));
+    }
+    return locations;
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship, String namePrefix) {
+    // declarations are not indexed by name, so visit all of them
+    return DeclarationNameIndex.filterByNamePrefix(
+        getRelationships(element, relationship),
+        namePrefix);
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    int elementId = internElement(element);
+    int locationElementId = internElement(location.getElement());
+    int relationshipId = internRelationship(relationship);
+    int bucketId = findBucket(elementId, relationshipId);
+    if (bucketId == -1) {
+      bucketId = createBucket(elementId, relationshipId);
+    }
+    // append location
+    int[] packed = bucketLocations[bucketId];
+    int index = bucketSizes[bucketId] * LOCATION_SIZE;
+    if (index + LOCATION_SIZE > packed.length) {
+      int[] newPacked = new int[packed.length * 2];
+      System.arraycopy(packed, 0, newPacked, 0, index);
+      packed = newPacked;
+      bucketLocations[bucketId] = packed;
+    }
+    packed[index] = locationElementId;
+    packed[index + 1] = location.getOffset();
+    packed[index + 2] = location.getLength();
+    packed[index + 3] = internPrefix(location.getImportPrefix());
+    bucketSizes[bucketId]++;
+    relationshipCount++;
+    // remember that the location source contributed to this bucket
+    SourceData locationSource = elementSources[locationElementId];
+    if (bucketLastSources[bucketId] != locationSource) {
+      bucketLastSources[bucketId] = locationSource;
+      locationSource.bucketIds.add(bucketId);
+    }
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    Map<Source, SourceData> contextSources = sourceMap.get(context);
+    if (contextSources != null) {
+      for (SourceData sourceData : Lists.newArrayList(contextSources.values())) {
+        removeSourceData(sourceData);
+      }
+    }
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source source) {
+    Map<Source, SourceData> contextSources = sourceMap.get(context);
+    if (contextSources != null) {
+      SourceData sourceData = contextSources.get(source);
+      if (sourceData != null) {
+        removeSourceData(sourceData);
+      }
+    }
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    Map<Source, SourceData> contextSources = sourceMap.get(context);
+    if (contextSources != null) {
+      for (SourceData sourceData : Lists.newArrayList(contextSources.values())) {
+        if (container.contains(sourceData.source)) {
+          removeSourceData(sourceData);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of locations in the given bucket whose element is declared in the given
+   *         source.
+   */
+  private int countLocations(int bucketId, SourceData sourceData) {
+    int[] packed = bucketLocations[bucketId];
+    if (packed == null) {
+      return 0;
+    }
+    int count = 0;
+    int end = bucketSizes[bucketId] * LOCATION_SIZE;
+    for (int index = 0; index < end; index += LOCATION_SIZE) {
+      if (elementSources[packed[index]] == sourceData) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Creates new empty bucket for the given element and relationship.
+   * 
+   * @return the identifier of the created bucket
+   */
+  private int createBucket(int elementId, int relationshipId) {
+    int bucketId;
+    if (freeBucketIds.isEmpty()) {
+      bucketId = nextBucketId++;
+      ensureBucketCapacity(nextBucketId);
+    } else {
+      bucketId = freeBucketIds.pop();
+    }
+    bucketLocations[bucketId] = new int[LOCATION_SIZE];
+    bucketSizes[bucketId] = 0;
+    bucketElements[bucketId] = elementId;
+    bucketRelationships[bucketId] = relationshipId;
+    bucketLastSources[bucketId] = null;
+    // add to the element buckets
+    int[] buckets = elementBuckets[elementId];
+    int count = elementBucketCounts[elementId];
+    if (buckets == null) {
+      buckets = new int[2];
+      elementBuckets[elementId] = buckets;
+    } else if (count == buckets.length) {
+      int[] newBuckets = new int[count * 2];
+      System.arraycopy(buckets, 0, newBuckets, 0, count);
+      buckets = newBuckets;
+      elementBuckets[elementId] = buckets;
+    }
+    buckets[count] = bucketId;
+    elementBucketCounts[elementId] = count + 1;
+    if (count == 0) {
+      keyElementCount++;
+    }
+    return bucketId;
+  }
+
+  private void ensureBucketCapacity(int capacity) {
+    int length = bucketSizes.length;
+    if (capacity > length) {
+      int newLength = Math.max(capacity, length * 2);
+      int[][] newLocations = new int[newLength][];
+      System.arraycopy(bucketLocations, 0, newLocations, 0, length);
+      bucketLocations = newLocations;
+      bucketSizes = grow(bucketSizes, newLength);
+      bucketElements = grow(bucketElements, newLength);
+      bucketRelationships = grow(bucketRelationships, newLength);
+      SourceData[] newLastSources = new SourceData[newLength];
+      System.arraycopy(bucketLastSources, 0, newLastSources, 0, length);
+      bucketLastSources = newLastSources;
+    }
+  }
+
+  private void ensureElementCapacity(int capacity) {
+    int length = elements.length;
+    if (capacity > length) {
+      int newLength = Math.max(capacity, length * 2);
+      Element[] newElements = new Element[newLength];
+      System.arraycopy(elements, 0, newElements, 0, length);
+      elements = newElements;
+      SourceData[] newSources = new SourceData[newLength];
+      System.arraycopy(elementSources, 0, newSources, 0, length);
+      elementSources = newSources;
+      int[][] newBuckets = new int[newLength][];
+      System.arraycopy(elementBuckets, 0, newBuckets, 0, length);
+      elementBuckets = newBuckets;
+      elementBucketCounts = grow(elementBucketCounts, newLength);
+    }
+  }
+
+  /**
+   * @return the identifier of the bucket for the given element and relationship, or
+   *         <code>-1</code> if there is no such bucket.
+   */
+  private int findBucket(int elementId, int relationshipId) {
+    int[] buckets = elementBuckets[elementId];
+    int count = elementBucketCounts[elementId];
+    for (int i = 0; i < count; i++) {
+      int bucketId = buckets[i];
+      if (bucketRelationships[bucketId] == relationshipId) {
+        return bucketId;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Releases the given bucket and removes it from the buckets of its element.
+   */
+  private void freeBucket(int bucketId) {
+    int elementId = bucketElements[bucketId];
+    int[] buckets = elementBuckets[elementId];
+    int count = elementBucketCounts[elementId];
+    for (int i = 0; i < count; i++) {
+      if (buckets[i] == bucketId) {
+        buckets[i] = buckets[count - 1];
+        count--;
+        break;
+      }
+    }
+    elementBucketCounts[elementId] = count;
+    if (count == 0) {
+      keyElementCount--;
+    }
+    relationshipCount -= bucketSizes[bucketId];
+    bucketLocations[bucketId] = null;
+    bucketSizes[bucketId] = 0;
+    bucketLastSources[bucketId] = null;
+    freeBucketIds.push(bucketId);
+  }
+
+  /**
+   * @return the {@link SourceData} for the given {@link AnalysisContext} and {@link Source},
+   *         created if necessary.
+   */
+  private SourceData getSourceData(AnalysisContext context, Source source) {
+    Map<Source, SourceData> contextSources = sourceMap.get(context);
+    if (contextSources == null) {
+      contextSources = Maps.newHashMapWithExpectedSize(256);
+      sourceMap.put(context, contextSources);
+    }
+    SourceData sourceData = contextSources.get(source);
+    if (sourceData == null) {
+      sourceData = new SourceData(context, source);
+      contextSources.put(source, sourceData);
+    }
+    return sourceData;
+  }
+
+  private int[] grow(int[] array, int newLength) {
+    int[] newArray = new int[newLength];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+
+  /**
+   * @return the identifier of the given {@link Element}, assigned if necessary.
+   */
+  private int internElement(Element element) {
+    Integer id = elementIdMap.get(element);
+    if (id != null) {
+      return id.intValue();
+    }
+    int elementId;
+    if (freeElementIds.isEmpty()) {
+      elementId = nextElementId++;
+      ensureElementCapacity(nextElementId);
+    } else {
+      elementId = freeElementIds.pop();
+    }
+    SourceData sourceData = getSourceData(
+        element.getContext(),
+        MemoryIndexStoreImpl.findSource(element));
+    elements[elementId] = element;
+    elementSources[elementId] = sourceData;
+    elementBucketCounts[elementId] = 0;
+    sourceData.elementIds.add(elementId);
+    elementIdMap.put(element, elementId);
+    return elementId;
+  }
+
+  /**
+   * @return the identifier of the given import prefix, assigned if necessary.
+   */
+  private int internPrefix(String prefix) {
+    if (prefix == null) {
+      return NO_PREFIX;
+    }
+    Integer id = prefixIdMap.get(prefix);
+    if (id == null) {
+      id = prefixes.size();
+      prefixes.add(prefix);
+      prefixIdMap.put(prefix, id);
+    }
+    return id.intValue();
+  }
+
+  /**
+   * @return the identifier of the given {@link Relationship}, assigned if necessary.
+   */
+  private int internRelationship(Relationship relationship) {
+    Integer id = relationshipIdMap.get(relationship);
+    if (id == null) {
+      id = relationshipIdMap.size();
+      relationshipIdMap.put(relationship, id);
+    }
+    return id.intValue();
+  }
+
+  /**
+   * Removes from the given bucket all locations whose element is declared in the given source.
+   */
+  private void removeLocations(int bucketId, SourceData sourceData) {
+    int[] packed = bucketLocations[bucketId];
+    if (packed == null) {
+      return;
+    }
+    int end = bucketSizes[bucketId] * LOCATION_SIZE;
+    int target = 0;
+    for (int index = 0; index < end; index += LOCATION_SIZE) {
+      if (elementSources[packed[index]] != sourceData) {
+        if (target != index) {
+          System.arraycopy(packed, index, packed, target, LOCATION_SIZE);
+        }
+        target += LOCATION_SIZE;
+      }
+    }
+    int newSize = target / LOCATION_SIZE;
+    relationshipCount -= bucketSizes[bucketId] - newSize;
+    bucketSizes[bucketId] = newSize;
+    if (bucketLastSources[bucketId] == sourceData) {
+      bucketLastSources[bucketId] = null;
+    }
+    if (newSize == 0) {
+      freeBucket(bucketId);
+    }
+  }
+
+  /**
+   * Removes all the locations contributed by the given source and all the elements declared in it,
+   * together with their relationships.
+   */
+  private void removeSourceData(SourceData sourceData) {
+    // remove locations in the source, while element identifiers are still valid
+    IntList bucketIds = sourceData.bucketIds;
+    int bucketCount = bucketIds.size();
+    for (int i = 0; i < bucketCount; i++) {
+      removeLocations(bucketIds.get(i), sourceData);
+    }
+    // remove elements declared in the source
+    IntList elementIds = sourceData.elementIds;
+    int elementCount = elementIds.size();
+    for (int i = 0; i < elementCount; i++) {
+      int elementId = elementIds.get(i);
+      while (elementBucketCounts[elementId] != 0) {
+        freeBucket(elementBuckets[elementId][0]);
+      }
+      elementIdMap.remove(elements[elementId]);
+      elements[elementId] = null;
+      elementSources[elementId] = null;
+      elementBuckets[elementId] = null;
+      freeElementIds.push(elementId);
+    }
+    // forget the source
+    Map<Source, SourceData> contextSources = sourceMap.get(sourceData.context);
+    if (contextSources != null) {
+      contextSources.remove(sourceData.source);
+      if (contextSources.isEmpty()) {
+        sourceMap.remove(sourceData.context);
+      }
+    }
+  }
+}
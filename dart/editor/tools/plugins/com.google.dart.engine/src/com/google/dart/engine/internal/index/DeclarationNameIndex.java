@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Instances of the class {@code DeclarationNameIndex} index the locations of declarations by the
+ * names of the declared elements, so that the declarations whose names start with a given prefix
+ * can be found without visiting all of the declarations.
+ * <p>
+ * Names are kept in a map sorted without regard to case, so the declarations with a given prefix
+ * are a contiguous range of the map. The index is updated incrementally as declarations are
+ * recorded and as the sources declaring them are removed.
+ * 
+ * @coverage dart.engine.index
+ */
+public class DeclarationNameIndex {
+  /**
+   * Instances of the class {@code Declaration} record a single declaration.
+   */
+  private static class Declaration {
+    private final String name;
+    private final Relationship relationship;
+    private final Location location;
+
+    public Declaration(String name, Relationship relationship, Location location) {
+      this.name = name;
+      this.relationship = relationship;
+      this.location = location;
+    }
+  }
+
+  /**
+   * Return those of the given locations whose elements have names that start with the given
+   * prefix, ignoring case. This is used to answer queries by name prefix for relationships that are
+   * not indexed by name.
+   * 
+   * @param locations the locations to be filtered
+   * @param prefix the prefix with which the names of the elements start
+   * @return the locations whose elements have names that start with the given prefix
+   */
+  public static Location[] filterByNamePrefix(Location[] locations, String prefix) {
+    if (prefix.length() == 0) {
+      return locations;
+    }
+    List<Location> filteredLocations = Lists.newArrayList();
+    for (Location location : locations) {
+      String name = location.getElement().getName();
+      if (name != null && startsWithIgnoreCase(name, prefix)) {
+        filteredLocations.add(location);
+      }
+    }
+    return filteredLocations.toArray(new Location[filteredLocations.size()]);
+  }
+
+  /**
+   * Return {@code true} if the given name starts with the given prefix, ignoring case.
+   * 
+   * @param name the name being tested
+   * @param prefix the prefix being looked for
+   * @return {@code true} if the given name starts with the given prefix
+   */
+  public static boolean startsWithIgnoreCase(String name, String prefix) {
+    return name.regionMatches(true, 0, prefix, 0, prefix.length());
+  }
+
+  /**
+   * A table mapping names, compared without regard to case, to the declarations with those names.
+   */
+  private final TreeMap<String, List<Declaration>> nameMap = new TreeMap<String, List<Declaration>>(
+      String.CASE_INSENSITIVE_ORDER);
+
+  /**
+   * A table mapping contexts to tables mapping sources to the declarations in those sources.
+   */
+  private final Map<AnalysisContext, Map<Source, List<Declaration>>> sourceMap = Maps.newHashMap();
+
+  /**
+   * Remove all of the declarations from this index.
+   */
+  public void clear() {
+    nameMap.clear();
+    sourceMap.clear();
+  }
+
+  /**
+   * Return the locations of the declarations that have the given relationship and whose names
+   * start with the given prefix, ignoring case.
+   * 
+   * @param relationship the relationship of the declarations to be returned
+   * @param prefix the prefix with which the names of the declared elements start
+   * @return the locations of the matching declarations
+   */
+  public Location[] getDeclarations(Relationship relationship, String prefix) {
+    List<Location> locations = Lists.newArrayList();
+    for (Map.Entry<String, List<Declaration>> entry : nameMap.tailMap(prefix, true).entrySet()) {
+      if (!startsWithIgnoreCase(entry.getKey(), prefix)) {
+        break;
+      }
+      for (Declaration declaration : entry.getValue()) {
+        if (declaration.relationship == relationship) {
+          locations.add(declaration.location);
+        }
+      }
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * Return the number of declarations that are currently recorded in this index.
+   * 
+   * @return the number of declarations that are currently recorded in this index
+   */
+  public int getDeclarationCount() {
+    int count = 0;
+    for (List<Declaration> declarations : nameMap.values()) {
+      count += declarations.size();
+    }
+    return count;
+  }
+
+  /**
+   * Record that the element at the given location is declared with the given relationship.
+   * 
+   * @param relationship the relationship of the declaration, such as defines-class
+   * @param location the location of the declared element
+   */
+  public void recordDeclaration(Relationship relationship, Location location) {
+    Element element = location.getElement();
+    String name = element.getName();
+    if (name == null) {
+      return;
+    }
+    Declaration declaration = new Declaration(name, relationship, location);
+    // remember the declaration by name
+    List<Declaration> nameDeclarations = nameMap.get(name);
+    if (nameDeclarations == null) {
+      nameDeclarations = Lists.newArrayList();
+      nameMap.put(name, nameDeclarations);
+    }
+    nameDeclarations.add(declaration);
+    // remember the declaration by source
+    AnalysisContext context = element.getContext();
+    Map<Source, List<Declaration>> contextDeclarations = sourceMap.get(context);
+    if (contextDeclarations == null) {
+      contextDeclarations = Maps.newHashMap();
+      sourceMap.put(context, contextDeclarations);
+    }
+    Source source = MemoryIndexStoreImpl.findSource(element);
+    List<Declaration> sourceDeclarations = contextDeclarations.get(source);
+    if (sourceDeclarations == null) {
+      sourceDeclarations = Lists.newArrayList();
+      contextDeclarations.put(source, sourceDeclarations);
+    }
+    sourceDeclarations.add(declaration);
+  }
+
+  /**
+   * Remove from this index all of the declarations in the given context.
+   * 
+   * @param context the context whose declarations are to be removed
+   */
+  public void removeContext(AnalysisContext context) {
+    Map<Source, List<Declaration>> contextDeclarations = sourceMap.remove(context);
+    if (contextDeclarations != null) {
+      for (List<Declaration> sourceDeclarations : contextDeclarations.values()) {
+        removeDeclarations(sourceDeclarations);
+      }
+    }
+  }
+
+  /**
+   * Remove from this index all of the declarations in the given source.
+   * 
+   * @param context the context in which the source is analyzed
+   * @param source the source whose declarations are to be removed
+   */
+  public void removeSource(AnalysisContext context, Source source) {
+    Map<Source, List<Declaration>> contextDeclarations = sourceMap.get(context);
+    if (contextDeclarations != null) {
+      List<Declaration> sourceDeclarations = contextDeclarations.remove(source);
+      if (sourceDeclarations != null) {
+        removeDeclarations(sourceDeclarations);
+      }
+    }
+  }
+
+  /**
+   * Remove the given declarations from the table mapping names to declarations.
+   */
+  private void removeDeclarations(List<Declaration> declarations) {
+    for (Declaration declaration : declarations) {
+      List<Declaration> nameDeclarations = nameMap.get(declaration.name);
+      if (nameDeclarations != null) {
+        nameDeclarations.remove(declaration);
+        if (nameDeclarations.isEmpty()) {
+          nameMap.remove(declaration.name);
+        }
+      }
+    }
+  }
+}
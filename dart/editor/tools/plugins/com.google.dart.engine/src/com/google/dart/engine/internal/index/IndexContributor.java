@@ -64,9 +64,9 @@ import com.google.dart.engine.element.PrefixElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.TypeVariableElement;
 import com.google.dart.engine.element.VariableElement;
-import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipRecorder;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.utilities.collection.IntStack;
@@ -74,7 +74,7 @@ import com.google.dart.engine.utilities.collection.IntStack;
 import java.util.LinkedList;
 
 /**
- * Visits resolved AST and adds relationships into {@link IndexStore}.
+ * Visits resolved AST and adds relationships into {@link RelationshipRecorder}.
  * 
  * @coverage dart.engine.index
  */
@@ -135,7 +135,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     return false;
   }
 
-  private final IndexStore store;
+  private final RelationshipRecorder recorder;
 
   private LibraryElement libraryElement;
 
@@ -153,8 +153,8 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
    */
   private IntStack unnamedFunctionCount = new IntStack();
 
-  public IndexContributor(IndexStore store) {
-    this.store = store;
+  public IndexContributor(RelationshipRecorder recorder) {
+    this.recorder = recorder;
   }
 
   /**
@@ -569,7 +569,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
    */
   private void recordRelationship(Element element, Relationship relationship, Location location) {
     if (element != null && location != null) {
-      store.recordRelationship(element, relationship, location);
+      recorder.recordRelationship(element, relationship, location);
     }
   }
 
@@ -52,6 +52,17 @@ public class IndexImpl implements Index {
     queue.enqueue(new GetRelationshipsOperation(store, element, relationship, callback));
   }
 
+  @Override
+  public void getRelationships(Element element, Relationship relationship, String namePrefix,
+      RelationshipCallback callback) {
+    queue.enqueue(new GetRelationshipsOperation(
+        store,
+        element,
+        relationship,
+        namePrefix,
+        callback));
+  }
+
   @Override
   public void indexUnit(AnalysisContext context, CompilationUnit unit) {
     queue.enqueue(new IndexUnitOperation(store, context, unit));
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.MessageFormat;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only part of the index stored in a file which is mapped into memory.
+ * <p>
+ * Opening a segment reads only its header, everything else is read from the mapped file when
+ * requested. All values are big-endian <code>int</code>s:
+ * 
+ * <pre>
+ * header:     magic, version, generation, stringCount, sourceCount, supersededCount,
+ *             keyCount, locationCount
+ * strings:    stringCount offsets of the strings in the string data
+ * sources:    sourceCount string ids of the {@link Source} encodings
+ * superseded: supersededCount string ids of the {@link Source}s superseded in older segments
+ * keys:       keyCount * (hash, element, elementSource, relationship, firstLocation, count),
+ *             sorted by hash
+ * locations:  locationCount * (element, source, offset, length, importPrefix)
+ * string data: (length, chars) for each string
+ * </pre>
+ * 
+ * Elements are identified by the encodings of their {@link ElementLocation}s, so the segment can
+ * be searched without resolving anything. Only the elements of the returned {@link Location}s are
+ * requested from the {@link AnalysisContext}.
+ * <p>
+ * Sources which are re-indexed or removed after the segment was written are masked, the segment
+ * itself is never modified.
+ * 
+ * @coverage dart.engine.index
+ */
+class IndexSegment {
+  static final int MAGIC = 0x44494458;
+  static final int FILE_VERSION_NUMBER = 1;
+  static final int NONE = -1;
+  static final int HEADER_SIZE = 8;
+  static final int KEY_SIZE = 6;
+  static final int LOCATION_SIZE = 5;
+
+  /**
+   * @return the hash of the key with the given element encoding and relationship identifier.
+   */
+  static int hash(String elementEncoding, String relationshipId) {
+    return elementEncoding.hashCode() * 31 + relationshipId.hashCode();
+  }
+
+  /**
+   * Maps the given file into memory and reads its header.
+   * 
+   * @throws IOException if the file cannot be mapped or has incompatible version
+   */
+  static IndexSegment open(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new IndexSegment(file, buffer);
+    } finally {
+      // the mapping stays valid after the channel is closed
+      randomAccessFile.close();
+    }
+  }
+
+  private final File file;
+  private final ByteBuffer buffer;
+  private final int generation;
+  private final int stringCount;
+  private final int sourceCount;
+  private final int supersededCount;
+  private final int keyCount;
+  private final int locationCount;
+  private final int stringsStart;
+  private final int sourcesStart;
+  private final int supersededStart;
+  private final int keysStart;
+  private final int locationsStart;
+  private final int stringDataStart;
+
+  /**
+   * Indices of the masked sources in the source table.
+   */
+  private final BitSet maskedSources = new BitSet();
+
+  /**
+   * Lazily built map of {@link Source} encodings to their indices in the source table.
+   */
+  private Map<String, Integer> sourceIndexMap;
+
+  private IndexSegment(File file, ByteBuffer buffer) throws IOException {
+    this.file = file;
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE * 4 || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not an index segment: " + file);
+    }
+    int version = buffer.getInt(4);
+    if (version != FILE_VERSION_NUMBER) {
+      throw new IOException(MessageFormat.format(
+          "Incompatible file version, expected: {0} found: {1}",
+          FILE_VERSION_NUMBER,
+          version));
+    }
+    generation = buffer.getInt(8);
+    stringCount = buffer.getInt(12);
+    sourceCount = buffer.getInt(16);
+    supersededCount = buffer.getInt(20);
+    keyCount = buffer.getInt(24);
+    locationCount = buffer.getInt(28);
+    stringsStart = HEADER_SIZE * 4;
+    sourcesStart = stringsStart + stringCount * 4;
+    supersededStart = sourcesStart + sourceCount * 4;
+    keysStart = supersededStart + supersededCount * 4;
+    locationsStart = keysStart + keyCount * KEY_SIZE * 4;
+    stringDataStart = locationsStart + locationCount * LOCATION_SIZE * 4;
+    if (stringDataStart > buffer.capacity()) {
+      throw new IOException("Truncated index segment: " + file);
+    }
+  }
+
+  /**
+   * Adds the locations that have the given relationship with the given element to the given list.
+   * Masked information is skipped, as well as locations whose elements cannot be found in the
+   * given {@link AnalysisContext}.
+   * 
+   * @param context the {@link AnalysisContext} to find location {@link Element}s in
+   * @param elementEncoding the encoding of the {@link ElementLocation} of the element
+   * @param relationshipId the identifier of the relationship
+   * @param locations the list to add locations to
+   */
+  void addLocations(AnalysisContext context, String elementEncoding, String relationshipId,
+      List<Location> locations) {
+    int hash = hash(elementEncoding, relationshipId);
+    for (int key = findFirstKey(hash); key < keyCount && getKeyInt(key, 0) == hash; key++) {
+      if (isMasked(getKeyInt(key, 2))) {
+        continue;
+      }
+      if (!getString(getKeyInt(key, 3)).equals(relationshipId)) {
+        continue;
+      }
+      if (!getString(getKeyInt(key, 1)).equals(elementEncoding)) {
+        continue;
+      }
+      int first = getKeyInt(key, 4);
+      int count = getKeyInt(key, 5);
+      for (int location = first; location < first + count; location++) {
+        if (isMasked(getLocationInt(location, 1))) {
+          continue;
+        }
+        String encoding = getString(getLocationInt(location, 0));
+        Element element = context.getElement(new ElementLocationImpl(encoding));
+        if (element == null) {
+          continue;
+        }
+        int prefixId = getLocationInt(location, 4);
+        locations.add(new Location(
+            element,
+            getLocationInt(location, 2),
+            getLocationInt(location, 3),
+            prefixId != NONE ? getString(prefixId) : null));
+      }
+    }
+  }
+
+  /**
+   * Adds all information of this segment which is not masked by the given masks to the given
+   * {@link IndexSegmentWriter}. This method may be invoked concurrently with {@link #mask(String)}.
+   * 
+   * @param writer the {@link IndexSegmentWriter} to add information to
+   * @param masks the masks returned by {@link #getMasks()}
+   */
+  void copyTo(IndexSegmentWriter writer, BitSet masks) {
+    for (int key = 0; key < keyCount; key++) {
+      int elementSourceId = getKeyInt(key, 2);
+      if (isMasked(masks, elementSourceId)) {
+        continue;
+      }
+      String elementEncoding = getString(getKeyInt(key, 1));
+      String elementSource = getSource(elementSourceId);
+      String relationshipId = getString(getKeyInt(key, 3));
+      int first = getKeyInt(key, 4);
+      int count = getKeyInt(key, 5);
+      for (int location = first; location < first + count; location++) {
+        int sourceId = getLocationInt(location, 1);
+        if (isMasked(masks, sourceId)) {
+          continue;
+        }
+        int prefixId = getLocationInt(location, 4);
+        writer.addLocation(
+            elementEncoding,
+            elementSource,
+            relationshipId,
+            getString(getLocationInt(location, 0)),
+            getSource(sourceId),
+            getLocationInt(location, 2),
+            getLocationInt(location, 3),
+            prefixId != NONE ? getString(prefixId) : null);
+      }
+    }
+  }
+
+  /**
+   * @return the {@link File} of this segment.
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the generation of this segment, newer segments have greater generations.
+   */
+  int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * @return the number of element/relationship keys in this segment.
+   */
+  int getKeyCount() {
+    return keyCount;
+  }
+
+  /**
+   * @return the number of locations in this segment, including masked ones.
+   */
+  int getLocationCount() {
+    return locationCount;
+  }
+
+  /**
+   * @return the encodings of the {@link Source}s which are masked now, but were not masked in the
+   *         given masks returned by {@link #getMasks()}.
+   */
+  List<String> getMaskedSourcesSince(BitSet masks) {
+    BitSet newMasks = (BitSet) maskedSources.clone();
+    newMasks.andNot(masks);
+    List<String> sources = Lists.newArrayList();
+    for (int i = newMasks.nextSetBit(0); i >= 0; i = newMasks.nextSetBit(i + 1)) {
+      sources.add(getSource(i));
+    }
+    return sources;
+  }
+
+  /**
+   * @return the copy of the current masks of this segment.
+   */
+  BitSet getMasks() {
+    return (BitSet) maskedSources.clone();
+  }
+
+  /**
+   * @return the encodings of all {@link Source}s which have information in this segment.
+   */
+  List<String> getSources() {
+    List<String> sources = Lists.newArrayListWithCapacity(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      sources.add(getSource(i));
+    }
+    return sources;
+  }
+
+  /**
+   * @return the encodings of the {@link Source}s whose information in older segments is stale.
+   */
+  List<String> getSupersededSources() {
+    List<String> sources = Lists.newArrayListWithCapacity(supersededCount);
+    for (int i = 0; i < supersededCount; i++) {
+      sources.add(getString(buffer.getInt(supersededStart + i * 4)));
+    }
+    return sources;
+  }
+
+  /**
+   * Masks all information about elements declared in or locations contributed by the given
+   * {@link Source}.
+   * 
+   * @param source the encoding of the {@link Source} to mask
+   */
+  void mask(String source) {
+    if (sourceIndexMap == null) {
+      sourceIndexMap = Maps.newHashMapWithExpectedSize(sourceCount);
+      for (int i = 0; i < sourceCount; i++) {
+        sourceIndexMap.put(getSource(i), i);
+      }
+    }
+    Integer index = sourceIndexMap.get(source);
+    if (index != null) {
+      maskedSources.set(index);
+    }
+  }
+
+  /**
+   * @return the index of the first key with the given hash, or the index of the first key with
+   *         greater hash if there are no such keys.
+   */
+  private int findFirstKey(int hash) {
+    int low = 0;
+    int high = keyCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getKeyInt(middle, 0) < hash) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int getKeyInt(int key, int field) {
+    return buffer.getInt(keysStart + (key * KEY_SIZE + field) * 4);
+  }
+
+  private int getLocationInt(int location, int field) {
+    return buffer.getInt(locationsStart + (location * LOCATION_SIZE + field) * 4);
+  }
+
+  /**
+   * @return the encoding of the {@link Source} with the given index, may be <code>null</code>.
+   */
+  private String getSource(int index) {
+    if (index == NONE) {
+      return null;
+    }
+    return getString(buffer.getInt(sourcesStart + index * 4));
+  }
+
+  private String getString(int id) {
+    int offset = stringDataStart + buffer.getInt(stringsStart + id * 4);
+    int length = buffer.getInt(offset);
+    char[] chars = new char[length];
+    offset += 4;
+    for (int i = 0; i < length; i++) {
+      chars[i] = buffer.getChar(offset + i * 2);
+    }
+    return new String(chars);
+  }
+
+  private boolean isMasked(BitSet masks, int sourceIndex) {
+    return sourceIndex != NONE && masks.get(sourceIndex);
+  }
+
+  private boolean isMasked(int sourceIndex) {
+    return isMasked(maskedSources, sourceIndex);
+  }
+}
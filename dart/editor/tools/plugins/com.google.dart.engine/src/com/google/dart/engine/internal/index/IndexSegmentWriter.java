@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.collection.IntList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper to write {@link IndexSegment} files.
+ * <p>
+ * Locations are accumulated in memory using the encodings of elements and sources, then written
+ * using the layout described in {@link IndexSegment}, with the keys sorted by hash so that they can
+ * be found using binary search in the mapped file.
+ * 
+ * @coverage dart.engine.index
+ */
+class IndexSegmentWriter {
+  /**
+   * Information about the locations recorded for a single element and relationship.
+   */
+  private static class KeyData {
+    final int hash;
+    final int elementId;
+    final int elementSourceId;
+    final int relationshipId;
+    final IntList locations = new IntList(IndexSegment.LOCATION_SIZE);
+
+    KeyData(int hash, int elementId, int elementSourceId, int relationshipId) {
+      this.hash = hash;
+      this.elementId = elementId;
+      this.elementSourceId = elementSourceId;
+      this.relationshipId = relationshipId;
+    }
+  }
+
+  private final Map<String, Integer> stringIdMap = Maps.newHashMap();
+  private final List<String> strings = Lists.newArrayList();
+  private final Map<String, Integer> sourceIdMap = Maps.newHashMap();
+  private final IntList sourceStringIds = new IntList(64);
+  private final IntList supersededSourceStringIds = new IntList(16);
+  private final Map<String, KeyData> keyMap = Maps.newHashMap();
+  private int locationCount = 0;
+
+  /**
+   * Records that the element with the given encoding, declared in the given source, has the given
+   * relationship with the given location.
+   * 
+   * @param elementEncoding the encoding of the {@link ElementLocation} of the element
+   * @param elementSource the encoding of the declaring {@link Source}, may be <code>null</code>
+   * @param relationshipId the identifier of the relationship
+   * @param locationElementEncoding the encoding of the {@link ElementLocation} of the location
+   *          element
+   * @param locationSource the encoding of the {@link Source} of the location, may be
+   *          <code>null</code>
+   * @param offset the offset of the location
+   * @param length the length of the location
+   * @param importPrefix the import prefix used at the location, may be <code>null</code>
+   */
+  public void addLocation(String elementEncoding, String elementSource, String relationshipId,
+      String locationElementEncoding, String locationSource, int offset, int length,
+      String importPrefix) {
+    String keyString = relationshipId + ' ' + elementEncoding;
+    KeyData key = keyMap.get(keyString);
+    if (key == null) {
+      key = new KeyData(
+          IndexSegment.hash(elementEncoding, relationshipId),
+          internString(elementEncoding),
+          internSource(elementSource),
+          internString(relationshipId));
+      keyMap.put(keyString, key);
+    }
+    key.locations.add(internString(locationElementEncoding));
+    key.locations.add(internSource(locationSource));
+    key.locations.add(offset);
+    key.locations.add(length);
+    key.locations.add(importPrefix != null ? internString(importPrefix) : IndexSegment.NONE);
+    locationCount++;
+  }
+
+  /**
+   * Records that the information about the given source in all segments written before this one
+   * is stale and should be ignored.
+   * 
+   * @param source the encoding of the superseded {@link Source}
+   */
+  public void addSupersededSource(String source) {
+    supersededSourceStringIds.add(internString(source));
+  }
+
+  /**
+   * @return the number of locations added to this writer.
+   */
+  public int getLocationCount() {
+    return locationCount;
+  }
+
+  /**
+   * Writes the accumulated information into the given file. The file is first written under a
+   * temporary name and then renamed, so a segment file is either complete or absent.
+   * 
+   * @param file the segment {@link File} to write
+   * @param generation the generation of the segment
+   * @throws IOException if the file could not be written
+   */
+  public void write(File file, int generation) throws IOException {
+    // sort keys by hash
+    List<KeyData> keys = Lists.newArrayList(keyMap.values());
+    Collections.sort(keys, new Comparator<KeyData>() {
+      @Override
+      public int compare(KeyData o1, KeyData o2) {
+        return o1.hash < o2.hash ? -1 : o1.hash == o2.hash ? 0 : 1;
+      }
+    });
+    // write into temporary file
+    File tempFile = new File(file.getPath() + ".tmp");
+    DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+        tempFile)));
+    try {
+      int stringCount = strings.size();
+      int sourceCount = sourceStringIds.size();
+      int supersededCount = supersededSourceStringIds.size();
+      // header
+      dos.writeInt(IndexSegment.MAGIC);
+      dos.writeInt(IndexSegment.FILE_VERSION_NUMBER);
+      dos.writeInt(generation);
+      dos.writeInt(stringCount);
+      dos.writeInt(sourceCount);
+      dos.writeInt(supersededCount);
+      dos.writeInt(keys.size());
+      dos.writeInt(locationCount);
+      // string offsets
+      int stringOffset = 0;
+      for (String string : strings) {
+        dos.writeInt(stringOffset);
+        stringOffset += 4 + 2 * string.length();
+      }
+      // sources
+      for (int i = 0; i < sourceCount; i++) {
+        dos.writeInt(sourceStringIds.get(i));
+      }
+      // superseded sources
+      for (int i = 0; i < supersededCount; i++) {
+        dos.writeInt(supersededSourceStringIds.get(i));
+      }
+      // keys
+      int firstLocation = 0;
+      for (KeyData key : keys) {
+        int keyLocationCount = key.locations.size() / IndexSegment.LOCATION_SIZE;
+        dos.writeInt(key.hash);
+        dos.writeInt(key.elementId);
+        dos.writeInt(key.elementSourceId);
+        dos.writeInt(key.relationshipId);
+        dos.writeInt(firstLocation);
+        dos.writeInt(keyLocationCount);
+        firstLocation += keyLocationCount;
+      }
+      // locations
+      for (KeyData key : keys) {
+        int[] values = key.locations.toArray();
+        for (int value : values) {
+          dos.writeInt(value);
+        }
+      }
+      // string data
+      for (String string : strings) {
+        dos.writeInt(string.length());
+        dos.writeChars(string);
+      }
+    } finally {
+      dos.close();
+    }
+    // publish
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Cannot replace " + file);
+    }
+    if (!tempFile.renameTo(file)) {
+      throw new IOException("Cannot rename " + tempFile + " to " + file);
+    }
+  }
+
+  /**
+   * @return the identifier of the given {@link Source} encoding in the source table, or
+   *         {@link IndexSegment#NONE} if <code>null</code>.
+   */
+  private int internSource(String source) {
+    if (source == null) {
+      return IndexSegment.NONE;
+    }
+    Integer id = sourceIdMap.get(source);
+    if (id == null) {
+      id = sourceStringIds.size();
+      sourceStringIds.add(internString(source));
+      sourceIdMap.put(source, id);
+    }
+    return id;
+  }
+
+  /**
+   * @return the identifier of the given {@link String} in the string table.
+   */
+  private int internString(String string) {
+    Integer id = stringIdMap.get(string);
+    if (id == null) {
+      id = strings.size();
+      strings.add(string);
+      stringIdMap.put(string, id);
+    }
+    return id;
+  }
+}
@@ -25,6 +25,7 @@ import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.MemoryIndexStore;
 import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.UniverseElement;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 
@@ -83,12 +84,19 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
    */
   final Map<AnalysisContext, Map<Source, List<ContributedLocation>>> sourceToLocations = Maps.newHashMapWithExpectedSize(64);
 
+  /**
+   * The declarations related to the {@link UniverseElement}, indexed by the names of the declared
+   * elements.
+   */
+  private final DeclarationNameIndex declarationNames = new DeclarationNameIndex();
+
   @Override
   public void clear() {
     relationshipMap.clear();
     sources.clear();
     sourceToDeclarations.clear();
     sourceToLocations.clear();
+    declarationNames.clear();
   }
 
   @VisibleForTesting
@@ -148,6 +156,16 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     return Location.EMPTY_ARRAY;
   }
 
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship, String namePrefix) {
+    if (element instanceof UniverseElement) {
+      return declarationNames.getDeclarations(relationship, namePrefix);
+    }
+    return DeclarationNameIndex.filterByNamePrefix(
+        getRelationships(element, relationship),
+        namePrefix);
+  }
+
   @Override
   public void readIndex(AnalysisContext context, InputStream input) throws IOException {
     new MemoryIndexReader(this, context, input).read();
@@ -193,10 +211,15 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       }
       new ContributedLocation(sourceLocations, locations, location);
     }
+    // index declarations by name
+    if (element instanceof UniverseElement) {
+      declarationNames.recordDeclaration(relationship, location);
+    }
   }
 
   @Override
   public void removeContext(AnalysisContext context) {
+    declarationNames.removeContext(context);
     // remove elements declared in Source(s) of removed context
     Map<Source, List<Element>> contextElements = sourceToDeclarations.remove(context);
     if (contextElements != null) {
@@ -216,6 +239,7 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
   @Override
   public void removeSource(AnalysisContext context, Source source) {
     sources.remove(source);
+    declarationNames.removeSource(context, source);
     // remove relationships with elements declared in removed source
     Map<Source, List<Element>> contextElements = sourceToDeclarations.get(context);
     if (contextElements != null) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.SegmentedIndexStore;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.sdk.SdkLibrary;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Prebuilt index of the libraries of a {@link DartSdk}.
+ * <p>
+ * The index is a directory with a single {@link IndexSegment} and a version file with the
+ * {@link DartSdk#getSdkVersion() version} of the indexed SDK. The version file is written last, so
+ * an index whose creation was interrupted is never opened. Opening the index maps the segment into
+ * memory, so the SDK does not have to be indexed on every fresh workspace.
+ * <p>
+ * The analyzer jars package the index under {@value #PACKAGED_INDEX_PATH}. Segments must be files
+ * to be mapped, so {@link #openPackaged(SegmentedIndexStore, AnalysisContext, DartSdk, File)}
+ * copies the packaged index into a directory the first time it is opened.
+ * 
+ * @coverage dart.engine.index
+ */
+public final class SdkIndex {
+  /**
+   * The path of the directory with the index on the class path of the analyzer.
+   */
+  static final String PACKAGED_INDEX_PATH = "meta/sdk-index";
+
+  /**
+   * The name of the segment file. The index is written into an empty directory, so its only
+   * segment is the one of the first generation.
+   */
+  static final String SEGMENT_FILE_NAME = "1.segment";
+
+  /**
+   * The name of the file with the version of the indexed SDK.
+   */
+  static final String VERSION_FILE_NAME = "sdk_version";
+
+  /**
+   * Indexes all libraries of the given {@link DartSdk} and writes the index into the given
+   * directory, replacing any index which is already there.
+   * 
+   * @param sdk the {@link DartSdk} to index
+   * @param directory the directory to write the index to, created if does not exist
+   * @param executor the {@link ExecutorService} to resolve and index libraries concurrently
+   * @throws IOException if the index could not be written
+   */
+  public static void create(DartSdk sdk, File directory, ExecutorService executor)
+      throws IOException {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk));
+    context.setSourceFactory(sourceFactory);
+    context.setResolutionExecutor(executor);
+    // start with an empty directory
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    File versionFile = new File(directory, VERSION_FILE_NAME);
+    versionFile.delete();
+    deleteFiles(directory);
+    store.openContext(context, directory);
+    // index libraries
+    List<Future<Void>> futures = Lists.newArrayList();
+    for (SdkLibrary library : sdk.getSdkLibraries()) {
+      Source librarySource = sourceFactory.forUri(library.getShortName());
+      if (librarySource != null) {
+        futures.add(executor.submit(newIndexLibraryTask(store, context, librarySource)));
+      }
+    }
+    for (Future<Void> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Could not index SDK library",
+            exception.getCause());
+      }
+    }
+    // write single segment
+    store.flush(context);
+    if (!new File(directory, SEGMENT_FILE_NAME).isFile()) {
+      throw new IOException("Could not write SDK index segment " + SEGMENT_FILE_NAME);
+    }
+    Files.write(sdk.getSdkVersion(), versionFile, Charsets.UTF_8);
+  }
+
+  /**
+   * Opens the index of the given {@link DartSdk} in the given directory, if it was created for the
+   * same version of the SDK.
+   * 
+   * @param store the {@link SegmentedIndexStore} to open the index in
+   * @param context the {@link AnalysisContext} in which the SDK libraries are analyzed
+   * @param sdk the {@link DartSdk} to open the index of
+   * @param directory the directory with the index written by
+   *          {@link #create(DartSdk, File, ExecutorService)}
+   * @return <code>true</code> if the index was opened, <code>false</code> if there is no index for
+   *         this version of the SDK, or it has incompatible format
+   */
+  public static boolean open(SegmentedIndexStore store, AnalysisContext context, DartSdk sdk,
+      File directory) {
+    File versionFile = new File(directory, VERSION_FILE_NAME);
+    try {
+      if (!versionFile.isFile()
+          || !Files.toString(versionFile, Charsets.UTF_8).equals(sdk.getSdkVersion())) {
+        return false;
+      }
+      store.openContext(context, directory);
+      return true;
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not open SDK index " + directory,
+          exception);
+      store.removeContext(context);
+      return false;
+    }
+  }
+
+  /**
+   * Opens the index of the given {@link DartSdk} which is packaged with the analyzer under
+   * {@value #PACKAGED_INDEX_PATH}, if it was created for the same version of the SDK. The packaged
+   * index is copied into the given directory, unless the directory already has the index of this
+   * version of the SDK.
+   * 
+   * @param store the {@link SegmentedIndexStore} to open the index in
+   * @param context the {@link AnalysisContext} in which the SDK libraries are analyzed
+   * @param sdk the {@link DartSdk} to open the index of
+   * @param directory the directory to copy the packaged index to, created if does not exist
+   * @return <code>true</code> if the index was opened, <code>false</code> if no index for this
+   *         version of the SDK is packaged, or it could not be copied or opened
+   */
+  public static boolean openPackaged(SegmentedIndexStore store, AnalysisContext context,
+      DartSdk sdk, File directory) {
+    URL versionResource = SdkIndex.class.getResource("/" + PACKAGED_INDEX_PATH + "/"
+        + VERSION_FILE_NAME);
+    return openPackaged(store, context, sdk, directory, versionResource);
+  }
+
+  /**
+   * Opens the index of the given {@link DartSdk} whose version file is at the given {@link URL}.
+   * 
+   * @param versionResource the {@link URL} of the version file of the packaged index, the segment
+   *          file is next to it, may be <code>null</code> if no index is packaged
+   * @see #openPackaged(SegmentedIndexStore, AnalysisContext, DartSdk, File)
+   */
+  static boolean openPackaged(SegmentedIndexStore store, AnalysisContext context, DartSdk sdk,
+      File directory, URL versionResource) {
+    if (open(store, context, sdk, directory)) {
+      return true;
+    }
+    if (versionResource == null) {
+      return false;
+    }
+    try {
+      if (!Resources.toString(versionResource, Charsets.UTF_8).equals(sdk.getSdkVersion())) {
+        return false;
+      }
+      // replace the index of another version, the version file is written last
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Cannot create " + directory);
+      }
+      deleteFiles(directory);
+      URL segmentResource = new URL(versionResource, SEGMENT_FILE_NAME);
+      Files.copy(
+          Resources.newInputStreamSupplier(segmentResource),
+          new File(directory, SEGMENT_FILE_NAME));
+      Files.copy(
+          Resources.newInputStreamSupplier(versionResource),
+          new File(directory, VERSION_FILE_NAME));
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not copy SDK index to " + directory,
+          exception);
+      return false;
+    }
+    return open(store, context, sdk, directory);
+  }
+
+  /**
+   * Deletes the files in the given directory.
+   */
+  private static void deleteFiles(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Resolves all units of the library with the given {@link Source} and records their
+   * relationships into the given store.
+   */
+  private static void indexLibrary(SegmentedIndexStoreImpl store, AnalysisContextImpl context,
+      Source librarySource) throws AnalysisException {
+    LibraryElement library = context.getLibraryElement(librarySource);
+    if (library == null) {
+      return;
+    }
+    List<CompilationUnitElement> unitElements = Lists.newArrayList();
+    unitElements.add(library.getDefiningCompilationUnit());
+    for (CompilationUnitElement part : library.getParts()) {
+      unitElements.add(part);
+    }
+    for (CompilationUnitElement unitElement : unitElements) {
+      CompilationUnit unit = context.resolve(unitElement.getSource(), library);
+      if (unit == null || unit.getElement() == null) {
+        continue;
+      }
+      IndexUnitOperation operation = new IndexUnitOperation(store, context, unit);
+      operation.prepare();
+      operation.performOperation();
+    }
+  }
+
+  /**
+   * @return the {@link Callable} which indexes the library with the given {@link Source}.
+   */
+  private static Callable<Void> newIndexLibraryTask(final SegmentedIndexStoreImpl store,
+      final AnalysisContextImpl context, final Source librarySource) {
+    return new Callable<Void>() {
+      @Override
+      public Void call() throws AnalysisException {
+        indexLibrary(store, context, librarySource);
+        return null;
+      }
+    };
+  }
+
+  private SdkIndex() {
+  }
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.SegmentedIndexStore;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link SegmentedIndexStore} which keeps the index of each {@link AnalysisContext} in memory-mapped
+ * {@link IndexSegment} files, so that a persisted index can be searched right after it is opened,
+ * without reading it into memory.
+ * <p>
+ * Relationships are grouped by the {@link AnalysisContext} of their locations. New relationships
+ * are kept in a {@link MemoryIndexStoreImpl} per context until {@link #flush(AnalysisContext)}
+ * writes them as a new segment. Segments are never modified: when a {@link Source} is re-indexed
+ * or removed, its information is masked in the existing segments and the source is recorded as
+ * superseded in the next segment. When a context has too many segments, they are merged by
+ * {@link #compact(AnalysisContext)} using the {@link Executor} given to the constructor.
+ * 
+ * @coverage dart.engine.index
+ */
+public class SegmentedIndexStoreImpl implements SegmentedIndexStore {
+  /**
+   * Information about a single {@link AnalysisContext}.
+   */
+  private static class ContextData {
+    /**
+     * The directory with segment files, <code>null</code> if the index of the context is not
+     * persisted.
+     */
+    File directory;
+
+    /**
+     * The not yet flushed relationships with locations in the context.
+     */
+    MemoryIndexStoreImpl memoryStore = new MemoryIndexStoreImpl();
+
+    /**
+     * The segments of the context, ordered from the oldest to the newest.
+     */
+    List<IndexSegment> segments = Lists.newArrayList();
+
+    /**
+     * The encodings of the {@link Source}s which were masked since the last flush.
+     */
+    Set<String> supersededSources = Sets.newHashSet();
+
+    /**
+     * Is <code>true</code> if compaction of the segments was requested, but is not done yet.
+     */
+    boolean compactionScheduled;
+  }
+
+  /**
+   * The suffix of the segment file names.
+   */
+  private static final String SEGMENT_SUFFIX = ".segment";
+
+  /**
+   * The number of segments of a single {@link AnalysisContext} after which they are compacted.
+   */
+  private static final int MAX_SEGMENT_COUNT = 4;
+
+  /**
+   * @return the encoding of the given {@link Source}, may be <code>null</code>.
+   */
+  private static String getEncoding(Source source) {
+    return source != null ? source.getEncoding() : null;
+  }
+
+  /**
+   * Deletes the given segment {@link File}. On some platforms a mapped file cannot be deleted
+   * while it is still mapped, so it is deleted on exit instead.
+   */
+  private static void deleteSegmentFile(File file) {
+    if (!file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * The {@link Executor} to compact segments in, may be <code>null</code>.
+   */
+  private final Executor compactionExecutor;
+
+  /**
+   * Information about each {@link AnalysisContext}.
+   */
+  private final Map<AnalysisContext, ContextData> contextMap = Maps.newHashMap();
+
+  /**
+   * The generation of the last written segment.
+   */
+  private int lastGeneration = 0;
+
+  /**
+   * Initialize a newly created store.
+   * 
+   * @param compactionExecutor the {@link Executor} to compact segments in background, may be
+   *          <code>null</code> if segments should be compacted only explicitly
+   */
+  public SegmentedIndexStoreImpl(Executor compactionExecutor) {
+    this.compactionExecutor = compactionExecutor;
+  }
+
+  /**
+   * Removes all information from this index, including the segment files of all contexts.
+   */
+  @Override
+  public synchronized void clear() {
+    for (ContextData data : contextMap.values()) {
+      for (IndexSegment segment : data.segments) {
+        deleteSegmentFile(segment.getFile());
+      }
+    }
+    contextMap.clear();
+  }
+
+  /**
+   * Merges all segments of the given {@link AnalysisContext} into a single segment without masked
+   * information. Segments are read and written without holding the lock of this store, so the
+   * index can be searched and updated while compaction is in progress.
+   * 
+   * @param context the {@link AnalysisContext} to compact segments of
+   * @throws IOException if the merged segment could not be written
+   */
+  @Override
+  public void compact(AnalysisContext context) throws IOException {
+    // prepare segments to merge
+    List<IndexSegment> oldSegments;
+    List<BitSet> oldMasks = Lists.newArrayList();
+    File file;
+    int generation;
+    synchronized (this) {
+      ContextData data = contextMap.get(context);
+      if (data == null || data.segments.size() < 2) {
+        if (data != null) {
+          data.compactionScheduled = false;
+        }
+        return;
+      }
+      oldSegments = Lists.newArrayList(data.segments);
+      generation = ++lastGeneration;
+      file = getSegmentFile(data.directory, generation);
+      for (IndexSegment segment : oldSegments) {
+        oldMasks.add(segment.getMasks());
+      }
+    }
+    // write merged segment
+    IndexSegment newSegment;
+    try {
+      IndexSegmentWriter writer = new IndexSegmentWriter();
+      for (int i = 0; i < oldSegments.size(); i++) {
+        oldSegments.get(i).copyTo(writer, oldMasks.get(i));
+      }
+      writer.write(file, generation);
+      newSegment = IndexSegment.open(file);
+    } finally {
+      synchronized (this) {
+        ContextData data = contextMap.get(context);
+        if (data != null) {
+          data.compactionScheduled = false;
+        }
+      }
+    }
+    // replace old segments
+    synchronized (this) {
+      ContextData data = contextMap.get(context);
+      if (data == null || !data.segments.containsAll(oldSegments)) {
+        deleteSegmentFile(file);
+        return;
+      }
+      // sources may have been masked while we were writing
+      for (int i = 0; i < oldSegments.size(); i++) {
+        for (String source : oldSegments.get(i).getMaskedSourcesSince(oldMasks.get(i))) {
+          newSegment.mask(source);
+        }
+      }
+      data.segments.removeAll(oldSegments);
+      data.segments.add(0, newSegment);
+    }
+    for (IndexSegment segment : oldSegments) {
+      deleteSegmentFile(segment.getFile());
+    }
+  }
+
+  /**
+   * Writes the not yet flushed relationships with locations in the given {@link AnalysisContext}
+   * as a new segment. Does nothing if the index of the context is not persisted.
+   * 
+   * @param context the {@link AnalysisContext} to flush
+   * @throws IOException if the segment could not be written
+   */
+  @Override
+  public synchronized void flush(AnalysisContext context) throws IOException {
+    ContextData data = contextMap.get(context);
+    if (data == null || data.directory == null) {
+      return;
+    }
+    // prepare segment
+    IndexSegmentWriter writer = new IndexSegmentWriter();
+    for (String source : data.supersededSources) {
+      writer.addSupersededSource(source);
+    }
+    for (Entry<Element, Map<Relationship, List<ContributedLocation>>> elementEntry : data.memoryStore.relationshipMap.entrySet()) {
+      Element element = elementEntry.getKey();
+      String elementEncoding = element.getLocation().getEncoding();
+      String elementSource = getEncoding(MemoryIndexStoreImpl.findSource(element));
+      for (Entry<Relationship, List<ContributedLocation>> relationshipEntry : elementEntry.getValue().entrySet()) {
+        String relationshipId = relationshipEntry.getKey().getIdentifier();
+        for (ContributedLocation contributedLocation : relationshipEntry.getValue()) {
+          Location location = contributedLocation.getLocation();
+          Element locationElement = location.getElement();
+          writer.addLocation(
+              elementEncoding,
+              elementSource,
+              relationshipId,
+              locationElement.getLocation().getEncoding(),
+              getEncoding(MemoryIndexStoreImpl.findSource(locationElement)),
+              location.getOffset(),
+              location.getLength(),
+              location.getImportPrefix());
+        }
+      }
+    }
+    if (writer.getLocationCount() == 0 && data.supersededSources.isEmpty()) {
+      return;
+    }
+    // write segment
+    int generation = ++lastGeneration;
+    File file = getSegmentFile(data.directory, generation);
+    writer.write(file, generation);
+    data.segments.add(IndexSegment.open(file));
+    data.memoryStore = new MemoryIndexStoreImpl();
+    data.supersededSources.clear();
+    // schedule compaction
+    if (compactionExecutor != null && data.segments.size() > MAX_SEGMENT_COUNT
+        && !data.compactionScheduled) {
+      data.compactionScheduled = true;
+      final AnalysisContext compactedContext = context;
+      compactionExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            compact(compactedContext);
+          } catch (Throwable exception) {
+            AnalysisEngine.getInstance().getLogger().logError(
+                "Could not compact index segments",
+                exception);
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  public synchronized int getElementCount() {
+    int count = 0;
+    for (ContextData data : contextMap.values()) {
+      count += data.memoryStore.getElementCount();
+      for (IndexSegment segment : data.segments) {
+        count += segment.getKeyCount();
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized int getRelationshipCount() {
+    int count = 0;
+    for (ContextData data : contextMap.values()) {
+      count += data.memoryStore.getRelationshipCount();
+      for (IndexSegment segment : data.segments) {
+        count += segment.getLocationCount();
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized Location[] getRelationships(Element element, Relationship relationship) {
+    List<Location> locations = Lists.newArrayList();
+    String elementEncoding = null;
+    for (Entry<AnalysisContext, ContextData> entry : contextMap.entrySet()) {
+      AnalysisContext context = entry.getKey();
+      ContextData data = entry.getValue();
+      for (IndexSegment segment : data.segments) {
+        if (elementEncoding == null) {
+          elementEncoding = element.getLocation().getEncoding();
+        }
+        segment.addLocations(context, elementEncoding, relationship.getIdentifier(), locations);
+      }
+      Collections.addAll(locations, data.memoryStore.getRelationships(element, relationship));
+    }
+    if (locations.isEmpty()) {
+      return Location.EMPTY_ARRAY;
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  @Override
+  public synchronized Location[] getRelationships(Element element, Relationship relationship,
+      String namePrefix) {
+    List<Location> locations = Lists.newArrayList();
+    String elementEncoding = null;
+    for (Entry<AnalysisContext, ContextData> entry : contextMap.entrySet()) {
+      AnalysisContext context = entry.getKey();
+      ContextData data = entry.getValue();
+      if (!data.segments.isEmpty()) {
+        // segments are not indexed by name
+        List<Location> segmentLocations = Lists.newArrayList();
+        for (IndexSegment segment : data.segments) {
+          if (elementEncoding == null) {
+            elementEncoding = element.getLocation().getEncoding();
+          }
+          segment.addLocations(
+              context,
+              elementEncoding,
+              relationship.getIdentifier(),
+              segmentLocations);
+        }
+        Collections.addAll(locations, DeclarationNameIndex.filterByNamePrefix(
+            segmentLocations.toArray(new Location[segmentLocations.size()]),
+            namePrefix));
+      }
+      Collections.addAll(
+          locations,
+          data.memoryStore.getRelationships(element, relationship, namePrefix));
+    }
+    if (locations.isEmpty()) {
+      return Location.EMPTY_ARRAY;
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * @return the number of segments of the given {@link AnalysisContext}.
+   */
+  @VisibleForTesting
+  public synchronized int getSegmentCount(AnalysisContext context) {
+    ContextData data = contextMap.get(context);
+    return data != null ? data.segments.size() : 0;
+  }
+
+  /**
+   * Specifies the directory to keep the segments of the given {@link AnalysisContext} in, and
+   * opens the segments which are already in this directory. Only the headers of the segments are
+   * read, so this method returns quickly even for a large index.
+   * 
+   * @param context the {@link AnalysisContext} to open segments of
+   * @param directory the directory with segment files, created if does not exist
+   * @throws IOException if the directory cannot be created or a segment has incompatible format
+   */
+  @Override
+  public synchronized void openContext(AnalysisContext context, File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create " + directory);
+    }
+    ContextData data = getContextData(context);
+    data.directory = directory;
+    // open segments
+    List<IndexSegment> segments = Lists.newArrayList();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().endsWith(SEGMENT_SUFFIX)) {
+          segments.add(IndexSegment.open(file));
+        }
+      }
+    }
+    Collections.sort(segments, new Comparator<IndexSegment>() {
+      @Override
+      public int compare(IndexSegment o1, IndexSegment o2) {
+        return o1.getGeneration() - o2.getGeneration();
+      }
+    });
+    // newer segments supersede information in older ones
+    for (int i = 1; i < segments.size(); i++) {
+      for (String source : segments.get(i).getSupersededSources()) {
+        for (int j = 0; j < i; j++) {
+          segments.get(j).mask(source);
+        }
+      }
+    }
+    for (IndexSegment segment : segments) {
+      lastGeneration = Math.max(lastGeneration, segment.getGeneration());
+    }
+    data.segments = segments;
+  }
+
+  @Override
+  public synchronized void recordRelationship(Element element, Relationship relationship,
+      Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    AnalysisContext locationContext = location.getElement().getContext();
+    getContextData(locationContext).memoryStore.recordRelationship(element, relationship, location);
+  }
+
+  /**
+   * Removes all information associated with the given {@link AnalysisContext} from this index. The
+   * segment files of the context are kept, so they can be opened again using
+   * {@link #openContext(AnalysisContext, File)}.
+   */
+  @Override
+  public synchronized void removeContext(AnalysisContext context) {
+    contextMap.remove(context);
+    for (ContextData data : contextMap.values()) {
+      data.memoryStore.removeContext(context);
+    }
+  }
+
+  @Override
+  public synchronized void removeSource(AnalysisContext context, Source source) {
+    for (ContextData data : contextMap.values()) {
+      data.memoryStore.removeSource(context, source);
+    }
+    ContextData data = contextMap.get(context);
+    if (data != null && source != null) {
+      maskSource(data, source.getEncoding());
+    }
+  }
+
+  @Override
+  public synchronized void removeSources(AnalysisContext context, SourceContainer container) {
+    for (ContextData data : contextMap.values()) {
+      data.memoryStore.removeSources(context, container);
+    }
+    ContextData data = contextMap.get(context);
+    if (data != null && !data.segments.isEmpty() && context.getSourceFactory() != null) {
+      Set<String> sourcesToRemove = Sets.newHashSet();
+      for (IndexSegment segment : data.segments) {
+        for (String encoding : segment.getSources()) {
+          if (sourcesToRemove.contains(encoding)) {
+            continue;
+          }
+          Source source = context.getSourceFactory().fromEncoding(encoding);
+          if (source != null && container.contains(source)) {
+            sourcesToRemove.add(encoding);
+          }
+        }
+      }
+      for (String encoding : sourcesToRemove) {
+        maskSource(data, encoding);
+      }
+    }
+  }
+
+  /**
+   * @return the {@link ContextData} for the given {@link AnalysisContext}, not <code>null</code>.
+   */
+  private ContextData getContextData(AnalysisContext context) {
+    ContextData data = contextMap.get(context);
+    if (data == null) {
+      data = new ContextData();
+      contextMap.put(context, data);
+    }
+    return data;
+  }
+
+  /**
+   * @return the {@link File} of the segment with the given generation.
+   */
+  private File getSegmentFile(File directory, int generation) {
+    return new File(directory, generation + SEGMENT_SUFFIX);
+  }
+
+  /**
+   * Masks information about the given {@link Source} in the segments of a context.
+   */
+  private void maskSource(ContextData data, String source) {
+    if (data.segments.isEmpty()) {
+      return;
+    }
+    for (IndexSegment segment : data.segments) {
+      segment.mask(source);
+    }
+    data.supersededSources.add(source);
+  }
+}
@@ -31,6 +31,7 @@ public class GetRelationshipsOperation implements IndexOperation {
   private final IndexStore indexStore;
   private final Element element;
   private final Relationship relationship;
+  private final String namePrefix;
   private RelationshipCallback callback;
 
   /**
@@ -39,9 +40,20 @@ public class GetRelationshipsOperation implements IndexOperation {
    */
   public GetRelationshipsOperation(IndexStore indexStore, Element element,
       Relationship relationship, RelationshipCallback callback) {
+    this(indexStore, element, relationship, null, callback);
+  }
+
+  /**
+   * Initialize a newly created operation that will access the locations that have a specified
+   * relationship with a specified element and whose names start with the given prefix, ignoring
+   * case. If the prefix is {@code null} all of the locations are accessed.
+   */
+  public GetRelationshipsOperation(IndexStore indexStore, Element element,
+      Relationship relationship, String namePrefix, RelationshipCallback callback) {
     this.indexStore = indexStore;
     this.element = element;
     this.relationship = relationship;
+    this.namePrefix = namePrefix;
     this.callback = callback;
   }
 
@@ -55,6 +67,11 @@ public class GetRelationshipsOperation implements IndexOperation {
     return element;
   }
 
+  @VisibleForTesting
+  public String getNamePrefix() {
+    return namePrefix;
+  }
+
   @VisibleForTesting
   public Relationship getRelationship() {
     return relationship;
@@ -69,7 +86,11 @@ public class GetRelationshipsOperation implements IndexOperation {
   public void performOperation() {
     Location[] locations;
     synchronized (indexStore) {
-      locations = indexStore.getRelationships(element, relationship);
+      if (namePrefix == null) {
+        locations = indexStore.getRelationships(element, relationship);
+      } else {
+        locations = indexStore.getRelationships(element, relationship, namePrefix);
+      }
     }
     callback.hasRelationships(element, relationship, locations);
   }
@@ -81,6 +102,9 @@ public class GetRelationshipsOperation implements IndexOperation {
 
   @Override
   public String toString() {
+    if (namePrefix != null) {
+      return "GetRelationships(" + element + ", " + relationship + ", " + namePrefix + ")";
+    }
     return "GetRelationships(" + element + ", " + relationship + ")";
   }
 }
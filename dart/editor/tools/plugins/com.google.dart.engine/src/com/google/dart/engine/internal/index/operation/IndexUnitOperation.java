@@ -19,6 +19,7 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.RelationshipRecorder;
 import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
 
@@ -49,6 +50,12 @@ public class IndexUnitOperation implements IndexOperation {
    */
   private Source source;
 
+  /**
+   * The relationships computed by {@link #prepare()}, or <code>null</code> if this operation was
+   * not prepared.
+   */
+  private volatile RelationshipBuffer preparedRelationships;
+
   /**
    * Initialize a newly created operation that will index the specified unit.
    * 
@@ -83,21 +90,36 @@ public class IndexUnitOperation implements IndexOperation {
     return false;
   }
 
+  /**
+   * Perform the operation. If the operation was {@link #prepare() prepared}, then only the
+   * computed relationships are added to the index, so the index is locked for a short time only.
+   * In either case the old information about the source is replaced in a single step, so queries
+   * never see a partially indexed source.
+   */
   @Override
   public void performOperation() {
+    RelationshipBuffer relationships = preparedRelationships;
     synchronized (indexStore) {
       indexStore.removeSource(context, source);
-      try {
-        IndexContributor contributor = new IndexContributor(indexStore);
-        unit.accept(contributor);
-      } catch (Throwable exception) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Could not index " + unit.getElement().getLocation(),
-            exception);
+      if (relationships != null) {
+        relationships.replay(indexStore);
+        return;
       }
+      contribute(indexStore);
     }
   }
 
+  /**
+   * Compute the relationships to add to the index without locking it. This method can be invoked
+   * on any thread before {@link #performOperation()}, which will then only record the computed
+   * relationships.
+   */
+  public void prepare() {
+    RelationshipBuffer relationships = new RelationshipBuffer();
+    contribute(relationships);
+    preparedRelationships = relationships;
+  }
+
   @Override
   public boolean removeWhenSourceRemoved(Source source) {
     return Objects.equal(this.source, source);
@@ -107,4 +129,18 @@ public class IndexUnitOperation implements IndexOperation {
   public String toString() {
     return "IndexResource(" + source.getFullName() + ")";
   }
+
+  /**
+   * Record the relationships of the unit into the given {@link RelationshipRecorder}.
+   */
+  private void contribute(RelationshipRecorder recorder) {
+    try {
+      IndexContributor contributor = new IndexContributor(recorder);
+      unit.accept(contributor);
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+    }
+  }
 }
@@ -13,17 +13,31 @@
  */
 package com.google.dart.engine.internal.index.operation;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.source.Source;
 
+import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Instances of the {@link OperationProcessor} process the operations on a single
  * {@link OperationQueue operation queue}. Each processor can be run one time on a single thread.
+ * <p>
+ * If the processor is created with more than one indexing thread, then the relationships of the
+ * {@link IndexUnitOperation}s are {@link IndexUnitOperation#prepare() computed} on the indexing
+ * threads in parallel, and only recorded into the index on the thread running the processor, in
+ * the order in which the operations were queued. Query operations are performed on a separate
+ * thread, so that they don't wait for the indexing operations queued before them; they can only
+ * be delayed while the relationships of a single unit are recorded.
  * 
  * @coverage dart.engine.index
  */
@@ -54,11 +68,38 @@ public class OperationProcessor {
     STOPPED;
   }
 
+  /**
+   * Instances of the class {@code PreparedOperation} represent an {@link IndexUnitOperation} which
+   * is being prepared on one of the indexing threads.
+   */
+  private static class PreparedOperation {
+    final IndexUnitOperation operation;
+    final long enqueueTime;
+    final Future<?> future;
+
+    PreparedOperation(IndexUnitOperation operation, long enqueueTime, Future<?> future) {
+      this.operation = operation;
+      this.enqueueTime = enqueueTime;
+      this.future = future;
+    }
+  }
+
   /**
    * The queue containing the operations to be processed.
    */
   private OperationQueue queue;
 
+  /**
+   * The number of threads on which {@link IndexUnitOperation}s are prepared, {@code 1} if all
+   * operations are performed on the thread running the processor.
+   */
+  private final int indexingThreadCount;
+
+  /**
+   * The statistics about the performed operations.
+   */
+  private final OperationStatistics statistics = new OperationStatistics();
+
   /**
    * The current state of the processor.
    */
@@ -76,7 +117,38 @@ public class OperationProcessor {
    * @param queue the queue containing the operations to be processed
    */
   public OperationProcessor(OperationQueue queue) {
+    this(queue, 1);
+  }
+
+  /**
+   * Initialize a newly created operation processor to process the operations on the given queue
+   * using the given number of indexing threads.
+   * 
+   * @param queue the queue containing the operations to be processed
+   * @param indexingThreadCount the number of threads to prepare {@link IndexUnitOperation}s on,
+   *          {@code 1} to perform all operations on the thread running the processor
+   */
+  public OperationProcessor(OperationQueue queue, int indexingThreadCount) {
     this.queue = queue;
+    this.indexingThreadCount = Math.max(1, indexingThreadCount);
+  }
+
+  /**
+   * Return the number of operations that are waiting to be performed.
+   * 
+   * @return the number of operations in the queue
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Return the statistics about the operations performed by this processor.
+   * 
+   * @return the statistics about the performed operations
+   */
+  public OperationStatistics getStatistics() {
+    return statistics;
   }
 
   /**
@@ -95,6 +167,10 @@ public class OperationProcessor {
       state = ProcessorState.RUNNING;
     }
     try {
+      if (indexingThreadCount > 1) {
+        runConcurrently();
+        return;
+      }
       while (isRunning()) {
         // wait for operation
         IndexOperation operation = null;
@@ -105,12 +181,8 @@ public class OperationProcessor {
         }
         // perform operation
         if (operation != null) {
-          try {
-            operation.performOperation();
-          } catch (Throwable exception) {
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
-          }
+          statistics.recordQueueDepth(queue.size() + 1);
+          performOperation(operation, queue.removeEnqueueTime(operation));
         }
       }
     } finally {
@@ -165,6 +237,19 @@ public class OperationProcessor {
     return state == ProcessorState.RUNNING;
   }
 
+  /**
+   * Wait until the given prepared operation is prepared and then record its relationships.
+   */
+  private void finishOperation(PreparedOperation prepared) {
+    try {
+      Uninterruptibles.getUninterruptibly(prepared.future);
+    } catch (ExecutionException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + prepared.operation, exception.getCause()); //$NON-NLS-1$
+    }
+    performOperation(prepared.operation, prepared.enqueueTime);
+  }
+
   /**
    * @return the {@link Source}s that are not indexed yet.
    */
@@ -189,4 +274,101 @@ public class OperationProcessor {
       return state == ProcessorState.RUNNING;
     }
   }
+
+  /**
+   * Perform the given operation and record its statistics.
+   * 
+   * @param operation the operation to perform
+   * @param enqueueTime the time (in nanoseconds) at which the operation was added to the queue
+   */
+  private void performOperation(IndexOperation operation, long enqueueTime) {
+    long startTime = System.nanoTime();
+    try {
+      operation.performOperation();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
+    }
+    statistics.recordOperation(operation, startTime - enqueueTime, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Process operations until the processor is stopped, preparing {@link IndexUnitOperation}s on the
+   * indexing threads and performing queries on a separate thread.
+   */
+  private void runConcurrently() {
+    ExecutorService executor = Executors.newFixedThreadPool(indexingThreadCount, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Index operation preparer"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    Thread queryThread = new Thread("Index query processor") { //$NON-NLS-1$
+      @Override
+      public void run() {
+        while (isRunning()) {
+          IndexOperation operation = null;
+          try {
+            operation = queue.dequeueQuery(WAIT_DURATION);
+          } catch (InterruptedException exception) {
+            // ignore
+          }
+          if (operation != null) {
+            performOperation(operation, queue.removeEnqueueTime(operation));
+          }
+        }
+      }
+    };
+    queryThread.setDaemon(true);
+    queryThread.start();
+    LinkedList<PreparedOperation> preparedOperations = Lists.newLinkedList();
+    try {
+      while (isRunning()) {
+        // wait for operation, unless there are operations to finish
+        IndexOperation operation = null;
+        if (preparedOperations.size() < 2 * indexingThreadCount) {
+          try {
+            operation = queue.dequeueNonQuery(preparedOperations.isEmpty() ? WAIT_DURATION : 0L);
+          } catch (InterruptedException exception) {
+            // ignore
+          }
+        }
+        // start preparing unit
+        if (operation instanceof IndexUnitOperation) {
+          final IndexUnitOperation unitOperation = (IndexUnitOperation) operation;
+          Future<?> future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+              unitOperation.prepare();
+            }
+          });
+          long enqueueTime = queue.removeEnqueueTime(operation);
+          preparedOperations.add(new PreparedOperation(unitOperation, enqueueTime, future));
+          statistics.recordQueueDepth(queue.size() + preparedOperations.size());
+          continue;
+        }
+        // finish the oldest prepared operation
+        if (operation == null) {
+          if (!preparedOperations.isEmpty()) {
+            finishOperation(preparedOperations.removeFirst());
+          }
+          continue;
+        }
+        // other operations depend on the results of all operations queued before them
+        while (!preparedOperations.isEmpty()) {
+          finishOperation(preparedOperations.removeFirst());
+        }
+        performOperation(operation, queue.removeEnqueueTime(operation));
+      }
+      // operations which were already removed from the queue are not reported as unanalyzed
+      while (!preparedOperations.isEmpty()) {
+        finishOperation(preparedOperations.removeFirst());
+      }
+    } finally {
+      executor.shutdownNow();
+      Uninterruptibles.joinUninterruptibly(queryThread);
+    }
+  }
 }
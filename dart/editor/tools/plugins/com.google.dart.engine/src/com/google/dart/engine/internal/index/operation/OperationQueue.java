@@ -14,10 +14,12 @@
 package com.google.dart.engine.internal.index.operation;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.dart.engine.source.Source;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Instances of the {@link OperationQueue} represent a queue of operations against the index that
@@ -36,6 +38,12 @@ public class OperationQueue {
    */
   private final List<IndexOperation> queryOperations = Lists.newLinkedList();
 
+  /**
+   * A table mapping the operations that are waiting to be performed to the times (in nanoseconds)
+   * at which they were added to this queue.
+   */
+  private final Map<IndexOperation, Long> enqueueTimes = Maps.newIdentityHashMap();
+
   /**
    * <code>true</code> if query operations should be returned by {@link #dequeue(long)} or
    * <code>false</code> if not.
@@ -89,6 +97,57 @@ public class OperationQueue {
     }
   }
 
+  /**
+   * Remove the next non-query operation from the head of this queue and return it. This method
+   * behaves like {@link #dequeue(long)}, but ignores query operations, so that they can be
+   * performed on a different thread using {@link #dequeueQuery(long)}.
+   * 
+   * @param timeout the maximum number of milliseconds to wait for an operation to be available
+   *          before giving up and returning <code>null</code>
+   * @return the operation that was removed from the queue
+   * @throws InterruptedException if the thread on which this method is running was interrupted
+   *           while it was waiting for an operation to be added to the queue
+   */
+  public IndexOperation dequeueNonQuery(long timeout) throws InterruptedException {
+    synchronized (nonQueryOperations) {
+      if (nonQueryOperations.isEmpty()) {
+        if (timeout <= 0L) {
+          return null;
+        }
+        nonQueryOperations.wait(timeout);
+      }
+      if (!nonQueryOperations.isEmpty()) {
+        return nonQueryOperations.remove(0);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Remove the next query operation from the head of this queue and return it. This method behaves
+   * like {@link #dequeue(long)}, but ignores non-query operations.
+   * 
+   * @param timeout the maximum number of milliseconds to wait for an operation to be available
+   *          before giving up and returning <code>null</code>
+   * @return the operation that was removed from the queue
+   * @throws InterruptedException if the thread on which this method is running was interrupted
+   *           while it was waiting for an operation to be added to the queue
+   */
+  public IndexOperation dequeueQuery(long timeout) throws InterruptedException {
+    synchronized (nonQueryOperations) {
+      if (!processQueries || queryOperations.isEmpty()) {
+        if (timeout <= 0L) {
+          return null;
+        }
+        nonQueryOperations.wait(timeout);
+      }
+      if (processQueries && !queryOperations.isEmpty()) {
+        return queryOperations.remove(0);
+      }
+      return null;
+    }
+  }
+
   /**
    * Add the given operation to the tail of this queue.
    * 
@@ -102,15 +161,18 @@ public class OperationQueue {
           IndexOperation indexOperation = iter.next();
           if (indexOperation.removeWhenSourceRemoved(source)) {
             iter.remove();
+            enqueueTimes.remove(indexOperation);
           }
         }
         for (Iterator<IndexOperation> iter = queryOperations.listIterator(); iter.hasNext();) {
           IndexOperation indexOperation = iter.next();
           if (indexOperation.removeWhenSourceRemoved(source)) {
             iter.remove();
+            enqueueTimes.remove(indexOperation);
           }
         }
       }
+      enqueueTimes.put(operation, System.nanoTime());
       if (operation.isQuery()) {
         queryOperations.add(operation);
       } else {
@@ -135,6 +197,20 @@ public class OperationQueue {
     return operations;
   }
 
+  /**
+   * Return the time (in nanoseconds) at which the given operation, which was just removed from this
+   * queue, was added to it, and forget this time.
+   * 
+   * @param operation the operation that was removed from this queue
+   * @return the time at which the operation was added, or the current time if it is not known
+   */
+  public long removeEnqueueTime(IndexOperation operation) {
+    synchronized (nonQueryOperations) {
+      Long time = enqueueTimes.remove(operation);
+      return time != null ? time.longValue() : System.nanoTime();
+    }
+  }
+
   /**
    * Set whether the receiver's {@link #dequeue(long)} method should return query operations.
    * 
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Instances of the class {@code OperationStatistics} collect the number of index operations that
+ * were performed, how long they waited in the {@link OperationQueue} and how long they took to be
+ * performed, grouped by the class of the operation, together with the maximal depth of the queue.
+ * All of the times are in nanoseconds.
+ * 
+ * @coverage dart.engine.index
+ */
+public class OperationStatistics {
+  /**
+   * The statistics about a single kind of operations.
+   */
+  private static class Counter {
+    int count;
+    long totalWaitTime;
+    long maxWaitTime;
+    long totalRunTime;
+    long maxRunTime;
+  }
+
+  /**
+   * A table mapping the classes of operations to their statistics.
+   */
+  private final Map<Class<?>, Counter> counters = Maps.newLinkedHashMap();
+
+  /**
+   * The maximal number of operations that were waiting in the queue.
+   */
+  private int maxQueueDepth;
+
+  /**
+   * Return the average time the operations of the given kind took to be performed.
+   * 
+   * @param kind the class of the operations
+   * @return the average time the operations were performed, or {@code 0} if there were none
+   */
+  public synchronized long getAverageRunTime(Class<? extends IndexOperation> kind) {
+    Counter counter = counters.get(kind);
+    return counter != null ? counter.totalRunTime / counter.count : 0L;
+  }
+
+  /**
+   * Return the average time the operations of the given kind waited in the queue.
+   * 
+   * @param kind the class of the operations
+   * @return the average time the operations waited, or {@code 0} if there were none
+   */
+  public synchronized long getAverageWaitTime(Class<? extends IndexOperation> kind) {
+    Counter counter = counters.get(kind);
+    return counter != null ? counter.totalWaitTime / counter.count : 0L;
+  }
+
+  /**
+   * Return the maximal number of operations that were waiting in the queue.
+   * 
+   * @return the maximal depth of the queue
+   */
+  public synchronized int getMaxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  /**
+   * Return the maximal time an operation of the given kind took to be performed.
+   * 
+   * @param kind the class of the operations
+   * @return the maximal time an operation was performed
+   */
+  public synchronized long getMaxRunTime(Class<? extends IndexOperation> kind) {
+    Counter counter = counters.get(kind);
+    return counter != null ? counter.maxRunTime : 0L;
+  }
+
+  /**
+   * Return the maximal time an operation of the given kind waited in the queue.
+   * 
+   * @param kind the class of the operations
+   * @return the maximal time an operation waited
+   */
+  public synchronized long getMaxWaitTime(Class<? extends IndexOperation> kind) {
+    Counter counter = counters.get(kind);
+    return counter != null ? counter.maxWaitTime : 0L;
+  }
+
+  /**
+   * Return the number of performed operations of the given kind.
+   * 
+   * @param kind the class of the operations
+   * @return the number of performed operations
+   */
+  public synchronized int getOperationCount(Class<? extends IndexOperation> kind) {
+    Counter counter = counters.get(kind);
+    return counter != null ? counter.count : 0;
+  }
+
+  /**
+   * Record that the given operation was performed.
+   * 
+   * @param operation the operation that was performed
+   * @param waitTime the time the operation waited in the queue
+   * @param runTime the time the operation took to be performed
+   */
+  public synchronized void recordOperation(IndexOperation operation, long waitTime, long runTime) {
+    Counter counter = counters.get(operation.getClass());
+    if (counter == null) {
+      counter = new Counter();
+      counters.put(operation.getClass(), counter);
+    }
+    counter.count++;
+    counter.totalWaitTime += waitTime;
+    counter.maxWaitTime = Math.max(counter.maxWaitTime, waitTime);
+    counter.totalRunTime += runTime;
+    counter.maxRunTime = Math.max(counter.maxRunTime, runTime);
+  }
+
+  /**
+   * Record the current number of operations waiting in the queue.
+   * 
+   * @param depth the number of operations in the queue
+   */
+  public synchronized void recordQueueDepth(int depth) {
+    maxQueueDepth = Math.max(maxQueueDepth, depth);
+  }
+
+  /**
+   * Forget all of the collected statistics.
+   */
+  public synchronized void reset() {
+    counters.clear();
+    maxQueueDepth = 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("max queue depth: ");
+    builder.append(maxQueueDepth);
+    for (Entry<Class<?>, Counter> entry : counters.entrySet()) {
+      Counter counter = entry.getValue();
+      builder.append("\n");
+      builder.append(entry.getKey().getSimpleName());
+      builder.append(": count=");
+      builder.append(counter.count);
+      builder.append(", wait avg/max=");
+      builder.append(counter.totalWaitTime / counter.count / 1000000);
+      builder.append("/");
+      builder.append(counter.maxWaitTime / 1000000);
+      builder.append(" ms, run avg/max=");
+      builder.append(counter.totalRunTime / counter.count / 1000000);
+      builder.append("/");
+      builder.append(counter.maxRunTime / 1000000);
+      builder.append(" ms");
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipRecorder;
+
+import java.util.List;
+
+/**
+ * {@link RelationshipRecorder} which only remembers the recorded relationships, so that they can be
+ * computed without holding the lock of the {@link IndexStore} and then added to it at once.
+ * 
+ * @coverage dart.engine.index
+ */
+class RelationshipBuffer implements RelationshipRecorder {
+  private final List<Element> elements = Lists.newArrayList();
+  private final List<Relationship> relationships = Lists.newArrayList();
+  private final List<Location> locations = Lists.newArrayList();
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    elements.add(element);
+    relationships.add(relationship);
+    locations.add(location);
+  }
+
+  /**
+   * Records all relationships of this buffer into the given {@link IndexStore}.
+   */
+  void replay(IndexStore store) {
+    int count = locations.size();
+    for (int i = 0; i < count; i++) {
+      store.recordRelationship(elements.get(i), relationships.get(i), locations.get(i));
+    }
+  }
+}
@@ -85,8 +85,6 @@ import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.utilities.dart.ParameterKind;
 
-import java.util.HashSet;
-
 /**
  * Instances of the class {@code ElementResolver} are used by instances of {@link ResolverVisitor}
  * to resolve references within the AST structure to the elements being referenced. The requirements
@@ -869,52 +867,11 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
         return member;
       }
       // return classElement.getType().lookUpGetter(methodName, resolver.getDefiningLibrary());
-      return lookUpGetterInInterfaces(
-          (ClassElement) element,
-          getterName,
-          new HashSet<ClassElement>());
+      return classElement.lookUpGetterInInterfaces(getterName);
     }
     return null;
   }
 
-  /**
-   * Look up the name of a getter in the interfaces implemented by the given type, either directly
-   * or indirectly. Return the element representing the getter that was found, or {@code null} if
-   * there is no getter with the given name.
-   * 
-   * @param element the element representing the type in which the getter is defined
-   * @param memberName the name of the getter being looked up
-   * @param visitedInterfaces a set containing all of the interfaces that have been examined, used
-   *          to prevent infinite recursion and to optimize the search
-   * @return the element representing the getter that was found
-   */
-  private PropertyAccessorElement lookUpGetterInInterfaces(ClassElement targetClass,
-      String memberName, HashSet<ClassElement> visitedInterfaces) {
-    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
-    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
-    // finding the inherited member. We need to follow that scheme. The code below should cover the
-    // 80% case.
-    if (visitedInterfaces.contains(targetClass)) {
-      return null;
-    }
-    visitedInterfaces.add(targetClass);
-    PropertyAccessorElement member = lookUpGetterInType(targetClass, memberName);
-    if (member != null) {
-      return member;
-    }
-    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
-      member = lookUpGetterInInterfaces(interfaceType.getElement(), memberName, visitedInterfaces);
-      if (member != null) {
-        return member;
-      }
-    }
-    ClassElement superclass = getSuperclass(targetClass);
-    if (superclass == null) {
-      return null;
-    }
-    return lookUpGetterInInterfaces(superclass, memberName, visitedInterfaces);
-  }
-
   /**
    * Look up the name of a getter in the given type. Return the element representing the getter that
    * was found, or {@code null} if there is no getter with the given name.
@@ -1004,65 +961,7 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
         return member;
       }
       // return classElement.getType().lookUpMethod(methodName, resolver.getDefiningLibrary());
-      return lookUpMethodInInterfaces(
-          (ClassElement) element,
-          methodName,
-          new HashSet<ClassElement>());
-    }
-    return null;
-  }
-
-  /**
-   * Look up the name of a member in the interfaces implemented by the given type, either directly
-   * or indirectly. Return the element representing the member that was found, or {@code null} if
-   * there is no member with the given name.
-   * 
-   * @param element the element representing the type in which the member is defined
-   * @param memberName the name of the member being looked up
-   * @param visitedInterfaces a set containing all of the interfaces that have been examined, used
-   *          to prevent infinite recursion and to optimize the search
-   * @return the element representing the member that was found
-   */
-  private MethodElement lookUpMethodInInterfaces(ClassElement targetClass, String memberName,
-      HashSet<ClassElement> visitedInterfaces) {
-    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
-    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
-    // finding the inherited member. We need to follow that scheme. The code below should cover the
-    // 80% case.
-    if (visitedInterfaces.contains(targetClass)) {
-      return null;
-    }
-    visitedInterfaces.add(targetClass);
-    MethodElement member = lookUpMethodInType(targetClass, memberName);
-    if (member != null) {
-      return member;
-    }
-    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
-      member = lookUpMethodInInterfaces(interfaceType.getElement(), memberName, visitedInterfaces);
-      if (member != null) {
-        return member;
-      }
-    }
-    ClassElement superclass = getSuperclass(targetClass);
-    if (superclass == null) {
-      return null;
-    }
-    return lookUpMethodInInterfaces(superclass, memberName, visitedInterfaces);
-  }
-
-  /**
-   * Look up the name of a method in the given type. Return the element representing the method that
-   * was found, or {@code null} if there is no method with the given name.
-   * 
-   * @param element the element representing the type in which the method is defined
-   * @param memberName the name of the method being looked up
-   * @return the element representing the method that was found
-   */
-  private MethodElement lookUpMethodInType(ClassElement element, String memberName) {
-    for (MethodElement method : element.getMethods()) {
-      if (method.getName().equals(memberName)) {
-        return method;
-      }
+      return classElement.lookUpMethodInInterfaces(methodName);
     }
     return null;
   }
@@ -1090,52 +989,11 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
         return member;
       }
       // return classElement.getType().lookUpSetter(methodName, resolver.getDefiningLibrary());
-      return lookUpSetterInInterfaces(
-          (ClassElement) element,
-          setterName,
-          new HashSet<ClassElement>());
+      return classElement.lookUpSetterInInterfaces(setterName);
     }
     return null;
   }
 
-  /**
-   * Look up the name of a setter in the interfaces implemented by the given type, either directly
-   * or indirectly. Return the element representing the setter that was found, or {@code null} if
-   * there is no setter with the given name.
-   * 
-   * @param element the element representing the type in which the setter is defined
-   * @param memberName the name of the setter being looked up
-   * @param visitedInterfaces a set containing all of the interfaces that have been examined, used
-   *          to prevent infinite recursion and to optimize the search
-   * @return the element representing the setter that was found
-   */
-  private PropertyAccessorElement lookUpSetterInInterfaces(ClassElement targetClass,
-      String memberName, HashSet<ClassElement> visitedInterfaces) {
-    // TODO(brianwilkerson) This isn't correct. Section 8.1.1 of the specification (titled
-    // "Inheritance and Overriding" under "Interfaces") describes a much more complex scheme for
-    // finding the inherited member. We need to follow that scheme. The code below should cover the
-    // 80% case.
-    if (visitedInterfaces.contains(targetClass)) {
-      return null;
-    }
-    visitedInterfaces.add(targetClass);
-    PropertyAccessorElement member = lookUpSetterInType(targetClass, memberName);
-    if (member != null) {
-      return member;
-    }
-    for (InterfaceType interfaceType : targetClass.getInterfaces()) {
-      member = lookUpSetterInInterfaces(interfaceType.getElement(), memberName, visitedInterfaces);
-      if (member != null) {
-        return member;
-      }
-    }
-    ClassElement superclass = getSuperclass(targetClass);
-    if (superclass == null) {
-      return null;
-    }
-    return lookUpSetterInInterfaces(superclass, memberName, visitedInterfaces);
-  }
-
   /**
    * Look up the name of a setter in the given type. Return the element representing the setter that
    * was found, or {@code null} if there is no setter with the given name.
@@ -152,6 +152,7 @@ public class LibraryElementBuilder {
     // Create and populate the library element.
     //
     LibraryElementImpl libraryElement = new LibraryElementImpl(analysisContext, libraryNameNode);
+    analysisContext.initializeLibraryElement(libraryElement);
     libraryElement.setDefiningCompilationUnit(definingCompilationUnitElement);
     if (entryPoint != null) {
       libraryElement.setEntryPoint(entryPoint);
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.resolver;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.ast.Combinator;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.ast.Directive;
@@ -23,6 +24,7 @@ import com.google.dart.engine.ast.NamespaceDirective;
 import com.google.dart.engine.ast.NodeList;
 import com.google.dart.engine.ast.ShowCombinator;
 import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.visitor.CompositeASTVisitor;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ExportElement;
 import com.google.dart.engine.element.ImportElement;
@@ -44,9 +46,15 @@ import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.source.Source;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Instances of the class {@code LibraryResolver} are used to resolve one or more mutually dependent
@@ -55,6 +63,20 @@ import java.util.Set;
  * @coverage dart.engine.resolver
  */
 public class LibraryResolver {
+  /**
+   * The interface {@code LibraryTask} defines the behavior of objects that perform some part of the
+   * resolution of a single library.
+   */
+  private interface LibraryTask {
+    /**
+     * Perform this task on the given library.
+     * 
+     * @param library the library on which the task is to be performed
+     * @throws AnalysisException if the task could not be performed
+     */
+    public void perform(Library library) throws AnalysisException;
+  }
+
   /**
    * The analysis context in which the libraries are being analyzed.
    */
@@ -100,6 +122,24 @@ public class LibraryResolver {
    */
   private Set<Library> librariesInCycles;
 
+  /**
+   * The executor used to resolve independent libraries concurrently, or {@code null} if libraries
+   * are to be resolved sequentially on the calling thread.
+   */
+  private ExecutorService executor;
+
+  /**
+   * {@code true} if the element models of libraries other than the library being resolved can be
+   * loaded from summaries rather than being built from source.
+   */
+  private boolean useSummaries;
+
+  /**
+   * The libraries whose element models were loaded from summaries. These libraries are not parsed
+   * and the libraries they depend on are not traversed.
+   */
+  private HashSet<Library> summarizedLibraries = new HashSet<Library>();
+
   /**
    * Initialize a newly created library resolver to resolve libraries within the given context.
    * 
@@ -124,7 +164,7 @@ public class LibraryResolver {
     } else {
       this.errorListener = new AnalysisErrorListener() {
         @Override
-        public void onError(AnalysisError error) {
+        public synchronized void onError(AnalysisError error) {
           additionalAnalysisErrorListener.onError(error);
           recordingErrorListener.onError(error);
         }
@@ -152,6 +192,16 @@ public class LibraryResolver {
     return errorListener;
   }
 
+  /**
+   * Return the executor used to resolve independent libraries concurrently, or {@code null} if
+   * libraries are resolved sequentially.
+   * 
+   * @return the executor used to resolve independent libraries concurrently
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
   /**
    * Resolve the library specified by the given source in the given context.
    * <p>
@@ -171,6 +221,11 @@ public class LibraryResolver {
     // Create the objects representing the library being resolved and the core library.
     //
     Library targetLibrary = createLibrary(librarySource);
+    //
+    // The libraries it depends on can be loaded from summaries, unless the library being resolved
+    // needs resolved ASTs (in which case so do the other libraries in its cycle).
+    //
+    useSummaries = !analysisContext.isUnsummarizedLibrary(librarySource);
     coreLibrary = libraryMap.get(coreLibrarySource);
     if (coreLibrary == null) {
       // This will be true unless the library being analyzed is the core library.
@@ -181,6 +236,14 @@ public class LibraryResolver {
     //
     computeLibraryDependencies(targetLibrary);
     librariesInCycles = computeLibrariesInCycles(targetLibrary);
+    if (executor != null) {
+      //
+      // Resolve the libraries that are not part of the cycle, each of which is resolved by its own
+      // resolver, concurrently. Libraries that are shared by several of them are only resolved
+      // once because the context coordinates the computation of library elements.
+      //
+      resolveDependencies();
+    }
     //
     // Build the element models representing the libraries being resolved. This is done in three
     // steps:
@@ -224,6 +287,23 @@ public class LibraryResolver {
     return targetLibrary.getLibraryElement();
   }
 
+  /**
+   * Set the executor used to resolve independent libraries concurrently to the given executor. If
+   * the executor is {@code null}, libraries will be resolved sequentially on the calling thread.
+   * <p>
+   * When an executor is provided, the libraries imported or exported by the libraries being
+   * resolved that are not part of the same cycle are resolved concurrently, as are the references
+   * and types in the libraries of the cycle. The thread invoking
+   * {@link #resolveLibrary(Source, boolean)} also performs any work that has not been started by
+   * the executor's threads, so the executor may have any number of threads and may be shared
+   * between resolvers.
+   * 
+   * @param executor the executor used to resolve independent libraries concurrently
+   */
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
   /**
    * Add a dependency to the given map from the referencing library to the referenced library.
    * 
@@ -443,6 +523,9 @@ public class LibraryResolver {
    * @throws AnalysisException if some portion of the library graph could not be traversed
    */
   private void computeLibraryDependencies(Library library) throws AnalysisException {
+    if (summarizedLibraries.contains(library)) {
+      return;
+    }
     boolean explicitlyImportsCore = false;
     CompilationUnit unit = library.getDefiningCompilationUnit();
     for (Directive directive : unit.getDirectives()) {
@@ -505,7 +588,9 @@ public class LibraryResolver {
    */
   private Library createLibrary(Source librarySource) throws AnalysisException {
     Library library = new Library(analysisContext, errorListener, librarySource);
-    library.getDefiningCompilationUnit();
+    if (!loadSummary(library)) {
+      library.getDefiningCompilationUnit();
+    }
     libraryMap.put(librarySource, library);
     return library;
   }
@@ -521,7 +606,9 @@ public class LibraryResolver {
   private Library createLibraryOrNull(Source librarySource) {
     Library library = new Library(analysisContext, errorListener, librarySource);
     try {
-      library.getDefiningCompilationUnit();
+      if (!loadSummary(library)) {
+        library.getDefiningCompilationUnit();
+      }
     } catch (AnalysisException exception) {
       return null;
     }
@@ -545,6 +632,64 @@ public class LibraryResolver {
     return identifiers;
   }
 
+  /**
+   * Perform the given task on each of the given libraries. If there is an executor the tasks are
+   * performed concurrently, otherwise they are performed sequentially on the current thread.
+   * <p>
+   * When running concurrently, the current thread also performs any task that has not been started
+   * by one of the executor's threads before waiting for the remaining tasks to complete. This
+   * guarantees progress even if all of the executor's threads are busy (for example, because they
+   * are themselves resolving libraries).
+   * 
+   * @param libraries the libraries on which the task is to be performed
+   * @param task the task to be performed
+   * @throws AnalysisException if the task could not be performed on one of the libraries
+   */
+  private void performOnLibraries(Collection<Library> libraries, final LibraryTask task)
+      throws AnalysisException {
+    if (executor == null || libraries.size() < 2) {
+      for (Library library : libraries) {
+        task.perform(library);
+      }
+      return;
+    }
+    ArrayList<FutureTask<Void>> futures = new ArrayList<FutureTask<Void>>(libraries.size());
+    for (final Library library : libraries) {
+      FutureTask<Void> future = new FutureTask<Void>(new Callable<Void>() {
+        @Override
+        public Void call() throws AnalysisException {
+          task.perform(library);
+          return null;
+        }
+      });
+      futures.add(future);
+      try {
+        executor.execute(future);
+      } catch (RejectedExecutionException exception) {
+        // The task will be performed on this thread below.
+      }
+    }
+    for (FutureTask<Void> future : futures) {
+      // This does nothing if the task has already been started by another thread.
+      future.run();
+    }
+    for (FutureTask<Void> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException exception) {
+        Throwable cause = exception.getCause();
+        if (cause instanceof AnalysisException) {
+          throw (AnalysisException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new AnalysisException(cause);
+      }
+    }
+  }
+
   /**
    * For each library, loop through the set of all {@link CompilationUnit}s recording the set of
    * resolution errors on each unit.
@@ -581,15 +726,77 @@ public class LibraryResolver {
   }
 
   /**
-   * Resolve the identifiers and perform type analysis in the libraries in the current cycle.
+   * Use the summary of the given library, if there is one, so that the library does not need to
+   * be parsed. Return {@code true} if the element model of the library was loaded from a summary.
+   * 
+   * @param library the library whose element model is to be loaded
+   * @return {@code true} if the element model of the library was loaded
+   */
+  private boolean loadSummary(Library library) {
+    if (!useSummaries || analysisContext.getSummaryStore() == null) {
+      return false;
+    }
+    LibraryElement element = analysisContext.getSummarizedLibraryElement(library.getLibrarySource());
+    if (element == null) {
+      return false;
+    }
+    library.setLibraryElement((LibraryElementImpl) element);
+    summarizedLibraries.add(library);
+    return true;
+  }
+
+  /**
+   * Resolve the libraries that are referenced by the libraries in the current cycle but are not
+   * themselves part of the cycle. Each of these libraries is resolved by the analysis context (and
+   * hence by a separate resolver), so independent libraries can be resolved concurrently.
+   * <p>
+   * Requesting two libraries of the same cycle concurrently would have both of them resolve the
+   * whole cycle, building two element models for the same ASTs. Only the library whose source has
+   * the smallest name is requested for each cycle, so every resolver that depends on the cycle
+   * waits for the same computation, which also records the element models of the other libraries.
+   * 
+   * @throws AnalysisException if any of the libraries could not be resolved
+   */
+  private void resolveDependencies() throws AnalysisException {
+    ArrayList<Library> dependencies = new ArrayList<Library>();
+    HashSet<Library> visitedLibraries = new HashSet<Library>(librariesInCycles);
+    for (Library library : libraryMap.values()) {
+      if (!visitedLibraries.contains(library)) {
+        Library firstLibrary = library;
+        for (Library libraryInCycle : computeLibrariesInCycles(library)) {
+          visitedLibraries.add(libraryInCycle);
+          if (libraryInCycle.getLibrarySource().getFullName().compareTo(
+              firstLibrary.getLibrarySource().getFullName()) < 0) {
+            firstLibrary = libraryInCycle;
+          }
+        }
+        dependencies.add(firstLibrary);
+      }
+    }
+    performOnLibraries(dependencies, new LibraryTask() {
+      @Override
+      public void perform(Library library) {
+        library.getLibraryElement();
+      }
+    });
+  }
+
+  /**
+   * Resolve the identifiers and perform type analysis in the libraries in the current cycle. Each
+   * library only changes its own AST structures, and the element state that is shared with other
+   * libraries and other resolvers (the member tables of classes and the cache of the relations
+   * between types) is thread safe, so the libraries are resolved concurrently.
    * 
    * @throws AnalysisException if any of the identifiers could not be resolved or if any of the
    *           libraries could not have their types analyzed
    */
   private void resolveReferencesAndTypes() throws AnalysisException {
-    for (Library library : librariesInCycles) {
-      resolveReferencesAndTypes(library);
-    }
+    performOnLibraries(librariesInCycles, new LibraryTask() {
+      @Override
+      public void perform(Library library) throws AnalysisException {
+        resolveReferencesAndTypes(library);
+      }
+    });
   }
 
   /**
@@ -608,7 +815,9 @@ public class LibraryResolver {
 
   /**
    * Run additional analyses, such as the {@link ConstantVerifier} and {@link ErrorVerifier}
-   * analysis in the current cycle.
+   * analysis in the current cycle. The libraries are analyzed sequentially because the constant
+   * verifier records the values of constant variables in their elements, where the verification of
+   * the other libraries in the cycle reads them.
    * 
    * @throws AnalysisException if any of the identifiers could not be resolved or if the types in
    *           the library cannot be analyzed
@@ -621,7 +830,8 @@ public class LibraryResolver {
 
   /**
    * Run additional analyses, such as the {@link ConstantVerifier} and {@link ErrorVerifier}
-   * analysis in the given library.
+   * analysis in the given library. The analyses are {@link CompositeASTVisitor composed} so that
+   * each compilation unit is only traversed once.
    * 
    * @param library the library to have the extra analyses processes run
    * @throws AnalysisException if any of the identifiers could not be resolved or if the types in
@@ -636,10 +846,11 @@ public class LibraryResolver {
           errorReporter,
           library.getLibraryElement(),
           typeProvider);
-      unit.accept(errorVerifier);
-
       ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter);
-      unit.accept(constantVerifier);
+      //
+      // The verifiers share a single traversal of the unit.
+      //
+      unit.accept(new CompositeASTVisitor(errorVerifier, constantVerifier));
     }
   }
 
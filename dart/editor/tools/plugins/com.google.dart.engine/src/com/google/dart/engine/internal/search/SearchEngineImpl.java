@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.search;
 
+import com.google.common.collect.Lists;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
@@ -41,6 +42,7 @@ import com.google.dart.engine.internal.search.listener.NameMatchingSearchListene
 import com.google.dart.engine.internal.search.scope.LibrarySearchScope;
 import com.google.dart.engine.search.MatchKind;
 import com.google.dart.engine.search.MatchQuality;
+import com.google.dart.engine.search.SearchCursor;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchFilter;
 import com.google.dart.engine.search.SearchListener;
@@ -58,44 +60,87 @@ import java.util.List;
  */
 public class SearchEngineImpl implements SearchEngine {
 
+  /**
+   * Instances of the class <code>Query</code> represent a single request for the locations that have
+   * a given relationship with a given element.
+   */
+  private static class Query {
+    /**
+     * The element whose relationships are being requested.
+     */
+    private final Element element;
+
+    /**
+     * The relationship being requested.
+     */
+    private final Relationship relationship;
+
+    /**
+     * The prefix with which the names of the related elements start, or an empty string if the
+     * names are not restricted.
+     */
+    private final String namePrefix;
+
+    /**
+     * The kind of matches that are represented by the locations.
+     */
+    private final MatchKind matchKind;
+
+    public Query(Element element, Relationship relationship, String namePrefix, MatchKind matchKind) {
+      this.element = element;
+      this.relationship = relationship;
+      this.namePrefix = namePrefix;
+      this.matchKind = matchKind;
+    }
+  }
+
   /**
    * Instances of the class <code>RelationshipCallbackImpl</code> implement a callback that can be
-   * used to report results to a search listener.
+   * used to report the results of a single query to a search listener.
    */
   private static class RelationshipCallbackImpl implements RelationshipCallback {
-    private final SearchScope scope;
     /**
-     * The kind of matches that are represented by the results that will be provided to this
-     * callback.
+     * The search that performed the query.
      */
-    private MatchKind matchKind;
+    private final Search search;
 
     /**
-     * The search listener that should be notified when results are found.
+     * The kind of matches that are represented by the results that will be provided to this
+     * callback.
      */
-    private SearchListener listener;
+    private final MatchKind matchKind;
 
     /**
-     * Initialize a newly created callback to report matches of the given kind to the given listener
-     * when results are found.
+     * Initialize a newly created callback to report matches of the given kind to the listener of
+     * the given search when results are found.
      * 
-     * @param scope the {@link SearchScope} to return matches from, may be <code>null</code> to
-     *          return all matches
+     * @param search the search that performed the query
      * @param matchKind the kind of matches that are represented by the results
-     * @param listener the search listener that should be notified when results are found
      */
-    public RelationshipCallbackImpl(SearchScope scope, MatchKind matchKind, SearchListener listener) {
-      this.scope = scope;
+    public RelationshipCallbackImpl(Search search, MatchKind matchKind) {
+      this.search = search;
       this.matchKind = matchKind;
-      this.listener = listener;
     }
 
     @Override
     public void hasRelationships(Element element, Relationship relationship, Location[] locations) {
+      SearchScope scope = search.scope;
+      SearchCursor cursor = search.cursor;
+      if (cursor != null) {
+        locations = prioritize(locations, cursor.getPriorityLibrary());
+      }
+      int locationCount = 0;
+      int outOfScopeCount = 0;
       for (Location location : locations) {
+        // stop if the listener does not want any more matches
+        if (cursor != null && cursor.isDone()) {
+          break;
+        }
+        locationCount++;
         Element targetElement = location.getElement();
         // check scope
         if (scope != null && !scope.encloses(targetElement)) {
+          outOfScopeCount++;
           continue;
         }
         SourceRange range = new SourceRange(location.getOffset(), location.getLength());
@@ -107,9 +152,161 @@ public class SearchEngineImpl implements SearchEngine {
         match.setQualified(relationship == IndexConstants.IS_REFERENCED_BY_QUALIFIED
             || relationship == IndexConstants.IS_INVOKED_BY_QUALIFIED);
         match.setImportPrefix(location.getImportPrefix());
-        listener.matchFound(match);
+        search.listener.matchFound(match);
+      }
+      if (cursor != null) {
+        cursor.recordLocations(locationCount, outOfScopeCount);
       }
-      listener.searchComplete();
+      search.queryComplete();
+    }
+  }
+
+  /**
+   * Instances of the class <code>Search</code> perform the queries needed by a single search and
+   * report the matches that are found to a search listener.
+   * <p>
+   * If the search listener is a {@link SearchCursor}, the queries are performed one at a time, those
+   * involving the priority library of the cursor first, and no more queries are performed once the
+   * cursor is done. Otherwise all of the queries are performed at once.
+   */
+  private class Search {
+    /**
+     * The scope containing the matches to be reported, or <code>null</code> if all matches should
+     * be reported.
+     */
+    private final SearchScope scope;
+
+    /**
+     * The cursor used to stop the search early, or <code>null</code> if the search always runs to
+     * completion.
+     */
+    private final SearchCursor cursor;
+
+    /**
+     * The queries to be performed.
+     */
+    private final List<Query> queries = Lists.newArrayList();
+
+    /**
+     * The index of the next query to be performed when the queries are performed one at a time.
+     */
+    private int nextQueryIndex = 0;
+
+    /**
+     * The listener to which matches are reported.
+     */
+    private SearchListener listener;
+
+    /**
+     * Initialize a newly created search to report the matches in the given scope.
+     * 
+     * @param scope the scope containing the matches to be reported, may be <code>null</code>
+     * @param listener the listener given by the client, which will be used to stop the search early
+     *          if it is a {@link SearchCursor}
+     */
+    public Search(SearchScope scope, SearchListener listener) {
+      this.scope = scope;
+      this.cursor = listener instanceof SearchCursor ? (SearchCursor) listener : null;
+    }
+
+    /**
+     * Add a query for the locations that have the given relationship with the given element.
+     */
+    public void addQuery(Element element, Relationship relationship, MatchKind matchKind) {
+      addQuery(element, relationship, "", matchKind);
+    }
+
+    /**
+     * Add a query for the locations that have the given relationship with the given element and
+     * whose elements have names that start with the given prefix.
+     */
+    public void addQuery(Element element, Relationship relationship, String namePrefix,
+        MatchKind matchKind) {
+      queries.add(new Query(element, relationship, namePrefix, matchKind));
+    }
+
+    /**
+     * Perform the queries that have been added, reporting the matches to the given listener.
+     * 
+     * @param listener the listener to which matches are reported
+     */
+    public void perform(SearchListener listener) {
+      if (cursor == null) {
+        this.listener = new CountingSearchListener(queries.size(), listener);
+        for (Query query : queries) {
+          performQuery(query);
+        }
+      } else {
+        this.listener = listener;
+        prioritizeQueries();
+        performNextQuery();
+      }
+    }
+
+    /**
+     * Record that one of the queries has been completed.
+     */
+    public void queryComplete() {
+      if (cursor == null) {
+        listener.searchComplete();
+      } else {
+        performNextQuery();
+      }
+    }
+
+    /**
+     * Perform the next query, or report that the search is complete if there are no more queries to
+     * be performed or if the cursor is done.
+     */
+    private void performNextQuery() {
+      int queryCount = queries.size();
+      if (cursor.isDone()) {
+        cursor.recordSkippedQueries(queryCount - nextQueryIndex);
+        nextQueryIndex = queryCount;
+      }
+      if (nextQueryIndex >= queryCount) {
+        listener.searchComplete();
+        return;
+      }
+      cursor.recordQuery();
+      performQuery(queries.get(nextQueryIndex++));
+    }
+
+    /**
+     * Ask the index for the locations that satisfy the given query. When the query has a name
+     * prefix the index only returns the locations whose elements have names that start with the
+     * prefix, rather than all of the locations.
+     */
+    private void performQuery(Query query) {
+      RelationshipCallback callback = new RelationshipCallbackImpl(this, query.matchKind);
+      if (query.namePrefix.length() == 0) {
+        index.getRelationships(query.element, query.relationship, callback);
+      } else {
+        index.getRelationships(query.element, query.relationship, query.namePrefix, callback);
+      }
+    }
+
+    /**
+     * Move the queries whose element is the priority library of the cursor to the front of the list
+     * of queries, preserving the order of the queries otherwise.
+     */
+    private void prioritizeQueries() {
+      LibraryElement library = cursor.getPriorityLibrary();
+      if (library == null) {
+        return;
+      }
+      List<Query> priorityQueries = Lists.newArrayList();
+      List<Query> otherQueries = Lists.newArrayList();
+      for (Query query : queries) {
+        if (library.equals(query.element)) {
+          priorityQueries.add(query);
+        } else {
+          otherQueries.add(query);
+        }
+      }
+      queries.clear();
+      queries.addAll(priorityQueries);
+      queries.addAll(otherQueries);
     }
   }
 
@@ -166,9 +363,41 @@ public class SearchEngineImpl implements SearchEngine {
     return new Element[] {IndexConstants.UNIVERSE};
   }
 
-  private static RelationshipCallback newCallback(MatchKind matchKind, SearchScope scope,
-      SearchListener listener) {
-    return new RelationshipCallbackImpl(scope, matchKind, listener);
+  /**
+   * Return the prefix with which the names of all of the elements matching the given pattern start,
+   * or an empty string if there is no such prefix.
+   */
+  private static String getNamePrefix(SearchPattern pattern) {
+    if (pattern == null) {
+      return "";
+    }
+    return pattern.getNamePrefix();
+  }
+
+  /**
+   * Return the given locations with the locations in the given library moved to the front,
+   * preserving the order of the locations otherwise.
+   * 
+   * @param locations the locations to be ordered
+   * @param library the library whose locations should be first, or <code>null</code> if the
+   *          locations should not be reordered
+   * @return the ordered locations
+   */
+  private static Location[] prioritize(Location[] locations, LibraryElement library) {
+    if (library == null) {
+      return locations;
+    }
+    List<Location> priorityLocations = Lists.newArrayList();
+    List<Location> otherLocations = Lists.newArrayList();
+    for (Location location : locations) {
+      if (library.equals(location.getElement().getLibrary())) {
+        priorityLocations.add(location);
+      } else {
+        otherLocations.add(location);
+      }
+    }
+    priorityLocations.addAll(otherLocations);
+    return priorityLocations.toArray(new Location[priorityLocations.size()]);
   }
 
   /**
@@ -200,11 +429,13 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchDeclarations(String name, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
+    search.addQuery(
         new NameElementImpl(name),
         IndexConstants.IS_DEFINED_BY,
-        newCallback(MatchKind.NAME_DECLARATION, scope, listener));
+        MatchKind.NAME_DECLARATION);
+    search.perform(listener);
   }
 
   @Override
@@ -222,16 +453,19 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchFunctionDeclarations(SearchScope scope, SearchPattern pattern,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     Element[] elements = createElements(scope);
+    String namePrefix = getNamePrefix(pattern);
     listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
-      index.getRelationships(
+      search.addQuery(
           element,
           IndexConstants.DEFINES_FUNCTION,
-          newCallback(MatchKind.NOT_A_REFERENCE, scope, listener));
+          namePrefix,
+          MatchKind.NOT_A_REFERENCE);
     }
+    search.perform(listener);
   }
 
   @Override
@@ -249,11 +483,10 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(ClassElement type, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
-        type,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.TYPE_REFERENCE, scope, listener));
+    search.addQuery(type, IndexConstants.IS_REFERENCED_BY, MatchKind.TYPE_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -271,11 +504,10 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(CompilationUnitElement unit, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
-        unit,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.UNIT_REFERENCE, scope, listener));
+    search.addQuery(unit, IndexConstants.IS_REFERENCED_BY, MatchKind.UNIT_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -293,16 +525,11 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(ConstructorElement constructor, SearchScope scope,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(2, listener);
-    index.getRelationships(
-        constructor,
-        IndexConstants.IS_DEFINED_BY,
-        newCallback(MatchKind.CONSTRUCTOR_DECLARATION, scope, listener));
-    index.getRelationships(
-        constructor,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.CONSTRUCTOR_REFERENCE, scope, listener));
+    search.addQuery(constructor, IndexConstants.IS_DEFINED_BY, MatchKind.CONSTRUCTOR_DECLARATION);
+    search.addQuery(constructor, IndexConstants.IS_REFERENCED_BY, MatchKind.CONSTRUCTOR_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -382,16 +609,11 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(FunctionElement function, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(2, listener);
-    index.getRelationships(
-        function,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.FUNCTION_REFERENCE, scope, listener));
-    index.getRelationships(
-        function,
-        IndexConstants.IS_INVOKED_BY,
-        newCallback(MatchKind.FUNCTION_EXECUTION, scope, listener));
+    search.addQuery(function, IndexConstants.IS_REFERENCED_BY, MatchKind.FUNCTION_REFERENCE);
+    search.addQuery(function, IndexConstants.IS_INVOKED_BY, MatchKind.FUNCTION_EXECUTION);
+    search.perform(listener);
   }
 
   @Override
@@ -409,11 +631,10 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(ImportElement imp, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
-        imp,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.IMPORT_REFERENCE, scope, listener));
+    search.addQuery(imp, IndexConstants.IS_REFERENCED_BY, MatchKind.IMPORT_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -431,11 +652,10 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(LibraryElement library, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
-        library,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.LIBRARY_REFERENCE, scope, listener));
+    search.addQuery(library, IndexConstants.IS_REFERENCED_BY, MatchKind.LIBRARY_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -453,32 +673,23 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(MethodElement method, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    // TODO(scheglov) use "5" when add named matches
-    listener = new CountingSearchListener(4, listener);
     // exact matches
-    index.getRelationships(
-        method,
-        IndexConstants.IS_INVOKED_BY_UNQUALIFIED,
-        newCallback(MatchKind.METHOD_INVOCATION, scope, listener));
-    index.getRelationships(
-        method,
-        IndexConstants.IS_INVOKED_BY_QUALIFIED,
-        newCallback(MatchKind.METHOD_INVOCATION, scope, listener));
-    index.getRelationships(
+    search.addQuery(method, IndexConstants.IS_INVOKED_BY_UNQUALIFIED, MatchKind.METHOD_INVOCATION);
+    search.addQuery(method, IndexConstants.IS_INVOKED_BY_QUALIFIED, MatchKind.METHOD_INVOCATION);
+    search.addQuery(
         method,
         IndexConstants.IS_REFERENCED_BY_UNQUALIFIED,
-        newCallback(MatchKind.METHOD_REFERENCE, scope, listener));
-    index.getRelationships(
-        method,
-        IndexConstants.IS_REFERENCED_BY_QUALIFIED,
-        newCallback(MatchKind.METHOD_REFERENCE, scope, listener));
+        MatchKind.METHOD_REFERENCE);
+    search.addQuery(method, IndexConstants.IS_REFERENCED_BY_QUALIFIED, MatchKind.METHOD_REFERENCE);
     // TODO(scheglov)
     // inexact matches
 //    index.getRelationships(
 //        new Element(IndexConstants.DYNAMIC, method.getElementName()),
 //        IndexConstants.IS_INVOKED_BY_QUALIFIED,
 //        newCallback(MatchKind.METHOD_INVOCATION, listener));
+    search.perform(listener);
   }
 
   @Override
@@ -496,24 +707,16 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(ParameterElement parameter, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(4, listener);
-    index.getRelationships(
-        parameter,
-        IndexConstants.IS_READ_BY,
-        newCallback(MatchKind.VARIABLE_READ, scope, listener));
-    index.getRelationships(
-        parameter,
-        IndexConstants.IS_READ_WRITTEN_BY,
-        newCallback(MatchKind.VARIABLE_READ_WRITE, scope, listener));
-    index.getRelationships(
-        parameter,
-        IndexConstants.IS_WRITTEN_BY,
-        newCallback(MatchKind.VARIABLE_WRITE, scope, listener));
-    index.getRelationships(
+    search.addQuery(parameter, IndexConstants.IS_READ_BY, MatchKind.VARIABLE_READ);
+    search.addQuery(parameter, IndexConstants.IS_READ_WRITTEN_BY, MatchKind.VARIABLE_READ_WRITE);
+    search.addQuery(parameter, IndexConstants.IS_WRITTEN_BY, MatchKind.VARIABLE_WRITE);
+    search.addQuery(
         parameter,
         IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.NAMED_PARAMETER_REFERENCE, scope, listener));
+        MatchKind.NAMED_PARAMETER_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -531,16 +734,17 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(PropertyAccessorElement accessor, SearchScope scope,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(2, listener);
-    index.getRelationships(
+    search.addQuery(
         accessor,
         IndexConstants.IS_REFERENCED_BY_QUALIFIED,
-        newCallback(MatchKind.PROPERTY_ACCESSOR_REFERENCE, scope, listener));
-    index.getRelationships(
+        MatchKind.PROPERTY_ACCESSOR_REFERENCE);
+    search.addQuery(
         accessor,
         IndexConstants.IS_REFERENCED_BY_UNQUALIFIED,
-        newCallback(MatchKind.PROPERTY_ACCESSOR_REFERENCE, scope, listener));
+        MatchKind.PROPERTY_ACCESSOR_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -558,27 +762,26 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(PropertyInducingElement field, SearchScope scope,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    // TODO(scheglov) use "6" when add matches by name
-    listener = new CountingSearchListener(4, listener);
     // exact matches
     {
-      index.getRelationships(
+      search.addQuery(
           field.getGetter(),
           IndexConstants.IS_REFERENCED_BY_QUALIFIED,
-          newCallback(MatchKind.FIELD_READ, scope, listener));
-      index.getRelationships(
+          MatchKind.FIELD_READ);
+      search.addQuery(
           field.getGetter(),
           IndexConstants.IS_REFERENCED_BY_UNQUALIFIED,
-          newCallback(MatchKind.FIELD_READ, scope, listener));
-      index.getRelationships(
+          MatchKind.FIELD_READ);
+      search.addQuery(
           field.getSetter(),
           IndexConstants.IS_REFERENCED_BY_QUALIFIED,
-          newCallback(MatchKind.FIELD_WRITE, scope, listener));
-      index.getRelationships(
+          MatchKind.FIELD_WRITE);
+      search.addQuery(
           field.getSetter(),
           IndexConstants.IS_REFERENCED_BY_UNQUALIFIED,
-          newCallback(MatchKind.FIELD_WRITE, scope, listener));
+          MatchKind.FIELD_WRITE);
     }
     // TODO(scheglov)
     // inexact matches by name
@@ -593,6 +796,7 @@ public class SearchEngineImpl implements SearchEngine {
 //          IndexConstants.IS_MODIFIED_BY_QUALIFIED,
 //          newCallback(MatchKind.FIELD_WRITE, listener));
 //    }
+    search.perform(listener);
   }
 
   @Override
@@ -610,11 +814,13 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(String name, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
+    search.addQuery(
         new NameElementImpl(name),
         IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.NAME_REFERENCE, scope, listener));
+        MatchKind.NAME_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -632,11 +838,10 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(FunctionTypeAliasElement alias, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
-        alias,
-        IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.FUNCTION_TYPE_REFERENCE, scope, listener));
+    search.addQuery(alias, IndexConstants.IS_REFERENCED_BY, MatchKind.FUNCTION_TYPE_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -654,11 +859,13 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(TypeVariableElement typeVariable, SearchScope scope,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    index.getRelationships(
+    search.addQuery(
         typeVariable,
         IndexConstants.IS_REFERENCED_BY,
-        newCallback(MatchKind.TYPE_VARIABLE_REFERENCE, scope, listener));
+        MatchKind.TYPE_VARIABLE_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -676,20 +883,12 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchReferences(VariableElement variable, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(3, listener);
-    index.getRelationships(
-        variable,
-        IndexConstants.IS_READ_BY,
-        newCallback(MatchKind.VARIABLE_READ, scope, listener));
-    index.getRelationships(
-        variable,
-        IndexConstants.IS_READ_WRITTEN_BY,
-        newCallback(MatchKind.VARIABLE_READ_WRITE, scope, listener));
-    index.getRelationships(
-        variable,
-        IndexConstants.IS_WRITTEN_BY,
-        newCallback(MatchKind.VARIABLE_WRITE, scope, listener));
+    search.addQuery(variable, IndexConstants.IS_READ_BY, MatchKind.VARIABLE_READ);
+    search.addQuery(variable, IndexConstants.IS_READ_WRITTEN_BY, MatchKind.VARIABLE_READ_WRITE);
+    search.addQuery(variable, IndexConstants.IS_WRITTEN_BY, MatchKind.VARIABLE_WRITE);
+    search.perform(listener);
   }
 
   @Override
@@ -707,20 +906,12 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchSubtypes(ClassElement type, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(3, listener);
-    index.getRelationships(
-        type,
-        IndexConstants.IS_EXTENDED_BY,
-        newCallback(MatchKind.EXTENDS_REFERENCE, scope, listener));
-    index.getRelationships(
-        type,
-        IndexConstants.IS_MIXED_IN_BY,
-        newCallback(MatchKind.WITH_REFERENCE, scope, listener));
-    index.getRelationships(
-        type,
-        IndexConstants.IS_IMPLEMENTED_BY,
-        newCallback(MatchKind.IMPLEMENTS_REFERENCE, scope, listener));
+    search.addQuery(type, IndexConstants.IS_EXTENDED_BY, MatchKind.EXTENDS_REFERENCE);
+    search.addQuery(type, IndexConstants.IS_MIXED_IN_BY, MatchKind.WITH_REFERENCE);
+    search.addQuery(type, IndexConstants.IS_IMPLEMENTED_BY, MatchKind.IMPLEMENTS_REFERENCE);
+    search.perform(listener);
   }
 
   @Override
@@ -738,24 +929,25 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchTypeDeclarations(SearchScope scope, SearchPattern pattern, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     Element[] elements = createElements(scope);
+    String namePrefix = getNamePrefix(pattern);
     listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length * 3, listener);
     for (Element element : elements) {
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_CLASS,
-          newCallback(MatchKind.NOT_A_REFERENCE, scope, listener));
-      index.getRelationships(
+      search.addQuery(element, IndexConstants.DEFINES_CLASS, namePrefix, MatchKind.NOT_A_REFERENCE);
+      search.addQuery(
           element,
           IndexConstants.DEFINES_CLASS_ALIAS,
-          newCallback(MatchKind.NOT_A_REFERENCE, scope, listener));
-      index.getRelationships(
+          namePrefix,
+          MatchKind.NOT_A_REFERENCE);
+      search.addQuery(
           element,
           IndexConstants.DEFINES_FUNCTION_TYPE,
-          newCallback(MatchKind.NOT_A_REFERENCE, scope, listener));
+          namePrefix,
+          MatchKind.NOT_A_REFERENCE);
     }
+    search.perform(listener);
   }
 
   @Override
@@ -773,16 +965,19 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchVariableDeclarations(SearchScope scope, SearchPattern pattern,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
+    Search search = new Search(scope, listener);
     Element[] elements = createElements(scope);
+    String namePrefix = getNamePrefix(pattern);
     listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
-      index.getRelationships(
+      search.addQuery(
           element,
           IndexConstants.DEFINES_VARIABLE,
-          newCallback(MatchKind.NOT_A_REFERENCE, scope, listener));
+          namePrefix,
+          MatchKind.NOT_A_REFERENCE);
     }
+    search.perform(listener);
   }
 
   /**
@@ -39,6 +39,19 @@ public class AndSearchPattern implements SearchPattern {
     this.patterns = patterns;
   }
 
+  @Override
+  public String getNamePrefix() {
+    // every pattern must match, so the longest of their prefixes can be used
+    String longestPrefix = "";
+    for (SearchPattern pattern : patterns) {
+      String prefix = pattern.getNamePrefix();
+      if (prefix.length() > longestPrefix.length()) {
+        longestPrefix = prefix;
+      }
+    }
+    return longestPrefix;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     MatchQuality highestQuality = null;
@@ -50,6 +50,19 @@ public class CamelCaseSearchPattern implements SearchPattern {
     this.samePartCount = samePartCount;
   }
 
+  @Override
+  public String getNamePrefix() {
+    // the first character and the lowercase characters following it must start the name
+    if (pattern.length == 0) {
+      return "";
+    }
+    int length = 1;
+    while (length < pattern.length && Character.isLowerCase(pattern[length])) {
+      length++;
+    }
+    return new String(pattern, 0, length);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getName();
@@ -46,6 +46,11 @@ public class ExactSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public String getNamePrefix() {
+    return identifier;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getName();
@@ -39,6 +39,26 @@ public class OrSearchPattern implements SearchPattern {
     this.patterns = patterns;
   }
 
+  @Override
+  public String getNamePrefix() {
+    // any pattern can match, so only the prefix they all have in common can be used
+    String commonPrefix = null;
+    for (SearchPattern pattern : patterns) {
+      String prefix = pattern.getNamePrefix();
+      if (commonPrefix == null) {
+        commonPrefix = prefix;
+      } else {
+        int length = 0;
+        int maxLength = Math.min(commonPrefix.length(), prefix.length());
+        while (length < maxLength && commonPrefix.regionMatches(true, length, prefix, length, 1)) {
+          length++;
+        }
+        commonPrefix = commonPrefix.substring(0, length);
+      }
+    }
+    return commonPrefix == null ? "" : commonPrefix;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     // Do we want to return the highest quality of match rather than stopping
@@ -49,6 +49,11 @@ public class PrefixSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public String getNamePrefix() {
+    return prefix;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
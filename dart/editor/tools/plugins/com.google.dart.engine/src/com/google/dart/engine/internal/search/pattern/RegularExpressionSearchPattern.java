@@ -42,6 +42,11 @@ public class RegularExpressionSearchPattern implements SearchPattern {
     pattern = Pattern.compile(regularExpression, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
   }
 
+  @Override
+  public String getNamePrefix() {
+    return "";
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
@@ -49,6 +49,15 @@ public class WildcardSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public String getNamePrefix() {
+    int length = 0;
+    while (length < pattern.length && pattern[length] != '*' && pattern[length] != '?') {
+      length++;
+    }
+    return new String(pattern, 0, length);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
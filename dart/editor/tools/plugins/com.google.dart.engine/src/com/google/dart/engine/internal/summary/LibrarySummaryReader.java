@@ -0,0 +1,810 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.summary;
+
+import com.google.dart.engine.ast.LibraryIdentifier;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.TopLevelVariableElement;
+import com.google.dart.engine.element.TypeVariableElement;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
+import com.google.dart.engine.internal.element.ConstFieldElementImpl;
+import com.google.dart.engine.internal.element.ConstParameterElementImpl;
+import com.google.dart.engine.internal.element.ConstTopLevelVariableElementImpl;
+import com.google.dart.engine.internal.element.ConstructorElementImpl;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ExecutableElementImpl;
+import com.google.dart.engine.internal.element.ExportElementImpl;
+import com.google.dart.engine.internal.element.FieldElementImpl;
+import com.google.dart.engine.internal.element.FunctionElementImpl;
+import com.google.dart.engine.internal.element.FunctionTypeAliasElementImpl;
+import com.google.dart.engine.internal.element.HideCombinatorImpl;
+import com.google.dart.engine.internal.element.ImportElementImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.internal.element.MethodElementImpl;
+import com.google.dart.engine.internal.element.ParameterElementImpl;
+import com.google.dart.engine.internal.element.PrefixElementImpl;
+import com.google.dart.engine.internal.element.PropertyAccessorElementImpl;
+import com.google.dart.engine.internal.element.PropertyInducingElementImpl;
+import com.google.dart.engine.internal.element.ShowCombinatorImpl;
+import com.google.dart.engine.internal.element.TopLevelVariableElementImpl;
+import com.google.dart.engine.internal.element.TypeVariableElementImpl;
+import com.google.dart.engine.internal.element.VariableElementImpl;
+import com.google.dart.engine.internal.type.BottomTypeImpl;
+import com.google.dart.engine.internal.type.DynamicTypeImpl;
+import com.google.dart.engine.internal.type.FunctionTypeImpl;
+import com.google.dart.engine.internal.type.InterfaceTypeImpl;
+import com.google.dart.engine.internal.type.TypeVariableTypeImpl;
+import com.google.dart.engine.internal.type.VoidTypeImpl;
+import com.google.dart.engine.scanner.StringToken;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.dart.ParameterKind;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Instances of the class {@code LibrarySummaryReader} recreate the element models of a group of
+ * libraries from a summary written by a {@link LibrarySummaryWriter}.
+ * <p>
+ * A summary consists of a string table followed by two sections that both visit the elements in
+ * the same order. The first section describes the structure of the element model (the names,
+ * offsets and modifiers of the elements and their children), the second one describes the types
+ * of the elements and the references between them. All of the elements are created while reading
+ * the first section, so references in the second section never need to be resolved lazily.
+ * 
+ * @coverage dart.engine
+ */
+class LibrarySummaryReader {
+  static final int FLAG_SYNTHETIC = 1 << 0;
+  static final int FLAG_ABSTRACT = 1 << 1;
+  static final int FLAG_STATIC = 1 << 2;
+  static final int FLAG_CONST = 1 << 3;
+  static final int FLAG_FINAL = 1 << 4;
+  static final int FLAG_FACTORY = 1 << 5;
+  static final int FLAG_GETTER = 1 << 6;
+  static final int FLAG_SETTER = 1 << 7;
+  static final int FLAG_INITIALIZING_FORMAL = 1 << 8;
+  static final int FLAG_TYPEDEF = 1 << 9;
+  static final int FLAG_MIXIN = 1 << 10;
+  static final int FLAG_CONST_IMPL = 1 << 11;
+
+  static final int NULL_REFERENCE = -1;
+  static final int EXTERNAL_REFERENCE = -2;
+
+  static final int COMBINATOR_SHOW = 0;
+  static final int COMBINATOR_HIDE = 1;
+
+  static final int TYPE_NULL = 0;
+  static final int TYPE_DYNAMIC = 1;
+  static final int TYPE_VOID = 2;
+  static final int TYPE_BOTTOM = 3;
+  static final int TYPE_INTERFACE = 4;
+  static final int TYPE_VARIABLE = 5;
+  static final int TYPE_FUNCTION = 6;
+
+  static final int VALUE_INVALID = 0;
+  static final int VALUE_NULL = 1;
+  static final int VALUE_TRUE = 2;
+  static final int VALUE_FALSE = 3;
+  static final int VALUE_INT = 4;
+  static final int VALUE_DOUBLE = 5;
+  static final int VALUE_STRING = 6;
+  static final int VALUE_OBJECT = 7;
+
+  static final int PATH_TYPE = 0;
+  static final int PATH_ALIAS = 1;
+  static final int PATH_FUNCTION = 2;
+  static final int PATH_VARIABLE = 3;
+  static final int PATH_ACCESSOR = 4;
+  static final int PATH_METHOD = 5;
+  static final int PATH_CONSTRUCTOR = 6;
+  static final int PATH_TYPE_VARIABLE = 7;
+  static final int PATH_PARAMETER = 8;
+
+  /**
+   * An empty array of elements.
+   */
+  private static final Element[] NO_ELEMENTS = new Element[0];
+
+  /**
+   * Return the children of the given element that are of the given path kind.
+   * 
+   * @param parent the element whose children are to be returned
+   * @param kind the kind of the children, one of the {@code PATH_} constants
+   * @return the children of the given kind, or an empty array if the parent has no such children
+   */
+  static Element[] getChildren(Element parent, int kind) {
+    if (parent instanceof CompilationUnitElement) {
+      CompilationUnitElement unit = (CompilationUnitElement) parent;
+      switch (kind) {
+        case PATH_TYPE:
+          return unit.getTypes();
+        case PATH_ALIAS:
+          return unit.getFunctionTypeAliases();
+        case PATH_FUNCTION:
+          return unit.getFunctions();
+        case PATH_VARIABLE:
+          return unit.getTopLevelVariables();
+        case PATH_ACCESSOR:
+          return unit.getAccessors();
+      }
+    } else if (parent instanceof ClassElement) {
+      ClassElement classElement = (ClassElement) parent;
+      switch (kind) {
+        case PATH_VARIABLE:
+          return classElement.getFields();
+        case PATH_ACCESSOR:
+          return classElement.getAccessors();
+        case PATH_METHOD:
+          return classElement.getMethods();
+        case PATH_CONSTRUCTOR:
+          return classElement.getConstructors();
+        case PATH_TYPE_VARIABLE:
+          return classElement.getTypeVariables();
+      }
+    } else if (parent instanceof FunctionTypeAliasElement) {
+      FunctionTypeAliasElement alias = (FunctionTypeAliasElement) parent;
+      switch (kind) {
+        case PATH_TYPE_VARIABLE:
+          return alias.getTypeVariables();
+        case PATH_PARAMETER:
+          return alias.getParameters();
+      }
+    } else if (parent instanceof ExecutableElement) {
+      if (kind == PATH_PARAMETER) {
+        return ((ExecutableElement) parent).getParameters();
+      }
+    }
+    return NO_ELEMENTS;
+  }
+
+  /**
+   * Return an identifier with the given name and offset. Identifiers are used to create elements
+   * whose constructors expect the name from the declaration.
+   */
+  private static SimpleIdentifier identifier(String name, int offset) {
+    return new SimpleIdentifier(new StringToken(TokenType.IDENTIFIER, name, offset));
+  }
+
+  private static boolean isSet(int flags, int flag) {
+    return (flags & flag) != 0;
+  }
+
+  /**
+   * The analysis context in which the libraries are defined.
+   */
+  private final AnalysisContext context;
+
+  /**
+   * The sources of the compilation units of the libraries, in the order in which they were written.
+   */
+  private final Source[] unitSources;
+
+  /**
+   * The libraries referenced by the summary that are not defined by it.
+   */
+  private final LibraryElement[] dependencies;
+
+  /**
+   * The libraries defined by the summary.
+   */
+  private final ArrayList<LibraryElementImpl> libraries = new ArrayList<LibraryElementImpl>();
+
+  /**
+   * The elements defined by the summary, in the order of their identifiers.
+   */
+  private final ArrayList<Element> elements = new ArrayList<Element>();
+
+  /**
+   * A table mapping the libraries being read to the indices of the libraries they import. The
+   * imported libraries are only set once all of the libraries have been created.
+   */
+  private final HashMap<LibraryElement, int[]> importedLibraryMap = new HashMap<LibraryElement, int[]>();
+
+  /**
+   * A table mapping the libraries being read to the indices of the libraries they export.
+   */
+  private final HashMap<LibraryElement, int[]> exportedLibraryMap = new HashMap<LibraryElement, int[]>();
+
+  /**
+   * The string table of the summary.
+   */
+  private String[] strings;
+
+  /**
+   * The index of the source of the next compilation unit to be read.
+   */
+  private int unitIndex = 0;
+
+  /**
+   * Initialize a newly created reader.
+   * 
+   * @param context the analysis context in which the libraries are defined
+   * @param unitSources the sources of the compilation units of the libraries, starting with the
+   *          defining compilation unit of each library followed by its parts
+   * @param dependencies the libraries referenced by the summary that are not defined by it
+   */
+  public LibrarySummaryReader(AnalysisContext context, Source[] unitSources,
+      LibraryElement[] dependencies) {
+    this.context = context;
+    this.unitSources = unitSources;
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Read the summary from the given stream and return the libraries defined by it.
+   * 
+   * @param input the stream from which the summary is to be read
+   * @param libraryCount the number of libraries defined by the summary
+   * @return the libraries that were read
+   * @throws IOException if the summary could not be read or is not valid
+   */
+  public LibraryElementImpl[] read(DataInputStream input, int libraryCount) throws IOException {
+    int stringCount = input.readInt();
+    strings = new String[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      strings[i] = input.readUTF();
+    }
+    int elementCount = input.readInt();
+    elements.ensureCapacity(elementCount);
+    for (int i = 0; i < libraryCount; i++) {
+      libraries.add(readLibrary(input));
+    }
+    if (elements.size() != elementCount || unitIndex != unitSources.length) {
+      throw new IOException("Inconsistent library summary");
+    }
+    for (Element element : elements) {
+      readLinks(input, element);
+    }
+    return libraries.toArray(new LibraryElementImpl[libraries.size()]);
+  }
+
+  /**
+   * Create the type of the given class from the types of its type variables.
+   */
+  private void createClassType(ClassElementImpl classElement) {
+    TypeVariableElement[] typeVariables = classElement.getTypeVariables();
+    Type[] typeArguments = new Type[typeVariables.length];
+    for (int i = 0; i < typeVariables.length; i++) {
+      typeArguments[i] = typeVariables[i].getType();
+    }
+    InterfaceTypeImpl type = new InterfaceTypeImpl(classElement);
+    type.setTypeArguments(typeArguments);
+    classElement.setType(type);
+  }
+
+  /**
+   * Return the element at the end of the given path in the given library.
+   */
+  private Element getElementAtPath(LibraryElement library, int unitIndex, int[] path)
+      throws IOException {
+    Element element;
+    if (unitIndex == 0) {
+      element = library.getDefiningCompilationUnit();
+    } else {
+      CompilationUnitElement[] parts = library.getParts();
+      if (unitIndex > parts.length) {
+        throw new IOException("Invalid reference into " + library);
+      }
+      element = parts[unitIndex - 1];
+    }
+    for (int i = 0; i < path.length; i += 2) {
+      Element[] children = getChildren(element, path[i]);
+      int index = path[i + 1];
+      if (index < 0 || index >= children.length) {
+        throw new IOException("Invalid reference into " + library);
+      }
+      element = children[index];
+    }
+    return element;
+  }
+
+  /**
+   * Return the library with the given index, which is either one of the libraries being read or
+   * one of the dependencies.
+   */
+  private LibraryElement getLibrary(int index) throws IOException {
+    if (index == NULL_REFERENCE) {
+      return null;
+    } else if (index >= 0 && index < libraries.size()) {
+      return libraries.get(index);
+    }
+    int dependencyIndex = index - libraries.size();
+    if (index < 0 || dependencyIndex >= dependencies.length) {
+      throw new IOException("Invalid library reference: " + index);
+    }
+    return dependencies[dependencyIndex];
+  }
+
+  private String getString(int id) throws IOException {
+    if (id < 0 || id >= strings.length) {
+      throw new IOException("Invalid string reference: " + id);
+    }
+    return strings[id];
+  }
+
+  /**
+   * Read the structure of a class.
+   */
+  private ClassElementImpl readClass(DataInputStream input) throws IOException {
+    String name = readString(input);
+    int offset = input.readInt();
+    int flags = input.readInt();
+    ClassElementImpl classElement = readElement(
+        new ClassElementImpl(identifier(name, offset)),
+        flags);
+    classElement.setAbstract(isSet(flags, FLAG_ABSTRACT));
+    classElement.setTypedef(isSet(flags, FLAG_TYPEDEF));
+    classElement.setValidMixin(isSet(flags, FLAG_MIXIN));
+    classElement.setTypeVariables(readTypeVariables(input));
+    createClassType(classElement);
+    classElement.setFields((FieldElement[]) readVariables(input, PATH_VARIABLE, true));
+    classElement.setAccessors((PropertyAccessorElement[]) readExecutables(input, PATH_ACCESSOR));
+    classElement.setMethods((MethodElement[]) readExecutables(input, PATH_METHOD));
+    classElement.setConstructors((ConstructorElement[]) readExecutables(input, PATH_CONSTRUCTOR));
+    return classElement;
+  }
+
+  private NamespaceCombinator[] readCombinators(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    NamespaceCombinator[] combinators = new NamespaceCombinator[count];
+    for (int i = 0; i < count; i++) {
+      int kind = input.readByte();
+      String[] names = new String[input.readInt()];
+      for (int j = 0; j < names.length; j++) {
+        names[j] = readString(input);
+      }
+      if (kind == COMBINATOR_SHOW) {
+        ShowCombinatorImpl show = new ShowCombinatorImpl();
+        show.setShownNames(names);
+        combinators[i] = show;
+      } else {
+        HideCombinatorImpl hide = new HideCombinatorImpl();
+        hide.setHiddenNames(names);
+        combinators[i] = hide;
+      }
+    }
+    return combinators;
+  }
+
+  /**
+   * Record the given newly created element, applying the modifiers common to all elements.
+   */
+  private <E extends ElementImpl> E readElement(E element, int flags) {
+    element.setSynthetic(isSet(flags, FLAG_SYNTHETIC));
+    elements.add(element);
+    return element;
+  }
+
+  /**
+   * Read a reference to an element.
+   */
+  private Element readElementReference(DataInputStream input) throws IOException {
+    int id = input.readInt();
+    if (id == NULL_REFERENCE) {
+      return null;
+    } else if (id == EXTERNAL_REFERENCE) {
+      int dependencyIndex = input.readInt();
+      int unitIndex = input.readInt();
+      int[] path = new int[input.readInt() * 2];
+      for (int i = 0; i < path.length; i++) {
+        path[i] = input.readInt();
+      }
+      if (dependencyIndex < 0 || dependencyIndex >= dependencies.length) {
+        throw new IOException("Invalid library reference: " + dependencyIndex);
+      }
+      return getElementAtPath(dependencies[dependencyIndex], unitIndex, path);
+    } else if (id < 0 || id >= elements.size()) {
+      throw new IOException("Invalid element reference: " + id);
+    }
+    return elements.get(id);
+  }
+
+  /**
+   * Read the structure of the executable elements of the given path kind.
+   */
+  private ExecutableElementImpl[] readExecutables(DataInputStream input, int kind)
+      throws IOException {
+    int count = input.readInt();
+    ExecutableElementImpl[] executables;
+    switch (kind) {
+      case PATH_FUNCTION:
+        executables = new FunctionElementImpl[count];
+        break;
+      case PATH_ACCESSOR:
+        executables = new PropertyAccessorElementImpl[count];
+        break;
+      case PATH_METHOD:
+        executables = new MethodElementImpl[count];
+        break;
+      default:
+        executables = new ConstructorElementImpl[count];
+        break;
+    }
+    for (int i = 0; i < count; i++) {
+      String name = readString(input);
+      int offset = input.readInt();
+      int flags = input.readInt();
+      ExecutableElementImpl executable;
+      switch (kind) {
+        case PATH_FUNCTION:
+          executable = new FunctionElementImpl(identifier(name, offset));
+          break;
+        case PATH_ACCESSOR:
+          PropertyAccessorElementImpl accessor = new PropertyAccessorElementImpl(identifier(
+              name,
+              offset));
+          accessor.setGetter(isSet(flags, FLAG_GETTER));
+          accessor.setSetter(isSet(flags, FLAG_SETTER));
+          executable = accessor;
+          break;
+        case PATH_METHOD:
+          MethodElementImpl method = new MethodElementImpl(name, offset);
+          method.setAbstract(isSet(flags, FLAG_ABSTRACT));
+          method.setStatic(isSet(flags, FLAG_STATIC));
+          executable = method;
+          break;
+        default:
+          ConstructorElementImpl constructor = new ConstructorElementImpl(identifier(name, offset));
+          constructor.setConst(isSet(flags, FLAG_CONST));
+          constructor.setFactory(isSet(flags, FLAG_FACTORY));
+          executable = constructor;
+          break;
+      }
+      readElement(executable, flags);
+      executable.setParameters(readParameters(input));
+      executables[i] = executable;
+    }
+    return executables;
+  }
+
+  private InterfaceType[] readInterfaceTypes(DataInputStream input) throws IOException {
+    InterfaceType[] types = new InterfaceType[input.readInt()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = (InterfaceType) readType(input);
+    }
+    return types;
+  }
+
+  /**
+   * Read the structure of a library.
+   */
+  private LibraryElementImpl readLibrary(DataInputStream input) throws IOException {
+    String name = readString(input);
+    int offset = input.readInt();
+    int flags = input.readInt();
+    LibraryIdentifier libraryName = null;
+    if (name.length() > 0) {
+      ArrayList<SimpleIdentifier> components = new ArrayList<SimpleIdentifier>();
+      for (String component : name.split("\\.")) {
+        components.add(identifier(component, offset));
+        offset += component.length() + 1;
+      }
+      libraryName = new LibraryIdentifier(components);
+    }
+    LibraryElementImpl library = readElement(new LibraryElementImpl(context, libraryName), flags);
+    library.setDefiningCompilationUnit(readUnit(input));
+    CompilationUnitElementImpl[] parts = new CompilationUnitElementImpl[input.readInt()];
+    for (int i = 0; i < parts.length; i++) {
+      parts[i] = readUnit(input);
+    }
+    library.setParts(parts);
+    HashMap<String, PrefixElementImpl> prefixMap = new HashMap<String, PrefixElementImpl>();
+    ImportElementImpl[] imports = new ImportElementImpl[input.readInt()];
+    int[] importedLibraries = new int[imports.length];
+    for (int i = 0; i < imports.length; i++) {
+      ImportElementImpl importElement = new ImportElementImpl();
+      importedLibraries[i] = input.readInt();
+      importElement.setSynthetic(input.readBoolean());
+      int prefixId = input.readInt();
+      if (prefixId != NULL_REFERENCE) {
+        String prefixName = getString(prefixId);
+        int prefixOffset = input.readInt();
+        PrefixElementImpl prefix = prefixMap.get(prefixName);
+        if (prefix == null) {
+          prefix = new PrefixElementImpl(identifier(prefixName, prefixOffset));
+          prefixMap.put(prefixName, prefix);
+        }
+        importElement.setPrefix(prefix);
+      }
+      importElement.setCombinators(readCombinators(input));
+      imports[i] = importElement;
+    }
+    ExportElementImpl[] exports = new ExportElementImpl[input.readInt()];
+    int[] exportedLibraries = new int[exports.length];
+    for (int i = 0; i < exports.length; i++) {
+      ExportElementImpl exportElement = new ExportElementImpl();
+      exportedLibraries[i] = input.readInt();
+      exportElement.setCombinators(readCombinators(input));
+      exports[i] = exportElement;
+    }
+    library.setImports(imports);
+    library.setExports(exports);
+    importedLibraryMap.put(library, importedLibraries);
+    exportedLibraryMap.put(library, exportedLibraries);
+    return library;
+  }
+
+  /**
+   * Read the types and references to other elements associated with the given element.
+   */
+  private void readLinks(DataInputStream input, Element element) throws IOException {
+    if (element instanceof LibraryElementImpl) {
+      LibraryElementImpl library = (LibraryElementImpl) element;
+      ImportElement[] imports = library.getImports();
+      int[] importedLibraries = importedLibraryMap.get(library);
+      for (int i = 0; i < imports.length; i++) {
+        ((ImportElementImpl) imports[i]).setImportedLibrary(getLibrary(importedLibraries[i]));
+      }
+      ExportElement[] exports = library.getExports();
+      int[] exportedLibraries = exportedLibraryMap.get(library);
+      for (int i = 0; i < exports.length; i++) {
+        ((ExportElementImpl) exports[i]).setExportedLibrary(getLibrary(exportedLibraries[i]));
+      }
+      library.setEntryPoint((FunctionElement) readElementReference(input));
+    } else if (element instanceof ClassElementImpl) {
+      ClassElementImpl classElement = (ClassElementImpl) element;
+      classElement.setSupertype((InterfaceType) readType(input));
+      classElement.setMixins(readInterfaceTypes(input));
+      classElement.setInterfaces(readInterfaceTypes(input));
+    } else if (element instanceof FunctionTypeAliasElementImpl) {
+      ((FunctionTypeAliasElementImpl) element).setType((FunctionTypeImpl) readType(input));
+    } else if (element instanceof TypeVariableElementImpl) {
+      ((TypeVariableElementImpl) element).setBound(readType(input));
+    } else if (element instanceof ExecutableElementImpl) {
+      ((ExecutableElementImpl) element).setType((FunctionTypeImpl) readType(input));
+      if (element instanceof PropertyAccessorElementImpl) {
+        ((PropertyAccessorElementImpl) element).setVariable((PropertyInducingElementImpl) readElementReference(input));
+      }
+    } else if (element instanceof VariableElementImpl) {
+      ((VariableElementImpl) element).setType(readType(input));
+      if (element instanceof PropertyInducingElementImpl) {
+        PropertyInducingElementImpl variable = (PropertyInducingElementImpl) element;
+        variable.setGetter((PropertyAccessorElement) readElementReference(input));
+        variable.setSetter((PropertyAccessorElement) readElementReference(input));
+      }
+    }
+  }
+
+  /**
+   * Read the structure of a list of parameters.
+   */
+  private ParameterElementImpl[] readParameters(DataInputStream input) throws IOException {
+    ParameterElementImpl[] parameters = new ParameterElementImpl[input.readInt()];
+    for (int i = 0; i < parameters.length; i++) {
+      String name = readString(input);
+      int offset = input.readInt();
+      int flags = input.readInt();
+      ParameterElementImpl parameter;
+      if (isSet(flags, FLAG_CONST_IMPL)) {
+        parameter = new ConstParameterElementImpl(identifier(name, offset));
+      } else {
+        parameter = new ParameterElementImpl(identifier(name, offset));
+      }
+      readElement(parameter, flags);
+      parameter.setConst(isSet(flags, FLAG_CONST));
+      parameter.setFinal(isSet(flags, FLAG_FINAL));
+      parameter.setInitializingFormal(isSet(flags, FLAG_INITIALIZING_FORMAL));
+      int kind = input.readByte();
+      ParameterKind[] kinds = ParameterKind.values();
+      if (kind < 0 || kind >= kinds.length) {
+        throw new IOException("Invalid parameter kind: " + kind);
+      }
+      parameter.setParameterKind(kinds[kind]);
+      parameters[i] = parameter;
+    }
+    return parameters;
+  }
+
+  private String readString(DataInputStream input) throws IOException {
+    return getString(input.readInt());
+  }
+
+  /**
+   * Read a type.
+   */
+  private Type readType(DataInputStream input) throws IOException {
+    int tag = input.readByte();
+    switch (tag) {
+      case TYPE_NULL:
+        return null;
+      case TYPE_DYNAMIC:
+        return DynamicTypeImpl.getInstance();
+      case TYPE_VOID:
+        return VoidTypeImpl.getInstance();
+      case TYPE_BOTTOM:
+        return BottomTypeImpl.getInstance();
+      case TYPE_INTERFACE: {
+        InterfaceTypeImpl type = new InterfaceTypeImpl((ClassElement) readElementReference(input));
+        type.setTypeArguments(readTypes(input));
+        return type;
+      }
+      case TYPE_VARIABLE:
+        return ((TypeVariableElement) readElementReference(input)).getType();
+      case TYPE_FUNCTION: {
+        Element element = readElementReference(input);
+        FunctionTypeImpl type;
+        if (element instanceof FunctionTypeAliasElement) {
+          type = new FunctionTypeImpl((FunctionTypeAliasElement) element);
+        } else {
+          type = new FunctionTypeImpl((ExecutableElement) element);
+        }
+        type.setTypeArguments(readTypes(input));
+        type.setNormalParameterTypes(readTypes(input));
+        type.setOptionalParameterTypes(readTypes(input));
+        int namedCount = input.readInt();
+        LinkedHashMap<String, Type> namedParameterTypes = new LinkedHashMap<String, Type>();
+        for (int i = 0; i < namedCount; i++) {
+          String name = readString(input);
+          namedParameterTypes.put(name, readType(input));
+        }
+        type.setNamedParameterTypes(namedParameterTypes);
+        type.setReturnType(readType(input));
+        return type;
+      }
+    }
+    throw new IOException("Invalid type tag: " + tag);
+  }
+
+  private Type[] readTypes(DataInputStream input) throws IOException {
+    Type[] types = new Type[input.readInt()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = readType(input);
+    }
+    return types;
+  }
+
+  /**
+   * Read the structure of a list of type variables, creating the type of each type variable.
+   */
+  private TypeVariableElementImpl[] readTypeVariables(DataInputStream input) throws IOException {
+    TypeVariableElementImpl[] typeVariables = new TypeVariableElementImpl[input.readInt()];
+    for (int i = 0; i < typeVariables.length; i++) {
+      String name = readString(input);
+      int offset = input.readInt();
+      int flags = input.readInt();
+      TypeVariableElementImpl typeVariable = readElement(new TypeVariableElementImpl(identifier(
+          name,
+          offset)), flags);
+      typeVariable.setType(new TypeVariableTypeImpl(typeVariable));
+      typeVariables[i] = typeVariable;
+    }
+    return typeVariables;
+  }
+
+  /**
+   * Read the structure of a compilation unit.
+   */
+  private CompilationUnitElementImpl readUnit(DataInputStream input) throws IOException {
+    String name = readString(input);
+    input.readInt();
+    int flags = input.readInt();
+    if (unitIndex >= unitSources.length) {
+      throw new IOException("Inconsistent library summary");
+    }
+    CompilationUnitElementImpl unit = readElement(new CompilationUnitElementImpl(name), flags);
+    unit.setSource(unitSources[unitIndex++]);
+    int typeCount = input.readInt();
+    ClassElement[] types = new ClassElement[typeCount];
+    for (int i = 0; i < typeCount; i++) {
+      types[i] = readClass(input);
+    }
+    unit.setTypes(types);
+    int aliasCount = input.readInt();
+    FunctionTypeAliasElement[] aliases = new FunctionTypeAliasElement[aliasCount];
+    for (int i = 0; i < aliasCount; i++) {
+      String aliasName = readString(input);
+      int offset = input.readInt();
+      int aliasFlags = input.readInt();
+      FunctionTypeAliasElementImpl alias = readElement(new FunctionTypeAliasElementImpl(identifier(
+          aliasName,
+          offset)), aliasFlags);
+      alias.setTypeVariables(readTypeVariables(input));
+      alias.setParameters(readParameters(input));
+      aliases[i] = alias;
+    }
+    unit.setTypeAliases(aliases);
+    unit.setFunctions((FunctionElement[]) readExecutables(input, PATH_FUNCTION));
+    unit.setTopLevelVariables((TopLevelVariableElement[]) readVariables(input, PATH_VARIABLE, false));
+    unit.setAccessors((PropertyAccessorElement[]) readExecutables(input, PATH_ACCESSOR));
+    return unit;
+  }
+
+  /**
+   * Read the value of a constant variable, returning {@code null} if the value was not a valid
+   * compile-time constant.
+   */
+  private EvaluationResultImpl readValue(DataInputStream input) throws IOException {
+    int tag = input.readByte();
+    switch (tag) {
+      case VALUE_NULL:
+        return new ValidResult(null);
+      case VALUE_TRUE:
+        return ValidResult.RESULT_TRUE;
+      case VALUE_FALSE:
+        return ValidResult.RESULT_FALSE;
+      case VALUE_INT:
+        return new ValidResult(new BigInteger(readString(input)));
+      case VALUE_DOUBLE:
+        return new ValidResult(Double.valueOf(input.readDouble()));
+      case VALUE_STRING:
+        return new ValidResult(readString(input));
+      case VALUE_OBJECT:
+        return ValidResult.RESULT_OBJECT;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Read the structure of a list of fields or top-level variables.
+   */
+  private PropertyInducingElementImpl[] readVariables(DataInputStream input, int kind,
+      boolean isField) throws IOException {
+    int count = input.readInt();
+    PropertyInducingElementImpl[] variables = isField ? new FieldElementImpl[count]
+        : new TopLevelVariableElementImpl[count];
+    for (int i = 0; i < count; i++) {
+      String name = readString(input);
+      int offset = input.readInt();
+      int flags = input.readInt();
+      boolean isConstImpl = isSet(flags, FLAG_CONST_IMPL);
+      PropertyInducingElementImpl variable;
+      if (isField) {
+        FieldElementImpl field = isConstImpl ? new ConstFieldElementImpl(identifier(name, offset))
+            : new FieldElementImpl(identifier(name, offset));
+        field.setStatic(isSet(flags, FLAG_STATIC));
+        variable = field;
+      } else if (isConstImpl) {
+        variable = new ConstTopLevelVariableElementImpl(identifier(name, offset));
+      } else {
+        variable = new TopLevelVariableElementImpl(identifier(name, offset));
+      }
+      readElement(variable, flags);
+      variable.setConst(isSet(flags, FLAG_CONST));
+      variable.setFinal(isSet(flags, FLAG_FINAL));
+      if (isConstImpl) {
+        variable.setEvaluationResult(readValue(input));
+      }
+      variables[i] = variable;
+    }
+    return variables;
+  }
+}
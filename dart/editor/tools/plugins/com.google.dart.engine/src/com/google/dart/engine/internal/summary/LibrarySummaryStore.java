@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.summary;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instances of the class {@code LibrarySummaryStore} persist the element models of libraries that
+ * rarely change, such as the libraries in the SDK and in packages, so that they can be loaded
+ * instead of being parsed and resolved every time an analysis context needs them.
+ * <p>
+ * Libraries are stored one import cycle at a time. Each summary records the SDK version, a hash of
+ * the contents of every compilation unit in the cycle and the signatures of the summaries of the
+ * libraries the cycle depends on, so a summary is only used if none of the code it was computed
+ * from has changed. The signature of a summary is computed from the same information, which means
+ * that a change to a library invalidates the summaries of all of the libraries that depend on it.
+ * The file for the first library in a cycle contains the summary, the files for the other
+ * libraries in the cycle only name the first library.
+ * 
+ * @coverage dart.engine
+ */
+public class LibrarySummaryStore {
+  /**
+   * Instances of the class {@code ContentsReceiver} remember the contents of a source.
+   */
+  private static class ContentsReceiver implements Source.ContentReceiver {
+    /**
+     * The contents of the source.
+     */
+    private String contents;
+
+    @Override
+    public void accept(CharBuffer contents) {
+      this.contents = contents.toString();
+    }
+
+    @Override
+    public void accept(String contents) {
+      this.contents = contents;
+    }
+  }
+
+  /**
+   * The number identifying summary files.
+   */
+  private static final int MAGIC = 0x4453554D;
+
+  /**
+   * The version of the format of summary files, which must be incremented whenever the format
+   * written by this class or by the {@link LibrarySummaryWriter} changes.
+   */
+  private static final int FORMAT_VERSION = 2;
+
+  /**
+   * The kind of a file containing the summary of an import cycle.
+   */
+  private static final byte KIND_SUMMARY = 0;
+
+  /**
+   * The kind of a file naming the library whose file contains the summary.
+   */
+  private static final byte KIND_REDIRECT = 1;
+
+  /**
+   * The name of the directory containing packages.
+   */
+  private static final String PACKAGES_DIRECTORY_NAME = "packages";
+
+  /**
+   * The directory containing the summary files.
+   */
+  private final File directory;
+
+  /**
+   * The version of the SDK that the summaries were computed against.
+   */
+  private final String sdkVersion;
+
+  /**
+   * A table mapping the sources of the libraries that have been loaded from or stored in this store
+   * to the signatures of their summaries.
+   */
+  private final ConcurrentHashMap<Source, String> signatureMap = new ConcurrentHashMap<Source, String>();
+
+  /**
+   * Initialize a newly created store to keep its summaries in the given directory.
+   * 
+   * @param directory the directory containing the summary files
+   * @param sdkVersion the version of the SDK against which libraries are being analyzed
+   */
+  public LibrarySummaryStore(File directory, String sdkVersion) {
+    this.directory = directory;
+    this.sdkVersion = sdkVersion == null ? "" : sdkVersion;
+  }
+
+  /**
+   * Return the directory containing the summary files.
+   * 
+   * @return the directory containing the summary files
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Return {@code true} if the library defined by the given source is expected to change rarely
+   * enough that it is worth keeping a summary of it, which is the case for the libraries in the SDK
+   * and in packages.
+   * 
+   * @param source the source defining the library
+   * @return {@code true} if the library can be summarized
+   */
+  public boolean isSummarized(Source source) {
+    if (!(source instanceof FileBasedSource)) {
+      return false;
+    } else if (source.isInSystemLibrary()) {
+      return true;
+    }
+    File file = new File(URI.create(source.getEncoding())).getParentFile();
+    while (file != null) {
+      if (file.getName().equals(PACKAGES_DIRECTORY_NAME)) {
+        return true;
+      }
+      file = file.getParentFile();
+    }
+    return false;
+  }
+
+  /**
+   * Load the summary of the import cycle containing the library defined by the given source.
+   * Return a table mapping the sources of the libraries in the cycle to their element models, or
+   * {@code null} if there is no summary or if the summary is out of date.
+   * 
+   * @param context the context in which the libraries are defined
+   * @param librarySource the source defining the library to be loaded
+   * @return the element models of the libraries in the cycle containing the library
+   */
+  public Map<Source, LibraryElement> load(AnalysisContextImpl context, Source librarySource) {
+    if (!isSummarized(librarySource)) {
+      return null;
+    }
+    File file = getFile(librarySource);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+          file)));
+      try {
+        if (readHeader(input) == KIND_REDIRECT) {
+          String encoding = input.readUTF();
+          input.close();
+          input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+              getFile(encoding))));
+          if (readHeader(input) != KIND_SUMMARY) {
+            return null;
+          }
+        }
+        return readSummary(context, librarySource, input);
+      } finally {
+        input.close();
+      }
+    } catch (Exception exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not load the summary of " + librarySource.getFullName(),
+          exception);
+      return null;
+    }
+  }
+
+  /**
+   * Store the summary of the given import cycle, unless some of the libraries in the cycle cannot
+   * be summarized.
+   * 
+   * @param context the context in which the libraries are defined
+   * @param libraries a table mapping the sources of the libraries in the cycle to their element
+   *          models
+   */
+  public void store(AnalysisContextImpl context, Map<Source, LibraryElement> libraries) {
+    ArrayList<Source> members = new ArrayList<Source>();
+    ArrayList<LibraryElement> elements = new ArrayList<LibraryElement>();
+    for (Map.Entry<Source, LibraryElement> entry : libraries.entrySet()) {
+      if (!isSummarized(entry.getKey()) || entry.getValue() == null) {
+        return;
+      }
+      members.add(entry.getKey());
+      elements.add(entry.getValue());
+    }
+    if (members.isEmpty()) {
+      return;
+    }
+    try {
+      directory.mkdirs();
+      File file = getFile(members.get(0));
+      File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+      try {
+        String signature = writeSummary(elements, tempFile);
+        if (signature == null) {
+          return;
+        }
+        rename(tempFile, file);
+        for (int i = 1; i < members.size(); i++) {
+          writeRedirect(members.get(i), members.get(0));
+        }
+        for (Source member : members) {
+          signatureMap.put(member, signature);
+        }
+      } finally {
+        tempFile.delete();
+      }
+    } catch (Exception exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not store the summary of " + members.get(0).getFullName(),
+          exception);
+    }
+  }
+
+  /**
+   * Return the hash of the current contents of the given source.
+   */
+  private String computeContentHash(Source source) throws Exception {
+    ContentsReceiver receiver = new ContentsReceiver();
+    source.getContents(receiver);
+    if (receiver.contents == null) {
+      throw new IOException("Could not read " + source.getFullName());
+    }
+    return Hashing.md5().hashString(receiver.contents, Charsets.UTF_8).toString();
+  }
+
+  /**
+   * Return the signature of a summary with the given units and dependencies.
+   */
+  private String computeSignature(List<String> unitEncodings, List<String> unitHashes,
+      List<String> dependencySignatures) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(FORMAT_VERSION);
+    builder.append('\n');
+    builder.append(sdkVersion);
+    for (int i = 0; i < unitEncodings.size(); i++) {
+      builder.append('\n');
+      builder.append(unitEncodings.get(i));
+      builder.append('=');
+      builder.append(unitHashes.get(i));
+    }
+    for (String signature : dependencySignatures) {
+      builder.append('\n');
+      builder.append(signature);
+    }
+    return Hashing.md5().hashString(builder, Charsets.UTF_8).toString();
+  }
+
+  /**
+   * Return the file containing the summary of, or the redirect for, the library defined by the
+   * given source.
+   */
+  private File getFile(Source librarySource) {
+    return getFile(librarySource.getEncoding());
+  }
+
+  /**
+   * Return the file containing the summary of, or the redirect for, the library with the given
+   * encoding.
+   */
+  private File getFile(String encoding) {
+    return new File(directory, Hashing.md5().hashString(encoding, Charsets.UTF_8).toString()
+        + ".summary");
+  }
+
+  /**
+   * Return a source for the file with the given encoding, or the given source if it has the same
+   * encoding.
+   */
+  private Source getSource(SourceFactory factory, String encoding, boolean inSystemLibrary,
+      Source librarySource) throws Exception {
+    if (encoding.equals(librarySource.getEncoding())) {
+      return librarySource;
+    }
+    return new FileBasedSource(factory, new File(new URI(encoding)), inSystemLibrary);
+  }
+
+  /**
+   * Read the header of a summary file and return the kind of the file.
+   */
+  private byte readHeader(DataInputStream input) throws IOException {
+    if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+      throw new IOException("Incompatible summary file");
+    }
+    return input.readByte();
+  }
+
+  /**
+   * Read the summary of an import cycle, or return {@code null} if it is out of date.
+   */
+  private Map<Source, LibraryElement> readSummary(AnalysisContextImpl context,
+      Source librarySource, DataInputStream input) throws Exception {
+    if (!input.readUTF().equals(sdkVersion)) {
+      return null;
+    }
+    String signature = input.readUTF();
+    SourceFactory factory = context.getSourceFactory();
+    //
+    // Read the sources of the libraries and of their compilation units, and check that none of the
+    // compilation units has changed.
+    //
+    int memberCount = input.readInt();
+    Source[] members = new Source[memberCount];
+    ArrayList<Source> unitSources = new ArrayList<Source>();
+    boolean containsLibrary = false;
+    for (int i = 0; i < memberCount; i++) {
+      int unitCount = input.readInt();
+      for (int j = 0; j < unitCount; j++) {
+        String encoding = input.readUTF();
+        boolean inSystemLibrary = input.readBoolean();
+        String hash = input.readUTF();
+        Source unitSource = getSource(factory, encoding, inSystemLibrary, librarySource);
+        if (!computeContentHash(unitSource).equals(hash)) {
+          return null;
+        }
+        if (j == 0) {
+          members[i] = unitSource;
+          containsLibrary |= unitSource == librarySource;
+        }
+        unitSources.add(unitSource);
+      }
+    }
+    if (!containsLibrary) {
+      return null;
+    }
+    //
+    // Load the libraries the cycle depends on, and check that their summaries have not changed.
+    //
+    int dependencyCount = input.readInt();
+    LibraryElement[] dependencies = new LibraryElement[dependencyCount];
+    for (int i = 0; i < dependencyCount; i++) {
+      String encoding = input.readUTF();
+      boolean inSystemLibrary = input.readBoolean();
+      String dependencySignature = input.readUTF();
+      Source dependencySource = getSource(factory, encoding, inSystemLibrary, librarySource);
+      dependencies[i] = context.getLibraryElement(dependencySource);
+      if (dependencies[i] == null || !dependencySignature.equals(signatureMap.get(dependencySource))) {
+        return null;
+      }
+    }
+    LibrarySummaryReader reader = new LibrarySummaryReader(
+        context,
+        unitSources.toArray(new Source[unitSources.size()]),
+        dependencies);
+    LibraryElementImpl[] libraries = reader.read(input, memberCount);
+    HashMap<Source, LibraryElement> elementMap = new HashMap<Source, LibraryElement>();
+    for (int i = 0; i < memberCount; i++) {
+      context.initializeLibraryElement(libraries[i]);
+      elementMap.put(members[i], libraries[i]);
+      signatureMap.put(members[i], signature);
+    }
+    return elementMap;
+  }
+
+  /**
+   * Replace the given target file with the given file.
+   */
+  private void rename(File file, File target) throws IOException {
+    if (!file.renameTo(target)) {
+      target.delete();
+      if (!file.renameTo(target)) {
+        throw new IOException("Could not rename " + file + " to " + target);
+      }
+    }
+  }
+
+  /**
+   * Write the file for the given library naming the library whose file contains the summary.
+   */
+  private void writeRedirect(Source librarySource, Source summarySource) throws IOException {
+    File file = getFile(librarySource);
+    File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+    try {
+      DataOutputStream output = new DataOutputStream(new FileOutputStream(tempFile));
+      try {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeByte(KIND_REDIRECT);
+        output.writeUTF(summarySource.getEncoding());
+      } finally {
+        output.close();
+      }
+      rename(tempFile, file);
+    } finally {
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Write the summary of the given libraries to the given file and return the signature of the
+   * summary, or {@code null} if the summary cannot be written because the signature of one of the
+   * libraries it depends on is not known.
+   */
+  private String writeSummary(List<LibraryElement> elements, File file)
+      throws Exception {
+    LibrarySummaryWriter writer = new LibrarySummaryWriter(elements);
+    ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+    DataOutputStream body = new DataOutputStream(bodyBytes);
+    writer.write(body);
+    body.flush();
+    //
+    // Collect the information used to decide whether the summary is up to date.
+    //
+    ArrayList<Integer> unitCounts = new ArrayList<Integer>();
+    ArrayList<Source> unitSources = new ArrayList<Source>();
+    for (LibraryElement library : elements) {
+      CompilationUnitElement[] parts = library.getParts();
+      unitCounts.add(parts.length + 1);
+      unitSources.add(library.getDefiningCompilationUnit().getSource());
+      for (CompilationUnitElement part : parts) {
+        unitSources.add(part.getSource());
+      }
+    }
+    ArrayList<String> unitEncodings = new ArrayList<String>();
+    ArrayList<String> unitHashes = new ArrayList<String>();
+    for (Source unitSource : unitSources) {
+      unitEncodings.add(unitSource.getEncoding());
+      unitHashes.add(computeContentHash(unitSource));
+    }
+    List<LibraryElement> dependencies = writer.getDependencies();
+    ArrayList<Source> dependencySources = new ArrayList<Source>();
+    ArrayList<String> dependencySignatures = new ArrayList<String>();
+    for (LibraryElement dependency : dependencies) {
+      Source dependencySource = dependency.getDefiningCompilationUnit().getSource();
+      String dependencySignature = signatureMap.get(dependencySource);
+      if (dependencySignature == null) {
+        return null;
+      }
+      dependencySources.add(dependencySource);
+      dependencySignatures.add(dependencySignature);
+    }
+    String signature = computeSignature(unitEncodings, unitHashes, dependencySignatures);
+    //
+    // Write the file.
+    //
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+        file)));
+    try {
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeByte(KIND_SUMMARY);
+      output.writeUTF(sdkVersion);
+      output.writeUTF(signature);
+      output.writeInt(elements.size());
+      int unitIndex = 0;
+      for (int i = 0; i < elements.size(); i++) {
+        int unitCount = unitCounts.get(i);
+        output.writeInt(unitCount);
+        for (int j = 0; j < unitCount; j++, unitIndex++) {
+          Source unitSource = unitSources.get(unitIndex);
+          output.writeUTF(unitEncodings.get(unitIndex));
+          output.writeBoolean(unitSource.isInSystemLibrary());
+          output.writeUTF(unitHashes.get(unitIndex));
+        }
+      }
+      output.writeInt(dependencies.size());
+      for (int i = 0; i < dependencies.size(); i++) {
+        Source dependencySource = dependencySources.get(i);
+        output.writeUTF(dependencySource.getEncoding());
+        output.writeBoolean(dependencySource.isInSystemLibrary());
+        output.writeUTF(dependencySignatures.get(i));
+      }
+      bodyBytes.writeTo(output);
+    } finally {
+      output.close();
+    }
+    return signature;
+  }
+}
@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.summary;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.HideCombinator;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.PropertyInducingElement;
+import com.google.dart.engine.element.ShowCombinator;
+import com.google.dart.engine.element.TypeVariableElement;
+import com.google.dart.engine.element.VariableElement;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.element.ConstFieldElementImpl;
+import com.google.dart.engine.internal.element.ConstParameterElementImpl;
+import com.google.dart.engine.internal.element.ConstTopLevelVariableElementImpl;
+import com.google.dart.engine.internal.element.VariableElementImpl;
+import com.google.dart.engine.internal.type.BottomTypeImpl;
+import com.google.dart.engine.internal.type.DynamicTypeImpl;
+import com.google.dart.engine.internal.type.VoidTypeImpl;
+import com.google.dart.engine.type.FunctionType;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.type.TypeVariableType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code LibrarySummaryWriter} write the element models of a group of
+ * libraries that import each other, so that they can later be recreated by a
+ * {@link LibrarySummaryReader} without scanning, parsing or resolving their sources.
+ * <p>
+ * The summary contains the declarations visible outside of function bodies: classes, function type
+ * aliases, functions, variables, accessors, methods, constructors, parameters and type variables,
+ * together with their types, the values of constant variables, and the imports and exports of the
+ * libraries. Elements declared in other libraries are referenced by their position in the element
+ * model of the declaring library, which must be one of the dependencies returned by
+ * {@link #getDependencies()}.
+ * 
+ * @coverage dart.engine
+ */
+class LibrarySummaryWriter {
+  /**
+   * The libraries being written.
+   */
+  private final List<LibraryElement> libraries;
+
+  /**
+   * The libraries declaring elements that are referenced by the libraries being written.
+   */
+  private final List<LibraryElement> dependencies = new ArrayList<LibraryElement>();
+
+  /**
+   * A table mapping the elements being written to their identifiers.
+   */
+  private final Map<Element, Integer> elementIdMap = new HashMap<Element, Integer>();
+
+  /**
+   * The elements being written, in the order of their identifiers.
+   */
+  private final List<Element> elements = new ArrayList<Element>();
+
+  /**
+   * A table mapping strings to their indices in the string table.
+   */
+  private final Map<String, Integer> stringIdMap = new HashMap<String, Integer>();
+
+  /**
+   * The strings referenced from the summary, in the order of their indices.
+   */
+  private final List<String> strings = new ArrayList<String>();
+
+  /**
+   * Initialize a newly created writer to write the given libraries.
+   * 
+   * @param libraries the libraries to be written
+   */
+  public LibrarySummaryWriter(List<LibraryElement> libraries) {
+    this.libraries = libraries;
+  }
+
+  /**
+   * Return the libraries, other than the libraries being written, that are referenced by the
+   * summary. This is only valid after the summary has been written.
+   * 
+   * @return the libraries that are referenced by the summary
+   */
+  public List<LibraryElement> getDependencies() {
+    return dependencies;
+  }
+
+  /**
+   * Write the summary of the libraries to the given stream.
+   * 
+   * @param output the stream to which the summary is to be written
+   * @throws AnalysisException if some element or type cannot be represented in a summary
+   * @throws IOException if the summary could not be written
+   */
+  public void write(DataOutputStream output) throws AnalysisException, IOException {
+    ByteArrayOutputStream structureBytes = new ByteArrayOutputStream();
+    DataOutputStream structure = new DataOutputStream(structureBytes);
+    for (LibraryElement library : libraries) {
+      writeLibrary(structure, library);
+    }
+    ByteArrayOutputStream linkBytes = new ByteArrayOutputStream();
+    DataOutputStream links = new DataOutputStream(linkBytes);
+    for (Element element : elements) {
+      writeLinks(links, element);
+    }
+    structure.flush();
+    links.flush();
+    output.writeInt(strings.size());
+    for (String string : strings) {
+      output.writeUTF(string);
+    }
+    output.writeInt(elements.size());
+    structureBytes.writeTo(output);
+    linkBytes.writeTo(output);
+  }
+
+  /**
+   * Add the given element to the list of elements being written.
+   */
+  private void addElement(Element element) {
+    elementIdMap.put(element, elements.size());
+    elements.add(element);
+  }
+
+  private int flag(boolean value, int flag) {
+    return value ? flag : 0;
+  }
+
+  /**
+   * Return the flags describing the modifiers of the given element.
+   */
+  private int getFlags(Element element) {
+    int flags = 0;
+    if (element.isSynthetic()) {
+      flags |= LibrarySummaryReader.FLAG_SYNTHETIC;
+    }
+    if (element instanceof ClassElement) {
+      ClassElement classElement = (ClassElement) element;
+      flags |= flag(classElement.isAbstract(), LibrarySummaryReader.FLAG_ABSTRACT);
+      flags |= flag(classElement.isTypedef(), LibrarySummaryReader.FLAG_TYPEDEF);
+      flags |= flag(classElement.isValidMixin(), LibrarySummaryReader.FLAG_MIXIN);
+    } else if (element instanceof MethodElement) {
+      MethodElement method = (MethodElement) element;
+      flags |= flag(method.isAbstract(), LibrarySummaryReader.FLAG_ABSTRACT);
+      flags |= flag(method.isStatic(), LibrarySummaryReader.FLAG_STATIC);
+    } else if (element instanceof ConstructorElement) {
+      ConstructorElement constructor = (ConstructorElement) element;
+      flags |= flag(constructor.isConst(), LibrarySummaryReader.FLAG_CONST);
+      flags |= flag(constructor.isFactory(), LibrarySummaryReader.FLAG_FACTORY);
+    } else if (element instanceof PropertyAccessorElement) {
+      PropertyAccessorElement accessor = (PropertyAccessorElement) element;
+      flags |= flag(accessor.isGetter(), LibrarySummaryReader.FLAG_GETTER);
+      flags |= flag(accessor.isSetter(), LibrarySummaryReader.FLAG_SETTER);
+    } else if (element instanceof VariableElement) {
+      VariableElement variable = (VariableElement) element;
+      flags |= flag(variable.isConst(), LibrarySummaryReader.FLAG_CONST);
+      flags |= flag(variable.isFinal(), LibrarySummaryReader.FLAG_FINAL);
+      flags |= flag(
+          variable instanceof ConstFieldElementImpl
+              || variable instanceof ConstTopLevelVariableElementImpl
+              || variable instanceof ConstParameterElementImpl,
+          LibrarySummaryReader.FLAG_CONST_IMPL);
+      if (variable instanceof FieldElement) {
+        flags |= flag(((FieldElement) variable).isStatic(), LibrarySummaryReader.FLAG_STATIC);
+      } else if (variable instanceof ParameterElement) {
+        flags |= flag(
+            ((ParameterElement) variable).isInitializingFormal(),
+            LibrarySummaryReader.FLAG_INITIALIZING_FORMAL);
+      }
+    }
+    return flags;
+  }
+
+  /**
+   * Return the index of the given child element in the corresponding array of the given parent.
+   */
+  private int getPathIndex(Element parent, Element child) throws AnalysisException {
+    return indexOf(LibrarySummaryReader.getChildren(parent, getPathKind(parent, child)), child);
+  }
+
+  /**
+   * Return the kind of the relationship between the given parent and child elements used in paths
+   * to elements declared in other libraries.
+   */
+  private int getPathKind(Element parent, Element child) throws AnalysisException {
+    if (child instanceof ClassElement) {
+      return LibrarySummaryReader.PATH_TYPE;
+    } else if (child instanceof FunctionTypeAliasElement) {
+      return LibrarySummaryReader.PATH_ALIAS;
+    } else if (child instanceof TypeVariableElement) {
+      return LibrarySummaryReader.PATH_TYPE_VARIABLE;
+    } else if (child instanceof ParameterElement) {
+      return LibrarySummaryReader.PATH_PARAMETER;
+    } else if (child instanceof PropertyAccessorElement) {
+      return LibrarySummaryReader.PATH_ACCESSOR;
+    } else if (child instanceof MethodElement) {
+      return LibrarySummaryReader.PATH_METHOD;
+    } else if (child instanceof ConstructorElement) {
+      return LibrarySummaryReader.PATH_CONSTRUCTOR;
+    } else if (child instanceof ExecutableElement && parent instanceof CompilationUnitElement) {
+      return LibrarySummaryReader.PATH_FUNCTION;
+    } else if (child instanceof PropertyInducingElement) {
+      return LibrarySummaryReader.PATH_VARIABLE;
+    }
+    throw new AnalysisException("Cannot write a reference to " + child);
+  }
+
+  /**
+   * Return the index of the given element in the given array, failing if it is not there.
+   */
+  private int indexOf(Element[] array, Element element) throws AnalysisException {
+    for (int i = 0; i < array.length; i++) {
+      if (array[i] == element) {
+        return i;
+      }
+    }
+    throw new AnalysisException("Cannot find the position of " + element);
+  }
+
+  /**
+   * Return the index of the given string in the string table.
+   */
+  private int internString(String string) {
+    Integer id = stringIdMap.get(string);
+    if (id == null) {
+      id = strings.size();
+      strings.add(string);
+      stringIdMap.put(string, id);
+    }
+    return id;
+  }
+
+  /**
+   * Write the given combinators.
+   */
+  private void writeCombinators(DataOutputStream output, NamespaceCombinator[] combinators)
+      throws IOException {
+    output.writeInt(combinators.length);
+    for (NamespaceCombinator combinator : combinators) {
+      String[] names;
+      if (combinator instanceof ShowCombinator) {
+        output.writeByte(LibrarySummaryReader.COMBINATOR_SHOW);
+        names = ((ShowCombinator) combinator).getShownNames();
+      } else {
+        output.writeByte(LibrarySummaryReader.COMBINATOR_HIDE);
+        names = ((HideCombinator) combinator).getHiddenNames();
+      }
+      output.writeInt(names.length);
+      for (String name : names) {
+        output.writeInt(internString(name));
+      }
+    }
+  }
+
+  /**
+   * Write the common part of the structure of every element.
+   */
+  private void writeElement(DataOutputStream output, Element element) throws IOException {
+    addElement(element);
+    output.writeInt(internString(element.getName()));
+    output.writeInt(element.getNameOffset());
+    output.writeInt(getFlags(element));
+  }
+
+  /**
+   * Write a reference to the given element, which is either one of the elements being written or
+   * an element declared in one of the dependencies.
+   */
+  private void writeElementReference(DataOutputStream output, Element element)
+      throws AnalysisException, IOException {
+    if (element == null) {
+      output.writeInt(LibrarySummaryReader.NULL_REFERENCE);
+      return;
+    }
+    Integer id = elementIdMap.get(element);
+    if (id != null) {
+      output.writeInt(id.intValue());
+      return;
+    }
+    //
+    // The element is declared in another library, so write the path to it from that library.
+    //
+    ArrayList<Integer> path = new ArrayList<Integer>();
+    Element child = element;
+    Element parent = child.getEnclosingElement();
+    while (!(child instanceof CompilationUnitElement)) {
+      if (parent == null) {
+        throw new AnalysisException("Cannot write a reference to " + element);
+      }
+      path.add(0, getPathIndex(parent, child));
+      path.add(0, getPathKind(parent, child));
+      child = parent;
+      parent = child.getEnclosingElement();
+    }
+    LibraryElement library = (LibraryElement) parent;
+    if (library == null || libraries.contains(library)) {
+      throw new AnalysisException("Cannot write a reference to " + element);
+    }
+    int dependencyIndex = dependencies.indexOf(library);
+    if (dependencyIndex < 0) {
+      dependencyIndex = dependencies.size();
+      dependencies.add(library);
+    }
+    output.writeInt(LibrarySummaryReader.EXTERNAL_REFERENCE);
+    output.writeInt(dependencyIndex);
+    CompilationUnitElement unit = (CompilationUnitElement) child;
+    if (unit == library.getDefiningCompilationUnit()) {
+      output.writeInt(0);
+    } else {
+      output.writeInt(indexOf(library.getParts(), unit) + 1);
+    }
+    output.writeInt(path.size() / 2);
+    for (Integer value : path) {
+      output.writeInt(value.intValue());
+    }
+  }
+
+  /**
+   * Write the structure of the given executable element.
+   */
+  private void writeExecutable(DataOutputStream output, ExecutableElement element)
+      throws IOException {
+    writeElement(output, element);
+    writeParameters(output, element.getParameters());
+  }
+
+  private void writeExecutables(DataOutputStream output, ExecutableElement[] executables)
+      throws IOException {
+    output.writeInt(executables.length);
+    for (ExecutableElement executable : executables) {
+      writeExecutable(output, executable);
+    }
+  }
+
+  /**
+   * Write the structure of the given library.
+   */
+  private void writeLibrary(DataOutputStream output, LibraryElement library) throws IOException {
+    writeElement(output, library);
+    CompilationUnitElement[] parts = library.getParts();
+    writeUnit(output, library.getDefiningCompilationUnit());
+    output.writeInt(parts.length);
+    for (CompilationUnitElement part : parts) {
+      writeUnit(output, part);
+    }
+    ImportElement[] imports = library.getImports();
+    output.writeInt(imports.length);
+    for (ImportElement importElement : imports) {
+      writeLibraryReference(output, importElement.getImportedLibrary());
+      output.writeBoolean(importElement.isSynthetic());
+      PrefixElement prefix = importElement.getPrefix();
+      if (prefix == null) {
+        output.writeInt(LibrarySummaryReader.NULL_REFERENCE);
+      } else {
+        output.writeInt(internString(prefix.getName()));
+        output.writeInt(prefix.getNameOffset());
+      }
+      writeCombinators(output, importElement.getCombinators());
+    }
+    ExportElement[] exports = library.getExports();
+    output.writeInt(exports.length);
+    for (ExportElement exportElement : exports) {
+      writeLibraryReference(output, exportElement.getExportedLibrary());
+      writeCombinators(output, exportElement.getCombinators());
+    }
+  }
+
+  /**
+   * Write a reference to a library, which is either one of the libraries being written or one of
+   * the dependencies.
+   */
+  private void writeLibraryReference(DataOutputStream output, LibraryElement library)
+      throws IOException {
+    if (library == null) {
+      output.writeInt(LibrarySummaryReader.NULL_REFERENCE);
+      return;
+    }
+    int index = libraries.indexOf(library);
+    if (index >= 0) {
+      output.writeInt(index);
+      return;
+    }
+    index = dependencies.indexOf(library);
+    if (index < 0) {
+      index = dependencies.size();
+      dependencies.add(library);
+    }
+    output.writeInt(libraries.size() + index);
+  }
+
+  /**
+   * Write the types and references to other elements associated with the given element.
+   */
+  private void writeLinks(DataOutputStream output, Element element) throws AnalysisException,
+      IOException {
+    if (element instanceof LibraryElement) {
+      writeElementReference(output, ((LibraryElement) element).getEntryPoint());
+    } else if (element instanceof ClassElement) {
+      ClassElement classElement = (ClassElement) element;
+      writeType(output, classElement.getSupertype());
+      writeTypes(output, classElement.getMixins());
+      writeTypes(output, classElement.getInterfaces());
+    } else if (element instanceof FunctionTypeAliasElement) {
+      writeType(output, ((FunctionTypeAliasElement) element).getType());
+    } else if (element instanceof TypeVariableElement) {
+      writeType(output, ((TypeVariableElement) element).getBound());
+    } else if (element instanceof ExecutableElement) {
+      writeType(output, ((ExecutableElement) element).getType());
+      if (element instanceof PropertyAccessorElement) {
+        writeElementReference(output, ((PropertyAccessorElement) element).getVariable());
+      }
+    } else if (element instanceof VariableElement) {
+      writeType(output, ((VariableElement) element).getType());
+      if (element instanceof PropertyInducingElement) {
+        PropertyInducingElement variable = (PropertyInducingElement) element;
+        writeElementReference(output, variable.getGetter());
+        writeElementReference(output, variable.getSetter());
+      }
+    }
+  }
+
+  private void writeParameters(DataOutputStream output, ParameterElement[] parameters)
+      throws IOException {
+    output.writeInt(parameters.length);
+    for (ParameterElement parameter : parameters) {
+      writeElement(output, parameter);
+      output.writeByte(parameter.getParameterKind().ordinal());
+    }
+  }
+
+  /**
+   * Write the given type.
+   */
+  private void writeType(DataOutputStream output, Type type) throws AnalysisException,
+      IOException {
+    if (type == null) {
+      output.writeByte(LibrarySummaryReader.TYPE_NULL);
+    } else if (type == DynamicTypeImpl.getInstance()) {
+      output.writeByte(LibrarySummaryReader.TYPE_DYNAMIC);
+    } else if (type == VoidTypeImpl.getInstance()) {
+      output.writeByte(LibrarySummaryReader.TYPE_VOID);
+    } else if (type == BottomTypeImpl.getInstance()) {
+      output.writeByte(LibrarySummaryReader.TYPE_BOTTOM);
+    } else if (type instanceof InterfaceType) {
+      InterfaceType interfaceType = (InterfaceType) type;
+      output.writeByte(LibrarySummaryReader.TYPE_INTERFACE);
+      writeElementReference(output, interfaceType.getElement());
+      writeTypes(output, interfaceType.getTypeArguments());
+    } else if (type instanceof TypeVariableType) {
+      output.writeByte(LibrarySummaryReader.TYPE_VARIABLE);
+      writeElementReference(output, type.getElement());
+    } else if (type instanceof FunctionType) {
+      FunctionType functionType = (FunctionType) type;
+      output.writeByte(LibrarySummaryReader.TYPE_FUNCTION);
+      writeElementReference(output, functionType.getElement());
+      writeTypes(output, functionType.getTypeArguments());
+      writeTypes(output, functionType.getNormalParameterTypes());
+      writeTypes(output, functionType.getOptionalParameterTypes());
+      Map<String, Type> namedParameterTypes = functionType.getNamedParameterTypes();
+      output.writeInt(namedParameterTypes.size());
+      for (Map.Entry<String, Type> entry : namedParameterTypes.entrySet()) {
+        output.writeInt(internString(entry.getKey()));
+        writeType(output, entry.getValue());
+      }
+      writeType(output, functionType.getReturnType());
+    } else {
+      throw new AnalysisException("Cannot write the type " + type);
+    }
+  }
+
+  private void writeTypes(DataOutputStream output, Type[] types) throws AnalysisException,
+      IOException {
+    output.writeInt(types.length);
+    for (Type type : types) {
+      writeType(output, type);
+    }
+  }
+
+  private void writeTypeVariables(DataOutputStream output, TypeVariableElement[] typeVariables)
+      throws IOException {
+    output.writeInt(typeVariables.length);
+    for (TypeVariableElement typeVariable : typeVariables) {
+      writeElement(output, typeVariable);
+    }
+  }
+
+  /**
+   * Write the structure of the given compilation unit.
+   */
+  private void writeUnit(DataOutputStream output, CompilationUnitElement unit) throws IOException {
+    writeElement(output, unit);
+    ClassElement[] types = unit.getTypes();
+    output.writeInt(types.length);
+    for (ClassElement type : types) {
+      writeElement(output, type);
+      writeTypeVariables(output, type.getTypeVariables());
+      writeVariables(output, type.getFields());
+      writeExecutables(output, type.getAccessors());
+      writeExecutables(output, type.getMethods());
+      writeExecutables(output, type.getConstructors());
+    }
+    FunctionTypeAliasElement[] aliases = unit.getFunctionTypeAliases();
+    output.writeInt(aliases.length);
+    for (FunctionTypeAliasElement alias : aliases) {
+      writeElement(output, alias);
+      writeTypeVariables(output, alias.getTypeVariables());
+      writeParameters(output, alias.getParameters());
+    }
+    writeExecutables(output, unit.getFunctions());
+    writeVariables(output, unit.getTopLevelVariables());
+    writeExecutables(output, unit.getAccessors());
+  }
+
+  /**
+   * Write the value of a constant variable, which is available to the constant expressions in
+   * other libraries that reference the variable.
+   */
+  private void writeValue(DataOutputStream output, EvaluationResultImpl result) throws IOException {
+    if (!(result instanceof ValidResult)) {
+      output.writeByte(LibrarySummaryReader.VALUE_INVALID);
+      return;
+    }
+    Object value = ((ValidResult) result).getValue();
+    if (result == ValidResult.RESULT_OBJECT) {
+      output.writeByte(LibrarySummaryReader.VALUE_OBJECT);
+    } else if (value == null) {
+      output.writeByte(LibrarySummaryReader.VALUE_NULL);
+    } else if (value instanceof Boolean) {
+      output.writeByte(((Boolean) value).booleanValue() ? LibrarySummaryReader.VALUE_TRUE
+          : LibrarySummaryReader.VALUE_FALSE);
+    } else if (value instanceof BigInteger) {
+      output.writeByte(LibrarySummaryReader.VALUE_INT);
+      output.writeInt(internString(value.toString()));
+    } else if (value instanceof Double) {
+      output.writeByte(LibrarySummaryReader.VALUE_DOUBLE);
+      output.writeDouble(((Double) value).doubleValue());
+    } else if (value instanceof String) {
+      output.writeByte(LibrarySummaryReader.VALUE_STRING);
+      output.writeInt(internString((String) value));
+    } else {
+      output.writeByte(LibrarySummaryReader.VALUE_OBJECT);
+    }
+  }
+
+  private void writeVariables(DataOutputStream output, VariableElement[] variables)
+      throws IOException {
+    output.writeInt(variables.length);
+    for (VariableElement variable : variables) {
+      writeElement(output, variable);
+      if (variable instanceof ConstFieldElementImpl
+          || variable instanceof ConstTopLevelVariableElementImpl) {
+        writeValue(output, ((VariableElementImpl) variable).getEvaluationResult());
+      }
+    }
+  }
+}
@@ -16,6 +16,9 @@ package com.google.dart.engine.internal.type;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.type.TypeVariableType;
@@ -79,6 +82,7 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
    */
   private static int computeLongestInheritancePathToObject(InterfaceType type, int depth) {
     ClassElement classElement = type.getElement();
+    markHierarchyUsed(classElement);
     // Object case
     if (classElement.getSupertype() == null) {
       return depth;
@@ -120,6 +124,7 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     Element element = type.getElement();
     if (element != null && element instanceof ClassElement) {
       ClassElement classElement = (ClassElement) element;
+      markHierarchyUsed(classElement);
       InterfaceType[] superinterfaces = classElement.getInterfaces();
       for (InterfaceType superinterface : superinterfaces) {
         set.add(superinterface);
@@ -134,6 +139,74 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     return set;
   }
 
+  /**
+   * Return the length of the longest inheritance path from the given type to Object, using the
+   * given cache if it is not {@code null}.
+   */
+  private static int getInheritanceDepth(TypeRelationCache cache, InterfaceType type) {
+    if (cache == null || !TypeRelationCache.isCacheable(type)) {
+      return computeLongestInheritancePathToObject(type);
+    }
+    Integer depth = cache.getInheritanceDepth(type);
+    if (depth == null) {
+      depth = Integer.valueOf(computeLongestInheritancePathToObject(type));
+      cache.putInheritanceDepth(type, depth.intValue());
+    }
+    return depth.intValue();
+  }
+
+  /**
+   * Return a new set containing all of the superinterfaces of the given type, using the given cache
+   * if it is not {@code null}.
+   */
+  private static Set<InterfaceType> getSuperinterfaceSet(TypeRelationCache cache,
+      InterfaceType type) {
+    if (cache == null || !TypeRelationCache.isCacheable(type)) {
+      return computeSuperinterfaceSet(type);
+    }
+    Set<InterfaceType> superinterfaces = cache.getSuperinterfaceSet(type);
+    if (superinterfaces == null) {
+      superinterfaces = computeSuperinterfaceSet(type);
+      cache.putSuperinterfaceSet(type, superinterfaces);
+    }
+    return new HashSet<InterfaceType>(superinterfaces);
+  }
+
+  /**
+   * Return the cache of the relations between the types defined in the context of the given
+   * element, or {@code null} if the relations between the given types cannot be cached.
+   * 
+   * @param element the element whose library gives access to the cache
+   * @param first the first of the related types
+   * @param second the second of the related types
+   * @return the cache in which the relation between the given types can be recorded
+   */
+  private static TypeRelationCache getTypeRelationCache(Element element, Type first, Type second) {
+    if (element == null || !TypeRelationCache.isCacheable(first)
+        || !TypeRelationCache.isCacheable(second)) {
+      return null;
+    }
+    LibraryElement library = element.getLibrary();
+    if (!(library instanceof LibraryElementImpl)) {
+      return null;
+    }
+    TypeRelationCache cache = ((LibraryElementImpl) library).getTypeRelationCache();
+    if (cache != null) {
+      cache.validate();
+    }
+    return cache;
+  }
+
+  /**
+   * Record that the supertypes of the given class are being used to compute a relation that might
+   * be cached.
+   */
+  private static void markHierarchyUsed(ClassElement element) {
+    if (element instanceof ClassElementImpl) {
+      ((ClassElementImpl) element).markHierarchyUsed();
+    }
+  }
+
   /**
    * An array containing the actual types of the type arguments.
    */
@@ -183,56 +256,17 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     if (type == null || !(type instanceof InterfaceType)) {
       return null;
     }
-    // new names to match up with the spec
-    InterfaceType i = this;
-    InterfaceType j = (InterfaceType) type;
-
-    // compute set of supertypes
-    Set<InterfaceType> si = computeSuperinterfaceSet(i);
-    Set<InterfaceType> sj = computeSuperinterfaceSet(j);
-
-    // union si with i and sj with j
-    si.add(i);
-    sj.add(j);
-
-    // compute intersection, reference as set 's'
-    si.retainAll(sj);
-    Set<InterfaceType> s = si;
-
-    // define the list sn, a list containing the elements from set 's'
-    //ArrayList<Type> sn = new ArrayList<Type>(s.size());
-    InterfaceType[] sn = s.toArray(new InterfaceType[s.size()]);
-
-    // for each element in Set sn, compute the largest inheritance path to Object
-    int[] depths = new int[sn.length];
-    int maxDepth = 0;
-    for (int n = 0; n < sn.length; n++) {
-      depths[n] = computeLongestInheritancePathToObject(sn[n]);
-      if (depths[n] > maxDepth) {
-        maxDepth = depths[n];
-      }
+    TypeRelationCache cache = getTypeRelationCache(getElement(), this, type);
+    if (cache == null) {
+      return computeLeastUpperBound(null, (InterfaceType) type);
     }
-
-    // ensure that the currently computed maxDepth is unique,
-    // otherwise, decrement and test for uniqueness again
-    for (; maxDepth >= 0; maxDepth--) {
-      int indexOfLeastUpperBound = -1;
-      int numberOfTypesAtMaxDepth = 0;
-      for (int m = 0; m < depths.length; m++) {
-        if (depths[m] == maxDepth) {
-          numberOfTypesAtMaxDepth++;
-          indexOfLeastUpperBound = m;
-        }
-      }
-      if (numberOfTypesAtMaxDepth == 1) {
-        return sn[indexOfLeastUpperBound];
-      }
+    Object leastUpperBound = cache.getLeastUpperBound(this, (InterfaceType) type);
+    if (leastUpperBound == null) {
+      Type computedBound = computeLeastUpperBound(cache, (InterfaceType) type);
+      cache.putLeastUpperBound(this, (InterfaceType) type, computedBound);
+      return computedBound;
     }
-
-    // illegal state, log and return null- Object at maxDepth == 0 should always return itself as
-    // the least upper bound.
-    // TODO (jwren) log the error state 
-    return null;
+    return leastUpperBound instanceof Type ? (Type) leastUpperBound : null;
   }
 
   @Override
@@ -318,53 +352,16 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     } else if (!(type instanceof InterfaceType)) {
       return false;
     }
-    InterfaceType s = (InterfaceType) type;
-    //
-    // A type T is more specific than a type S, written T << S,  if one of the following conditions
-    // is met:
-    //
-    //
-    // Reflexivity: T is S.
-    //
-    if (this.equals(s)) {
-      return true;
-    }
-    //
-    // T is bottom.
-    //
-    // This case is handled by the class BottomTypeImpl.
-
-    //
-    // Direct supertype: S is a direct supertype of T.
-    //
-    if (s.isDirectSupertypeOf(this)) {
-      return true;
+    TypeRelationCache cache = getTypeRelationCache(getElement(), this, type);
+    if (cache == null) {
+      return computeIsMoreSpecificThan((InterfaceType) type);
     }
-    //
-    // Covariance: T is of the form I<T1, ..., Tn> and S is of the form I<S1, ..., Sn> and Ti << Si, 1 <= i <= n.
-    //
-    ClassElement tElement = getElement();
-    ClassElement sElement = s.getElement();
-    if (tElement.equals(sElement)) {
-      Type[] tArguments = getTypeArguments();
-      Type[] sArguments = s.getTypeArguments();
-      if (tArguments.length != sArguments.length) {
-        return false;
-      }
-      for (int i = 0; i < tArguments.length; i++) {
-        if (!tArguments[i].isMoreSpecificThan(sArguments[i])) {
-          return false;
-        }
-      }
-      return true;
+    Boolean isMoreSpecific = cache.getMoreSpecific(this, type);
+    if (isMoreSpecific == null) {
+      isMoreSpecific = Boolean.valueOf(computeIsMoreSpecificThan((InterfaceType) type));
+      cache.putMoreSpecific(this, type, isMoreSpecific.booleanValue());
     }
-    //
-    // Transitivity: T << U and U << S.
-    //
-    if (getElement().getSupertype() == null) {
-      return false;
-    }
-    return getElement().getSupertype().isMoreSpecificThan(type);
+    return isMoreSpecific.booleanValue();
   }
 
   @Override
@@ -378,15 +375,81 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
       return true;
     } else if (!(type instanceof InterfaceType)) {
       return false;
-    } else if (this.equals(type)) {
+    }
+    TypeRelationCache cache = getTypeRelationCache(getElement(), this, type);
+    if (cache == null) {
+      return computeIsSubtypeOf((InterfaceType) type);
+    }
+    Boolean isSubtype = cache.getSubtype(this, type);
+    if (isSubtype == null) {
+      isSubtype = Boolean.valueOf(computeIsSubtypeOf((InterfaceType) type));
+      cache.putSubtype(this, type, isSubtype.booleanValue());
+    }
+    return isSubtype.booleanValue();
+  }
+
+  /**
+   * Set the actual types of the type arguments to those in the given array.
+   * 
+   * @param typeArguments the actual types of the type arguments
+   */
+  public void setTypeArguments(Type[] typeArguments) {
+    this.typeArguments = typeArguments;
+  }
+
+  @Override
+  public InterfaceTypeImpl substitute(Type[] argumentTypes) {
+    return substitute(argumentTypes, getTypeArguments());
+  }
+
+  @Override
+  public InterfaceTypeImpl substitute(Type[] argumentTypes, Type[] parameterTypes) {
+    if (argumentTypes.length != parameterTypes.length) {
+      throw new IllegalArgumentException("argumentTypes.length (" + argumentTypes.length
+          + ") != parameterTypes.length (" + parameterTypes.length + ")");
+    }
+    if (argumentTypes.length == 0) {
+      return this;
+    }
+    InterfaceTypeImpl newType = new InterfaceTypeImpl(getElement());
+    newType.setTypeArguments(substitute(typeArguments, argumentTypes, parameterTypes));
+    return newType;
+  }
+
+  @Override
+  protected void appendTo(StringBuilder builder) {
+    builder.append(getName());
+    int argumentCount = typeArguments.length;
+    if (argumentCount > 0) {
+      builder.append("<");
+      for (int i = 0; i < argumentCount; i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        ((TypeImpl) typeArguments[i]).appendTo(builder);
+      }
+      builder.append(">");
+    }
+  }
+
+  /**
+   * Return {@code true} if this type is a subtype of the given type.
+   * 
+   * @param type the type being compared with this type
+   * @return {@code true} if this type is a subtype of the given type
+   * @see #isSubtypeOf(Type)
+   */
+  private boolean computeIsSubtypeOf(InterfaceType type) {
+    if (this.equals(type)) {
       return true;
     }
     InterfaceType typeT = this;
-    InterfaceType typeS = (InterfaceType) type;
+    InterfaceType typeS = type;
     ClassElement elementT = getElement();
     if (elementT == null) {
       return false;
     }
+    markHierarchyUsed(elementT);
     typeT = substitute(typeArguments, TypeVariableTypeImpl.getTypes(elementT.getTypeVariables()));
     if (typeT.equals(typeS)) {
       return true;
@@ -431,46 +494,122 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
   }
 
   /**
-   * Set the actual types of the type arguments to those in the given array.
+   * Compute the least upper bound of this type and the given type.
    * 
-   * @param typeArguments the actual types of the type arguments
+   * @param cache the cache used to look up superinterface sets and inheritance depths, or
+   *          {@code null} if they are not to be cached
+   * @param type the other type used to compute the least upper bound
+   * @return the least upper bound of this type and the given type
+   * @see #getLeastUpperBound(Type)
    */
-  public void setTypeArguments(Type[] typeArguments) {
-    this.typeArguments = typeArguments;
-  }
+  private Type computeLeastUpperBound(TypeRelationCache cache, InterfaceType type) {
+    // new names to match up with the spec
+    InterfaceType i = this;
+    InterfaceType j = type;
 
-  @Override
-  public InterfaceTypeImpl substitute(Type[] argumentTypes) {
-    return substitute(argumentTypes, getTypeArguments());
-  }
+    // compute set of supertypes
+    Set<InterfaceType> si = getSuperinterfaceSet(cache, i);
+    Set<InterfaceType> sj = getSuperinterfaceSet(cache, j);
 
-  @Override
-  public InterfaceTypeImpl substitute(Type[] argumentTypes, Type[] parameterTypes) {
-    if (argumentTypes.length != parameterTypes.length) {
-      throw new IllegalArgumentException("argumentTypes.length (" + argumentTypes.length
-          + ") != parameterTypes.length (" + parameterTypes.length + ")");
+    // union si with i and sj with j
+    si.add(i);
+    sj.add(j);
+
+    // compute intersection, reference as set 's'
+    si.retainAll(sj);
+    Set<InterfaceType> s = si;
+
+    // define the list sn, a list containing the elements from set 's'
+    //ArrayList<Type> sn = new ArrayList<Type>(s.size());
+    InterfaceType[] sn = s.toArray(new InterfaceType[s.size()]);
+
+    // for each element in Set sn, compute the largest inheritance path to Object
+    int[] depths = new int[sn.length];
+    int maxDepth = 0;
+    for (int n = 0; n < sn.length; n++) {
+      depths[n] = getInheritanceDepth(cache, sn[n]);
+      if (depths[n] > maxDepth) {
+        maxDepth = depths[n];
+      }
     }
-    if (argumentTypes.length == 0) {
-      return this;
+
+    // ensure that the currently computed maxDepth is unique,
+    // otherwise, decrement and test for uniqueness again
+    for (; maxDepth >= 0; maxDepth--) {
+      int indexOfLeastUpperBound = -1;
+      int numberOfTypesAtMaxDepth = 0;
+      for (int m = 0; m < depths.length; m++) {
+        if (depths[m] == maxDepth) {
+          numberOfTypesAtMaxDepth++;
+          indexOfLeastUpperBound = m;
+        }
+      }
+      if (numberOfTypesAtMaxDepth == 1) {
+        return sn[indexOfLeastUpperBound];
+      }
     }
-    InterfaceTypeImpl newType = new InterfaceTypeImpl(getElement());
-    newType.setTypeArguments(substitute(typeArguments, argumentTypes, parameterTypes));
-    return newType;
+
+    // illegal state, log and return null- Object at maxDepth == 0 should always return itself as
+    // the least upper bound.
+    // TODO (jwren) log the error state 
+    return null;
   }
 
-  @Override
-  protected void appendTo(StringBuilder builder) {
-    builder.append(getName());
-    int argumentCount = typeArguments.length;
-    if (argumentCount > 0) {
-      builder.append("<");
-      for (int i = 0; i < argumentCount; i++) {
-        if (i > 0) {
-          builder.append(", ");
+  /**
+   * Return {@code true} if this type is more specific than the given type.
+   * 
+   * @param type the type being compared with this type
+   * @return {@code true} if this type is more specific than the given type
+   * @see #isMoreSpecificThan(Type)
+   */
+  private boolean computeIsMoreSpecificThan(InterfaceType type) {
+    InterfaceType s = type;
+    markHierarchyUsed(getElement());
+    //
+    // A type T is more specific than a type S, written T << S,  if one of the following conditions
+    // is met:
+    //
+    //
+    // Reflexivity: T is S.
+    //
+    if (this.equals(s)) {
+      return true;
+    }
+    //
+    // T is bottom.
+    //
+    // This case is handled by the class BottomTypeImpl.
+
+    //
+    // Direct supertype: S is a direct supertype of T.
+    //
+    if (s.isDirectSupertypeOf(this)) {
+      return true;
+    }
+    //
+    // Covariance: T is of the form I<T1, ..., Tn> and S is of the form I<S1, ..., Sn> and Ti << Si, 1 <= i <= n.
+    //
+    ClassElement tElement = getElement();
+    ClassElement sElement = s.getElement();
+    if (tElement.equals(sElement)) {
+      Type[] tArguments = getTypeArguments();
+      Type[] sArguments = s.getTypeArguments();
+      if (tArguments.length != sArguments.length) {
+        return false;
+      }
+      for (int i = 0; i < tArguments.length; i++) {
+        if (!tArguments[i].isMoreSpecificThan(sArguments[i])) {
+          return false;
         }
-        ((TypeImpl) typeArguments[i]).appendTo(builder);
       }
-      builder.append(">");
+      return true;
+    }
+    //
+    // Transitivity: T << U and U << S.
+    //
+    if (getElement().getSupertype() == null) {
+      return false;
     }
+    return getElement().getSupertype().isMoreSpecificThan(type);
   }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.type;
+
+import com.google.common.collect.Maps;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instances of the class {@code TypeRelationCache} cache the results of the subtype,
+ * more-specific-than and least upper bound relations between interface types, together with the
+ * superinterface sets and inheritance depths they are computed from.
+ * <p>
+ * Types are compared by the identity of their elements rather than by {@link Type#equals(Object)},
+ * which would compute element locations, so only types whose type arguments are themselves
+ * interface types or {@code dynamic} can be cached. All of the results depend on the class
+ * hierarchy, so they are discarded whenever a class that was used to compute them is changed, as
+ * reported by the {@link ClassElementImpl#getHierarchyVersion(Element) version of the class
+ * hierarchy} of the analysis context that owns the cache.
+ * <p>
+ * The cache is safe to be used by multiple threads. Its size is bounded by discarding all of the
+ * results once too many have been cached.
+ * 
+ * @coverage dart.engine.type
+ */
+public class TypeRelationCache {
+  /**
+   * Instances of the class {@code TypeKey} wrap one or two types so that they can be used as keys
+   * in a map, comparing the types by the identity of their elements.
+   */
+  private static final class TypeKey {
+    private final Type first;
+    private final Type second;
+    private final int hashCode;
+
+    public TypeKey(Type first, Type second) {
+      this.first = first;
+      this.second = second;
+      hashCode = 31 * hash(first) + hash(second);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof TypeKey)) {
+        return false;
+      }
+      TypeKey key = (TypeKey) object;
+      return hashCode == key.hashCode && identical(first, key.first)
+          && identical(second, key.second);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The maximum number of results of each kind that are cached before all of them are discarded.
+   */
+  private static final int MAX_CACHE_SIZE = 16384;
+
+  /**
+   * The object recorded in the cache to indicate that a least upper bound does not exist.
+   */
+  private static final Object NO_TYPE = new Object();
+
+  /**
+   * Return {@code true} if the relations of the given type can be cached, because it is an interface
+   * type with a class element whose type arguments can all be cached, or it is {@code dynamic}.
+   * 
+   * @param type the type being tested
+   * @return {@code true} if the relations of the given type can be cached
+   */
+  public static boolean isCacheable(Type type) {
+    if (type == DynamicTypeImpl.getInstance()) {
+      return true;
+    }
+    if (!(type instanceof InterfaceTypeImpl) || type.getElement() == null) {
+      return false;
+    }
+    for (Type argument : ((InterfaceTypeImpl) type).getTypeArguments()) {
+      if (!isCacheable(argument)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the hash code of the given cacheable type, computed from the identity of its element and
+   * the hash codes of its type arguments.
+   */
+  private static int hash(Type type) {
+    if (type == null) {
+      return 0;
+    }
+    int hash = System.identityHashCode(type.getElement());
+    if (type instanceof InterfaceType) {
+      for (Type argument : ((InterfaceType) type).getTypeArguments()) {
+        hash = 31 * hash + hash(argument);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Return {@code true} if the given cacheable types have the same element and identical type
+   * arguments.
+   */
+  private static boolean identical(Type first, Type second) {
+    if (first == second) {
+      return true;
+    } else if (first == null || second == null || first.getElement() != second.getElement()) {
+      return false;
+    } else if (!(first instanceof InterfaceType) || !(second instanceof InterfaceType)) {
+      return false;
+    }
+    Type[] firstArguments = ((InterfaceType) first).getTypeArguments();
+    Type[] secondArguments = ((InterfaceType) second).getTypeArguments();
+    if (firstArguments.length != secondArguments.length) {
+      return false;
+    }
+    for (int i = 0; i < firstArguments.length; i++) {
+      if (!identical(firstArguments[i], secondArguments[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The counter of the changes to the class hierarchy from which the results are computed.
+   */
+  private final AtomicInteger hierarchyVersion;
+
+  /**
+   * The value of the {@link #hierarchyVersion} for which the cached results were computed.
+   */
+  private volatile int version;
+
+  /**
+   * A table mapping pairs of types (T, S) to whether T is a subtype of S.
+   */
+  private final ConcurrentMap<TypeKey, Boolean> subtypes = Maps.newConcurrentMap();
+
+  /**
+   * A table mapping pairs of types (T, S) to whether T is more specific than S.
+   */
+  private final ConcurrentMap<TypeKey, Boolean> moreSpecificTypes = Maps.newConcurrentMap();
+
+  /**
+   * A table mapping pairs of types to their least upper bound, or to {@link #NO_TYPE} if they do not
+   * have one.
+   */
+  private final ConcurrentMap<TypeKey, Object> leastUpperBounds = Maps.newConcurrentMap();
+
+  /**
+   * A table mapping types to the set of their superinterfaces.
+   */
+  private final ConcurrentMap<TypeKey, Set<InterfaceType>> superinterfaceSets = Maps.newConcurrentMap();
+
+  /**
+   * A table mapping types to the length of their longest inheritance path to {@code Object}.
+   */
+  private final ConcurrentMap<TypeKey, Integer> inheritanceDepths = Maps.newConcurrentMap();
+
+  /**
+   * The number of queries that were answered from the cache.
+   */
+  private final AtomicInteger hitCount = new AtomicInteger();
+
+  /**
+   * The number of queries that were not answered from the cache.
+   */
+  private final AtomicInteger missCount = new AtomicInteger();
+
+  /**
+   * Initialize a newly created, empty cache to hold results computed from the class hierarchy whose
+   * changes are counted by the given counter.
+   * 
+   * @param hierarchyVersion the counter of the changes to the class hierarchy
+   */
+  public TypeRelationCache(AtomicInteger hierarchyVersion) {
+    this.hierarchyVersion = hierarchyVersion;
+    version = hierarchyVersion.get();
+  }
+
+  /**
+   * Discard all of the cached results.
+   */
+  public void clear() {
+    subtypes.clear();
+    moreSpecificTypes.clear();
+    leastUpperBounds.clear();
+    superinterfaceSets.clear();
+    inheritanceDepths.clear();
+  }
+
+  /**
+   * Return the number of queries that were answered from the cache.
+   * 
+   * @return the number of queries that were answered from the cache
+   */
+  public int getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Return the number of queries that were not answered from the cache.
+   * 
+   * @return the number of queries that were not answered from the cache
+   */
+  public int getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Return the length of the longest inheritance path from the given type to {@code Object}, or
+   * {@code null} if it has not been cached.
+   */
+  Integer getInheritanceDepth(InterfaceType type) {
+    return record(inheritanceDepths.get(new TypeKey(type, null)));
+  }
+
+  /**
+   * Return the cached least upper bound of the given types, {@link #NO_TYPE} if they are known not
+   * to have one, or {@code null} if it has not been cached.
+   */
+  Object getLeastUpperBound(InterfaceType first, InterfaceType second) {
+    return record(leastUpperBounds.get(new TypeKey(first, second)));
+  }
+
+  /**
+   * Return whether the first type is more specific than the second, or {@code null} if it has not
+   * been cached.
+   */
+  Boolean getMoreSpecific(InterfaceType first, Type second) {
+    return record(moreSpecificTypes.get(new TypeKey(first, second)));
+  }
+
+  /**
+   * Return whether the first type is a subtype of the second, or {@code null} if it has not been
+   * cached.
+   */
+  Boolean getSubtype(InterfaceType first, Type second) {
+    return record(subtypes.get(new TypeKey(first, second)));
+  }
+
+  /**
+   * Return the set of the superinterfaces of the given type, or {@code null} if it has not been
+   * cached. The returned set must not be modified.
+   */
+  Set<InterfaceType> getSuperinterfaceSet(InterfaceType type) {
+    return record(superinterfaceSets.get(new TypeKey(type, null)));
+  }
+
+  /**
+   * Record the length of the longest inheritance path from the given type to {@code Object}.
+   */
+  void putInheritanceDepth(InterfaceType type, int depth) {
+    put(inheritanceDepths, new TypeKey(type, null), Integer.valueOf(depth));
+  }
+
+  /**
+   * Record the least upper bound of the given types, which might be {@code null}.
+   */
+  void putLeastUpperBound(InterfaceType first, InterfaceType second, Type leastUpperBound) {
+    put(
+        leastUpperBounds,
+        new TypeKey(first, second),
+        leastUpperBound == null ? NO_TYPE : leastUpperBound);
+  }
+
+  /**
+   * Record whether the first type is more specific than the second.
+   */
+  void putMoreSpecific(InterfaceType first, Type second, boolean isMoreSpecific) {
+    put(moreSpecificTypes, new TypeKey(first, second), Boolean.valueOf(isMoreSpecific));
+  }
+
+  /**
+   * Record whether the first type is a subtype of the second.
+   */
+  void putSubtype(InterfaceType first, Type second, boolean isSubtype) {
+    put(subtypes, new TypeKey(first, second), Boolean.valueOf(isSubtype));
+  }
+
+  /**
+   * Record the set of the superinterfaces of the given type. The set must not be modified after it
+   * has been recorded.
+   */
+  void putSuperinterfaceSet(InterfaceType type, Set<InterfaceType> superinterfaces) {
+    put(superinterfaceSets, new TypeKey(type, null), superinterfaces);
+  }
+
+  /**
+   * Discard all of the cached results if the class hierarchy has changed since they were computed.
+   * This method must be invoked before the cache is used to answer a query.
+   */
+  void validate() {
+    int currentVersion = hierarchyVersion.get();
+    if (currentVersion != version) {
+      synchronized (this) {
+        if (currentVersion != version) {
+          clear();
+          version = currentVersion;
+        }
+      }
+    }
+  }
+
+  /**
+   * Record the given value in the given table, first discarding all of the values in the table if
+   * it is full. The value is not recorded if the class hierarchy has changed since the cache was
+   * last validated, because it might have been computed from the old hierarchy.
+   */
+  private <V> void put(ConcurrentMap<TypeKey, V> table, TypeKey key, V value) {
+    if (hierarchyVersion.get() != version) {
+      // the class hierarchy changed while the value was being computed
+      return;
+    }
+    if (table.size() >= MAX_CACHE_SIZE) {
+      table.clear();
+    }
+    table.put(key, value);
+  }
+
+  /**
+   * Count the given cached result as a hit if it is not {@code null}, or as a miss otherwise.
+   */
+  private <V> V record(V result) {
+    if (result == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return result;
+  }
+}
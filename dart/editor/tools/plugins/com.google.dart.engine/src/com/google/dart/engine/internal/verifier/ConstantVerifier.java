@@ -25,7 +25,7 @@ import com.google.dart.engine.ast.MethodDeclaration;
 import com.google.dart.engine.ast.StringLiteral;
 import com.google.dart.engine.ast.SwitchCase;
 import com.google.dart.engine.ast.VariableDeclaration;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.ComposableASTVisitor;
 import com.google.dart.engine.error.CompileTimeErrorCode;
 import com.google.dart.engine.error.ErrorCode;
 import com.google.dart.engine.error.StaticWarningCode;
@@ -45,7 +45,7 @@ import java.util.HashSet;
  * 
  * @coverage dart.engine.resolver
  */
-public class ConstantVerifier extends RecursiveASTVisitor<Void> {
+public class ConstantVerifier extends ComposableASTVisitor<Void> {
   /**
    * The error reporter by which errors will be reported.
    */
@@ -48,7 +48,7 @@ import com.google.dart.engine.ast.TypeName;
 import com.google.dart.engine.ast.TypeParameter;
 import com.google.dart.engine.ast.VariableDeclarationList;
 import com.google.dart.engine.ast.WhileStatement;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.ComposableASTVisitor;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
@@ -78,7 +78,7 @@ import com.google.dart.engine.type.Type;
  * 
  * @coverage dart.engine.resolver
  */
-public class ErrorVerifier extends RecursiveASTVisitor<Void> {
+public class ErrorVerifier extends ComposableASTVisitor<Void> {
   /**
    * The error reporter by which errors will be reported.
    */
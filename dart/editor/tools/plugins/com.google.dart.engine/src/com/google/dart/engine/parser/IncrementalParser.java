@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.parser;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.Block;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.ClassMember;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.ConstructorDeclaration;
+import com.google.dart.engine.ast.FunctionBody;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.FunctionExpression;
+import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.ast.NodeList;
+import com.google.dart.engine.ast.visitor.ASTCloner;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.scanner.IncrementalScanner;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.collection.IntList;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code IncrementalParser} update a compilation unit after an edit to the
+ * source from which it was parsed, reparsing only the smallest declaration that encloses the edit
+ * rather than the whole compilation unit.
+ * <p>
+ * The declaration that is reparsed is either the block body of a method, constructor or top-level
+ * function, a class member or a compilation unit member. The tokens of the declaration are scanned
+ * again and spliced into the token stream of the compilation unit, the tokens following the
+ * declaration are moved by the number of characters that were inserted or removed, and the node
+ * representing the declaration is replaced in the structure of the compilation unit, whose line
+ * information and parsing errors are updated to match.
+ * <p>
+ * The compilation unit is never modified. The edit is applied to a {@link ASTCloner copy} of it,
+ * so that clients that are still using the original compilation unit, possibly on other threads,
+ * are not affected. The copy has not been resolved.
+ * <p>
+ * An edit is only applied incrementally when doing so is known to produce the same structure as
+ * parsing the whole source again. In any other case, such as when the edit is not enclosed by a
+ * single declaration, when the edit changes the grouping of tokens beyond the declaration, or when
+ * the reparsed class member or compilation unit member has syntax errors, no compilation unit is
+ * produced and the client must parse the whole source again.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class IncrementalParser {
+  /**
+   * Return the first token in the token stream that is part of the given node. Unlike the begin
+   * token of the node, this is never a comment token.
+   * 
+   * @param node the node whose first token is to be returned
+   * @return the first token in the token stream that is part of the given node
+   */
+  private static Token getFirstStreamToken(ASTNode node) {
+    int offset = node.getOffset();
+    Token token = node.getEndToken();
+    Token previous = token.getPrevious();
+    while (previous != null && previous != token && previous.getOffset() >= offset) {
+      token = previous;
+      previous = token.getPrevious();
+    }
+    return token;
+  }
+
+  /**
+   * Return the offset of the first character of the given token, including any comments that
+   * precede it.
+   * 
+   * @param token the token whose offset is to be returned
+   * @return the offset of the first character of the given token or its preceding comments
+   */
+  private static int getStart(Token token) {
+    Token comment = token.getPrecedingComments();
+    if (comment != null) {
+      return comment.getOffset();
+    }
+    return token.getOffset();
+  }
+
+  /**
+   * The source being parsed.
+   */
+  private final Source source;
+
+  /**
+   * The node that was replaced by the most recent successful reparse, or {@code null} if no node
+   * was replaced.
+   */
+  private ASTNode oldNode;
+
+  /**
+   * The node that replaced the old node in the most recent successful reparse, or {@code null} if
+   * no node was replaced.
+   */
+  private ASTNode newNode;
+
+  /**
+   * Initialize a newly created parser to reparse compilation units produced from the given source.
+   * 
+   * @param source the source being parsed
+   */
+  public IncrementalParser(Source source) {
+    this.source = source;
+  }
+
+  /**
+   * Return the node that replaced the old node in the copy of the compilation unit produced by the
+   * most recent successful reparse, or {@code null} if no node was replaced because the contents
+   * had not changed.
+   * 
+   * @return the node that was produced by the most recent successful reparse
+   */
+  public ASTNode getNewNode() {
+    return newNode;
+  }
+
+  /**
+   * Return the node in the original compilation unit that was replaced by the most recent
+   * successful reparse, or {@code null} if no node was replaced because the contents had not
+   * changed.
+   * 
+   * @return the node that was replaced by the most recent successful reparse
+   */
+  public ASTNode getOldNode() {
+    return oldNode;
+  }
+
+  /**
+   * Return a compilation unit representing the given new contents of the source, produced by
+   * applying the edit to a copy of the given compilation unit, which was parsed from the given old
+   * contents of the source, or {@code null} if the edit could not be applied incrementally. The
+   * given compilation unit is not modified.
+   * 
+   * @param unit the compilation unit that was parsed from the old contents
+   * @param oldContents the contents of the source from which the compilation unit was parsed
+   * @param newContents the contents of the source after the edit
+   * @return a compilation unit representing the new contents
+   */
+  public CompilationUnit reparse(CompilationUnit unit, CharSequence oldContents,
+      CharSequence newContents) {
+    oldNode = null;
+    newNode = null;
+    Token beginToken = unit.getBeginToken();
+    if (unit.getLineInfo() == null
+        || (beginToken.getType() != TokenType.EOF && beginToken.getNext() == null)) {
+      // The token stream has been compacted, so it can no longer be updated.
+      return null;
+    }
+    //
+    // Compute the range of characters that were changed.
+    //
+    int oldLength = oldContents.length();
+    int newLength = newContents.length();
+    int minLength = Math.min(oldLength, newLength);
+    int start = 0;
+    while (start < minLength && oldContents.charAt(start) == newContents.charAt(start)) {
+      start++;
+    }
+    if (start == oldLength && start == newLength) {
+      return new ASTCloner().cloneUnit(unit);
+    }
+    int oldEnd = oldLength;
+    int newEnd = newLength;
+    while (oldEnd > start && newEnd > start
+        && oldContents.charAt(oldEnd - 1) == newContents.charAt(newEnd - 1)) {
+      oldEnd--;
+      newEnd--;
+    }
+    int delta = newLength - oldLength;
+    //
+    // Find the smallest declaration enclosing the change and reparse it.
+    //
+    for (CompilationUnitMember member : unit.getDeclarations()) {
+      if (member.getOffset() <= start && oldEnd <= member.getEnd()) {
+        if (member instanceof FunctionDeclaration) {
+          FunctionExpression function = ((FunctionDeclaration) member).getFunctionExpression();
+          if (function != null) {
+            CompilationUnit result = reparseBody(
+                unit,
+                function,
+                function.getBody(),
+                newContents,
+                start,
+                oldEnd,
+                delta);
+            if (result != null) {
+              return result;
+            }
+          }
+        } else if (member instanceof ClassDeclaration) {
+          ClassDeclaration classDeclaration = (ClassDeclaration) member;
+          for (ClassMember classMember : classDeclaration.getMembers()) {
+            if (classMember.getOffset() <= start && oldEnd <= classMember.getEnd()) {
+              CompilationUnit result = reparseClassMember(
+                  unit,
+                  classDeclaration,
+                  classMember,
+                  newContents,
+                  start,
+                  oldEnd,
+                  delta);
+              if (result != null) {
+                return result;
+              }
+              break;
+            }
+          }
+        }
+        return reparseNode(unit, member, null, newContents, start, oldEnd, delta);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the line starts of the compilation unit after the tokens in the given range of the old
+   * contents have been replaced by the tokens produced by the given scanner.
+   * 
+   * @param oldLineStarts the line starts of the old contents
+   * @param regionStart the offset of the first character of the range
+   * @param oldRegionEnd the offset of the character following the range in the old contents
+   * @param scanner the scanner that produced the replacement tokens
+   * @param delta the number of characters by which the following tokens were moved
+   * @return the line starts of the new contents
+   */
+  private int[] computeLineStarts(int[] oldLineStarts, int regionStart, int oldRegionEnd,
+      IncrementalScanner scanner, int delta) {
+    IntList lineStarts = new IntList(oldLineStarts.length);
+    int index = 0;
+    while (index < oldLineStarts.length && oldLineStarts[index] <= regionStart) {
+      lineStarts.add(oldLineStarts[index++]);
+    }
+    for (int lineStart : scanner.getLineStarts()) {
+      lineStarts.add(lineStart);
+    }
+    while (index < oldLineStarts.length && oldLineStarts[index] < oldRegionEnd) {
+      index++;
+    }
+    while (index < oldLineStarts.length) {
+      lineStarts.add(oldLineStarts[index++] + delta);
+    }
+    return lineStarts.toArray();
+  }
+
+  /**
+   * Attempt to reparse the given function body, which must be a block whose braces enclose the
+   * change.
+   * 
+   * @return the updated copy of the compilation unit, or {@code null} if it could not be updated
+   */
+  private CompilationUnit reparseBody(CompilationUnit unit, ASTNode owner, FunctionBody body,
+      CharSequence newContents, int start, int oldEnd, int delta) {
+    if (!(body instanceof BlockFunctionBody)) {
+      return null;
+    }
+    Block block = ((BlockFunctionBody) body).getBlock();
+    if (block.getLeftBracket().getEnd() > start || oldEnd > block.getRightBracket().getOffset()) {
+      return null;
+    }
+    return reparseNode(unit, body, owner, newContents, start, oldEnd, delta);
+  }
+
+  /**
+   * Attempt to reparse the given class member, either by reparsing its body or by reparsing the
+   * whole member.
+   * 
+   * @return the updated copy of the compilation unit, or {@code null} if it could not be updated
+   */
+  private CompilationUnit reparseClassMember(CompilationUnit unit,
+      ClassDeclaration classDeclaration, ClassMember member, CharSequence newContents, int start,
+      int oldEnd, int delta) {
+    CompilationUnit result = null;
+    if (member instanceof MethodDeclaration) {
+      MethodDeclaration method = (MethodDeclaration) member;
+      result = reparseBody(unit, method, method.getBody(), newContents, start, oldEnd, delta);
+    } else if (member instanceof ConstructorDeclaration) {
+      ConstructorDeclaration constructor = (ConstructorDeclaration) member;
+      result = reparseBody(
+          unit,
+          constructor,
+          constructor.getBody(),
+          newContents,
+          start,
+          oldEnd,
+          delta);
+    }
+    if (result != null) {
+      return result;
+    }
+    return reparseNode(unit, member, classDeclaration, newContents, start, oldEnd, delta);
+  }
+
+  /**
+   * Attempt to reparse the given node, which is either a function body, a class member or a
+   * compilation unit member.
+   * 
+   * @param unit the compilation unit containing the node
+   * @param node the node to be reparsed
+   * @param owner the node whose child is to be replaced, or {@code null} if the node is a
+   *          compilation unit member
+   * @param newContents the contents of the source after the edit
+   * @param start the offset of the first character that was changed
+   * @param oldEnd the offset of the character following the change in the old contents
+   * @param delta the number of characters that were inserted, or removed if negative
+   * @return the updated copy of the compilation unit, or {@code null} if it could not be updated
+   */
+  private CompilationUnit reparseNode(CompilationUnit unit, ASTNode node, ASTNode owner,
+      CharSequence newContents, int start, int oldEnd, int delta) {
+    //
+    // Determine the range of tokens to be replaced.
+    //
+    Token oldFirst = getFirstStreamToken(node);
+    Token oldLast = node.getEndToken();
+    if (oldFirst == unit.getBeginToken() || oldLast.getType() == TokenType.EOF) {
+      return null;
+    }
+    int regionStart = getStart(oldFirst);
+    int oldRegionEnd = oldLast.getEnd();
+    if (regionStart >= start || oldEnd >= oldRegionEnd) {
+      return null;
+    }
+    for (AnalysisError error : unit.getParsingErrors()) {
+      if (error.getOffset() >= oldRegionEnd) {
+        // The offsets of errors following the node cannot be updated.
+        return null;
+      }
+    }
+    if (!IncrementalScanner.isBalanced(oldFirst, oldLast)) {
+      return null;
+    }
+    //
+    // Scan and parse the replacement tokens.
+    //
+    IncrementalScanner scanner = new IncrementalScanner(source);
+    if (!scanner.scan(newContents, regionStart, oldRegionEnd + delta)) {
+      return null;
+    }
+    final ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
+    Parser parser = new Parser(source, new AnalysisErrorListener() {
+      @Override
+      public void onError(AnalysisError error) {
+        errors.add(error);
+      }
+    });
+    Token firstToken = scanner.getFirstToken();
+    ASTNode replacement;
+    if (node instanceof FunctionBody) {
+      replacement = parser.parseFunctionBody(firstToken, false, false);
+      if (!(replacement instanceof BlockFunctionBody)) {
+        return null;
+      }
+    } else {
+      if (owner instanceof ClassDeclaration) {
+        replacement = parser.parseClassMember(
+            firstToken,
+            ((ClassDeclaration) owner).getName().getName());
+      } else {
+        replacement = parser.parseCompilationUnitMember(firstToken);
+      }
+      if (!errors.isEmpty()) {
+        // Recovery could have consumed tokens beyond the member if the whole unit were parsed.
+        return null;
+      }
+    }
+    if (replacement == null || replacement.getEndToken() != scanner.getLastToken()) {
+      return null;
+    }
+    //
+    // Splice the replacement into a copy of the compilation unit.
+    //
+    ASTCloner cloner = new ASTCloner();
+    CompilationUnit copy = cloner.cloneUnit(unit);
+    ASTNode nodeCopy = cloner.getCopy(node);
+    ASTNode ownerCopy = cloner.getCopy(owner);
+    scanner.replace(cloner.getCopy(oldFirst), cloner.getCopy(oldLast), delta);
+    if (node instanceof FunctionBody) {
+      FunctionBody newBody = (FunctionBody) replacement;
+      if (ownerCopy instanceof MethodDeclaration) {
+        ((MethodDeclaration) ownerCopy).setBody(newBody);
+      } else if (ownerCopy instanceof ConstructorDeclaration) {
+        ((ConstructorDeclaration) ownerCopy).setBody(newBody);
+      } else {
+        ((FunctionExpression) ownerCopy).setBody(newBody);
+      }
+    } else if (ownerCopy instanceof ClassDeclaration) {
+      NodeList<ClassMember> members = ((ClassDeclaration) ownerCopy).getMembers();
+      members.set(members.indexOf(nodeCopy), (ClassMember) replacement);
+    } else {
+      NodeList<CompilationUnitMember> declarations = copy.getDeclarations();
+      declarations.set(declarations.indexOf(nodeCopy), (CompilationUnitMember) replacement);
+    }
+    copy.setLineInfo(new LineInfo(computeLineStarts(
+        unit.getLineInfo().getLineStarts(),
+        regionStart,
+        oldRegionEnd,
+        scanner,
+        delta)));
+    for (AnalysisError error : unit.getParsingErrors()) {
+      if (error.getOffset() < regionStart) {
+        errors.add(error);
+      }
+    }
+    copy.setParsingErrors(errors.toArray(new AnalysisError[errors.size()]));
+    oldNode = node;
+    newNode = replacement;
+    return copy;
+  }
+}
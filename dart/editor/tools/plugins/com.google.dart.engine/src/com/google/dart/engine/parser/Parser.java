@@ -83,6 +83,19 @@ public class Parser {
     this.errorListener = errorListener;
   }
 
+  /**
+   * Parse a class member, starting with the given token.
+   * 
+   * @param token the first token of the class member
+   * @param className the name of the class containing the member being parsed
+   * @return the class member that was parsed, or {@code null} if the tokens do not represent a
+   *         recognizable class member
+   */
+  public ClassMember parseClassMember(Token token, String className) {
+    currentToken = token;
+    return parseClassMember(className);
+  }
+
   /**
    * Parse a compilation unit, starting with the given token.
    * 
@@ -94,6 +107,19 @@ public class Parser {
     return parseCompilationUnit();
   }
 
+  /**
+   * Parse a compilation unit member, starting with the given token. Directives are not compilation
+   * unit members and cannot be parsed by this method.
+   * 
+   * @param token the first token of the compilation unit member
+   * @return the compilation unit member that was parsed, or {@code null} if the tokens do not
+   *         represent a recognizable compilation unit member
+   */
+  public CompilationUnitMember parseCompilationUnitMember(Token token) {
+    currentToken = token;
+    return parseCompilationUnitMember(parseCommentAndMetadata());
+  }
+
   /**
    * Parse an expression, starting with the given token.
    * 
@@ -106,6 +132,20 @@ public class Parser {
     return parseExpression();
   }
 
+  /**
+   * Parse a function body, starting with the given token.
+   * 
+   * @param token the first token of the function body
+   * @param mayBeEmpty {@code true} if the function body is allowed to be empty
+   * @param inExpression {@code true} if the function body is being parsed as part of an expression
+   *          and therefore does not have a terminating semicolon
+   * @return the function body that was parsed
+   */
+  public FunctionBody parseFunctionBody(Token token, boolean mayBeEmpty, boolean inExpression) {
+    currentToken = token;
+    return parseFunctionBody(mayBeEmpty, inExpression);
+  }
+
   /**
    * Parse a statement, starting with the given token.
    * 
@@ -13,6 +13,8 @@
  */
 package com.google.dart.engine.scanner;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.source.Source;
@@ -30,10 +32,28 @@ import java.util.List;
  * should be scanned as a single left-shift operator or as two left angle brackets. This scanner
  * does not have any context, so it always resolves such conflicts by scanning the longest possible
  * token.
+ * <p>
+ * The lexemes of identifiers are interned, so that the tokens for all of the occurrences of a given
+ * name share a single string, no matter how many sources they occur in. Keywords and identifiers
+ * are recognized by a hash code that is computed while their characters are being read. Keywords
+ * are looked up in a {@link KeywordTable}, and each scanner keeps a table of the identifiers it has
+ * already seen, so a string is only created for the first occurrence of each identifier in the
+ * source.
  * 
  * @coverage dart.engine.parser
  */
 public abstract class AbstractScanner {
+  /**
+   * The interner used to share the lexemes of identifiers between tokens. Lexemes are only weakly
+   * referenced by the interner, so names that no longer occur in any token can be reclaimed.
+   */
+  private static final Interner<String> LEXEME_INTERNER = Interners.newWeakInterner();
+
+  /**
+   * The number of slots in the table of identifiers when a scanner is created.
+   */
+  private static final int INITIAL_IDENTIFIER_TABLE_SIZE = 256;
+
   /**
    * The source being scanned.
    */
@@ -85,6 +105,23 @@ public abstract class AbstractScanner {
    */
   private boolean hasUnmatchedGroups = false;
 
+  /**
+   * A flag indicating whether comments other than documentation comments should be added to the
+   * token stream.
+   */
+  private boolean preserveComments = true;
+
+  /**
+   * An open-addressing hash table containing the lexemes of the identifiers that have been scanned,
+   * indexed by their hash codes. Empty slots are {@code null}.
+   */
+  private String[] identifiers = new String[INITIAL_IDENTIFIER_TABLE_SIZE];
+
+  /**
+   * The number of lexemes in the table of identifiers.
+   */
+  private int identifierCount = 0;
+
   /**
    * A non-breaking space, which is allowed by this scanner as a white-space character.
    */
@@ -133,6 +170,18 @@ public abstract class AbstractScanner {
     return hasUnmatchedGroups;
   }
 
+  /**
+   * Set whether comments other than documentation comments should be added to the token stream.
+   * Comments are preserved by default. Clients that only need the token stream in order to parse
+   * and resolve the source, rather than to display or edit it, can discard them to reduce the
+   * amount of memory used by the token stream.
+   * 
+   * @param preserveComments {@code true} if all comments should be added to the token stream
+   */
+  public void setPreserveComments(boolean preserveComments) {
+    this.preserveComments = preserveComments;
+  }
+
   /**
    * Scan the source code to produce a list of tokens representing the source.
    * 
@@ -154,6 +203,15 @@ public abstract class AbstractScanner {
    */
   protected abstract int advance();
 
+  /**
+   * Return the character at the given offset, which must be the offset of a character that has
+   * already been read, without changing the current position.
+   * 
+   * @param offset the offset of the character, relative to the start of the file
+   * @return the character at the given offset
+   */
+  protected abstract int charAt(int offset);
+
   /**
    * Return the substring of the source code between the start offset and the modified current
    * position. The current position is modified by adding the end delta.
@@ -194,6 +252,9 @@ public abstract class AbstractScanner {
   }
 
   private void appendCommentToken(TokenType type, String value) {
+    if (!preserveComments && !isDocumentationComment(value)) {
+      return;
+    }
     if (firstComment == null) {
       firstComment = new StringToken(type, value, tokenStart);
       lastComment = firstComment;
@@ -324,7 +385,7 @@ public abstract class AbstractScanner {
     }
 
     if (('A' <= next && next <= 'Z') || next == '_' || next == '$') {
-      return tokenizeIdentifier(next, getOffset(), true);
+      return tokenizeIdentifier(next, getOffset(), 0, true);
     }
 
     if (next == '<') {
@@ -468,7 +529,7 @@ public abstract class AbstractScanner {
     }
 
     if (Character.isLetter(next)) {
-      return tokenizeIdentifier(next, getOffset(), true);
+      return tokenizeIdentifier(next, getOffset(), 0, true);
     }
 
     // The following are non-ASCII characters.
@@ -512,6 +573,17 @@ public abstract class AbstractScanner {
     return tokens.getNext();
   }
 
+  /**
+   * Return the offset one past the last character of the token being scanned, given the character
+   * that follows the token.
+   * 
+   * @param next the character following the token, or {@code -1} if the token ends the source
+   * @return the offset one past the last character of the token
+   */
+  private int getEnd(int next) {
+    return next < 0 ? getOffset() + 1 : getOffset();
+  }
+
   /**
    * Return the source being scanned.
    * 
@@ -521,6 +593,85 @@ public abstract class AbstractScanner {
     return source;
   }
 
+  /**
+   * Return the lexeme of the identifier that starts at the given offset and ends before the given
+   * character, whose characters have the given hash code. A string is only created the first time
+   * a given identifier is scanned; later occurrences are found in the table of identifiers by
+   * comparing their characters with those of the lexemes in the table.
+   * 
+   * @param start the offset of the first character of the identifier
+   * @param next the character following the identifier, or {@code -1} if the identifier ends the
+   *          source
+   * @param hashCode the hash code of the identifier, as computed by {@link String#hashCode()}
+   * @return the lexeme of the identifier
+   */
+  private String internIdentifier(int start, int next, int hashCode) {
+    int length = getEnd(next) - start;
+    int mask = identifiers.length - 1;
+    int index = (hashCode ^ (hashCode >>> 16)) & mask;
+    String identifier = identifiers[index];
+    while (identifier != null) {
+      if (identifier.hashCode() == hashCode && identifier.length() == length
+          && matches(identifier, start)) {
+        return identifier;
+      }
+      index = (index + 1) & mask;
+      identifier = identifiers[index];
+    }
+    identifier = LEXEME_INTERNER.intern(getString(start, next < 0 ? 0 : -1));
+    identifiers[index] = identifier;
+    identifierCount++;
+    if (identifierCount * 2 > identifiers.length) {
+      rehashIdentifiers();
+    }
+    return identifier;
+  }
+
+  /**
+   * Return {@code true} if the given comment is a documentation comment, which is needed by the
+   * parser even when other comments are being discarded.
+   */
+  private boolean isDocumentationComment(String comment) {
+    return comment.startsWith("/**") || comment.startsWith("///");
+  }
+
+  /**
+   * Return {@code true} if the characters starting at the given offset are the same as the
+   * characters in the given string.
+   * 
+   * @param string the string whose characters are being compared
+   * @param start the offset of the first character to be compared
+   * @return {@code true} if the characters starting at the given offset match the string
+   */
+  private boolean matches(String string, int start) {
+    int length = string.length();
+    for (int i = 0; i < length; i++) {
+      if (charAt(start + i) != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Double the number of slots in the table of identifiers.
+   */
+  private void rehashIdentifiers() {
+    String[] oldIdentifiers = identifiers;
+    identifiers = new String[oldIdentifiers.length * 2];
+    int mask = identifiers.length - 1;
+    for (String identifier : oldIdentifiers) {
+      if (identifier != null) {
+        int hashCode = identifier.hashCode();
+        int index = (hashCode ^ (hashCode >>> 16)) & mask;
+        while (identifiers[index] != null) {
+          index = (index + 1) & mask;
+        }
+        identifiers[index] = identifier;
+      }
+    }
+  }
+
   /**
    * Report an error at the current offset.
    * 
@@ -724,16 +875,18 @@ public abstract class AbstractScanner {
     return tokenizeNumber(next);
   }
 
-  private int tokenizeIdentifier(int next, int start, boolean allowDollar) {
+  private int tokenizeIdentifier(int next, int start, int hashCode, boolean allowDollar) {
     while (('a' <= next && next <= 'z') || ('A' <= next && next <= 'Z')
         || ('0' <= next && next <= '9') || next == '_' || (next == '$' && allowDollar)
         || Character.isLetterOrDigit(next)) {
+      hashCode = 31 * hashCode + next;
       next = advance();
     }
-    appendStringToken(TokenType.IDENTIFIER, getString(start, next < 0 ? 0 : -1));
+    appendStringToken(TokenType.IDENTIFIER, internIdentifier(start, next, hashCode));
     return next;
   }
 
+
   private int tokenizeInterpolatedExpression(int next, int start) {
     appendBeginToken(TokenType.STRING_INTERPOLATION_EXPRESSION);
     next = advance();
@@ -779,25 +932,24 @@ public abstract class AbstractScanner {
   }
 
   private int tokenizeKeywordOrIdentifier(int next, boolean allowDollar) {
-    KeywordState state = KeywordState.KEYWORD_STATE;
     int start = getOffset();
-    while (state != null && 'a' <= next && next <= 'z') {
-      state = state.next((char) next);
+    int hashCode = 0;
+    while ('a' <= next && next <= 'z') {
+      hashCode = 31 * hashCode + next;
       next = advance();
     }
-    if (state == null || state.keyword() == null) {
-      return tokenizeIdentifier(next, start, allowDollar);
-    }
-    if (('A' <= next && next <= 'Z') || ('0' <= next && next <= '9') || next == '_' || next == '$') {
-      return tokenizeIdentifier(next, start, allowDollar);
-    } else if (next < 128) {
-      appendKeywordToken(state.keyword());
-      return next;
-    } else {
-      return tokenizeIdentifier(next, start, allowDollar);
+    if (next < 128 && !(('A' <= next && next <= 'Z') || ('0' <= next && next <= '9')
+        || next == '_' || next == '$')) {
+      Keyword keyword = KeywordTable.KEYWORD_TABLE.getCandidate(hashCode, getEnd(next) - start);
+      if (keyword != null && matches(keyword.getSyntax(), start)) {
+        appendKeywordToken(keyword);
+        return next;
+      }
     }
+    return tokenizeIdentifier(next, start, hashCode, allowDollar);
   }
 
+
   private int tokenizeLessThan(int next) {
     // < <= << <<=
     next = advance();
@@ -37,6 +37,18 @@ public class BeginToken extends Token {
         || type == TokenType.OPEN_SQUARE_BRACKET || type == TokenType.STRING_INTERPOLATION_EXPRESSION);
   }
 
+  /**
+   * Return a newly created token that is a copy of this token but that is not a part of any token
+   * stream. The token corresponding to this token is not copied, so the copy does not have a
+   * corresponding token until one is {@link #setEndToken(Token) set}.
+   * 
+   * @return a newly created token that is a copy of this token
+   */
+  @Override
+  public Token copy() {
+    return new BeginToken(getType(), getOffset());
+  }
+
   /**
    * Return the token that corresponds to this token.
    * 
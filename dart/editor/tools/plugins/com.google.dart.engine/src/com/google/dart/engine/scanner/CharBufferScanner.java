@@ -67,6 +67,11 @@ public class CharBufferScanner extends AbstractScanner {
     return buffer.charAt(++charOffset);
   }
 
+  @Override
+  protected int charAt(int offset) {
+    return buffer.charAt(offset);
+  }
+
   @Override
   protected String getString(int start, int endDelta) {
     return buffer.subSequence(start, charOffset + 1 + endDelta).toString();
@@ -74,7 +79,7 @@ public class CharBufferScanner extends AbstractScanner {
 
   @Override
   protected int peek() {
-    if (charOffset + 1 >= buffer.length()) {
+    if (charOffset + 1 >= bufferLength) {
       return -1;
     }
     return buffer.charAt(charOffset + 1);
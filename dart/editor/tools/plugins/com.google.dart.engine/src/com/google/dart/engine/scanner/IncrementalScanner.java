@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.collection.IntList;
+
+/**
+ * Instances of the class {@code IncrementalScanner} rescan a range of the contents of a source that
+ * has been edited and splice the resulting tokens into the token stream that was produced for the
+ * original contents, so that only the damaged part of the source needs to be scanned again.
+ * <p>
+ * The range is scanned in isolation, so it must begin and end on token boundaries that were not
+ * affected by the edit. A range can only be spliced into the original token stream if it could be
+ * scanned without errors and if every grouping token in it is matched within the range, because
+ * otherwise scanning the whole source could have produced different tokens, such as when the edit
+ * opens a comment or a string that extends beyond the range.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class IncrementalScanner {
+  /**
+   * Return {@code true} if every grouping token between the given tokens, inclusive, is matched by
+   * a token that is also between the given tokens.
+   * 
+   * @param firstToken the first token in the range of tokens
+   * @param lastToken the last token in the range of tokens
+   * @return {@code true} if every grouping token in the range is matched within the range
+   */
+  public static boolean isBalanced(Token firstToken, Token lastToken) {
+    int lastOffset = lastToken.getOffset();
+    int beginCount = 0;
+    int endCount = 0;
+    Token token = firstToken;
+    while (true) {
+      if (token instanceof BeginToken) {
+        Token endToken = ((BeginToken) token).getEndToken();
+        if (endToken == null || endToken.getOffset() > lastOffset) {
+          return false;
+        }
+        beginCount++;
+      } else {
+        TokenType type = token.getType();
+        if (type == TokenType.CLOSE_CURLY_BRACKET || type == TokenType.CLOSE_PAREN
+            || type == TokenType.CLOSE_SQUARE_BRACKET) {
+          endCount++;
+        }
+      }
+      if (token == lastToken) {
+        return beginCount == endCount;
+      }
+      token = token.getNext();
+      if (token == null || token.getType() == TokenType.EOF) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Move the given token, and the comments that precede it, by the given number of characters.
+   * 
+   * @param token the token to be moved
+   * @param delta the number of characters by which the token is to be moved
+   */
+  private static void move(Token token, int delta) {
+    token.setOffset(token.getOffset() + delta);
+    Token comment = token.getPrecedingComments();
+    while (comment != null) {
+      comment.setOffset(comment.getOffset() + delta);
+      comment = comment.getNext();
+    }
+  }
+
+  /**
+   * The source being scanned.
+   */
+  private final Source source;
+
+  /**
+   * The token preceding the first token that was scanned. This is used, rather than remembering the
+   * first token, because the parser can replace tokens in the stream.
+   */
+  private Token headToken;
+
+  /**
+   * The end-of-file token following the last token that was scanned.
+   */
+  private Token eofToken;
+
+  /**
+   * The offsets of the first character of each line that starts within the range that was scanned.
+   */
+  private int[] lineStarts;
+
+  /**
+   * The number of errors that were found while scanning the range.
+   */
+  private int errorCount;
+
+  /**
+   * Initialize a newly created scanner to rescan ranges of the given source.
+   * 
+   * @param source the source being scanned
+   */
+  public IncrementalScanner(Source source) {
+    this.source = source;
+  }
+
+  /**
+   * Return the first token that was scanned.
+   * 
+   * @return the first token that was scanned
+   */
+  public Token getFirstToken() {
+    return headToken.getNext();
+  }
+
+  /**
+   * Return the last token that was scanned.
+   * 
+   * @return the last token that was scanned
+   */
+  public Token getLastToken() {
+    return eofToken.getPrevious();
+  }
+
+  /**
+   * Return an array containing the offsets of the first character of each line that starts within
+   * the range that was scanned.
+   * 
+   * @return the offsets of the lines that start within the range that was scanned
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
+  /**
+   * Replace the tokens between the given tokens, inclusive, in the token stream containing them by
+   * the tokens that were scanned, and move all of the tokens following them by the given number of
+   * characters.
+   * 
+   * @param firstToken the first token to be replaced
+   * @param lastToken the last token to be replaced
+   * @param delta the number of characters by which the following tokens are to be moved
+   */
+  public void replace(Token firstToken, Token lastToken, int delta) {
+    Token previousToken = firstToken.getPrevious();
+    Token nextToken = lastToken.getNext();
+    previousToken.setNext(getFirstToken());
+    getLastToken().setNext(nextToken);
+    if (delta != 0) {
+      Token token = nextToken;
+      while (true) {
+        move(token, delta);
+        if (token.getType() == TokenType.EOF) {
+          break;
+        }
+        token = token.getNext();
+      }
+    }
+  }
+
+  /**
+   * Scan the characters in the given range of the given contents in isolation. Return {@code true}
+   * if the range contains at least one token, could be scanned without errors and every grouping
+   * token in it is matched within the range, in which case the tokens can be used to replace the
+   * tokens for the same range in the original token stream.
+   * 
+   * @param contents the contents of the source after the edit
+   * @param start the offset of the first character in the range
+   * @param end the offset of the character following the range
+   * @return {@code true} if the range could be scanned in isolation
+   */
+  public boolean scan(CharSequence contents, int start, int end) {
+    errorCount = 0;
+    StringScanner scanner = new StringScanner(
+        source,
+        contents.subSequence(start, end).toString(),
+        new AnalysisErrorListener() {
+          @Override
+          public void onError(AnalysisError error) {
+            errorCount++;
+          }
+        });
+    if (start > 0) {
+      scanner.setSourceStart(1, 1, start);
+    }
+    Token firstToken = scanner.tokenize();
+    if (errorCount > 0 || firstToken.getType() == TokenType.EOF) {
+      return false;
+    }
+    headToken = firstToken.getPrevious();
+    Token lastToken = firstToken;
+    while (lastToken.getNext().getType() != TokenType.EOF) {
+      lastToken = lastToken.getNext();
+    }
+    eofToken = lastToken.getNext();
+    if (!isBalanced(firstToken, lastToken)) {
+      return false;
+    }
+    IntList rangeLineStarts = new IntList();
+    for (int lineStart : scanner.getLineStarts()) {
+      if (start < lineStart && lineStart < end) {
+        rangeLineStarts.add(lineStart);
+      }
+    }
+    lineStarts = rangeLineStarts.toArray();
+    return true;
+  }
+}
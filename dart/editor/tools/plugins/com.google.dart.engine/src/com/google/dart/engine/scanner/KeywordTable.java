@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+/**
+ * Instances of the class {@code KeywordTable} implement a perfect hash table used to recognize
+ * keywords.
+ * <p>
+ * The table is indexed by the hash code of a word, computed in the same way as by
+ * {@link String#hashCode()}, so that the scanner can compute it while it reads the characters of
+ * the word, without first creating a string. The table is built so that no two keywords occupy the
+ * same slot, which means that a word can only be a keyword if it is the keyword in the slot
+ * selected by its hash code. Because words that are not keywords can select an occupied slot, the
+ * characters of the word still need to be compared with the syntax of the candidate keyword.
+ * 
+ * @coverage dart.engine.parser
+ */
+public final class KeywordTable {
+  /**
+   * The maximum number of slots that a table is allowed to have.
+   */
+  private static final int MAX_SIZE = 1 << 12;
+
+  /**
+   * The table used to recognize all of the keywords.
+   */
+  public static final KeywordTable KEYWORD_TABLE = createKeywordTable();
+
+  /**
+   * Return the index of the slot selected by the given hash code in a table with the given mask
+   * when the high-order bits are folded into the low-order bits using the given shift.
+   * 
+   * @param hashCode the hash code of the word
+   * @param shift the number of bits by which the hash code is shifted before being folded
+   * @param mask the mask used to select the low-order bits of the folded hash code
+   * @return the index of the slot selected by the given hash code
+   */
+  private static int computeIndex(int hashCode, int shift, int mask) {
+    return (hashCode ^ (hashCode >>> shift)) & mask;
+  }
+
+  /**
+   * Create a table containing all of the keywords. The smallest table, and for that size the
+   * smallest shift, in which no two keywords occupy the same slot is used.
+   * 
+   * @return the table that was created
+   */
+  private static KeywordTable createKeywordTable() {
+    Keyword[] keywords = Keyword.values();
+    int size = Integer.highestOneBit(keywords.length * 2 - 1) << 1;
+    while (size <= MAX_SIZE) {
+      for (int shift = 1; shift < 32; shift++) {
+        Keyword[] table = new Keyword[size];
+        if (fill(table, keywords, shift)) {
+          return new KeywordTable(table, shift);
+        }
+      }
+      size <<= 1;
+    }
+    throw new IllegalStateException("Could not build a perfect hash table for the keywords");
+  }
+
+  /**
+   * Attempt to place each of the given keywords in its own slot of the given table using the given
+   * shift, returning {@code true} if no two keywords selected the same slot.
+   * 
+   * @param table the table in which the keywords are to be placed
+   * @param keywords the keywords to be placed in the table
+   * @param shift the shift used to compute the index of the slot for each keyword
+   * @return {@code true} if each of the keywords was placed in its own slot
+   */
+  private static boolean fill(Keyword[] table, Keyword[] keywords, int shift) {
+    int mask = table.length - 1;
+    for (Keyword keyword : keywords) {
+      int index = computeIndex(keyword.getSyntax().hashCode(), shift, mask);
+      if (table[index] != null) {
+        return false;
+      }
+      table[index] = keyword;
+    }
+    return true;
+  }
+
+  /**
+   * A table mapping slot indexes to the keyword in that slot, or {@code null} if the slot is empty.
+   */
+  private final Keyword[] table;
+
+  /**
+   * The number of bits by which hash codes are shifted before being folded.
+   */
+  private final int shift;
+
+  /**
+   * The mask used to select the slot for a folded hash code.
+   */
+  private final int mask;
+
+  /**
+   * Initialize a newly created table to contain the given slots.
+   * 
+   * @param table a table mapping slot indexes to the keyword in that slot
+   * @param shift the number of bits by which hash codes are shifted before being folded
+   */
+  private KeywordTable(Keyword[] table, int shift) {
+    this.table = table;
+    this.shift = shift;
+    this.mask = table.length - 1;
+  }
+
+  /**
+   * Return the only keyword that could have the given hash code and length, or {@code null} if no
+   * keyword has the given hash code and length. The keyword that is returned is not guaranteed to
+   * have the same characters as the word being tested, so those must still be compared.
+   * 
+   * @param hashCode the hash code of the word, as computed by {@link String#hashCode()}
+   * @param length the number of characters in the word
+   * @return the keyword that could have the given hash code and length
+   */
+  public Keyword getCandidate(int hashCode, int length) {
+    Keyword keyword = table[computeIndex(hashCode, shift, mask)];
+    if (keyword == null) {
+      return null;
+    }
+    String syntax = keyword.getSyntax();
+    if (syntax.length() != length || syntax.hashCode() != hashCode) {
+      return null;
+    }
+    return keyword;
+  }
+
+  /**
+   * Return the number of slots in this table.
+   * 
+   * @return the number of slots in this table
+   */
+  public int getSize() {
+    return table.length;
+  }
+}
@@ -97,6 +97,11 @@ public class StringScanner extends AbstractScanner {
     return string.charAt(++charOffset);
   }
 
+  @Override
+  protected int charAt(int offset) {
+    return string.charAt(offset - offsetDelta);
+  }
+
   @Override
   protected String getString(int start, int endDelta) {
     return string.substring(start - offsetDelta, charOffset + 1 + endDelta);
@@ -104,7 +109,7 @@ public class StringScanner extends AbstractScanner {
 
   @Override
   protected int peek() {
-    if (charOffset + 1 >= string.length()) {
+    if (charOffset + 1 >= stringLength) {
       return -1;
     }
     return string.charAt(charOffset + 1);
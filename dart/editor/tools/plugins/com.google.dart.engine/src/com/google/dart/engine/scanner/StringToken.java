@@ -37,6 +37,11 @@ public class StringToken extends Token {
     this.value = value;
   }
 
+  @Override
+  public Token copy() {
+    return new StringToken(getType(), value, getOffset());
+  }
+
   @Override
   public String getLexeme() {
     return value;
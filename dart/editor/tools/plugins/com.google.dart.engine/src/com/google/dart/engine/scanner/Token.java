@@ -51,6 +51,16 @@ public class Token {
     this.offset = offset;
   }
 
+  /**
+   * Return a newly created token that is a copy of this token but that is not a part of any token
+   * stream.
+   * 
+   * @return a newly created token that is a copy of this token
+   */
+  public Token copy() {
+    return new Token(type, offset);
+  }
+
   /**
    * Return the offset from the beginning of the file to the character after last character of the
    * token.
@@ -206,6 +216,36 @@ public class Token {
     return type.getLexeme();
   }
 
+  /**
+   * Return a copy of the list of comments starting with the given comment, or {@code null} if the
+   * given comment is {@code null}.
+   * 
+   * @param token the first comment in the list of comments to be copied
+   * @return a copy of the list of comments starting with the given comment
+   */
+  protected Token copyComments(Token token) {
+    if (token == null) {
+      return null;
+    }
+    Token head = token.copy();
+    Token tail = head;
+    token = token.getNext();
+    while (token != null) {
+      tail = tail.setNext(token.copy());
+      token = token.getNext();
+    }
+    return head;
+  }
+
+  /**
+   * Remove the links between this token and the tokens that precede and follow it in the token
+   * stream.
+   */
+  void unlink() {
+    previous = null;
+    next = null;
+  }
+
   /**
    * Set the previous token in the token stream to the given token.
    * 
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+/**
+ * The class {@code TokenStreamCompactor} defines a utility for reducing the amount of memory
+ * retained by a token stream once it has been parsed.
+ * <p>
+ * The tokens produced by the scanner form a doubly linked list, so holding on to any one token, as
+ * every AST node does, holds on to the whole stream, including the tokens that are not referenced
+ * by any node, such as commas, the tokens of comments and the tokens that were skipped while
+ * recovering from errors. Compacting the stream removes the links between the tokens, so that only
+ * the tokens referenced by the AST remain reachable.
+ * <p>
+ * After a stream has been compacted {@link Token#getNext()} and {@link Token#getPrevious()} return
+ * {@code null} for each of its tokens. Compaction is therefore only appropriate for ASTs that are
+ * used for resolution and error reporting, and never for ASTs that will be displayed, formatted or
+ * edited.
+ * 
+ * @coverage dart.engine.parser
+ */
+public final class TokenStreamCompactor {
+  /**
+   * Remove the links between the tokens in the token stream starting with the given token.
+   * 
+   * @param token the first token in the token stream to be compacted
+   * @return the number of tokens in the token stream
+   */
+  public static int compact(Token token) {
+    int tokenCount = 0;
+    while (token != null) {
+      Token next = token.getNext();
+      token.unlink();
+      tokenCount++;
+      if (next == token) {
+        // The end-of-file token is linked to itself.
+        break;
+      }
+      token = next;
+    }
+    return tokenCount;
+  }
+
+  /**
+   * Prevent the creation of instances of this class.
+   */
+  private TokenStreamCompactor() {
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.element.LibraryElement;
+
+import java.util.List;
+
+/**
+ * Instances of the class {@code SearchCursor} are search listeners that allow a client to stop a
+ * search before all of the matches have been found.
+ * <p>
+ * When a cursor is passed as the listener to one of the asynchronous search methods of a
+ * {@link SearchEngine}, matches are streamed to the cursor as each index query completes, and the
+ * search engine stops querying the index as soon as the cursor has been canceled or has received
+ * the maximum number of matches. The index queries for a search are then performed one at a time,
+ * starting with those that involve the priority library, if there is one, and the matches found by
+ * each query are reported with those in the priority library first.
+ * <p>
+ * The matches received by a cursor are either passed on to a listener or, if the cursor was
+ * created without a listener, kept by the cursor. In either case the search is reported as
+ * complete exactly once, when the search engine has stopped querying the index, so the statistics
+ * kept by the cursor are final by the time the search is complete.
+ * <p>
+ * A cursor can only be used for a single search.
+ * 
+ * @coverage dart.engine.search
+ */
+public class SearchCursor implements SearchListener {
+  /**
+   * The maximum number of matches that will be reported.
+   */
+  private final int limit;
+
+  /**
+   * The listener to which matches are passed, or {@code null} if the matches are kept by this
+   * cursor.
+   */
+  private final SearchListener listener;
+
+  /**
+   * The matches that have been found so far, or {@code null} if the matches are passed to a
+   * listener.
+   */
+  private final List<SearchMatch> matches;
+
+  /**
+   * The library whose matches should be reported first, or {@code null} if there is no preferred
+   * library.
+   */
+  private LibraryElement priorityLibrary;
+
+  /**
+   * A flag indicating whether the search has been canceled.
+   */
+  private volatile boolean canceled = false;
+
+  /**
+   * A flag indicating whether the search has been reported as complete.
+   */
+  private volatile boolean complete = false;
+
+  /**
+   * The number of matches that have been reported.
+   */
+  private int matchCount = 0;
+
+  /**
+   * The number of index queries that have been performed.
+   */
+  private int queryCount = 0;
+
+  /**
+   * The number of index queries that were not performed because the search was stopped early.
+   */
+  private int skippedQueryCount = 0;
+
+  /**
+   * The number of locations returned by the index that have been examined.
+   */
+  private int locationCount = 0;
+
+  /**
+   * The number of examined locations that were outside of the scope of the search.
+   */
+  private int outOfScopeCount = 0;
+
+  /**
+   * Initialize a newly created cursor to keep at most the given number of matches.
+   * 
+   * @param limit the maximum number of matches that will be kept
+   */
+  public SearchCursor(int limit) {
+    this(limit, null);
+  }
+
+  /**
+   * Initialize a newly created cursor to pass at most the given number of matches to the given
+   * listener.
+   * 
+   * @param limit the maximum number of matches that will be passed to the listener
+   * @param listener the listener to which matches are passed, or {@code null} if the matches should
+   *          be kept by this cursor
+   */
+  public SearchCursor(int limit, SearchListener listener) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The limit must be positive: " + limit);
+    }
+    this.limit = limit;
+    this.listener = listener;
+    this.matches = listener == null ? Lists.<SearchMatch> newArrayList() : null;
+  }
+
+  /**
+   * Cancel the search. No more matches will be reported, and the search engine will stop querying
+   * the index once the query that is currently being performed, if any, has completed.
+   */
+  public void cancel() {
+    canceled = true;
+  }
+
+  /**
+   * Return the number of locations returned by the index that have been examined.
+   * 
+   * @return the number of locations that have been examined
+   */
+  public synchronized int getLocationCount() {
+    return locationCount;
+  }
+
+  /**
+   * Return the number of matches that have been reported.
+   * 
+   * @return the number of matches that have been reported
+   */
+  public synchronized int getMatchCount() {
+    return matchCount;
+  }
+
+  /**
+   * Return the matches that have been kept by this cursor, in the order in which they were found.
+   * The list is empty if the matches are passed to a listener.
+   * 
+   * @return the matches that have been kept by this cursor
+   */
+  public synchronized List<SearchMatch> getMatches() {
+    if (matches == null) {
+      return Lists.newArrayList();
+    }
+    return Lists.newArrayList(matches);
+  }
+
+  /**
+   * Return the number of examined locations that were outside of the scope of the search.
+   * 
+   * @return the number of locations that were outside of the scope of the search
+   */
+  public synchronized int getOutOfScopeCount() {
+    return outOfScopeCount;
+  }
+
+  /**
+   * Return the library whose matches should be reported first, or {@code null} if there is no
+   * preferred library.
+   * 
+   * @return the library whose matches should be reported first
+   */
+  public LibraryElement getPriorityLibrary() {
+    return priorityLibrary;
+  }
+
+  /**
+   * Return the number of index queries that have been performed.
+   * 
+   * @return the number of index queries that have been performed
+   */
+  public synchronized int getQueryCount() {
+    return queryCount;
+  }
+
+  /**
+   * Return the number of index queries that were not performed because the search was stopped
+   * before all of the matches had been found.
+   * 
+   * @return the number of index queries that were not performed
+   */
+  public synchronized int getSkippedQueryCount() {
+    return skippedQueryCount;
+  }
+
+  /**
+   * Return {@code true} if the search has been canceled.
+   * 
+   * @return {@code true} if the search has been canceled
+   */
+  public boolean isCanceled() {
+    return canceled;
+  }
+
+  /**
+   * Return {@code true} if the search has been reported as complete.
+   * 
+   * @return {@code true} if the search has been reported as complete
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Return {@code true} if no more matches will be reported, either because the search has been
+   * canceled or because the maximum number of matches has been reached.
+   * 
+   * @return {@code true} if no more matches will be reported
+   */
+  public synchronized boolean isDone() {
+    return canceled || matchCount >= limit;
+  }
+
+  @Override
+  public void matchFound(SearchMatch match) {
+    synchronized (this) {
+      if (isDone()) {
+        return;
+      }
+      matchCount++;
+      if (matches != null) {
+        matches.add(match);
+      }
+    }
+    if (listener != null) {
+      listener.matchFound(match);
+    }
+  }
+
+  /**
+   * Record that the given number of locations were examined, of which the given number were outside
+   * of the scope of the search. This method is invoked by the search engine.
+   * 
+   * @param locationCount the number of locations that were examined
+   * @param outOfScopeCount the number of locations that were outside of the scope
+   */
+  public synchronized void recordLocations(int locationCount, int outOfScopeCount) {
+    this.locationCount += locationCount;
+    this.outOfScopeCount += outOfScopeCount;
+  }
+
+  /**
+   * Record that an index query was performed. This method is invoked by the search engine.
+   */
+  public synchronized void recordQuery() {
+    queryCount++;
+  }
+
+  /**
+   * Record that the given number of index queries were not performed because the search was
+   * stopped early. This method is invoked by the search engine.
+   * 
+   * @param count the number of index queries that were not performed
+   */
+  public synchronized void recordSkippedQueries(int count) {
+    skippedQueryCount += count;
+  }
+
+  @Override
+  public void searchComplete() {
+    synchronized (this) {
+      if (complete) {
+        return;
+      }
+      complete = true;
+      notifyAll();
+    }
+    if (listener != null) {
+      listener.searchComplete();
+    }
+  }
+
+  /**
+   * Set the library whose matches should be reported first to the given library.
+   * 
+   * @param library the library whose matches should be reported first, or {@code null} if there is
+   *          no preferred library
+   */
+  public void setPriorityLibrary(LibraryElement library) {
+    priorityLibrary = library;
+  }
+
+  /**
+   * Wait at most the given number of milliseconds for the search to be complete.
+   * 
+   * @param timeout the maximum number of milliseconds to wait
+   * @return {@code true} if the search is complete
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  public synchronized boolean waitForCompletion(long timeout) throws InterruptedException {
+    long end = System.currentTimeMillis() + timeout;
+    while (!complete) {
+      long remaining = end - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      wait(remaining);
+    }
+    return true;
+  }
+}
@@ -34,6 +34,10 @@ import java.util.List;
  * The interface <code>SearchEngine</code> defines the behavior of objects that can be used to
  * search for various pieces of information.
  * 
+ * The asynchronous search methods report matches to the given listener as they are found. If the
+ * listener is a {@link SearchCursor}, the search stops querying the index as soon as the cursor has
+ * been canceled or has received as many matches as it will accept.
+ * 
  * @coverage dart.engine.search
  */
 public interface SearchEngine {
@@ -23,6 +23,16 @@ import com.google.dart.engine.element.Element;
  * @coverage dart.engine.search
  */
 public interface SearchPattern {
+  /**
+   * Return a prefix with which the names of all of the elements matching this pattern start,
+   * ignoring case, or an empty string if no such prefix is known. This allows the elements that
+   * might match this pattern to be looked up by name in an index rather than being matched one at a
+   * time.
+   * 
+   * @return a prefix with which the names of all of the matching elements start
+   */
+  String getNamePrefix();
+
   /**
    * Return the quality of the match if the given element matches this pattern, or <code>null</code>
    * if the element does not match this pattern.
@@ -17,7 +17,7 @@ import java.util.HashMap;
 
 /**
  * Instances of class {@code ContentCache} hold content used to override the default content of a
- * {@link Source}.
+ * {@link Source}. Instances of this class are thread safe.
  * 
  * @coverage dart.engine.source
  */
@@ -51,7 +51,7 @@ public class ContentCache {
    * @param source the source whose content is to be returned
    * @return the contents of the given source
    */
-  public String getContents(Source source) {
+  public synchronized String getContents(Source source) {
     return contentMap.get(source);
   }
 
@@ -65,7 +65,7 @@ public class ContentCache {
    * @param source the source whose modification stamp is to be returned
    * @return the modification stamp of the given source
    */
-  public Long getModificationStamp(Source source) {
+  public synchronized Long getModificationStamp(Source source) {
     return stampMap.get(source);
   }
 
@@ -77,7 +77,7 @@ public class ContentCache {
    * @param source the source whose contents are being overridden
    * @param contents the new contents of the source
    */
-  public void setContents(Source source, String contents) {
+  public synchronized void setContents(Source source, String contents) {
     if (contents == null) {
       contentMap.remove(source);
       stampMap.remove(source);
@@ -16,12 +16,7 @@ package com.google.dart.engine.source;
 import com.google.dart.engine.context.AnalysisContext;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.net.URI;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.charset.Charset;
 
 /**
  * Instances of the class {@code FileBasedSource} implement a source that represents a file.
@@ -45,11 +40,6 @@ public class FileBasedSource implements Source {
    */
   private final boolean inSystemLibrary;
 
-  /**
-   * The character set used to decode bytes into characters.
-   */
-  private static final Charset UTF_8_CHARSET = Charset.forName("UTF-8");
-
   /**
    * Initialize a newly created source object. The source object is assumed to not be in a system
    * library.
@@ -101,34 +91,9 @@ public class FileBasedSource implements Source {
       return;
     }
     //
-    // If not, read the contents from the file.
+    // If not, read the contents from the file, or reuse them if the file has not changed.
     //
-    RandomAccessFile file = new RandomAccessFile(this.file, "r");
-    FileChannel channel = null;
-    ByteBuffer byteBuffer = null;
-    try {
-      channel = file.getChannel();
-      long size = channel.size();
-      if (size > Integer.MAX_VALUE) {
-        throw new IllegalStateException("File is too long to be read");
-      }
-      int length = (int) size;
-      byte[] bytes = new byte[length];
-      byteBuffer = ByteBuffer.wrap(bytes);
-      byteBuffer.position(0);
-      byteBuffer.limit(length);
-      channel.read(byteBuffer);
-    } finally {
-      if (channel != null) {
-        try {
-          channel.close();
-        } catch (IOException exception) {
-          // Ignored
-        }
-      }
-    }
-    byteBuffer.rewind();
-    receiver.accept(UTF_8_CHARSET.decode(byteBuffer));
+    receiver.accept(factory.getFileContents(file));
   }
 
   @Override
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instances of class {@code FileContentCache} hold the decoded contents of files so that files that
+ * are read repeatedly, such as the files in the SDK, are read and decoded only once. The contents
+ * of a file are cached together with its modification time and length, and are re-read when either
+ * of them changes. The least recently used contents are evicted when the total number of cached
+ * characters exceeds the maximum size of the cache. Instances of this class are thread safe.
+ * 
+ * @coverage dart.engine.source
+ */
+public class FileContentCache {
+  /**
+   * Information about the cached contents of a single file.
+   */
+  private static class CacheEntry {
+    /**
+     * The modification time of the file when it was read.
+     */
+    private final long modificationTime;
+
+    /**
+     * The length of the file in bytes when it was read.
+     */
+    private final long length;
+
+    /**
+     * The decoded contents of the file.
+     */
+    private final CharBuffer contents;
+
+    public CacheEntry(long modificationTime, long length, CharBuffer contents) {
+      this.modificationTime = modificationTime;
+      this.length = length;
+      this.contents = contents;
+    }
+  }
+
+  /**
+   * The default maximum number of characters held in a cache.
+   */
+  public static final int DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * The character set used to decode bytes into characters.
+   */
+  private static final Charset UTF_8_CHARSET = Charset.forName("UTF-8");
+
+  /**
+   * Decode the given bytes as UTF-8. Files that contain only ASCII characters, which is the case
+   * for most Dart files, are decoded without using a charset decoder.
+   * 
+   * @param bytes the bytes to be decoded, from the current position to the limit
+   * @return the decoded characters
+   */
+  static CharBuffer decode(ByteBuffer bytes) {
+    int start = bytes.position();
+    int length = bytes.remaining();
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      byte b = bytes.get(start + i);
+      if (b < 0) {
+        return UTF_8_CHARSET.decode(bytes);
+      }
+      chars[i] = (char) b;
+    }
+    return CharBuffer.wrap(chars);
+  }
+
+  /**
+   * The maximum number of characters held in this cache.
+   */
+  private final int maxSize;
+
+  /**
+   * A table mapping files to the cached contents of those files, in access order.
+   */
+  private final LinkedHashMap<File, CacheEntry> entryMap = new LinkedHashMap<File, CacheEntry>(
+      64,
+      0.75f,
+      true);
+
+  /**
+   * The number of characters currently held in this cache.
+   */
+  private long size = 0L;
+
+  /**
+   * Initialize a newly created cache to be empty and to hold at most {@link #DEFAULT_MAX_SIZE}
+   * characters.
+   */
+  public FileContentCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Initialize a newly created cache to be empty.
+   * 
+   * @param maxSize the maximum number of characters held in the cache
+   */
+  public FileContentCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Remove all contents from this cache.
+   */
+  public synchronized void clear() {
+    entryMap.clear();
+    size = 0L;
+  }
+
+  /**
+   * Return the contents of the given file. The cached contents are returned if the file has not
+   * been modified since it was read, otherwise the file is read and its contents are cached. The
+   * returned buffer is read-only and is positioned at the beginning of the contents.
+   * 
+   * @param file the file whose contents are to be returned
+   * @return the contents of the given file
+   * @throws IOException if the contents of the file could not be read
+   */
+  public CharBuffer getContents(File file) throws IOException {
+    long modificationTime = file.lastModified();
+    long length = file.length();
+    synchronized (this) {
+      CacheEntry entry = entryMap.get(file);
+      if (entry != null) {
+        if (entry.modificationTime == modificationTime && entry.length == length) {
+          return entry.contents.asReadOnlyBuffer();
+        }
+        removeEntry(file);
+      }
+    }
+    //
+    // Read the file outside of the lock so that different files can be read concurrently.
+    //
+    CharBuffer contents = readFile(file);
+    if (contents.length() <= maxSize) {
+      synchronized (this) {
+        CacheEntry oldEntry = entryMap.put(file, new CacheEntry(
+            modificationTime,
+            length,
+            contents));
+        if (oldEntry != null) {
+          size -= oldEntry.contents.length();
+        }
+        size += contents.length();
+        evict();
+      }
+    }
+    return contents.asReadOnlyBuffer();
+  }
+
+  /**
+   * Return the maximum number of characters held in this cache.
+   * 
+   * @return the maximum number of characters held in this cache
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Return the number of characters currently held in this cache.
+   * 
+   * @return the number of characters currently held in this cache
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Remove the contents of the given file from this cache.
+   * 
+   * @param file the file whose contents are to be removed
+   */
+  public synchronized void removeContents(File file) {
+    removeEntry(file);
+  }
+
+  /**
+   * Remove the least recently used contents until the total size fits into the maximum size.
+   */
+  private void evict() {
+    Iterator<Map.Entry<File, CacheEntry>> iterator = entryMap.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().getValue().contents.length();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Read and decode the contents of the given file.
+   * 
+   * @param file the file to be read
+   * @return the decoded contents of the file
+   * @throws IOException if the contents of the file could not be read
+   */
+  private CharBuffer readFile(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      long fileSize = channel.size();
+      if (fileSize > Integer.MAX_VALUE) {
+        throw new IllegalStateException("File is too long to be read");
+      }
+      ByteBuffer byteBuffer = ByteBuffer.allocate((int) fileSize);
+      while (byteBuffer.hasRemaining() && channel.read(byteBuffer) >= 0) {
+        // Keep reading until the buffer is full or the end of the file is reached
+      }
+      byteBuffer.flip();
+      return decode(byteBuffer);
+    } finally {
+      try {
+        randomAccessFile.close();
+      } catch (IOException exception) {
+        // Ignored
+      }
+    }
+  }
+
+  /**
+   * Remove the contents of the given file from this cache.
+   * 
+   * @param file the file whose contents are to be removed
+   */
+  private void removeEntry(File file) {
+    CacheEntry entry = entryMap.remove(file);
+    if (entry != null) {
+      size -= entry.contents.length();
+    }
+  }
+}
@@ -13,11 +13,15 @@
  */
 package com.google.dart.engine.source;
 
+import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.internal.context.AnalysisContextImpl;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.CharBuffer;
 
 /**
  * Instances of the class {@code SourceFactory} resolve possibly relative URI's against an existing
@@ -41,17 +45,37 @@ public class SourceFactory {
    */
   private ContentCache contentCache;
 
+  /**
+   * A cache of the contents of files, shared by all of the sources created by this factory and, by
+   * default, by the source factories of all other contexts.
+   */
+  private FileContentCache fileContentCache;
+
   /**
    * Initialize a newly created source factory.
    * 
    * @param contentCache the cache holding content used to override the default content of a source.
+   * @param fileContentCache the cache holding the contents of files
    * @param resolvers the resolvers used to resolve absolute URI's
    */
-  public SourceFactory(ContentCache contentCache, UriResolver... resolvers) {
+  public SourceFactory(ContentCache contentCache, FileContentCache fileContentCache,
+      UriResolver... resolvers) {
     this.contentCache = contentCache;
+    this.fileContentCache = fileContentCache;
     this.resolvers = resolvers;
   }
 
+  /**
+   * Initialize a newly created source factory that reads the contents of files through the
+   * {@link AnalysisEngine#getFileContentCache() cache shared by all contexts}.
+   * 
+   * @param contentCache the cache holding content used to override the default content of a source.
+   * @param resolvers the resolvers used to resolve absolute URI's
+   */
+  public SourceFactory(ContentCache contentCache, UriResolver... resolvers) {
+    this(contentCache, AnalysisEngine.getInstance().getFileContentCache(), resolvers);
+  }
+
   /**
    * Initialize a newly created source factory.
    * 
@@ -101,6 +125,15 @@ public class SourceFactory {
     return context;
   }
 
+  /**
+   * Return the cache holding the contents of the files read by the sources created by this factory.
+   * 
+   * @return the cache holding the contents of files
+   */
+  public FileContentCache getFileContentCache() {
+    return fileContentCache;
+  }
+
   /**
    * Return a source object representing the URI that results from resolving the given (possibly
    * relative) contained URI against the URI associated with an existing source object, or
@@ -159,6 +192,21 @@ public class SourceFactory {
     return contentCache.getContents(source);
   }
 
+  /**
+   * Return the contents of the given file, reusing the previously decoded contents if the file has
+   * not been modified since it was read.
+   * <p>
+   * <b>Note:</b> This method is not intended to be used except by
+   * {@link FileBasedSource#getContents(com.google.dart.engine.source.Source.ContentReceiver)}.
+   * 
+   * @param file the file whose content is to be returned
+   * @return the contents of the given file
+   * @throws IOException if the contents of the file could not be read
+   */
+  protected CharBuffer getFileContents(File file) throws IOException {
+    return fileContentCache.getContents(file);
+  }
+
   /**
    * Return the modification stamp of the given source, or {@code null} if this factory does not
    * override the contents of the source.
@@ -62,6 +62,27 @@ public class IntList {
     values[count++] = value;
   }
 
+  /**
+   * Remove all of the elements from this list.
+   */
+  public void clear() {
+    count = 0;
+  }
+
+  /**
+   * Return the element at the given index in this list.
+   * 
+   * @param index the index of the element to be returned
+   * @return the element at the given index
+   * @throws IndexOutOfBoundsException if the index is not less than the number of elements
+   */
+  public int get(int index) {
+    if (index >= count) {
+      throw new IndexOutOfBoundsException(index + " >= " + count);
+    }
+    return values[index];
+  }
+
   /**
    * Return the number of elements in this list.
    * 
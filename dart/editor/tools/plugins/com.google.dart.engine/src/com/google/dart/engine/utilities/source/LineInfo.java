@@ -86,6 +86,16 @@ public class LineInfo {
     this.lineStarts = lineStarts;
   }
 
+  /**
+   * Return an array containing the offsets of the first character of each line in the source. The
+   * array is shared with this object and must not be modified.
+   * 
+   * @return the offsets of the first character of each line in the source
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
   /**
    * Return the location information for the character at the given offset.
    * 
@@ -93,12 +103,17 @@ public class LineInfo {
    * @return the location information for the character at the given offset
    */
   public Location getLocation(int offset) {
-    int lineCount = lineStarts.length;
-    for (int i = 1; i < lineCount; i++) {
-      if (offset < lineStarts[i]) {
-        return new Location(i, offset - lineStarts[i - 1] + 1);
+    // find the last line that starts at or before the offset
+    int low = 0;
+    int high = lineStarts.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (lineStarts[middle] <= offset) {
+        low = middle;
+      } else {
+        high = middle - 1;
       }
     }
-    return new Location(lineCount, offset - lineStarts[lineCount - 1] + 1);
+    return new Location(low + 1, offset - lineStarts[low] + 1);
   }
 }
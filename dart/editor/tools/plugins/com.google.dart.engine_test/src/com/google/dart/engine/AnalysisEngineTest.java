@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine;
 
+import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.utilities.logging.Logger;
 import com.google.dart.engine.utilities.logging.TestLogger;
 
@@ -22,6 +23,12 @@ public class AnalysisEngineTest extends EngineTestCase {
     assertNotNull(engine.createAnalysisContext());
   }
 
+  public void test_getFileContentCache() {
+    AnalysisEngine engine = AnalysisEngine.getInstance();
+    assertNotNull(engine.getFileContentCache());
+    assertSame(engine.getFileContentCache(), new SourceFactory().getFileContentCache());
+  }
+
   public void test_getInstance() {
     assertNotNull(AnalysisEngine.getInstance());
   }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.parser.ASTValidator;
+import com.google.dart.engine.parser.ParserErrorCode;
+import com.google.dart.engine.parser.ParserTestCase;
+import com.google.dart.engine.scanner.BeginToken;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenStreamValidator;
+import com.google.dart.engine.scanner.TokenType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+public class ASTClonerTest extends ParserTestCase {
+  public void test_cloneUnit_declarations() throws Exception {
+    assertCloned(parseCompilationUnit(createSource(//
+        "#!/bin/dart",
+        "/// The library [lib].",
+        "library lib;",
+        "import 'a.dart' as a show A, B hide C;",
+        "export 'b.dart';",
+        "part 'c.dart';",
+        "@deprecated",
+        "typedef int F<T>(T t, [int i]);",
+        "typedef C = Object with M implements I;",
+        "/**",
+        " * A class referring to [m] and [new A].",
+        " */",
+        "abstract class A<T extends num> extends B with M implements I, J {",
+        "  static final int x = 0, y;",
+        "  final z;",
+        "  A(this.z, {int w: 1}) : super(), x = 2;",
+        "  A.named() : this(null);",
+        "  factory A.create(void f(int i)) = B<T>;",
+        "  int get g => 0;",
+        "  set s(value) {}",
+        "  operator +(other) => this;",
+        "  external m();",
+        "}",
+        "var v = 1;")));
+  }
+
+  public void test_cloneUnit_expressions() throws Exception {
+    assertCloned(parseCompilationUnit(createSource(//
+        "f(a, [b = 2]) {",
+        "  a = b + 1 * -a;",
+        "  a++;",
+        "  a = a.b[0].c(d: 1, e: 'x');",
+        "  a..b = 1..c()..[0] = 2;",
+        "  a = a is int ? a as int : a is! num;",
+        "  a = const <int>[1, 2.0, true, null];",
+        "  a = <String, int>{'a' : 1};",
+        "  a = 'a' 'b${a}c$b' r'd';",
+        "  a = new A.b(this, super.c);",
+        "  a = (x) => x;",
+        "  a = ?b;",
+        "  a = throw a;",
+        "}")));
+  }
+
+  public void test_cloneUnit_statements() throws Exception {
+    assertCloned(parseCompilationUnit(createSource(//
+        "f() {",
+        "  // comment",
+        "  int i = 0;",
+        "  if (i == 0) i = 1; else {}",
+        "  for (int j = 0; j < 2; j++) {}",
+        "  for (var e in []) continue;",
+        "  while (true) break;",
+        "  do {} while (false);",
+        "  l: switch (i) { case 0: break l; default: }",
+        "  try {} on A catch (e, s) {} catch (e) {} finally {}",
+        "  assert(i > 0);",
+        "  g() {}",
+        "  ;",
+        "  return i;",
+        "}")));
+  }
+
+  public void test_cloneUnit_syntheticTokens() throws Exception {
+    assertCloned(parseCompilationUnit("f() { return 0 }", ParserErrorCode.EXPECTED_TOKEN));
+  }
+
+  public void test_getCopy() throws Exception {
+    CompilationUnit unit = parseCompilationUnit("class A { m() {} }");
+    ASTCloner cloner = new ASTCloner();
+    CompilationUnit copy = cloner.cloneUnit(unit);
+    assertSame(copy, cloner.getCopy(unit));
+    assertSame(copy.getDeclarations().get(0), cloner.getCopy(unit.getDeclarations().get(0)));
+    assertSame(copy.getBeginToken(), cloner.getCopy(unit.getBeginToken()));
+    assertSame(copy.getEndToken(), cloner.getCopy(unit.getEndToken()));
+  }
+
+  /**
+   * Assert that a copy of the given compilation unit represents the same source and that it shares
+   * neither nodes nor tokens with the original.
+   */
+  private void assertCloned(CompilationUnit unit) {
+    final Set<Object> originals = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    unit.accept(new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        originals.add(node);
+        originals.add(node.getBeginToken());
+        originals.add(node.getEndToken());
+        return super.visitNode(node);
+      }
+    });
+    originals.addAll(getTokens(unit.getBeginToken()));
+    CompilationUnit copy = new ASTCloner().cloneUnit(unit);
+    assertEquals(unit.toSource(), copy.toSource());
+    assertSame(unit.getLineInfo(), copy.getLineInfo());
+    assertSame(unit.getParsingErrors(), copy.getParsingErrors());
+    final ArrayList<String> sharedNodes = new ArrayList<String>();
+    copy.accept(new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        if (originals.contains(node) || originals.contains(node.getBeginToken())
+            || originals.contains(node.getEndToken())) {
+          sharedNodes.add(node.getClass().getSimpleName());
+        }
+        return super.visitNode(node);
+      }
+    });
+    assertEquals(new ArrayList<String>(), sharedNodes);
+    ArrayList<Token> tokens = getTokens(unit.getBeginToken());
+    ArrayList<Token> copiedTokens = getTokens(copy.getBeginToken());
+    assertEquals(tokens.size(), copiedTokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      Token copiedToken = copiedTokens.get(i);
+      assertFalse(originals.contains(copiedToken));
+      assertEquals(tokens.get(i).getType(), copiedToken.getType());
+      assertEquals(tokens.get(i).getLexeme(), copiedToken.getLexeme());
+      assertEquals(tokens.get(i).getOffset(), copiedToken.getOffset());
+      if (tokens.get(i) instanceof BeginToken) {
+        int endIndex = tokens.indexOf(((BeginToken) tokens.get(i)).getEndToken());
+        assertSame(copiedTokens.get(endIndex), ((BeginToken) copiedToken).getEndToken());
+      }
+    }
+    Token token = copy.getBeginToken();
+    while (token.getType() != TokenType.EOF) {
+      assertSame(token, token.getNext().getPrevious());
+      token = token.getNext();
+    }
+    new TokenStreamValidator().validate(copy.getBeginToken());
+    ASTValidator validator = new ASTValidator();
+    copy.accept(validator);
+    validator.assertValid();
+  }
+
+  /**
+   * Return the tokens in the token stream starting with the given token, including the comments
+   * preceding them.
+   */
+  private ArrayList<Token> getTokens(Token token) {
+    ArrayList<Token> tokens = new ArrayList<Token>();
+    while (true) {
+      Token comment = token.getPrecedingComments();
+      while (comment != null) {
+        tokens.add(comment);
+        comment = comment.getNext();
+      }
+      tokens.add(token);
+      if (token.getType() == TokenType.EOF) {
+        return tokens;
+      }
+      token = token.getNext();
+    }
+  }
+}
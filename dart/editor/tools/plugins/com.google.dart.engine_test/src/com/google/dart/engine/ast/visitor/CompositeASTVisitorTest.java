@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.BinaryExpression;
+import com.google.dart.engine.ast.IntegerLiteral;
+import com.google.dart.engine.scanner.TokenType;
+
+import static com.google.dart.engine.ast.ASTFactory.binaryExpression;
+import static com.google.dart.engine.ast.ASTFactory.integer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompositeASTVisitorTest extends EngineTestCase {
+  /**
+   * Instances of the class {@code RecordingVisitor} record the start and the end of each visit.
+   */
+  private static class RecordingVisitor extends ComposableASTVisitor<Void> {
+    private String name;
+    private List<String> events;
+    private int depth = 0;
+
+    public RecordingVisitor(String name, List<String> events) {
+      this.name = name;
+      this.events = events;
+    }
+
+    @Override
+    public Void visitBinaryExpression(BinaryExpression node) {
+      return record(node);
+    }
+
+    @Override
+    public Void visitIntegerLiteral(IntegerLiteral node) {
+      return record(node);
+    }
+
+    private Void record(ASTNode node) {
+      events.add(name + depth + " start " + node.toSource());
+      depth++;
+      try {
+        return visitChildren(node);
+      } finally {
+        depth--;
+        events.add(name + depth + " end " + node.toSource());
+      }
+    }
+  }
+
+  public void test_visit_composite() {
+    List<String> events = new ArrayList<String>();
+    BinaryExpression expression = binaryExpression(integer(1), TokenType.PLUS, integer(2));
+    expression.accept(new CompositeASTVisitor(
+        new RecordingVisitor("a", events),
+        new RecordingVisitor("b", events)));
+    assertEquals(list(
+        "a0 start 1 + 2",
+        "b0 start 1 + 2",
+        "a1 start 1",
+        "b1 start 1",
+        "b1 end 1",
+        "a1 end 1",
+        "a1 start 2",
+        "b1 start 2",
+        "b1 end 2",
+        "a1 end 2",
+        "b0 end 1 + 2",
+        "a0 end 1 + 2"), events);
+  }
+
+  public void test_visit_empty() {
+    BinaryExpression expression = binaryExpression(integer(1), TokenType.PLUS, integer(2));
+    expression.accept(new CompositeASTVisitor());
+  }
+
+  public void test_visit_single() {
+    List<String> events = new ArrayList<String>();
+    BinaryExpression expression = binaryExpression(integer(1), TokenType.PLUS, integer(2));
+    expression.accept(new CompositeASTVisitor(new RecordingVisitor("a", events)));
+    assertEquals(list(
+        "a0 start 1 + 2",
+        "a1 start 1",
+        "a1 end 1",
+        "a1 start 2",
+        "a1 end 2",
+        "a0 end 1 + 2"), events);
+  }
+
+  public void test_visit_standalone() {
+    List<String> events = new ArrayList<String>();
+    BinaryExpression expression = binaryExpression(integer(1), TokenType.PLUS, integer(2));
+    expression.accept(new RecordingVisitor("a", events));
+    assertEquals(list(
+        "a0 start 1 + 2",
+        "a1 start 1",
+        "a1 end 1",
+        "a1 start 2",
+        "a1 end 2",
+        "a0 end 1 + 2"), events);
+  }
+
+  private List<String> list(String... events) {
+    List<String> list = new ArrayList<String>();
+    for (String event : events) {
+      list.add(event);
+    }
+    return list;
+  }
+}
@@ -21,6 +21,8 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(ASTClonerTest.class);
+    suite.addTestSuite(CompositeASTVisitorTest.class);
     suite.addTestSuite(ConstantEvaluatorTest.class);
     suite.addTestSuite(ElementLocatorTest.class);
     suite.addTestSuite(NodeLocatorTest.class);
@@ -58,6 +58,7 @@ public final class AnalysisContextFactory {
         provider.getTypeType().getElement()});
     LibraryElementImpl library = new LibraryElementImpl(context, libraryIdentifier("dart", "core"));
     library.setDefiningCompilationUnit(unit);
+    context.initializeLibraryElement(library);
 
     HashMap<Source, LibraryElement> elementMap = new HashMap<Source, LibraryElement>();
     Source coreSource = sourceFactory.forUri(DartSdk.DART_CORE);
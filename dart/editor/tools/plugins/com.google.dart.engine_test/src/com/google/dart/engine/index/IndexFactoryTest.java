@@ -26,6 +26,12 @@ public class IndexFactoryTest extends EngineTestCase {
     assertInstanceOf(IndexImpl.class, index);
   }
 
+  public void test_newIndex_indexingThreadCount() throws Exception {
+    IndexStore store = mock(IndexStore.class);
+    Index index = IndexFactory.newIndex(store, 4);
+    assertInstanceOf(IndexImpl.class, index);
+  }
+
   public void test_newMemoryIndexStore() throws Exception {
     MemoryIndexStore store = IndexFactory.newMemoryIndexStore();
     assertInstanceOf(MemoryIndexStoreImpl.class, store);
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.internal.context.CacheRetentionPolicy.ResultKind;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.HashSet;
+
+public class AnalysisCacheTest extends EngineTestCase {
+  private static final AnalysisCache.SizeEstimator<String> LENGTH_ESTIMATOR = new AnalysisCache.SizeEstimator<String>() {
+    @Override
+    public long estimateSize(String value) {
+      return value.length();
+    }
+  };
+
+  private HashSet<Source> prioritySources = new HashSet<Source>();
+
+  public void test_get_hitAndMiss() {
+    AnalysisCache<String> cache = createCache(10, -1L);
+    Source source = createSource("/a.dart");
+    assertNull(cache.get(source));
+    cache.put(source, "a");
+    assertEquals("a", cache.get(source));
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(1L, statistics.getHitCount());
+    assertEquals(1L, statistics.getMissCount());
+    assertEquals(0L, statistics.getEvictionCount());
+    assertEquals(0.5, statistics.getHitRate(), 0.0);
+  }
+
+  public void test_put_evictsLeastRecentlyUsed() {
+    AnalysisCache<String> cache = createCache(2, -1L);
+    Source sourceA = createSource("/a.dart");
+    Source sourceB = createSource("/b.dart");
+    Source sourceC = createSource("/c.dart");
+    cache.put(sourceA, "a");
+    cache.put(sourceB, "b");
+    cache.get(sourceA);
+    cache.put(sourceC, "c");
+    assertEquals(2, cache.size());
+    assertTrue(cache.containsKey(sourceA));
+    assertFalse(cache.containsKey(sourceB));
+    assertTrue(cache.containsKey(sourceC));
+    assertEquals(1L, cache.getStatistics().getEvictionCount());
+  }
+
+  public void test_put_evictsLowPriorityFirst() {
+    AnalysisCache<String> cache = createCache(2, -1L);
+    Source sdkSource = new FileBasedSource(null, createFile("/sdk/core.dart"), true);
+    Source sourceA = createSource("/a.dart");
+    Source sourceB = createSource("/b.dart");
+    cache.put(sourceA, "a");
+    cache.put(sdkSource, "core");
+    cache.put(sourceB, "b");
+    assertTrue(cache.containsKey(sourceA));
+    assertFalse(cache.containsKey(sdkSource));
+    assertTrue(cache.containsKey(sourceB));
+  }
+
+  public void test_put_neverEvictsPrioritySources() {
+    AnalysisCache<String> cache = createCache(1, -1L);
+    Source sourceA = createSource("/a.dart");
+    Source sourceB = createSource("/b.dart");
+    prioritySources.add(sourceA);
+    cache.put(sourceA, "a");
+    cache.put(sourceB, "b");
+    assertEquals(2, cache.size());
+    assertTrue(cache.containsKey(sourceA));
+    assertTrue(cache.containsKey(sourceB));
+    assertEquals(0L, cache.getStatistics().getEvictionCount());
+  }
+
+  public void test_put_neverEvictsSdkElements() {
+    AnalysisCache<String> cache = createCache(ResultKind.ELEMENT, 2, -1L);
+    Source sdkSource = new FileBasedSource(null, createFile("/sdk/core.dart"), true);
+    Source sourceA = createSource("/a.dart");
+    Source sourceB = createSource("/b.dart");
+    cache.put(sdkSource, "core");
+    cache.put(sourceA, "a");
+    cache.put(sourceB, "b");
+    assertTrue(cache.containsKey(sdkSource));
+    assertFalse(cache.containsKey(sourceA));
+    assertTrue(cache.containsKey(sourceB));
+  }
+
+  public void test_put_overEstimatedBytes() {
+    AnalysisCache<String> cache = createCache(10, 5L);
+    Source sourceA = createSource("/a.dart");
+    Source sourceB = createSource("/b.dart");
+    cache.put(sourceA, "aaa");
+    assertEquals(3L, cache.getStatistics().getEstimatedBytes());
+    cache.put(sourceB, "bbb");
+    assertFalse(cache.containsKey(sourceA));
+    assertTrue(cache.containsKey(sourceB));
+    assertEquals(3L, cache.getStatistics().getEstimatedBytes());
+  }
+
+  public void test_remove() {
+    AnalysisCache<String> cache = createCache(10, 100L);
+    Source source = createSource("/a.dart");
+    cache.put(source, "aaa");
+    assertEquals("aaa", cache.remove(source));
+    assertNull(cache.remove(source));
+    assertEquals(0, cache.size());
+    assertEquals(0L, cache.getStatistics().getEstimatedBytes());
+    assertEquals(0L, cache.getStatistics().getEvictionCount());
+  }
+
+  private AnalysisCache<String> createCache(int maxEntries, long maxBytes) {
+    return createCache(ResultKind.AST, maxEntries, maxBytes);
+  }
+
+  private AnalysisCache<String> createCache(ResultKind kind, int maxEntries, long maxBytes) {
+    return new AnalysisCache<String>(
+        "test",
+        new CacheRetentionPolicy(),
+        kind,
+        maxEntries,
+        maxBytes,
+        LENGTH_ESTIMATOR,
+        prioritySources);
+  }
+
+  private Source createSource(String fileName) {
+    return new TestSource(null, createFile(fileName), "");
+  }
+}
@@ -13,17 +13,27 @@
  */
 package com.google.dart.engine.internal.context;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.ClassDeclaration;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.ReturnStatement;
+import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.ChangeNotice;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.GatheringErrorListener;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.html.parser.HtmlParseResult;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
 import com.google.dart.engine.source.Source;
@@ -33,15 +43,10 @@ import com.google.dart.engine.source.TestSource;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
-public class AnalysisContextImplTest extends EngineTestCase {
-  public void fail_getElement_location() {
-    AnalysisContextImpl context = new AnalysisContextImpl();
-    ElementLocation location = new ElementLocationImpl("dart:core;Object");
-    Element element = context.getElement(location);
-    assertNotNull(element);
-    assertEquals(location, element.getLocation());
-  }
+import java.io.File;
+import java.util.ArrayList;
 
+public class AnalysisContextImplTest extends EngineTestCase {
   public void fail_getErrors_none() throws Exception {
     AnalysisContextImpl context = new AnalysisContextImpl();
     SourceFactory sourceFactory = new SourceFactory();
@@ -88,6 +93,43 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(new AnalysisContextImpl());
   }
 
+  public void test_getElement_location() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    sourceFactory.setContents(source, "library lib;\nclass A {\n  m() {}\n}");
+    LibraryElement library = context.getLibraryElement(source);
+    Element method = library.getDefiningCompilationUnit().getTypes()[0].getMethods()[0];
+    ElementLocation location = new ElementLocationImpl(method.getLocation().getEncoding());
+    assertSame(method, context.getElement(location));
+  }
+
+  public void test_getElement_location_notResolved() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source);
+    context.applyChanges(changeSet);
+    sourceFactory.setContents(source, "library lib;\nclass A {}");
+    ElementLocation location = new ElementLocationImpl(source.getFullName() + ";"
+        + source.getFullName() + ";A");
+    Element element = context.getElement(location);
+    assertNotNull(element);
+    assertEquals("A", element.getName());
+    assertEquals(location, element.getLocation());
+  }
+
+  public void test_getElement_location_unknown() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    sourceFactory.setContents(source, "library lib;\nclass A {}");
+    context.getLibraryElement(source);
+    assertNull(context.getElement(new ElementLocationImpl(source.getFullName() + ";"
+        + source.getFullName() + ";B")));
+  }
+
   public void test_getHtmlSources_empty() {
     AnalysisContextImpl context = new AnalysisContextImpl();
     Source[] sources = context.getHtmlSources();
@@ -124,6 +166,82 @@ public class AnalysisContextImplTest extends EngineTestCase {
 //    assertEquals(null, compilationUnit.getErrors());
   }
 
+  public void test_parse_sourceChanged_incremental() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source, createSource(//
+        "library lib;",
+        "int x = 0;",
+        "int f() {",
+        "  return 0;",
+        "}",
+        "int g() => 1;"));
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    CompilationUnit unit = context.resolve(source, null);
+    String newContents = createSource(//
+        "library lib;",
+        "int x = 0;",
+        "int f() {",
+        "  return",
+        "    x;",
+        "}",
+        "int g() => 1;");
+    changeSet = new ChangeSet();
+    changeSet.changed(source, newContents);
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    CompilationUnit newUnit = context.resolve(source, null);
+    // The compilation unit that clients might still be using was not modified.
+    assertNotSame(unit, newUnit);
+    assertEquals(7, unit.getLineInfo().getLineStarts().length);
+    FunctionDeclaration oldFunction = (FunctionDeclaration) unit.getDeclarations().get(1);
+    BlockFunctionBody oldBody = (BlockFunctionBody) oldFunction.getFunctionExpression().getBody();
+    ReturnStatement oldStatement = (ReturnStatement) oldBody.getBlock().getStatements().get(0);
+    assertEquals("return 0;", oldStatement.toSource());
+    assertLength(0, newUnit.getErrors());
+    assertEquals(8, newUnit.getLineInfo().getLineStarts().length);
+    assertEquals(newContents.indexOf("int g"), newUnit.getDeclarations().get(2).getOffset());
+    FunctionDeclaration function = (FunctionDeclaration) newUnit.getDeclarations().get(1);
+    BlockFunctionBody body = (BlockFunctionBody) function.getFunctionExpression().getBody();
+    ReturnStatement statement = (ReturnStatement) body.getBlock().getStatements().get(0);
+    assertNotNull(((SimpleIdentifier) statement.getExpression()).getElement());
+  }
+
+  public void test_parse_sourceChanged_onDisk() throws Exception {
+    File file = File.createTempFile("test", ".dart");
+    file.deleteOnExit();
+    try {
+      Files.write(createSource(//
+          "library lib;",
+          "int f() {",
+          "  return 0;",
+          "}"), file, Charsets.UTF_8);
+      AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+      Source source = new FileBasedSource(context.getSourceFactory(), file);
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.added(source);
+      context.applyChanges(changeSet);
+      context.parse(source);
+      Files.write(createSource(//
+          "library lib;",
+          "int f() {",
+          "  return 12;",
+          "}"), file, Charsets.UTF_8);
+      changeSet = new ChangeSet();
+      changeSet.changed(source);
+      context.applyChanges(changeSet);
+      CompilationUnit unit = context.parse(source);
+      FunctionDeclaration function = (FunctionDeclaration) unit.getDeclarations().get(0);
+      BlockFunctionBody body = (BlockFunctionBody) function.getFunctionExpression().getBody();
+      assertEquals("return 12;", body.getBlock().getStatements().get(0).toSource());
+    } finally {
+      file.delete();
+    }
+  }
+
   public void test_parse_with_errors() throws Exception {
     AnalysisContextImpl context = new AnalysisContextImpl();
     SourceFactory sourceFactory = new SourceFactory();
@@ -162,6 +280,122 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(result.getToken());
   }
 
+  public void test_performAnalysisTask_empty() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    assertNull(context.performAnalysisTask());
+  }
+
+  public void test_performAnalysisTask_parseBeforeResolve() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    Source partSource = new FileBasedSource(sourceFactory, createFile("/part.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(libSource, "library lib; part 'part.dart'; A a;");
+    changeSet.added(partSource, "part of lib; class A {}");
+    context.applyChanges(changeSet);
+    ArrayList<ChangeNotice> notices = performAllTasks(context);
+    assertSize(6, notices);
+    // Parse results are reported first, one source at a time.
+    assertEqualsIgnoreOrder(
+        new Object[] {libSource, partSource},
+        new Object[] {notices.get(0).getSource(), notices.get(1).getSource()});
+    assertNull(notices.get(0).getCompilationUnit());
+    assertNull(notices.get(1).getCompilationUnit());
+    // Resolution results are reported for each compilation unit in the library.
+    assertEquals(libSource, notices.get(2).getSource());
+    assertNotNull(notices.get(2).getCompilationUnit().getElement());
+    assertLength(0, notices.get(3).getErrors());
+    assertEquals(partSource, notices.get(4).getSource());
+    assertNotNull(notices.get(4).getCompilationUnit().getElement());
+    assertLength(0, notices.get(5).getErrors());
+  }
+
+  public void test_performAnalysisTask_priorityOrder() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source sourceA = new FileBasedSource(sourceFactory, createFile("/a.dart"));
+    Source sourceB = new FileBasedSource(sourceFactory, createFile("/b.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(sourceA, "library a;");
+    changeSet.added(sourceB, "library b;");
+    context.applyChanges(changeSet);
+    ArrayList<Source> priorityOrder = new ArrayList<Source>();
+    priorityOrder.add(sourceB);
+    context.setAnalysisPriorityOrder(priorityOrder);
+    ArrayList<ChangeNotice> notices = performAllTasks(context);
+    assertSize(6, notices);
+    assertEquals(sourceB, notices.get(0).getSource());
+    assertEquals(sourceA, notices.get(1).getSource());
+    assertEquals(sourceB, notices.get(2).getSource());
+    assertEquals(sourceA, notices.get(4).getSource());
+  }
+
+  public void test_performAnalysisTask_sourceChanged() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source, "library lib;");
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    changeSet = new ChangeSet();
+    changeSet.changed(source, "library lib; class A {}");
+    context.applyChanges(changeSet);
+    ArrayList<ChangeNotice> notices = performAllTasks(context);
+    assertSize(3, notices);
+    CompilationUnit unit = notices.get(1).getCompilationUnit();
+    assertSize(1, unit.getDeclarations());
+    assertNotNull(unit.getElement());
+  }
+
+  public void test_performAnalysisTask_sourceChanged_apiChange() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    Source appSource = new FileBasedSource(sourceFactory, createFile("/app.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(libSource, "library lib; int f() { return 0; }");
+    changeSet.added(appSource, "library app; import 'lib.dart'; main() { f(); }");
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    LibraryElement appElement = context.getLibraryElementOrNull(appSource);
+    assertNotNull(appElement);
+    changeSet = new ChangeSet();
+    changeSet.changed(libSource, "library lib; String f() { return ''; }");
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    // The return type of 'f' changed, so the importing library was resolved again.
+    LibraryElement newAppElement = context.getLibraryElementOrNull(appSource);
+    assertNotNull(newAppElement);
+    assertNotSame(appElement, newAppElement);
+  }
+
+  public void test_performAnalysisTask_sourceChanged_bodyOnly() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    Source appSource = new FileBasedSource(sourceFactory, createFile("/app.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(libSource, "library lib; int f() { return 0; }");
+    changeSet.added(appSource, "library app; import 'lib.dart'; main() { f(); }");
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    LibraryElement libElement = context.getLibraryElementOrNull(libSource);
+    LibraryElement appElement = context.getLibraryElementOrNull(appSource);
+    assertNotNull(appElement);
+    changeSet = new ChangeSet();
+    changeSet.changed(libSource, "library lib; int f() { return 1; }");
+    context.applyChanges(changeSet);
+    ArrayList<ChangeNotice> notices = performAllTasks(context);
+    // Only the changed library was resolved again.
+    for (ChangeNotice notice : notices) {
+      assertEquals(libSource, notice.getSource());
+    }
+    assertNotSame(libElement, context.getLibraryElementOrNull(libSource));
+    assertSame(appElement, context.getLibraryElementOrNull(appSource));
+  }
+
   public void test_resolve() throws Exception {
     AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
     SourceFactory sourceFactory = context.getSourceFactory();
@@ -174,10 +408,102 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertLength(0, compilationUnit.getErrors());
   }
 
+  public void test_resolve_astEvicted() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    context.setRetentionPolicy(new CacheRetentionPolicy(
+        2,
+        CacheRetentionPolicy.DEFAULT_MAX_AST_BYTES,
+        CacheRetentionPolicy.DEFAULT_MAX_ELEMENT_ENTRIES));
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    Source appSource = new FileBasedSource(sourceFactory, createFile("/app.dart"));
+    sourceFactory.setContents(libSource, "library lib; int f() { return 0; }");
+    sourceFactory.setContents(appSource, "library app; import 'lib.dart'; main() { f(); }");
+    LibraryElement appElement = context.getLibraryElement(appSource);
+    LibraryElement libElement = context.getLibraryElement(libSource);
+    assertNotNull(appElement);
+    assertNotNull(libElement);
+    // Resolving the application evicted the resolved AST of the library.
+    CompilationUnit unit = context.resolve(libSource, null);
+    assertNotNull(unit.getElement());
+    assertNotSame(libElement, context.getLibraryElementOrNull(libSource));
+    // The API of the library did not change, so the importing library was not discarded.
+    assertSame(appElement, context.getLibraryElementOrNull(appSource));
+  }
+
+  public void test_resolve_compactTokenStreams() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    context.setCompactTokenStreams(true);
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source source = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    sourceFactory.setContents(source, createSource(//
+        "library lib;",
+        "// comment",
+        "/** documentation */",
+        "class A {",
+        "  int f(int x) => x + 1;",
+        "}"));
+    CompilationUnit compilationUnit = context.resolve(source, null);
+    assertNotNull(compilationUnit);
+    assertLength(0, compilationUnit.getErrors());
+    assertNull(compilationUnit.getBeginToken().getNext());
+    ClassDeclaration classA = (ClassDeclaration) compilationUnit.getDeclarations().get(0);
+    assertNotNull(classA.getDocumentationComment());
+    assertNotNull(classA.getElement());
+    Token comment = classA.getClassKeyword().getPrecedingComments();
+    assertEquals("/** documentation */", comment.getLexeme());
+    assertNull(comment.getNext());
+  }
+
+  public void test_sourcesToResolve_dependents() {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    Source partSource = new FileBasedSource(sourceFactory, createFile("/part.dart"));
+    Source exportSource = new FileBasedSource(sourceFactory, createFile("/export.dart"));
+    Source appSource = new FileBasedSource(sourceFactory, createFile("/app.dart"));
+    Source otherSource = new FileBasedSource(sourceFactory, createFile("/other.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(libSource, "library lib; part 'part.dart';");
+    changeSet.added(partSource, "part of lib;");
+    changeSet.added(exportSource, "library export; export 'lib.dart';");
+    changeSet.added(appSource, "library app; import 'export.dart';");
+    changeSet.added(otherSource, "library other;");
+    context.applyChanges(changeSet);
+    performAllTasks(context);
+    assertExactElements(
+        context.getDependencyGraph().getImportingLibraries(exportSource),
+        appSource);
+    ArrayList<Source> sources = new ArrayList<Source>();
+    for (Source source : context.sourcesToResolve(new Source[] {partSource})) {
+      sources.add(source);
+    }
+    assertExactElements(sources, libSource, exportSource, appSource);
+  }
+
   public void test_setSourceFactory() {
     AnalysisContextImpl context = new AnalysisContextImpl();
     SourceFactory sourceFactory = new SourceFactory();
     context.setSourceFactory(sourceFactory);
     assertEquals(sourceFactory, context.getSourceFactory());
   }
+
+  /**
+   * Perform analysis tasks until there is no more work to be done and return all of the notices
+   * that were produced.
+   * 
+   * @param context the context in which the tasks are to be performed
+   * @return the notices that were produced, in the order in which they were produced
+   */
+  private ArrayList<ChangeNotice> performAllTasks(AnalysisContextImpl context) {
+    ArrayList<ChangeNotice> notices = new ArrayList<ChangeNotice>();
+    ChangeNotice[] taskNotices = context.performAnalysisTask();
+    while (taskNotices != null) {
+      for (ChangeNotice notice : taskNotices) {
+        notices.add(notice);
+      }
+      taskNotices = context.performAnalysisTask();
+    }
+    return notices;
+  }
 }
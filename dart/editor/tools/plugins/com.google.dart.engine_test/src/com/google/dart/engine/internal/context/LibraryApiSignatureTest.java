@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+public class LibraryApiSignatureTest extends EngineTestCase {
+  public void test_equals_bodyChanged() throws Exception {
+    assertSameApi(
+        "class A { int m() { return 0; } }",
+        "class A { int m() { return 1 + 2; } }");
+  }
+
+  public void test_equals_constValueUnchanged() throws Exception {
+    assertSameApi("const x = 1 + 1;", "const x = 2;");
+  }
+
+  public void test_equals_memberOrderChanged() throws Exception {
+    assertSameApi("class A { m() {} n() {} }", "class A { n() {} m() {} }");
+  }
+
+  public void test_equals_privateMemberChanged() throws Exception {
+    assertSameApi("class A { _m() {} } _f() {}", "class A { _n(int x) {} } _g() {}");
+  }
+
+  public void test_notEquals_constFieldValueChanged() throws Exception {
+    assertDifferentApi(
+        "class A { static const int x = 0; }",
+        "class A { static const int x = 1; }");
+  }
+
+  public void test_notEquals_constValueChanged() throws Exception {
+    assertDifferentApi("const x = 0;", "const x = 1;");
+  }
+
+  public void test_notEquals_exportAdded() throws Exception {
+    assertDifferentApi("int f() => 0;", "export 'dart:core' show Object; int f() => 0;");
+  }
+
+  public void test_notEquals_memberAdded() throws Exception {
+    assertDifferentApi("class A { m() {} }", "class A { m() {} n() {} }");
+  }
+
+  public void test_notEquals_nameAdded() throws Exception {
+    assertDifferentApi("int f() => 0;", "int f() => 0; int g() => 0;");
+  }
+
+  public void test_notEquals_parameterTypeChanged() throws Exception {
+    assertDifferentApi("void f(int x) {}", "void f(String x) {}");
+  }
+
+  public void test_notEquals_referencedLibraryChanged() throws Exception {
+    createContext();
+    setContents(libSource, "library lib; import 'a.dart'; T f() => null;");
+    LibraryApiSignature oldSignature = new LibraryApiSignature(getLibrary());
+    // The API of the library is unchanged, but the API of the type it exposes changed.
+    setContents(sourceA, "library a; class T { m() {} }");
+    assertNotNull(context.getLibraryElement(sourceA));
+    LibraryApiSignature newSignature = new LibraryApiSignature(getLibrary());
+    assertFalse(oldSignature.equals(newSignature));
+  }
+
+  public void test_notEquals_supertypeChanged() throws Exception {
+    assertDifferentApi("class A {} class B {}", "class A {} class B extends A {}");
+  }
+
+  public void test_notEquals_typeFromOtherLibrary() throws Exception {
+    assertDifferentApi("import 'a.dart'; T f() => null;", "import 'b.dart'; T f() => null;");
+  }
+
+  public void test_notEquals_variableBecameFinal() throws Exception {
+    assertDifferentApi("int x = 0;", "final int x = 0;");
+  }
+
+  private AnalysisContextImpl context;
+
+  private Source libSource;
+
+  private Source sourceA;
+
+  private void assertDifferentApi(String oldContent, String newContent) throws Exception {
+    LibraryApiSignature[] signatures = computeSignatures(oldContent, newContent);
+    assertFalse(signatures[0].equals(signatures[1]));
+  }
+
+  private void assertSameApi(String oldContent, String newContent) throws Exception {
+    LibraryApiSignature[] signatures = computeSignatures(oldContent, newContent);
+    assertEquals(signatures[0], signatures[1]);
+    assertEquals(signatures[0].hashCode(), signatures[1].hashCode());
+  }
+
+  /**
+   * Return the signatures of the library with the given contents before and after it was changed,
+   * computed in a single context, as they are when the context compares them.
+   */
+  private LibraryApiSignature[] computeSignatures(String oldContent, String newContent)
+      throws Exception {
+    createContext();
+    setContents(libSource, "library lib; " + oldContent);
+    LibraryElement oldLibrary = getLibrary();
+    setContents(libSource, "library lib; " + newContent);
+    LibraryElement newLibrary = getLibrary();
+    assertNotSame(oldLibrary, newLibrary);
+    return new LibraryApiSignature[] {
+        new LibraryApiSignature(oldLibrary), new LibraryApiSignature(newLibrary)};
+  }
+
+  private void createContext() {
+    context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    libSource = new FileBasedSource(sourceFactory, createFile("/lib.dart"));
+    sourceA = new FileBasedSource(sourceFactory, createFile("/a.dart"));
+    Source sourceB = new FileBasedSource(sourceFactory, createFile("/b.dart"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(libSource, "library lib;");
+    changeSet.added(sourceA, "library a; class T {}");
+    changeSet.added(sourceB, "library b; class T {}");
+    context.applyChanges(changeSet);
+  }
+
+  private LibraryElement getLibrary() throws Exception {
+    LibraryElement library = context.getLibraryElement(libSource);
+    assertNotNull(library);
+    return library;
+  }
+
+  private void setContents(Source source, String contents) {
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.changed(source, contents);
+    context.applyChanges(changeSet);
+  }
+}
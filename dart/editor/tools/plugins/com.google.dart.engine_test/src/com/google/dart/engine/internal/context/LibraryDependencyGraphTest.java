@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LibraryDependencyGraphTest extends EngineTestCase {
+  private final LibraryDependencyGraph graph = new LibraryDependencyGraph();
+
+  private final Source libA = createSource("/a.dart");
+
+  private final Source libB = createSource("/b.dart");
+
+  private final Source libC = createSource("/c.dart");
+
+  private final Source libD = createSource("/d.dart");
+
+  private final Source partA = createSource("/a_part.dart");
+
+  public void test_getAffectedLibraries_cycle() {
+    graph.setDependencies(libA, list(libB), list(), list());
+    graph.setDependencies(libB, list(libA), list(), list());
+    assertExactElements(graph.getAffectedLibraries(list(libA)), libA, libB);
+  }
+
+  public void test_getAffectedLibraries_transitive() {
+    // B imports A, C exports B, D imports C
+    graph.setDependencies(libB, list(libA), list(), list());
+    graph.setDependencies(libC, list(), list(libB), list());
+    graph.setDependencies(libD, list(libC), list(), list());
+    assertExactElements(graph.getAffectedLibraries(list(libA)), libA, libB, libC, libD);
+    assertExactElements(graph.getAffectedLibraries(list(libC)), libC, libD);
+    assertExactElements(graph.getAffectedLibraries(list(libD)), libD);
+  }
+
+  public void test_getContainingLibraries() {
+    graph.setDependencies(libA, list(), list(), list(partA));
+    assertExactElements(graph.getContainingLibraries(partA), libA);
+    assertExactElements(graph.getContainingLibraries(libB));
+  }
+
+  public void test_removeLibrary() {
+    graph.setDependencies(libA, list(libB), list(libC), list(partA));
+    graph.setDependencies(libD, list(libA), list(), list());
+    graph.removeLibrary(libA);
+    assertExactElements(graph.getImportingLibraries(libB));
+    assertExactElements(graph.getExportingLibraries(libC));
+    assertExactElements(graph.getContainingLibraries(partA));
+    // The dependencies on the removed library are retained.
+    assertExactElements(graph.getImportingLibraries(libA), libD);
+    assertExactElements(graph.getLibraries(), libD);
+  }
+
+  public void test_setDependencies_replaces() {
+    graph.setDependencies(libA, list(libB), list(), list());
+    graph.setDependencies(libA, list(libC), list(libD), list());
+    assertExactElements(graph.getImportingLibraries(libB));
+    assertExactElements(graph.getImportingLibraries(libC), libA);
+    assertExactElements(graph.getExportingLibraries(libD), libA);
+  }
+
+  private Source createSource(String fileName) {
+    return new TestSource(null, createFile(fileName), "");
+  }
+
+  private List<Source> list(Source... sources) {
+    return new ArrayList<Source>(Arrays.asList(sources));
+  }
+}
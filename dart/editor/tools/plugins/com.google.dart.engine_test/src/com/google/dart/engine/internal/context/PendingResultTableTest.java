@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PendingResultTableTest extends EngineTestCase {
+  private final Object lock = new Object();
+
+  private final AnalysisCache<String> cache = new AnalysisCache<String>(
+      "test",
+      new CacheRetentionPolicy(),
+      CacheRetentionPolicy.ResultKind.AST,
+      10,
+      -1L,
+      AnalysisCache.<String> noSizeEstimator(),
+      new HashSet<Source>());
+
+  private final PendingResultTable<String> table = new PendingResultTable<String>(lock, cache);
+
+  public void test_get_cached() throws Exception {
+    Source source = createSource("/a.dart");
+    final AtomicInteger count = new AtomicInteger();
+    PendingResultTable.Computation<String> computation = new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() {
+        count.incrementAndGet();
+        return "a";
+      }
+    };
+    assertEquals("a", table.get(source, computation));
+    assertEquals("a", table.get(source, computation));
+    assertEquals(1, count.get());
+    assertTrue(cache.containsKey(source));
+    assertFalse(table.isPending(source));
+  }
+
+  public void test_get_concurrent() throws Exception {
+    final Source source = createSource("/a.dart");
+    final AtomicInteger count = new AtomicInteger();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final PendingResultTable.Computation<String> computation = new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() {
+        count.incrementAndGet();
+        started.countDown();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+          // Fall through to return the result.
+        }
+        return "a";
+      }
+    };
+    final String[] results = new String[4];
+    Thread[] threads = new Thread[results.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            results[index] = table.get(source, computation);
+          } catch (AnalysisException exception) {
+            // The result will be null and the assertion below will fail.
+          }
+        }
+      };
+    }
+    threads[0].start();
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    for (int i = 1; i < threads.length; i++) {
+      threads[i].start();
+    }
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join(10000);
+    }
+    assertEquals(1, count.get());
+    for (String result : results) {
+      assertEquals("a", result);
+    }
+  }
+
+  public void test_get_exception() throws Exception {
+    Source source = createSource("/a.dart");
+    try {
+      table.get(source, new PendingResultTable.Computation<String>() {
+        @Override
+        public String compute() throws AnalysisException {
+          throw new AnalysisException("failed");
+        }
+      });
+      fail("Expected AnalysisException");
+    } catch (AnalysisException exception) {
+      assertEquals("failed", exception.getMessage());
+    }
+    assertFalse(cache.containsKey(source));
+    assertFalse(table.isPending(source));
+  }
+
+  public void test_get_null() throws Exception {
+    Source source = createSource("/a.dart");
+    assertNull(table.get(source, new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() {
+        return null;
+      }
+    }));
+    assertFalse(cache.containsKey(source));
+  }
+
+  public void test_get_publishedAfterMiss() throws Exception {
+    final Source source = createSource("/a.dart");
+    final CountDownLatch computing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch published = new CountDownLatch(1);
+    final Thread testThread = Thread.currentThread();
+    final AtomicInteger missCount = new AtomicInteger();
+    //
+    // When this thread first misses the cache, let the other thread finish its computation and
+    // publish the result, releasing the lock while waiting for it to do so.
+    //
+    AnalysisCache<String> cache = new AnalysisCache<String>(
+        "test",
+        new CacheRetentionPolicy(),
+        CacheRetentionPolicy.ResultKind.AST,
+        10,
+        -1L,
+        AnalysisCache.<String> noSizeEstimator(),
+        new HashSet<Source>()) {
+      @Override
+      public String get(Source source) {
+        String value = super.get(source);
+        if (value == null && Thread.currentThread() == testThread
+            && missCount.incrementAndGet() == 1) {
+          release.countDown();
+          try {
+            while (published.getCount() > 0) {
+              lock.wait(10);
+            }
+          } catch (InterruptedException exception) {
+            // Continue without waiting.
+          }
+        }
+        return value;
+      }
+    };
+    final PendingResultTable<String> table = new PendingResultTable<String>(lock, cache);
+    final AtomicInteger count = new AtomicInteger();
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          table.get(source, new PendingResultTable.Computation<String>() {
+            @Override
+            public String compute() {
+              count.incrementAndGet();
+              computing.countDown();
+              try {
+                release.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException exception) {
+                // Fall through to return the result.
+              }
+              return "a";
+            }
+          });
+        } catch (AnalysisException exception) {
+          // The count will be wrong and the assertion below will fail.
+        }
+        published.countDown();
+      }
+    };
+    thread.start();
+    assertTrue(computing.await(10, TimeUnit.SECONDS));
+    String result = table.get(source, new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() {
+        count.incrementAndGet();
+        return "b";
+      }
+    });
+    thread.join(10000);
+    assertEquals("a", result);
+    assertEquals(1, count.get());
+    assertEquals("a", cache.get(source));
+  }
+
+  public void test_get_reentrant() throws Exception {
+    final Source source = createSource("/a.dart");
+    final AtomicInteger depth = new AtomicInteger();
+    final String[] nestedResult = new String[1];
+    String result = table.get(source, new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() throws AnalysisException {
+        if (depth.incrementAndGet() == 1) {
+          nestedResult[0] = table.get(source, this);
+          return nestedResult[0] + "b";
+        }
+        return "a";
+      }
+    });
+    // The nested request computed its own copy of the result, which was not published.
+    assertEquals(2, depth.get());
+    assertEquals("a", nestedResult[0]);
+    assertEquals("ab", result);
+    assertEquals("ab", cache.get(source));
+    assertFalse(table.isPending(source));
+  }
+
+  public void test_invalidate() throws Exception {
+    final Source source = createSource("/a.dart");
+    String result = table.get(source, new PendingResultTable.Computation<String>() {
+      @Override
+      public String compute() {
+        table.invalidate(source);
+        return "stale";
+      }
+    });
+    assertEquals("stale", result);
+    assertFalse(cache.containsKey(source));
+  }
+
+  private Source createSource(String fileName) {
+    return new TestSource(null, createFile(fileName), "");
+  }
+}
@@ -21,7 +21,11 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(AnalysisCacheTest.class);
     suite.addTestSuite(AnalysisContextImplTest.class);
+    suite.addTestSuite(LibraryApiSignatureTest.class);
+    suite.addTestSuite(LibraryDependencyGraphTest.class);
+    suite.addTestSuite(PendingResultTableTest.class);
     return suite;
   }
 }
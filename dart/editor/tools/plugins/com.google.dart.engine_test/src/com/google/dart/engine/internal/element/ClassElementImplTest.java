@@ -27,6 +27,7 @@ import static com.google.dart.engine.element.ElementFactory.methodElement;
 import static com.google.dart.engine.element.ElementFactory.setterElement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -68,6 +69,47 @@ public class ClassElementImplTest extends EngineTestCase {
     assertFalse(types.contains(typeC));
   }
 
+  public void test_allSupertypes_supertypeChanged() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    ClassElementImpl elementC = classElement("C");
+    assertFalse(Arrays.asList(elementB.getAllSupertypes()).contains(elementC.getType()));
+    elementA.setInterfaces(new InterfaceType[] {elementC.getType()});
+    assertTrue(Arrays.asList(elementB.getAllSupertypes()).contains(elementC.getType()));
+  }
+
+  public void test_getHierarchyVersion_changedInOtherContext() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    LibraryElementImpl library = library(context, "lib");
+    context.initializeLibraryElement(library);
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(new ClassElement[] {
+        classA, classB});
+    AnalysisContextImpl otherContext = new AnalysisContextImpl();
+    LibraryElementImpl otherLibrary = library(otherContext, "other");
+    otherContext.initializeLibraryElement(otherLibrary);
+    ClassElementImpl classC = classElement("C");
+    ((CompilationUnitElementImpl) otherLibrary.getDefiningCompilationUnit()).setTypes(new ClassElement[] {classC});
+    int version = ClassElementImpl.getHierarchyVersion(classB).get();
+    int otherVersion = ClassElementImpl.getHierarchyVersion(classC).get();
+    assertNull(classB.lookUpMethod("m", library));
+    classB.setSupertype(classElement("D").getType());
+    assertEquals(version + 1, ClassElementImpl.getHierarchyVersion(classB).get());
+    assertEquals(otherVersion, ClassElementImpl.getHierarchyVersion(classC).get());
+  }
+
+  public void test_lookUpGetterInInterfaces() {
+    ClassElementImpl classA = classElement("A");
+    String getterName = "g";
+    PropertyAccessorElement getter = getterElement(getterName, false, null);
+    classA.setAccessors(new PropertyAccessorElement[] {getter});
+    ClassElementImpl classB = classElement("B");
+    classB.setInterfaces(new InterfaceType[] {classA.getType()});
+    assertSame(getter, classB.lookUpGetterInInterfaces(getterName));
+    assertNull(classB.lookUpGetterInInterfaces("h"));
+  }
+
   public void test_lookUpGetter_declared() {
     LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
     ClassElementImpl classA = classElement("A");
@@ -97,6 +139,25 @@ public class ClassElementImplTest extends EngineTestCase {
     assertNull(classA.lookUpGetter("g", library));
   }
 
+  public void test_lookUpMethodInInterfaces() {
+    ClassElementImpl classA = classElement("A");
+    String methodName = "m";
+    MethodElement method = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method});
+    ClassElementImpl classB = classElement("B");
+    classB.setInterfaces(new InterfaceType[] {classA.getType()});
+    ClassElementImpl classC = classElement("C", classB.getType());
+    assertSame(method, classC.lookUpMethodInInterfaces(methodName));
+  }
+
+  public void test_lookUpMethodInInterfaces_cycle() {
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B");
+    classA.setInterfaces(new InterfaceType[] {classB.getType()});
+    classB.setInterfaces(new InterfaceType[] {classA.getType()});
+    assertNull(classA.lookUpMethodInInterfaces("m"));
+  }
+
   public void test_lookUpMethod_declared() {
     LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
     ClassElementImpl classA = classElement("A");
@@ -119,6 +180,31 @@ public class ClassElementImplTest extends EngineTestCase {
     assertSame(method, classB.lookUpMethod(methodName, library));
   }
 
+  public void test_lookUpMethod_private() {
+    LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
+    LibraryElementImpl otherLibrary = library(new AnalysisContextImpl(), "other");
+    ClassElementImpl classA = classElement("A");
+    String methodName = "_m";
+    MethodElement method = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method});
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(new ClassElement[] {classA});
+    assertNull(classA.lookUpMethod(methodName, otherLibrary));
+    assertSame(method, classA.lookUpMethod(methodName, library));
+  }
+
+  public void test_lookUpMethod_superclassChanged() {
+    LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(new ClassElement[] {
+        classA, classB});
+    String methodName = "m";
+    assertNull(classB.lookUpMethod(methodName, library));
+    MethodElement method = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method});
+    assertSame(method, classB.lookUpMethod(methodName, library));
+  }
+
   public void test_lookUpMethod_undeclared() {
     LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
     ClassElementImpl classA = classElement("A");
@@ -126,6 +212,16 @@ public class ClassElementImplTest extends EngineTestCase {
     assertNull(classA.lookUpMethod("m", library));
   }
 
+  public void test_lookUpSetterInInterfaces() {
+    ClassElementImpl classA = classElement("A");
+    String setterName = "s";
+    PropertyAccessorElement setter = setterElement(setterName, false, null);
+    classA.setAccessors(new PropertyAccessorElement[] {setter});
+    ClassElementImpl classB = classElement("B");
+    classB.setInterfaces(new InterfaceType[] {classA.getType()});
+    assertSame(setter, classB.lookUpSetterInInterfaces(setterName));
+  }
+
   public void test_lookUpSetter_declared() {
     LibraryElementImpl library = library(new AnalysisContextImpl(), "lib");
     ClassElementImpl classA = classElement("A");
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+public class CompactIndexStoreImplTest extends EngineTestCase {
+  /**
+   * @return the {@link SourceContainer} mock with contains given {@link Source}s.
+   */
+  private static SourceContainer mockSourceContainer(Source... sources) {
+    final Set<Source> sourceSet = ImmutableSet.<Source> builder().add(sources).build();
+    SourceContainer container = mock(SourceContainer.class);
+    when(container.contains(any(Source.class))).then(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return sourceSet.contains(invocation.getArguments()[0]);
+      }
+    });
+    return container;
+  }
+
+  private CompactIndexStoreImpl store = new CompactIndexStoreImpl();
+  private AnalysisContext contextA = mock(AnalysisContext.class);
+  private AnalysisContext contextB = mock(AnalysisContext.class);
+  private AnalysisContext contextC = mock(AnalysisContext.class);
+  private Element elementA = mock(Element.class);
+  private Element elementB = mock(Element.class);
+  private Element elementC = mock(Element.class);
+  private Source sourceA = mock(Source.class);
+  private Source sourceB = mock(Source.class);
+  private Source sourceC = mock(Source.class);
+  private CompilationUnitElement unitElementA = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementB = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementC = mock(CompilationUnitElement.class);
+  private Relationship relationship = Relationship.getRelationship("test-relationship");
+  private Location locationB;
+  private Location locationC;
+
+  public void test_clear() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    assertEquals(1, store.getElementCount());
+    assertEquals(1, store.getRelationshipCount());
+    // clear
+    store.clear();
+    assertEquals(0, store.getElementCount());
+    assertEquals(0, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+  }
+
+  public void test_getElementCount() throws Exception {
+    Relationship relationshipA = Relationship.getRelationship("test-A");
+    Relationship relationshipB = Relationship.getRelationship("test-B");
+    assertEquals(0, store.getElementCount());
+    // add for A
+    store.recordRelationship(elementA, relationshipA, locationC);
+    assertEquals(1, store.getElementCount());
+    // one more for A, still 1 element
+    store.recordRelationship(elementA, relationshipB, locationC);
+    assertEquals(1, store.getElementCount());
+    // add for B, now 2 elements
+    store.recordRelationship(elementB, relationshipA, locationC);
+    assertEquals(2, store.getElementCount());
+  }
+
+  public void test_getRelationships_hasTwo() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertThat(locations).containsOnly(locationB, locationC);
+  }
+
+  public void test_getRelationships_importPrefix() throws Exception {
+    Location location = new Location(elementB, 1, 2, "pref");
+    store.recordRelationship(elementA, relationship, location);
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertThat(locations).containsOnly(location);
+    assertEquals("pref", locations[0].getImportPrefix());
+  }
+
+  public void test_getRelationships_manyLocations() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      store.recordRelationship(elementA, relationship, new Location(elementB, i, 1, null));
+    }
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertLength(100, locations);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, locations[i].getOffset());
+    }
+  }
+
+  public void test_getRelationships_noRelations() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    Location[] locations = store.getRelationships(
+        elementA,
+        Relationship.getRelationship("no-such-relationship"));
+    assertThat(locations).isEmpty();
+    assertThat(store.getRelationships(elementC, relationship)).isEmpty();
+  }
+
+  public void test_recordRelationship_noElement() throws Exception {
+    store.recordRelationship(null, relationship, locationB);
+    assertEquals(0, store.getRelationshipCount());
+  }
+
+  public void test_recordRelationship_noLocation() throws Exception {
+    store.recordRelationship(elementA, relationship, null);
+    assertEquals(0, store.getRelationshipCount());
+  }
+
+  public void test_removeContext_withDeclaration() throws Exception {
+    when(elementB.getContext()).thenReturn(contextB);
+    when(elementC.getContext()).thenReturn(contextC);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertEquals(2, store.getRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextB));
+    assertEquals(1, store.getLocationCount(contextC));
+    // remove A, so no relations anymore
+    store.removeContext(contextA);
+    assertEquals(0, store.getElementCount());
+    assertEquals(0, store.getRelationshipCount());
+    assertEquals(0, store.getLocationCount(contextB));
+    assertEquals(0, store.getLocationCount(contextC));
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+  }
+
+  public void test_removeContext_withRelationship() throws Exception {
+    when(elementB.getContext()).thenReturn(contextB);
+    when(elementC.getContext()).thenReturn(contextC);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    // remove B, 1 relation and 1 location left
+    store.removeContext(contextB);
+    assertEquals(1, store.getRelationshipCount());
+    assertEquals(0, store.getLocationCount(contextB));
+    assertEquals(1, store.getLocationCount(contextC));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    // now remove C, empty
+    store.removeContext(contextC);
+    assertEquals(0, store.getElementCount());
+    assertEquals(0, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+  }
+
+  public void test_removeSource_reuseIdentifiers() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.removeSource(contextA, sourceA);
+    assertEquals(0, store.getRelationshipCount());
+    // record again, released identifiers are reused
+    store.recordRelationship(elementC, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertThat(store.getRelationships(elementC, relationship)).containsOnly(locationB);
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    assertEquals(2, store.getRelationshipCount());
+  }
+
+  public void test_removeSource_withDeclaration() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertEquals(2, store.getRelationshipCount());
+    // remove A, no relations and locations
+    store.removeSource(contextA, sourceA);
+    assertEquals(0, store.getElementCount());
+    assertEquals(0, store.getRelationshipCount());
+    assertEquals(0, store.getLocationCount(contextA));
+  }
+
+  public void test_removeSource_withRelationship() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    // remove B, 1 relation and 1 location left
+    store.removeSource(contextA, sourceB);
+    assertEquals(1, store.getRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+  }
+
+  public void test_removeSource_withRelationship_twoContexts_oneSource() throws Exception {
+    when(unitElementC.getSource()).thenReturn(sourceB);
+    when(elementB.getContext()).thenReturn(contextB);
+    when(elementC.getContext()).thenReturn(contextC);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertEquals(1, store.getLocationCount(contextB));
+    assertEquals(1, store.getLocationCount(contextC));
+    // remove "B" in B, 1 relation and 1 location left
+    store.removeSource(contextB, sourceB);
+    assertEquals(1, store.getRelationshipCount());
+    assertEquals(0, store.getLocationCount(contextB));
+    assertEquals(1, store.getLocationCount(contextC));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    // now remove "B" in C, empty
+    store.removeSource(contextC, sourceB);
+    assertEquals(0, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+  }
+
+  public void test_removeSources_withDeclaration() throws Exception {
+    // record: [B -> A],  [C -> A] and [B -> C]
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.recordRelationship(elementC, relationship, locationB);
+    assertEquals(3, store.getRelationshipCount());
+    // remove container with [A], only [B -> C] left
+    SourceContainer containerA = mockSourceContainer(sourceA);
+    store.removeSources(contextA, containerA);
+    assertEquals(1, store.getRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+    assertThat(store.getRelationships(elementC, relationship)).containsOnly(locationB);
+  }
+
+  public void test_removeSources_withRelationship() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    // remove container with [B], 1 relation and 1 location left
+    SourceContainer containerB = mockSourceContainer(sourceB);
+    store.removeSources(contextA, containerB);
+    assertEquals(1, store.getRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    when(elementA.getContext()).thenReturn(contextA);
+    when(elementB.getContext()).thenReturn(contextA);
+    when(elementC.getContext()).thenReturn(contextA);
+    when(elementA.getEnclosingElement()).thenReturn(unitElementA);
+    when(elementB.getEnclosingElement()).thenReturn(unitElementB);
+    when(elementC.getEnclosingElement()).thenReturn(unitElementC);
+    when(unitElementA.getSource()).thenReturn(sourceA);
+    when(unitElementB.getSource()).thenReturn(sourceB);
+    when(unitElementC.getSource()).thenReturn(sourceC);
+    locationB = new Location(elementB, 10, 1, null);
+    locationC = new Location(elementC, 20, 2, null);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.source.Source;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DeclarationNameIndexTest extends EngineTestCase {
+  private DeclarationNameIndex index = new DeclarationNameIndex();
+  private AnalysisContext contextA = mock(AnalysisContext.class);
+  private AnalysisContext contextB = mock(AnalysisContext.class);
+  private Source sourceA = mock(Source.class);
+  private Source sourceB = mock(Source.class);
+
+  public void test_clear() throws Exception {
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, mockLocation("HashMap", contextA, sourceA));
+    index.clear();
+    assertEquals(0, index.getDeclarationCount());
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "")).isEmpty();
+  }
+
+  public void test_filterByNamePrefix() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("HashSet", contextA, sourceA);
+    Location locationC = mockLocation("LinkedHashMap", contextA, sourceA);
+    Location[] locations = {locationA, locationB, locationC};
+    assertThat(DeclarationNameIndex.filterByNamePrefix(locations, "hashm")).containsOnly(locationA);
+    assertSame(locations, DeclarationNameIndex.filterByNamePrefix(locations, ""));
+  }
+
+  public void test_getDeclarations_emptyPrefix() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("List", contextA, sourceA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationB);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "")).containsOnly(
+        locationA,
+        locationB);
+  }
+
+  public void test_getDeclarations_ignoreCase() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("hashCode", contextA, sourceA);
+    Location locationC = mockLocation("Hash", contextA, sourceA);
+    Location locationD = mockLocation("List", contextA, sourceA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationB);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationC);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationD);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "HASH")).containsOnly(
+        locationA,
+        locationB,
+        locationC);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "hashM")).containsOnly(locationA);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "Map")).isEmpty();
+  }
+
+  public void test_getDeclarations_otherRelationship() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("hashValue", contextA, sourceA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_FUNCTION, locationB);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_FUNCTION, "hash")).containsOnly(
+        locationB);
+  }
+
+  public void test_getDeclarations_sameName() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("HashMap", contextB, sourceB);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationB);
+    assertEquals(2, index.getDeclarationCount());
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "HashMap")).containsOnly(
+        locationA,
+        locationB);
+  }
+
+  public void test_recordDeclaration_nullName() throws Exception {
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, mockLocation(null, contextA, sourceA));
+    assertEquals(0, index.getDeclarationCount());
+  }
+
+  public void test_removeContext() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("HashSet", contextB, sourceB);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationB);
+    index.removeContext(contextA);
+    assertEquals(1, index.getDeclarationCount());
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "Hash")).containsOnly(locationB);
+  }
+
+  public void test_removeSource() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    Location locationB = mockLocation("HashMap", contextA, sourceB);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationB);
+    index.removeSource(contextA, sourceA);
+    assertEquals(1, index.getDeclarationCount());
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "Hash")).containsOnly(locationB);
+    // remove the last declaration with the name
+    index.removeSource(contextA, sourceB);
+    assertEquals(0, index.getDeclarationCount());
+  }
+
+  public void test_removeSource_otherContext() throws Exception {
+    Location locationA = mockLocation("HashMap", contextA, sourceA);
+    index.recordDeclaration(IndexConstants.DEFINES_CLASS, locationA);
+    index.removeSource(contextB, sourceA);
+    assertThat(index.getDeclarations(IndexConstants.DEFINES_CLASS, "Hash")).containsOnly(locationA);
+  }
+
+  public void test_startsWithIgnoreCase() throws Exception {
+    assertTrue(DeclarationNameIndex.startsWithIgnoreCase("HashMap", "hASh"));
+    assertTrue(DeclarationNameIndex.startsWithIgnoreCase("HashMap", ""));
+    assertFalse(DeclarationNameIndex.startsWithIgnoreCase("HashMap", "Map"));
+    assertFalse(DeclarationNameIndex.startsWithIgnoreCase("Hash", "HashMap"));
+  }
+
+  private Location mockLocation(String name, AnalysisContext context, Source source) {
+    CompilationUnitElement unitElement = mock(CompilationUnitElement.class);
+    when(unitElement.getSource()).thenReturn(source);
+    Element element = mock(Element.class);
+    when(element.getName()).thenReturn(name);
+    when(element.getContext()).thenReturn(context);
+    when(element.getEnclosingElement()).thenReturn(unitElement);
+    Location location = mock(Location.class);
+    when(location.getElement()).thenReturn(element);
+    return location;
+  }
+}
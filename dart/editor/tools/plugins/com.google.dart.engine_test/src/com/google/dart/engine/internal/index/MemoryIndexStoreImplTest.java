@@ -23,6 +23,7 @@ import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.UniverseElement;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
@@ -162,6 +163,46 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     assertThat(locations).containsOnly(locationA, locationB);
   }
 
+  public void test_getRelationships_namePrefix() throws Exception {
+    Location locationA = mock(Location.class);
+    Location locationB = mock(Location.class);
+    when(elementA.getName()).thenReturn("HashMap");
+    when(elementB.getName()).thenReturn("List");
+    when(locationA.getElement()).thenReturn(elementA);
+    when(locationB.getElement()).thenReturn(elementB);
+    store.recordRelationship(elementC, relationship, locationA);
+    store.recordRelationship(elementC, relationship, locationB);
+    Location[] locations = store.getRelationships(elementC, relationship, "hash");
+    assertThat(locations).containsOnly(locationA);
+  }
+
+  public void test_getRelationships_namePrefix_universe() throws Exception {
+    Location locationA = mock(Location.class);
+    Location locationB = mock(Location.class);
+    when(elementA.getName()).thenReturn("HashMap");
+    when(elementB.getName()).thenReturn("List");
+    when(elementA.getContext()).thenReturn(contextA);
+    when(elementB.getContext()).thenReturn(contextA);
+    when(locationA.getElement()).thenReturn(elementA);
+    when(locationB.getElement()).thenReturn(elementB);
+    store.recordRelationship(UniverseElement.INSTANCE, relationship, locationA);
+    store.recordRelationship(UniverseElement.INSTANCE, relationship, locationB);
+    {
+      Location[] locations = store.getRelationships(UniverseElement.INSTANCE, relationship, "hash");
+      assertThat(locations).containsOnly(locationA);
+    }
+    {
+      Location[] locations = store.getRelationships(UniverseElement.INSTANCE, relationship, "");
+      assertThat(locations).containsOnly(locationA, locationB);
+    }
+    // remove context, no declarations
+    store.removeContext(contextA);
+    {
+      Location[] locations = store.getRelationships(UniverseElement.INSTANCE, relationship, "");
+      assertThat(locations).isEmpty();
+    }
+  }
+
   public void test_getRelationships_noRelations() throws Exception {
     store.recordRelationship(elementA, relationship, location);
     Location[] locations = store.getRelationships(
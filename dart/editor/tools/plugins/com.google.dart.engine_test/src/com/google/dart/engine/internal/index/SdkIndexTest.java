@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.SourceFactory;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SdkIndexTest extends EngineTestCase {
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private File directory;
+  private File indexDirectory;
+  private DartSdk sdk;
+
+  public void test_create_open() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      SdkIndex.create(sdk, indexDirectory, executor);
+    } finally {
+      executor.shutdown();
+    }
+    // open in a new context
+    AnalysisContextImpl context = spy(createContext());
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertTrue(SdkIndex.open(store, context, sdk, indexDirectory));
+    assertEquals(1, store.getSegmentCount(context));
+    // relationships of SDK elements are available without indexing
+    LibraryElement library = context.getLibraryElement(context.getSourceFactory().forUri(
+        DartSdk.DART_CORE));
+    ClassElement classA = findClass(library, "A");
+    final ClassElement classB = findClass(library, "B");
+    doAnswer(new Answer<Element>() {
+      @Override
+      public Element answer(InvocationOnMock invocation) throws Throwable {
+        ElementLocation location = (ElementLocation) invocation.getArguments()[0];
+        return location.equals(classB.getLocation()) ? classB : null;
+      }
+    }).when(context).getElement(any(ElementLocation.class));
+    Location[] locations = store.getRelationships(classA, IndexConstants.IS_EXTENDED_BY);
+    assertThat(locations).hasSize(1);
+    assertSame(classB, locations[0].getElement());
+  }
+
+  public void test_create_replacesIndex() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      SdkIndex.create(sdk, indexDirectory, executor);
+      SdkIndex.create(sdk, indexDirectory, executor);
+    } finally {
+      executor.shutdown();
+    }
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertTrue(SdkIndex.open(store, context, sdk, indexDirectory));
+    assertEquals(1, store.getSegmentCount(context));
+  }
+
+  public void test_open_noIndex() throws Exception {
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertFalse(SdkIndex.open(store, context, sdk, indexDirectory));
+    assertEquals(0, store.getSegmentCount(context));
+  }
+
+  public void test_open_otherVersion() throws Exception {
+    indexDirectory.mkdirs();
+    Files.write("other", new File(indexDirectory, SdkIndex.VERSION_FILE_NAME), Charsets.UTF_8);
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertFalse(SdkIndex.open(store, context, sdk, indexDirectory));
+    assertEquals(0, store.getSegmentCount(context));
+  }
+
+  public void test_openPackaged() throws Exception {
+    createIndex();
+    File copyDirectory = new File(directory, "copy");
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertTrue(SdkIndex.openPackaged(store, context, sdk, copyDirectory, getVersionResource()));
+    assertEquals(1, store.getSegmentCount(context));
+    assertTrue(new File(copyDirectory, SdkIndex.SEGMENT_FILE_NAME).isFile());
+    assertTrue(new File(copyDirectory, SdkIndex.VERSION_FILE_NAME).isFile());
+    // the copy is opened without the packaged index
+    context = createContext();
+    store = new SegmentedIndexStoreImpl(null);
+    assertTrue(SdkIndex.openPackaged(store, context, sdk, copyDirectory, null));
+    assertEquals(1, store.getSegmentCount(context));
+  }
+
+  public void test_openPackaged_notPackaged() throws Exception {
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertFalse(SdkIndex.openPackaged(store, context, sdk, new File(directory, "copy"), null));
+    assertEquals(0, store.getSegmentCount(context));
+  }
+
+  public void test_openPackaged_otherVersion() throws Exception {
+    createIndex();
+    Files.write("other", new File(indexDirectory, SdkIndex.VERSION_FILE_NAME), Charsets.UTF_8);
+    File copyDirectory = new File(directory, "copy");
+    AnalysisContextImpl context = createContext();
+    SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+    assertFalse(SdkIndex.openPackaged(store, context, sdk, copyDirectory, getVersionResource()));
+    assertEquals(0, store.getSegmentCount(context));
+    assertFalse(new File(copyDirectory, SdkIndex.VERSION_FILE_NAME).exists());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("sdk", "");
+    directory.delete();
+    directory.mkdirs();
+    File sdkDirectory = new File(directory, "sdk");
+    writeFile(new File(sdkDirectory, "revision"), "1234");
+    writeFile(
+        new File(sdkDirectory, "lib/_internal/libraries.dart"),
+        createSource(
+            "final Map<String, LibraryInfo> LIBRARIES = const <LibraryInfo> {",
+            "  'core' : const LibraryInfo('core/core.dart')",
+            "};"));
+    writeFile(
+        new File(sdkDirectory, "lib/core/core.dart"),
+        createSource(
+            "library dart.core;",
+            "class Object {}",
+            "class Function {}",
+            "class StackTrace {}",
+            "class Type {}",
+            "class bool {}",
+            "class num {}",
+            "class int extends num {}",
+            "class double extends num {}",
+            "class String {}",
+            "class List<E> {}",
+            "class Map<K, V> {}",
+            "class A {}",
+            "class B extends A {}"));
+    sdk = new DartSdk(sdkDirectory);
+    indexDirectory = new File(directory, "index");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(directory);
+    super.tearDown();
+  }
+
+  private AnalysisContextImpl createContext() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new DartUriResolver(sdk)));
+    return context;
+  }
+
+  private void createIndex() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      SdkIndex.create(sdk, indexDirectory, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private ClassElement findClass(LibraryElement library, String name) {
+    for (ClassElement type : library.getDefiningCompilationUnit().getTypes()) {
+      if (type.getName().equals(name)) {
+        return type;
+      }
+    }
+    fail("Cannot find class " + name);
+    return null;
+  }
+
+  private URL getVersionResource() throws Exception {
+    return new File(indexDirectory, SdkIndex.VERSION_FILE_NAME).toURI().toURL();
+  }
+
+  private void writeFile(File file, String contents) throws Exception {
+    file.getParentFile().mkdirs();
+    Files.write(contents, file, Charsets.UTF_8);
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.source.SourceFactory;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+public class SegmentedIndexStoreImplTest extends EngineTestCase {
+  /**
+   * @return the {@link SourceContainer} mock with contains given {@link Source}s.
+   */
+  private static SourceContainer mockSourceContainer(Source... sources) {
+    final Set<Source> sourceSet = ImmutableSet.<Source> builder().add(sources).build();
+    SourceContainer container = mock(SourceContainer.class);
+    when(container.contains(any(Source.class))).then(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return sourceSet.contains(invocation.getArguments()[0]);
+      }
+    });
+    return container;
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private File directory;
+  private SegmentedIndexStoreImpl store = new SegmentedIndexStoreImpl(null);
+  private AnalysisContext contextA = mock(AnalysisContext.class);
+  private SourceFactory sourceFactory = mock(SourceFactory.class);
+  private Element elementA = mock(Element.class);
+  private Element elementB = mock(Element.class);
+  private Element elementC = mock(Element.class);
+  private Source sourceA = mock(Source.class);
+  private Source sourceB = mock(Source.class);
+  private Source sourceC = mock(Source.class);
+  private CompilationUnitElement unitElementA = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementB = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementC = mock(CompilationUnitElement.class);
+  private Relationship relationship = Relationship.getRelationship("test-relationship");
+  private Location locationB;
+  private Location locationC;
+
+  public void test_clear() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    assertLength(1, directory.listFiles());
+    // clear
+    store.clear();
+    assertEquals(0, store.getElementCount());
+    assertEquals(0, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+    assertLength(0, directory.listFiles());
+  }
+
+  public void test_compact() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.flush(contextA);
+    // re-index B
+    Location newLocationB = new Location(elementB, 30, 3, null);
+    store.removeSource(contextA, sourceB);
+    store.recordRelationship(elementA, relationship, newLocationB);
+    store.flush(contextA);
+    assertEquals(3, store.getSegmentCount(contextA));
+    // compact
+    store.compact(contextA);
+    assertEquals(1, store.getSegmentCount(contextA));
+    assertLength(1, directory.listFiles());
+    assertEquals(2, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(
+        locationC,
+        newLocationB);
+    // reopen
+    SegmentedIndexStoreImpl newStore = new SegmentedIndexStoreImpl(null);
+    newStore.openContext(contextA, directory);
+    assertThat(newStore.getRelationships(elementA, relationship)).containsOnly(
+        locationC,
+        newLocationB);
+  }
+
+  public void test_compact_maskedAfterSnapshot() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.flush(contextA);
+    store.compact(contextA);
+    store.removeSource(contextA, sourceB);
+    store.flush(contextA);
+    // [B -> A] is masked in the merged segment and superseded in the new one
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    SegmentedIndexStoreImpl newStore = new SegmentedIndexStoreImpl(null);
+    newStore.openContext(contextA, directory);
+    assertThat(newStore.getRelationships(elementA, relationship)).containsOnly(locationC);
+  }
+
+  public void test_flush() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertEquals(0, store.getSegmentCount(contextA));
+    // flush
+    store.flush(contextA);
+    assertEquals(1, store.getSegmentCount(contextA));
+    assertEquals(1, store.getElementCount());
+    assertEquals(2, store.getRelationshipCount());
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB, locationC);
+    // nothing to flush
+    store.flush(contextA);
+    assertEquals(1, store.getSegmentCount(contextA));
+  }
+
+  public void test_flush_compactInBackground() throws Exception {
+    store = new SegmentedIndexStoreImpl(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    });
+    store.openContext(contextA, directory);
+    for (int i = 0; i < 5; i++) {
+      store.recordRelationship(elementA, relationship, new Location(elementB, i, 1, null));
+      store.flush(contextA);
+    }
+    assertEquals(1, store.getSegmentCount(contextA));
+    assertLength(5, store.getRelationships(elementA, relationship));
+  }
+
+  public void test_flush_notPersisted() throws Exception {
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    assertEquals(0, store.getSegmentCount(contextA));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB);
+  }
+
+  public void test_getRelationships_importPrefix() throws Exception {
+    Location location = new Location(elementB, 1, 2, "pref");
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, location);
+    store.flush(contextA);
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertThat(locations).containsOnly(location);
+    assertEquals("pref", locations[0].getImportPrefix());
+  }
+
+  public void test_getRelationships_noRelations() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    assertThat(
+        store.getRelationships(elementA, Relationship.getRelationship("no-such-relationship"))).isEmpty();
+    assertThat(store.getRelationships(elementC, relationship)).isEmpty();
+  }
+
+  public void test_getRelationships_segmentAndMemory() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB, locationC);
+  }
+
+  public void test_openContext() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    store.recordRelationship(elementC, relationship, locationB);
+    store.flush(contextA);
+    // open in new store
+    SegmentedIndexStoreImpl newStore = new SegmentedIndexStoreImpl(null);
+    newStore.openContext(contextA, directory);
+    assertEquals(2, newStore.getSegmentCount(contextA));
+    assertThat(newStore.getRelationships(elementA, relationship)).containsOnly(locationB);
+    assertThat(newStore.getRelationships(elementC, relationship)).containsOnly(locationB);
+    // new segments are newer than the opened ones
+    newStore.recordRelationship(elementA, relationship, locationC);
+    newStore.flush(contextA);
+    SegmentedIndexStoreImpl newStore2 = new SegmentedIndexStoreImpl(null);
+    newStore2.openContext(contextA, directory);
+    assertEquals(3, newStore2.getSegmentCount(contextA));
+    assertThat(newStore2.getRelationships(elementA, relationship)).containsOnly(
+        locationB,
+        locationC);
+  }
+
+  public void test_openContext_notSegment() throws Exception {
+    File file = new File(directory, "1.segment");
+    assertTrue(file.createNewFile());
+    try {
+      store.openContext(contextA, directory);
+      fail();
+    } catch (IOException exception) {
+    }
+  }
+
+  public void test_removeContext() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.flush(contextA);
+    // remove
+    store.removeContext(contextA);
+    assertEquals(0, store.getSegmentCount(contextA));
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+    // segment files are kept
+    store.openContext(contextA, directory);
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB);
+  }
+
+  public void test_removeSource_withDeclaration() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.flush(contextA);
+    // remove A, no relations
+    store.removeSource(contextA, sourceA);
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+    // superseded after reopen
+    store.flush(contextA);
+    SegmentedIndexStoreImpl newStore = new SegmentedIndexStoreImpl(null);
+    newStore.openContext(contextA, directory);
+    assertThat(newStore.getRelationships(elementA, relationship)).isEmpty();
+  }
+
+  public void test_removeSource_withRelationship() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.flush(contextA);
+    // remove B, 1 location left
+    store.removeSource(contextA, sourceB);
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    // re-index B
+    Location newLocationB = new Location(elementB, 30, 3, null);
+    store.recordRelationship(elementA, relationship, newLocationB);
+    store.flush(contextA);
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(
+        locationC,
+        newLocationB);
+    // reopen
+    SegmentedIndexStoreImpl newStore = new SegmentedIndexStoreImpl(null);
+    newStore.openContext(contextA, directory);
+    assertThat(newStore.getRelationships(elementA, relationship)).containsOnly(
+        locationC,
+        newLocationB);
+  }
+
+  public void test_removeSources() throws Exception {
+    store.openContext(contextA, directory);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    store.flush(contextA);
+    store.recordRelationship(elementC, relationship, locationB);
+    // remove container with [B]
+    store.removeSources(contextA, mockSourceContainer(sourceB));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    assertThat(store.getRelationships(elementC, relationship)).isEmpty();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("index", "");
+    directory.delete();
+    directory.mkdirs();
+    // elements
+    final Map<String, Element> elementMap = Maps.newHashMap();
+    final Map<String, Source> sourceMap = Maps.newHashMap();
+    mockElement("A", elementA, unitElementA, sourceA, elementMap, sourceMap);
+    mockElement("B", elementB, unitElementB, sourceB, elementMap, sourceMap);
+    mockElement("C", elementC, unitElementC, sourceC, elementMap, sourceMap);
+    // context
+    when(contextA.getSourceFactory()).thenReturn(sourceFactory);
+    when(contextA.getElement(any(ElementLocation.class))).then(new Answer<Element>() {
+      @Override
+      public Element answer(InvocationOnMock invocation) throws Throwable {
+        ElementLocation location = (ElementLocation) invocation.getArguments()[0];
+        return elementMap.get(location.getEncoding());
+      }
+    });
+    when(sourceFactory.fromEncoding(anyString())).then(new Answer<Source>() {
+      @Override
+      public Source answer(InvocationOnMock invocation) throws Throwable {
+        return sourceMap.get(invocation.getArguments()[0]);
+      }
+    });
+    locationB = new Location(elementB, 10, 1, null);
+    locationC = new Location(elementC, 20, 2, null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(directory);
+    super.tearDown();
+  }
+
+  private void mockElement(String name, Element element, CompilationUnitElement unitElement,
+      Source source, Map<String, Element> elementMap, Map<String, Source> sourceMap) {
+    String elementEncoding = "element" + name;
+    String sourceEncoding = "source" + name;
+    when(element.getContext()).thenReturn(contextA);
+    when(element.getLocation()).thenReturn(new ElementLocationImpl(elementEncoding));
+    when(element.getEnclosingElement()).thenReturn(unitElement);
+    when(unitElement.getSource()).thenReturn(source);
+    when(source.getEncoding()).thenReturn(sourceEncoding);
+    elementMap.put(elementEncoding, element);
+    sourceMap.put(sourceEncoding, source);
+  }
+}
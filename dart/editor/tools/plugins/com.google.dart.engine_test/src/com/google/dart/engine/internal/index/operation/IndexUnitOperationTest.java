@@ -27,7 +27,9 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class IndexUnitOperationTest extends EngineTestCase {
@@ -73,6 +75,16 @@ public class IndexUnitOperationTest extends EngineTestCase {
     }
   }
 
+  public void test_prepare() throws Exception {
+    operation.prepare();
+    verify(unit).accept(isA(IndexContributor.class));
+    verifyZeroInteractions(store);
+    // perform, relationships are not computed again
+    operation.performOperation();
+    verify(store).removeSource(context, unitSource);
+    verify(unit, times(1)).accept(isA(IndexContributor.class));
+  }
+
   public void test_removeWhenSourceRemoved() throws Exception {
     Source someSource = mock(Source.class);
     assertFalse(operation.removeWhenSourceRemoved(someSource));
@@ -36,11 +36,60 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class OperationProcessorTest extends EngineTestCase {
 
+  /**
+   * @return the {@link IndexOperation} mock which adds given name to the given list when performed.
+   */
+  private static IndexOperation mockOperation(final List<String> events, final String name,
+      final CountDownLatch performedLatch) {
+    IndexOperation operation = mock(IndexOperation.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        events.add(name);
+        if (performedLatch != null) {
+          performedLatch.countDown();
+        }
+        return null;
+      }
+    }).when(operation).performOperation();
+    return operation;
+  }
+
+  /**
+   * @return the {@link IndexUnitOperation} mock which adds given name to the given list when
+   *         performed.
+   */
+  private static IndexUnitOperation mockUnitOperation(final List<String> events, final String name) {
+    IndexUnitOperation operation = mock(IndexUnitOperation.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        events.add(name);
+        return null;
+      }
+    }).when(operation).performOperation();
+    return operation;
+  }
+
+  /**
+   * Runs given {@link OperationProcessor} in new thread.
+   */
+  private static void startOperationProcessor(final OperationProcessor processor) {
+    new Thread() {
+      @Override
+      public void run() {
+        processor.run();
+      }
+    }.start();
+  }
+
   /**
    * Runs given {@link OperationProcessor} in thread.
    */
@@ -88,6 +137,24 @@ public class OperationProcessorTest extends EngineTestCase {
     return processor.stop(waitStop);
   }
 
+  public void test_getStatistics() throws Exception {
+    List<String> events = Collections.synchronizedList(Lists.<String> newArrayList());
+    CountDownLatch latch = new CountDownLatch(1);
+    IndexOperation operation = mockOperation(events, "op", latch);
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operation);
+    OperationProcessor processor = new OperationProcessor(queue);
+    startOperationProcessor(processor);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    processor.stop(true);
+    // check statistics
+    OperationStatistics statistics = processor.getStatistics();
+    assertEquals(1, statistics.getOperationCount(operation.getClass()));
+    assertEquals(1, statistics.getMaxQueueDepth());
+    assertTrue(statistics.getMaxWaitTime(operation.getClass()) >= 0);
+    assertEquals(0, processor.getQueueDepth());
+  }
+
   public void test_performOperation() throws Exception {
     IndexOperation operation = mock(IndexOperation.class);
     runOperationProcessor(new IndexOperation[] {operation}, false, new IndexOperation[] {});
@@ -156,6 +223,60 @@ public class OperationProcessorTest extends EngineTestCase {
     verify(operation).performOperation();
   }
 
+  public void test_runConcurrently_order() throws Exception {
+    List<String> events = Collections.synchronizedList(Lists.<String> newArrayList());
+    CountDownLatch latch = new CountDownLatch(1);
+    IndexUnitOperation unitA = mockUnitOperation(events, "A");
+    IndexUnitOperation unitB = mockUnitOperation(events, "B");
+    IndexUnitOperation unitC = mockUnitOperation(events, "C");
+    IndexOperation removeOperation = mockOperation(events, "remove", latch);
+    IndexUnitOperation unitD = mockUnitOperation(events, "D");
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(unitA);
+    queue.enqueue(unitB);
+    queue.enqueue(unitC);
+    queue.enqueue(removeOperation);
+    queue.enqueue(unitD);
+    // run processor
+    OperationProcessor processor = new OperationProcessor(queue, 4);
+    startOperationProcessor(processor);
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    processor.stop(true);
+    // units were prepared, then all operations were performed in order
+    verify(unitA).prepare();
+    verify(unitB).prepare();
+    verify(unitC).prepare();
+    assertEquals(Arrays.asList("A", "B", "C", "remove"), events.subList(0, 4));
+  }
+
+  public void test_runConcurrently_queryDuringIndexing() throws Exception {
+    List<String> events = Collections.synchronizedList(Lists.<String> newArrayList());
+    final CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch queryLatch = new CountDownLatch(1);
+    IndexUnitOperation unit = mockUnitOperation(events, "unit");
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        release.await(10, TimeUnit.SECONDS);
+        return null;
+      }
+    }).when(unit).prepare();
+    IndexOperation query = mockOperation(events, "query", queryLatch);
+    when(query.isQuery()).thenReturn(true);
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(unit);
+    queue.enqueue(query);
+    // run processor, query is performed while unit is being prepared
+    OperationProcessor processor = new OperationProcessor(queue, 2);
+    startOperationProcessor(processor);
+    assertTrue(queryLatch.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("query"), events);
+    // finish
+    release.countDown();
+    processor.stop(true);
+    assertEquals(Arrays.asList("query", "unit"), events);
+  }
+
   public void test_stop_returnsNotIndexed_wasReady() throws Exception {
     Source source = mock(Source.class);
     IndexUnitOperation operation = mock(IndexUnitOperation.class);
@@ -47,6 +47,47 @@ public class OperationQueueTest extends EngineTestCase {
     assertSame(null, queue.dequeue(-1));
   }
 
+  public void test_dequeueNonQuery() throws Exception {
+    IndexOperation notQueryOperation = mock(IndexOperation.class);
+    IndexOperation isQueryOperation = mock(IndexOperation.class);
+    when(isQueryOperation.isQuery()).thenReturn(true);
+    // enqueue 2 operations
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(isQueryOperation);
+    queue.enqueue(notQueryOperation);
+    // only "notQuery"
+    assertSame(notQueryOperation, queue.dequeueNonQuery(0));
+    assertSame(null, queue.dequeueNonQuery(0));
+    assertSame(null, queue.dequeueNonQuery(1));
+    assertEquals(1, queue.size());
+  }
+
+  public void test_dequeueQuery() throws Exception {
+    IndexOperation notQueryOperation = mock(IndexOperation.class);
+    IndexOperation isQueryOperation = mock(IndexOperation.class);
+    when(isQueryOperation.isQuery()).thenReturn(true);
+    // enqueue 2 operations
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(notQueryOperation);
+    queue.enqueue(isQueryOperation);
+    // only "isQuery"
+    assertSame(isQueryOperation, queue.dequeueQuery(0));
+    assertSame(null, queue.dequeueQuery(0));
+    assertSame(null, queue.dequeueQuery(1));
+    assertEquals(1, queue.size());
+  }
+
+  public void test_dequeueQuery_noProcessQueries() throws Exception {
+    IndexOperation isQueryOperation = mock(IndexOperation.class);
+    when(isQueryOperation.isQuery()).thenReturn(true);
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(isQueryOperation);
+    queue.setProcessQueries(false);
+    assertSame(null, queue.dequeueQuery(0));
+    queue.setProcessQueries(true);
+    assertSame(isQueryOperation, queue.dequeueQuery(0));
+  }
+
   public void test_enqueue_isQuery() throws Exception {
     IndexOperation notQueryOperation = mock(IndexOperation.class);
     IndexOperation isQueryOperation = mock(IndexOperation.class);
@@ -105,6 +146,19 @@ public class OperationQueueTest extends EngineTestCase {
     assertSize(0, queue.getOperations());
   }
 
+  public void test_removeEnqueueTime() throws Exception {
+    IndexOperation operation = mock(IndexOperation.class);
+    OperationQueue queue = new OperationQueue();
+    long beforeTime = System.nanoTime();
+    queue.enqueue(operation);
+    long afterTime = System.nanoTime();
+    assertSame(operation, queue.dequeue(0));
+    long enqueueTime = queue.removeEnqueueTime(operation);
+    assertTrue(beforeTime <= enqueueTime && enqueueTime <= afterTime);
+    // already removed, so the current time
+    assertTrue(queue.removeEnqueueTime(operation) >= afterTime);
+  }
+
   public void test_setProcessQueries() throws Exception {
     IndexOperation notQueryOperation = mock(IndexOperation.class);
     IndexOperation isQueryOperation = mock(IndexOperation.class);
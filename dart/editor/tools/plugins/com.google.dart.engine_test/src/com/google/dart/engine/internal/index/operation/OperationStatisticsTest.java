@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.dart.engine.EngineTestCase;
+
+import static org.mockito.Mockito.mock;
+
+public class OperationStatisticsTest extends EngineTestCase {
+  private final OperationStatistics statistics = new OperationStatistics();
+
+  public void test_new() throws Exception {
+    assertEquals(0, statistics.getMaxQueueDepth());
+    assertEquals(0, statistics.getOperationCount(IndexUnitOperation.class));
+    assertEquals(0L, statistics.getAverageRunTime(IndexUnitOperation.class));
+    assertEquals(0L, statistics.getAverageWaitTime(IndexUnitOperation.class));
+  }
+
+  public void test_recordOperation() throws Exception {
+    IndexOperation operation = mock(IndexOperation.class);
+    Class<? extends IndexOperation> kind = operation.getClass();
+    statistics.recordOperation(operation, 10L, 100L);
+    statistics.recordOperation(operation, 30L, 300L);
+    assertEquals(2, statistics.getOperationCount(kind));
+    assertEquals(20L, statistics.getAverageWaitTime(kind));
+    assertEquals(30L, statistics.getMaxWaitTime(kind));
+    assertEquals(200L, statistics.getAverageRunTime(kind));
+    assertEquals(300L, statistics.getMaxRunTime(kind));
+    assertEquals(0, statistics.getOperationCount(IndexUnitOperation.class));
+  }
+
+  public void test_recordQueueDepth() throws Exception {
+    statistics.recordQueueDepth(5);
+    statistics.recordQueueDepth(2);
+    assertEquals(5, statistics.getMaxQueueDepth());
+  }
+
+  public void test_reset() throws Exception {
+    IndexOperation operation = mock(IndexOperation.class);
+    statistics.recordOperation(operation, 10L, 100L);
+    statistics.recordQueueDepth(5);
+    statistics.reset();
+    assertEquals(0, statistics.getOperationCount(operation.getClass()));
+    assertEquals(0, statistics.getMaxQueueDepth());
+  }
+
+  public void test_toString() throws Exception {
+    statistics.recordOperation(mock(IndexUnitOperation.class), 2000000L, 4000000L);
+    statistics.recordQueueDepth(3);
+    String text = statistics.toString();
+    assertTrue(text, text.startsWith("max queue depth: 3\n"));
+    assertTrue(text, text.contains(": count=1, wait avg/max=2/2 ms, run avg/max=4/4 ms"));
+  }
+}
@@ -29,6 +29,7 @@ public class TestAll {
     suite.addTestSuite(RemoveSourcesOperationTest.class);
     suite.addTestSuite(OperationQueueTest.class);
     suite.addTestSuite(OperationProcessorTest.class);
+    suite.addTestSuite(OperationStatisticsTest.class);
     return suite;
   }
 }
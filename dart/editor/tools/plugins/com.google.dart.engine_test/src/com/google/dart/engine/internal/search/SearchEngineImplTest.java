@@ -46,6 +46,7 @@ import com.google.dart.engine.internal.index.operation.OperationQueue;
 import com.google.dart.engine.internal.search.scope.LibrarySearchScope;
 import com.google.dart.engine.search.MatchKind;
 import com.google.dart.engine.search.MatchQuality;
+import com.google.dart.engine.search.SearchCursor;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchEngineFactory;
 import com.google.dart.engine.search.SearchFilter;
@@ -182,6 +183,40 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.NOT_A_REFERENCE, 10, 20));
   }
 
+  public void test_searchFunctionDeclarations_cursor_priorityLibrary() throws Exception {
+    LibraryElement libraryA = mock(LibraryElement.class);
+    LibraryElement libraryB = mock(LibraryElement.class);
+    {
+      when(elementA.getAncestor(LibraryElement.class)).thenReturn(libraryA);
+      Location locationA = new Location(elementA, 1, 2, null);
+      indexStore.recordRelationship(libraryA, IndexConstants.DEFINES_FUNCTION, locationA);
+    }
+    {
+      when(elementB.getAncestor(LibraryElement.class)).thenReturn(libraryB);
+      Location locationB = new Location(elementB, 10, 20, null);
+      indexStore.recordRelationship(libraryB, IndexConstants.DEFINES_FUNCTION, locationB);
+    }
+    scope = new LibrarySearchScope(libraryA, libraryB);
+    // search matches, "libraryB" first
+    final SearchCursor cursor = new SearchCursor(1);
+    cursor.setPriorityLibrary(libraryB);
+    runSearch(new SearchRunner<Void>() {
+      @Override
+      public Void run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        engine.searchFunctionDeclarations(scope, pattern, filter, cursor);
+        assertTrue(cursor.waitForCompletion(1000));
+        return null;
+      }
+    });
+    // verify
+    assertMatches(
+        cursor.getMatches(),
+        new ExpectedMatch(elementB, MatchKind.NOT_A_REFERENCE, 10, 20));
+    assertEquals(1, cursor.getQueryCount());
+    assertEquals(1, cursor.getSkippedQueryCount());
+  }
+
   public void test_searchFunctionDeclarations_inUniverse() throws Exception {
     {
       Location locationA = new Location(elementA, 1, 2, null);
@@ -274,6 +309,52 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.TYPE_REFERENCE, 10, 20));
   }
 
+  public void test_searchReferences_ClassElement_cursor() throws Exception {
+    LibraryElement libraryA = mock(LibraryElement.class);
+    LibraryElement libraryB = mock(LibraryElement.class);
+    final ClassElement referencedElement = mock(ClassElement.class);
+    when(referencedElement.getKind()).thenReturn(ElementKind.CLASS);
+    {
+      when(elementA.getAncestor(LibraryElement.class)).thenReturn(libraryA);
+      when(elementA.getLibrary()).thenReturn(libraryA);
+      Location locationA = new Location(elementA, 1, 2, null);
+      indexStore.recordRelationship(referencedElement, IndexConstants.IS_REFERENCED_BY, locationA);
+    }
+    {
+      when(elementB.getAncestor(LibraryElement.class)).thenReturn(libraryB);
+      when(elementB.getLibrary()).thenReturn(libraryB);
+      Location locationB = new Location(elementB, 10, 20, null);
+      indexStore.recordRelationship(referencedElement, IndexConstants.IS_REFERENCED_BY, locationB);
+    }
+    {
+      when(elementC.getAncestor(LibraryElement.class)).thenReturn(libraryB);
+      when(elementC.getLibrary()).thenReturn(libraryB);
+      Location locationC = new Location(elementC, 100, 200, null);
+      indexStore.recordRelationship(referencedElement, IndexConstants.IS_REFERENCED_BY, locationC);
+    }
+    scope = SearchScopeFactory.createLibraryScope(libraryB);
+    // search matches, references in "libraryB" first
+    final SearchCursor cursor = new SearchCursor(10);
+    cursor.setPriorityLibrary(libraryB);
+    runSearch(new SearchRunner<Void>() {
+      @Override
+      public Void run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        engine.searchReferences(referencedElement, scope, filter, cursor);
+        assertTrue(cursor.waitForCompletion(1000));
+        return null;
+      }
+    });
+    // verify
+    assertMatches(
+        cursor.getMatches(),
+        new ExpectedMatch(elementB, MatchKind.TYPE_REFERENCE, 10, 20),
+        new ExpectedMatch(elementC, MatchKind.TYPE_REFERENCE, 100, 200));
+    assertEquals(1, cursor.getQueryCount());
+    assertEquals(3, cursor.getLocationCount());
+    assertEquals(1, cursor.getOutOfScopeCount());
+  }
+
   public void test_searchReferences_ClassElement_useScope() throws Exception {
     LibraryElement libraryA = mock(LibraryElement.class);
     LibraryElement libraryB = mock(LibraryElement.class);
@@ -752,6 +833,44 @@ public class SearchEngineImplTest extends EngineTestCase {
     assertMatches(matches, new ExpectedMatch(elementA, MatchKind.NOT_A_REFERENCE, 1, 2));
   }
 
+  public void test_searchTypeDeclarations_cursor_limit() throws Exception {
+    LibraryElement library = mock(LibraryElement.class);
+    {
+      when(elementA.getAncestor(LibraryElement.class)).thenReturn(library);
+      Location locationA = new Location(elementA, 1, 2, null);
+      indexStore.recordRelationship(library, IndexConstants.DEFINES_CLASS, locationA);
+    }
+    {
+      when(elementB.getAncestor(LibraryElement.class)).thenReturn(library);
+      Location locationB = new Location(elementB, 10, 20, null);
+      indexStore.recordRelationship(library, IndexConstants.DEFINES_CLASS, locationB);
+    }
+    {
+      when(elementC.getAncestor(LibraryElement.class)).thenReturn(library);
+      Location locationC = new Location(elementC, 100, 200, null);
+      indexStore.recordRelationship(library, IndexConstants.DEFINES_FUNCTION_TYPE, locationC);
+    }
+    scope = new LibrarySearchScope(library);
+    // search matches, stop after the first one
+    final SearchCursor cursor = new SearchCursor(1);
+    runSearch(new SearchRunner<Void>() {
+      @Override
+      public Void run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        engine.searchTypeDeclarations(scope, pattern, filter, cursor);
+        assertTrue(cursor.waitForCompletion(1000));
+        return null;
+      }
+    });
+    // verify
+    assertMatches(
+        cursor.getMatches(),
+        new ExpectedMatch(elementA, MatchKind.NOT_A_REFERENCE, 1, 2));
+    assertEquals(1, cursor.getQueryCount());
+    assertEquals(2, cursor.getSkippedQueryCount());
+    assertEquals(1, cursor.getLocationCount());
+  }
+
   public void test_searchTypeDeclarations_class() throws Exception {
     LibraryElement library = mock(LibraryElement.class);
     {
@@ -41,6 +41,13 @@ public class AndSearchPatternTest extends EngineTestCase {
     assertSame(MatchQuality.EXACT, pattern.matches(element));
   }
 
+  public void test_getNamePrefix() throws Exception {
+    when(patternA.getNamePrefix()).thenReturn("Ha");
+    when(patternB.getNamePrefix()).thenReturn("HashM");
+    // validate
+    assertEquals("HashM", pattern.getNamePrefix());
+  }
+
   public void test_NameExact() throws Exception {
     when(patternA.matches(element)).thenReturn(MatchQuality.NAME);
     when(patternB.matches(element)).thenReturn(MatchQuality.EXACT);
@@ -21,6 +21,12 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class CamelCaseSearchPatternTest extends EngineTestCase {
+  public void test_getNamePrefix() throws Exception {
+    assertEquals("H", new CamelCaseSearchPattern("HM", true).getNamePrefix());
+    assertEquals("Ha", new CamelCaseSearchPattern("HaMa", true).getNamePrefix());
+    assertEquals("", new CamelCaseSearchPattern("", true).getNamePrefix());
+  }
+
   public void test_matchExact_samePartCount() throws Exception {
     Element element = mock(Element.class);
     when(element.getName()).thenReturn("HashMap");
@@ -41,6 +41,20 @@ public class OrSearchPatternTest extends EngineTestCase {
     assertSame(MatchQuality.EXACT, pattern.matches(element));
   }
 
+  public void test_getNamePrefix() throws Exception {
+    when(patternA.getNamePrefix()).thenReturn("HashMap");
+    when(patternB.getNamePrefix()).thenReturn("hashSet");
+    // validate
+    assertEquals("Hash", pattern.getNamePrefix());
+  }
+
+  public void test_getNamePrefix_noCommonPrefix() throws Exception {
+    when(patternA.getNamePrefix()).thenReturn("HashMap");
+    when(patternB.getNamePrefix()).thenReturn("List");
+    // validate
+    assertEquals("", pattern.getNamePrefix());
+  }
+
   public void test_NameExact() throws Exception {
     when(patternA.matches(element)).thenReturn(MatchQuality.NAME);
     when(patternB.matches(element)).thenReturn(MatchQuality.EXACT);
@@ -59,6 +59,10 @@ public class PrefixSearchPatternTest extends EngineTestCase {
     assertSame(null, pattern.matches(element));
   }
 
+  public void test_getNamePrefix() throws Exception {
+    assertEquals("HashMa", new PrefixSearchPattern("HashMa", false).getNamePrefix());
+  }
+
   public void test_nullElement() throws Exception {
     SearchPattern pattern = new PrefixSearchPattern("HashMa", false);
     // validate
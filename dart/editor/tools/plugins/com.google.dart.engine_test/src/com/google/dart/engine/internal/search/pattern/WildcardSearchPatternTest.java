@@ -59,6 +59,12 @@ public class WildcardSearchPatternTest extends EngineTestCase {
     assertSame(MatchQuality.EXACT, pattern.matches(element));
   }
 
+  public void test_getNamePrefix() throws Exception {
+    assertEquals("H", new WildcardSearchPattern("H*Map", true).getNamePrefix());
+    assertEquals("Has", new WildcardSearchPattern("Has?Map", true).getNamePrefix());
+    assertEquals("HashMap", new WildcardSearchPattern("HashMap", true).getNamePrefix());
+  }
+
   public void test_nullElement() throws Exception {
     SearchPattern pattern = new WildcardSearchPattern("H*Map", false);
     // validate
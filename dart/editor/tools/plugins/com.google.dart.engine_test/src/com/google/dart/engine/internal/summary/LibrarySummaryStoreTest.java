@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.summary;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.context.CacheRetentionPolicy;
+import com.google.dart.engine.internal.context.LibraryApiSignature;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.type.InterfaceType;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class LibrarySummaryStoreTest extends EngineTestCase {
+  /**
+   * Instances of the class {@code RecordingStore} record the libraries loaded from summaries.
+   */
+  private static class RecordingStore extends LibrarySummaryStore {
+    private Set<Source> loadedSources = new HashSet<Source>();
+
+    public RecordingStore(File directory) {
+      super(directory, "1.0");
+    }
+
+    @Override
+    public Map<Source, LibraryElement> load(AnalysisContextImpl context, Source librarySource) {
+      Map<Source, LibraryElement> libraries = super.load(context, librarySource);
+      if (libraries != null) {
+        loadedSources.addAll(libraries.keySet());
+      }
+      return libraries;
+    }
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  private File directory;
+
+  private File summaryDirectory;
+
+  public void test_isSummarized() throws Exception {
+    LibrarySummaryStore store = new LibrarySummaryStore(summaryDirectory, "1.0");
+    SourceFactory sourceFactory = createSourceFactory();
+    assertTrue(store.isSummarized(sourceFactory.forUri(DartSdk.DART_CORE)));
+    assertTrue(store.isSummarized(new FileBasedSource(sourceFactory, new File(
+        directory,
+        "packages/p/p.dart"))));
+    assertFalse(store.isSummarized(new FileBasedSource(sourceFactory, new File(
+        directory,
+        "test.dart"))));
+  }
+
+  public void test_load_changedSource() throws Exception {
+    File file = writeFile("packages/p/p.dart", "library p;", "class A {}");
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    AnalysisContextImpl context = createContext(store);
+    assertNotNull(context.getLibraryElement(createSource(context, file)));
+    // change the library, the summary is out of date
+    writeFile("packages/p/p.dart", "library p;", "class A {}", "class B {}");
+    store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    Source source = createSource(context, file);
+    LibraryElement library = context.getLibraryElement(source);
+    assertFalse(store.loadedSources.contains(source));
+    assertLength(2, library.getDefiningCompilationUnit().getTypes());
+  }
+
+  public void test_load_constants() throws Exception {
+    File file = writeFile(
+        "packages/p/p.dart",
+        "library p;",
+        "const int ONE = 1;",
+        "const String NAME = 'p';",
+        "class A {",
+        "  static const double HALF = 0.5;",
+        "}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    LibraryElement expected = context.getLibraryElement(createSource(context, file));
+    assertNotNull(expected);
+    // load the library into a new context
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    Source librarySource = createSource(context, file);
+    LibraryElement actual = context.getLibraryElement(librarySource);
+    assertTrue(store.loadedSources.contains(librarySource));
+    assertSameApi(expected, actual);
+    // constant expressions in other libraries are evaluated using the loaded values
+    File testFile = writeFile(
+        "test.dart",
+        "import 'packages/p/p.dart';",
+        "const int TWO = ONE + ONE;",
+        "const String TITLE = NAME + '!';",
+        "const double QUARTER = A.HALF / 2;",
+        "main() {",
+        "  switch (TWO) {",
+        "    case ONE:",
+        "      break;",
+        "  }",
+        "}");
+    Source source = createSource(context, testFile);
+    CompilationUnit unit = context.resolve(source, context.getLibraryElement(source));
+    assertLength(0, unit.getErrors());
+  }
+
+  public void test_load_package() throws Exception {
+    File file = writeFile(
+        "packages/p/p.dart",
+        "library p;",
+        "part 'q.dart';",
+        "abstract class A<E> implements Comparable<A<E>> {",
+        "  E e;",
+        "  static const int ZERO = 0;",
+        "  A(this.e);",
+        "  int compareTo(A<E> other) => 0;",
+        "  int get length;",
+        "}",
+        "typedef bool Test<E>(E e, [int i]);",
+        "int first(List<int> list, {Test<int> test}) => list[0];");
+    writeFile(
+        "packages/p/q.dart",
+        "part of p;",
+        "class B extends A<String> {",
+        "  B() : super('');",
+        "}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    LibraryElement expected = context.getLibraryElement(createSource(context, file));
+    assertNotNull(expected);
+    // load the library into a new context
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    Source source = createSource(context, file);
+    LibraryElement actual = context.getLibraryElement(source);
+    assertTrue(store.loadedSources.contains(source));
+    assertSameApi(expected, actual);
+    assertLength(1, actual.getParts());
+    ClassElement classB = actual.getParts()[0].getTypes()[0];
+    InterfaceType supertype = classB.getSupertype();
+    assertSame(actual.getDefiningCompilationUnit().getTypes()[0], supertype.getElement());
+    InterfaceType expectedSupertype = expected.getParts()[0].getTypes()[0].getSupertype();
+    assertLength(expectedSupertype.getTypeArguments().length, supertype.getTypeArguments());
+    assertEquals(
+        expectedSupertype.getTypeArguments()[0].getName(),
+        supertype.getTypeArguments()[0].getName());
+  }
+
+  public void test_load_sdk() throws Exception {
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    Source coreSource = context.getSourceFactory().forUri(DartSdk.DART_CORE);
+    LibraryElement expected = context.getLibraryElement(coreSource);
+    assertNotNull(expected);
+    // load the library into a new context
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    coreSource = context.getSourceFactory().forUri(DartSdk.DART_CORE);
+    LibraryElement actual = context.getLibraryElement(coreSource);
+    assertTrue(store.loadedSources.contains(coreSource));
+    assertSameApi(expected, actual);
+    // libraries that use the loaded library resolve against it
+    File file = writeFile(
+        "test.dart",
+        "main() {",
+        "  List<int> list = [1, 2];",
+        "  print(list.length);",
+        "}");
+    Source source = createSource(context, file);
+    CompilationUnit unit = context.resolve(source, context.getLibraryElement(source));
+    assertLength(0, unit.getErrors());
+    assertSame(actual, context.getLibraryElement(source).getImportedLibraries()[0]);
+  }
+
+  public void test_resolve_notSummarized() throws Exception {
+    File file = writeFile("packages/p/p.dart", "library p;", "class A {}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    assertNotNull(context.getLibraryElement(createSource(context, file)));
+    // summaries do not contain ASTs, so the library is resolved from source
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    Source source = createSource(context, file);
+    LibraryElement library = context.getLibraryElement(source);
+    assertTrue(store.loadedSources.contains(source));
+    CompilationUnit unit = context.resolve(source, library);
+    assertNotNull(unit.getElement());
+    assertTrue(context.isUnsummarizedLibrary(source));
+  }
+
+  public void test_resolve_notSummarized_sourceChanged() throws Exception {
+    File file = writeFile("packages/p/p.dart", "library p;", "class A {}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    assertNotNull(context.getLibraryElement(createSource(context, file)));
+    context = createContext(new RecordingStore(summaryDirectory));
+    Source source = createSource(context, file);
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source);
+    context.applyChanges(changeSet);
+    context.resolve(source, context.getLibraryElement(source));
+    assertTrue(context.isUnsummarizedLibrary(source));
+    // once the library changes, its new summary can be used again
+    changeSet = new ChangeSet();
+    changeSet.changed(source, "library p; class B {}");
+    context.applyChanges(changeSet);
+    assertFalse(context.isUnsummarizedLibrary(source));
+  }
+
+  public void test_resolve_resolvedFromSource() throws Exception {
+    File file = writeFile("test.dart", "library test;", "class A {}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    context.setRetentionPolicy(new CacheRetentionPolicy(
+        2,
+        CacheRetentionPolicy.DEFAULT_MAX_AST_BYTES,
+        CacheRetentionPolicy.DEFAULT_MAX_ELEMENT_ENTRIES));
+    Source source = createSource(context, file);
+    LibraryElement library = context.getLibraryElement(source);
+    assertNotNull(library);
+    // resolving the core library evicted the resolved AST, so the library is resolved again
+    CompilationUnit unit = context.resolve(source, library);
+    assertNotNull(unit.getElement());
+    assertNotSame(library, context.getLibraryElement(source));
+    // the library was not loaded from a summary, so summaries can still be used for it
+    assertFalse(context.isUnsummarizedLibrary(source));
+  }
+
+  public void test_store_notSummarized() throws Exception {
+    File file = writeFile("test.dart", "class A {}");
+    AnalysisContextImpl context = createContext(new RecordingStore(summaryDirectory));
+    assertNotNull(context.getLibraryElement(createSource(context, file)));
+    RecordingStore store = new RecordingStore(summaryDirectory);
+    context = createContext(store);
+    Source source = createSource(context, file);
+    assertNotNull(context.getLibraryElement(source));
+    assertFalse(store.loadedSources.contains(source));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("summary", "");
+    directory.delete();
+    directory.mkdirs();
+    summaryDirectory = new File(directory, "summaries");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(directory);
+    super.tearDown();
+  }
+
+  /**
+   * Assert that the given libraries, which were built in different contexts, have the same API.
+   * Their signatures are compared by their descriptions, because signatures are only equal if they
+   * refer to the same element models of the other libraries.
+   */
+  private void assertSameApi(LibraryElement expected, LibraryElement actual) {
+    assertEquals(
+        new LibraryApiSignature(expected).toString(),
+        new LibraryApiSignature(actual).toString());
+  }
+
+  private AnalysisContextImpl createContext(LibrarySummaryStore store) {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setSourceFactory(createSourceFactory());
+    context.setSummaryStore(store);
+    return context;
+  }
+
+  private Source createSource(AnalysisContextImpl context, File file) {
+    return new FileBasedSource(context.getSourceFactory(), file);
+  }
+
+  private SourceFactory createSourceFactory() {
+    return new SourceFactory(new DartUriResolver(DartSdk.getDefaultSdk()), new FileUriResolver());
+  }
+
+  private File writeFile(String path, String... lines) throws Exception {
+    File file = new File(directory, path);
+    file.getParentFile().mkdirs();
+    Files.write(createSource(lines), file, Charsets.UTF_8);
+    return file;
+  }
+}
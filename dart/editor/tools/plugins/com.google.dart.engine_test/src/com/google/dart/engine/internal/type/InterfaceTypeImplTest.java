@@ -16,14 +16,18 @@ package com.google.dart.engine.internal.type;
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ElementFactory;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
 import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
 import com.google.dart.engine.internal.element.FunctionElementImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.element.TypeVariableElementImpl;
 import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
 
 import static com.google.dart.engine.ast.ASTFactory.identifier;
 import static com.google.dart.engine.element.ElementFactory.classElement;
+import static com.google.dart.engine.element.ElementFactory.library;
 
 import java.util.Set;
 
@@ -469,6 +473,24 @@ public class InterfaceTypeImplTest extends EngineTestCase {
     assertTrue(type.isMoreSpecificThan(type));
   }
 
+  public void test_isSubtypeOf_cached() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    LibraryElementImpl library = library(context, "lib");
+    context.initializeLibraryElement(library);
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    CompilationUnitElementImpl unit;
+    unit = (CompilationUnitElementImpl) library.getDefiningCompilationUnit();
+    unit.setTypes(new ClassElement[] {elementA, elementB});
+    TypeRelationCache cache = context.getTypeRelationCache();
+    assertTrue(elementB.getType().isSubtypeOf(elementA.getType()));
+    int missCount = cache.getMissCount();
+    assertTrue(missCount > 0);
+    assertTrue(elementB.getType().isSubtypeOf(elementA.getType()));
+    assertEquals(missCount, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
   public void test_isSubtypeOf_directSubtype() {
     ClassElement elementA = classElement("A");
     ClassElement elementB = classElement("B", elementA.getType());
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.type;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+import static com.google.dart.engine.internal.element.ClassElementImpl.getHierarchyVersion;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class TypeRelationCacheTest extends EngineTestCase {
+  public void test_clear() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putSubtype(elementB.getType(), elementA.getType(), true);
+    cache.clear();
+    assertNull(cache.getSubtype(elementB.getType(), elementA.getType()));
+  }
+
+  public void test_getInheritanceDepth() {
+    ClassElementImpl elementA = classElement("A");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    assertNull(cache.getInheritanceDepth(elementA.getType()));
+    cache.putInheritanceDepth(elementA.getType(), 1);
+    assertEquals(Integer.valueOf(1), cache.getInheritanceDepth(elementA.getType()));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  public void test_getLeastUpperBound() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    ClassElementImpl elementC = classElement("C", elementA.getType());
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putLeastUpperBound(elementB.getType(), elementC.getType(), elementA.getType());
+    Object leastUpperBound = cache.getLeastUpperBound(elementB.getType(), elementC.getType());
+    assertSame(elementA.getType(), leastUpperBound);
+    assertNull(cache.getLeastUpperBound(elementC.getType(), elementB.getType()));
+  }
+
+  public void test_getLeastUpperBound_none() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putLeastUpperBound(elementA.getType(), elementB.getType(), null);
+    Object leastUpperBound = cache.getLeastUpperBound(elementA.getType(), elementB.getType());
+    assertNotNull(leastUpperBound);
+    assertFalse(leastUpperBound instanceof Type);
+  }
+
+  public void test_getMoreSpecific() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putMoreSpecific(elementB.getType(), elementA.getType(), true);
+    assertEquals(Boolean.TRUE, cache.getMoreSpecific(elementB.getType(), elementA.getType()));
+    assertNull(cache.getSubtype(elementB.getType(), elementA.getType()));
+  }
+
+  public void test_getSubtype() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    assertNull(cache.getSubtype(elementB.getType(), elementA.getType()));
+    cache.putSubtype(elementB.getType(), elementA.getType(), true);
+    cache.putSubtype(elementA.getType(), elementB.getType(), false);
+    assertEquals(Boolean.TRUE, cache.getSubtype(elementB.getType(), elementA.getType()));
+    assertEquals(Boolean.FALSE, cache.getSubtype(elementA.getType(), elementB.getType()));
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  public void test_getSubtype_concurrent() throws Exception {
+    ClassElementImpl elementA = classElement("A");
+    final ClassElementImpl elementB = classElement("B", elementA.getType());
+    final InterfaceType typeA = elementA.getType();
+    final TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putSubtype(elementB.getType(), typeA, true);
+    final int queryCount = 10000;
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < queryCount; j++) {
+            cache.getSubtype(elementB.getType(), typeA);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(threads.length * queryCount, cache.getHitCount());
+  }
+
+  public void test_getSubtype_parameterized_differentArguments() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B");
+    ClassElementImpl elementL = classElement("L", "E");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putSubtype(parameterize(elementL, elementA), elementA.getType(), false);
+    assertNull(cache.getSubtype(parameterize(elementL, elementB), elementA.getType()));
+  }
+
+  public void test_getSubtype_parameterized_equalArguments() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementL = classElement("L", "E");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putSubtype(parameterize(elementL, elementA), elementA.getType(), false);
+    Boolean isSubtype = cache.getSubtype(parameterize(elementL, elementA), elementA.getType());
+    assertEquals(Boolean.FALSE, isSubtype);
+  }
+
+  public void test_getSuperinterfaceSet() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    Set<InterfaceType> superinterfaces = new HashSet<InterfaceType>();
+    superinterfaces.add(elementA.getType());
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.putSuperinterfaceSet(elementB.getType(), superinterfaces);
+    assertSame(superinterfaces, cache.getSuperinterfaceSet(elementB.getType()));
+  }
+
+  public void test_isCacheable_dynamic() {
+    assertTrue(TypeRelationCache.isCacheable(DynamicTypeImpl.getInstance()));
+  }
+
+  public void test_isCacheable_interface() {
+    assertTrue(TypeRelationCache.isCacheable(classElement("A").getType()));
+  }
+
+  public void test_isCacheable_parameterized() {
+    ClassElementImpl elementL = classElement("L", "E");
+    assertTrue(TypeRelationCache.isCacheable(parameterize(elementL, classElement("A"))));
+    assertFalse(TypeRelationCache.isCacheable(elementL.getType()));
+  }
+
+  public void test_validate_hierarchyChanged() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    ClassElementImpl elementC = classElement("C");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.validate();
+    cache.putSubtype(elementB.getType(), elementA.getType(), true);
+    elementB.markHierarchyUsed();
+    elementB.setSupertype(elementC.getType());
+    cache.validate();
+    assertNull(cache.getSubtype(elementB.getType(), elementA.getType()));
+  }
+
+  public void test_validate_hierarchyChanged_unusedClass() {
+    ClassElementImpl elementA = classElement("A");
+    ClassElementImpl elementB = classElement("B", elementA.getType());
+    ClassElementImpl elementC = classElement("C");
+    TypeRelationCache cache = new TypeRelationCache(getHierarchyVersion(elementA));
+    cache.validate();
+    cache.putSubtype(elementB.getType(), elementA.getType(), true);
+    elementC.setSupertype(elementA.getType());
+    cache.validate();
+    assertEquals(Boolean.TRUE, cache.getSubtype(elementB.getType(), elementA.getType()));
+  }
+
+  private InterfaceType parameterize(ClassElementImpl element, ClassElementImpl argument) {
+    InterfaceTypeImpl type = new InterfaceTypeImpl(element);
+    type.setTypeArguments(new Type[] {argument.getType()});
+    return type;
+  }
+}
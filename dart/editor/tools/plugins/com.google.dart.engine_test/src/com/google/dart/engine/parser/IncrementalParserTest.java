@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.parser;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.FieldDeclaration;
+import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.ast.TopLevelVariableDeclaration;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.GatheringErrorListener;
+import com.google.dart.engine.scanner.StringScanner;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenStreamValidator;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+public class IncrementalParserTest extends EngineTestCase {
+  public void test_reparse_classMember() throws Exception {
+    assertReparsed(
+        "class A {\n  int x;\n  m() {}\n}\nclass B {}",
+        "class A {\n  int xy = 0;\n  m() {}\n}\nclass B {}",
+        FieldDeclaration.class);
+  }
+
+  public void test_reparse_compilationUnitMember() throws Exception {
+    assertReparsed(
+        "var a = 1;\nvar b = 2;\nvar c = 3;",
+        "var a = 1;\nvar b = 2 +\n  20;\nvar c = 3;",
+        TopLevelVariableDeclaration.class);
+  }
+
+  public void test_reparse_constructorBody() throws Exception {
+    assertReparsed(
+        "class A {\n  A() {\n  }\n  m() {}\n}",
+        "class A {\n  A() {\n    print(0);\n  }\n  m() {}\n}",
+        BlockFunctionBody.class);
+  }
+
+  public void test_reparse_fail_acrossMembers() throws Exception {
+    assertNotReparsed("var a = 1;\nvar b = 2;\nvar c = 3;", "var a = 1;\nvar c = 3;");
+  }
+
+  public void test_reparse_fail_errorAfterEdit() throws Exception {
+    assertNotReparsed("f() {\n  a;\n}\nclass {}", "f() {\n  ab;\n}\nclass {}");
+  }
+
+  public void test_reparse_fail_firstMember() throws Exception {
+    assertNotReparsed("var a = 1;\nvar b = 2;", "var a = 12;\nvar b = 2;");
+  }
+
+  public void test_reparse_fail_memberWithErrors() throws Exception {
+    assertNotReparsed("var a = 1;\nvar b = 2;\nvar c = 3;", "var a = 1;\nclass {}\nvar c = 3;");
+  }
+
+  public void test_reparse_fail_unclosedComment() throws Exception {
+    assertNotReparsed("f() {\n  a;\n}\ng() {}", "f() {\n  /* a;\n}\ng() {}");
+  }
+
+  public void test_reparse_fail_unmatchedBracket() throws Exception {
+    assertNotReparsed("f() {\n  a;\n}\ng() {}", "f() {\n  a; }\n}\ng() {}");
+  }
+
+  public void test_reparse_functionBody() throws Exception {
+    assertReparsed(
+        "library l;\nf() {\n  a;\n}\ng() {\n  b;\n}",
+        "library l;\nf() {\n  a(\n   1);\n}\ng() {\n  b;\n}",
+        BlockFunctionBody.class);
+  }
+
+  public void test_reparse_functionBody_errors() throws Exception {
+    CompilationUnit unit = assertReparsed(
+        "class {}\nf() {\n  a;\n}\ng() {}",
+        "class {}\nf() {\n  a\n}\ng() {}",
+        BlockFunctionBody.class);
+    assertEquals(2, unit.getParsingErrors().length);
+  }
+
+  public void test_reparse_methodBody() throws Exception {
+    assertReparsed(
+        "class A {\n  m() {\n    return 1;\n  }\n  n() => 2;\n}\nvar x = 3;",
+        "class A {\n  m() {\n    // comment\n    return 10;\n  }\n  n() => 2;\n}\nvar x = 3;",
+        BlockFunctionBody.class);
+  }
+
+  public void test_reparse_methodBody_removeLines() throws Exception {
+    assertReparsed(
+        "class A {\n  m() {\n    a;\n    b;\n  }\n}\nvar x = 3;",
+        "class A {\n  m() {\n    a;\n  }\n}\nvar x = 3;",
+        BlockFunctionBody.class);
+  }
+
+  public void test_reparse_methodSignature() throws Exception {
+    assertReparsed(
+        "class A {\n  var f;\n  m(a) {}\n}",
+        "class A {\n  var f;\n  m(a, b) {}\n}",
+        MethodDeclaration.class);
+  }
+
+  public void test_reparse_noChange() throws Exception {
+    String contents = "class A {\n  m() {}\n}";
+    CompilationUnit unit = parse(contents);
+    IncrementalParser parser = new IncrementalParser(null);
+    CompilationUnit newUnit = parser.reparse(unit, contents, contents);
+    assertNotNull(newUnit);
+    assertNotSame(unit, newUnit);
+    assertEquals(unit.toSource(), newUnit.toSource());
+    assertNull(parser.getOldNode());
+    assertNull(parser.getNewNode());
+  }
+
+  /**
+   * Assert that the compilation unit parsed from the old contents cannot be updated to represent
+   * the new contents and that it is left unmodified.
+   */
+  private void assertNotReparsed(String oldContents, String newContents) throws Exception {
+    CompilationUnit unit = parse(oldContents);
+    IncrementalParser parser = new IncrementalParser(null);
+    assertNull(parser.reparse(unit, oldContents, newContents));
+    assertUnmodified(oldContents, unit);
+  }
+
+  /**
+   * Assert that the compilation unit parsed from the old contents can be updated to represent the
+   * new contents by replacing a node of the given type, that the updated compilation unit is
+   * equivalent to the compilation unit parsed from the new contents, and that the original
+   * compilation unit is left unmodified.
+   */
+  private CompilationUnit assertReparsed(String oldContents, String newContents,
+      Class<? extends ASTNode> expectedClass) throws Exception {
+    CompilationUnit oldUnit = parse(oldContents);
+    IncrementalParser parser = new IncrementalParser(null);
+    CompilationUnit unit = parser.reparse(oldUnit, oldContents, newContents);
+    assertNotNull(unit);
+    assertNotSame(oldUnit, unit);
+    assertUnmodified(oldContents, oldUnit);
+    assertInstanceOf(expectedClass, parser.getOldNode());
+    assertInstanceOf(expectedClass, parser.getNewNode());
+    assertSame(oldUnit, parser.getOldNode().getRoot());
+    assertSame(unit, parser.getNewNode().getRoot());
+    CompilationUnit expectedUnit = parse(newContents);
+    assertEquals(expectedUnit.toSource(), unit.toSource());
+    assertEquals(expectedUnit.getOffset(), unit.getOffset());
+    assertEquals(expectedUnit.getLength(), unit.getLength());
+    assertSameTokens(expectedUnit.getBeginToken(), unit.getBeginToken());
+    new TokenStreamValidator().validate(unit.getBeginToken());
+    ASTValidator validator = new ASTValidator();
+    unit.accept(validator);
+    validator.assertValid();
+    assertEqualLineStarts(
+        expectedUnit.getLineInfo().getLineStarts(),
+        unit.getLineInfo().getLineStarts());
+    AnalysisError[] expectedErrors = expectedUnit.getParsingErrors();
+    AnalysisError[] errors = unit.getParsingErrors();
+    assertEquals(expectedErrors.length, errors.length);
+    return unit;
+  }
+
+  private void assertEqualLineStarts(int[] expected, int[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i]);
+    }
+  }
+
+  /**
+   * Assert that the given compilation unit, which was parsed from the given contents, still
+   * represents those contents.
+   */
+  private void assertUnmodified(String contents, CompilationUnit unit) {
+    CompilationUnit expectedUnit = parse(contents);
+    assertEquals(expectedUnit.toSource(), unit.toSource());
+    assertEquals(expectedUnit.getParsingErrors().length, unit.getParsingErrors().length);
+    assertEqualLineStarts(
+        expectedUnit.getLineInfo().getLineStarts(),
+        unit.getLineInfo().getLineStarts());
+    assertSameTokens(expectedUnit.getBeginToken(), unit.getBeginToken());
+  }
+
+  private void assertSameTokens(Token expected, Token actual) {
+    while (expected.getType() != TokenType.EOF) {
+      assertEquals(expected.getLexeme(), actual.getLexeme());
+      assertEquals(expected.getOffset(), actual.getOffset());
+      Token expectedComment = expected.getPrecedingComments();
+      Token actualComment = actual.getPrecedingComments();
+      while (expectedComment != null) {
+        assertNotNull(actualComment);
+        assertEquals(expectedComment.getOffset(), actualComment.getOffset());
+        expectedComment = expectedComment.getNext();
+        actualComment = actualComment.getNext();
+      }
+      assertNull(actualComment);
+      assertSame(actual, actual.getNext().getPrevious());
+      expected = expected.getNext();
+      actual = actual.getNext();
+    }
+    assertEquals(TokenType.EOF, actual.getType());
+    assertEquals(expected.getOffset(), actual.getOffset());
+  }
+
+  private CompilationUnit parse(String contents) {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    StringScanner scanner = new StringScanner(null, contents, listener);
+    Token token = scanner.tokenize();
+    CompilationUnit unit = new Parser(null, listener).parseCompilationUnit(token);
+    unit.setParsingErrors(listener.getErrors().toArray(new AnalysisError[0]));
+    unit.setLineInfo(new LineInfo(scanner.getLineStarts()));
+    return unit;
+  }
+}
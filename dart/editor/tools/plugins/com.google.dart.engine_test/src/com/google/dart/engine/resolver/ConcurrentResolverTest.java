@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.resolver;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.resolver.LibraryResolver;
+import com.google.dart.engine.source.Source;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ConcurrentResolverTest extends ResolverTestCase {
+  private ExecutorService executor;
+
+  @Override
+  public void setUp() {
+    super.setUp();
+    executor = Executors.newFixedThreadPool(4);
+    ((AnalysisContextImpl) getAnalysisContext()).setResolutionExecutor(executor);
+  }
+
+  public void test_cycle() throws Exception {
+    Source source = addSource("/test.dart", createSource(//
+        "library test;",
+        "import 'lib1.dart';",
+        "class A extends B {}",
+        "f() { return g(); }"));
+    Source lib1 = addSource("/lib1.dart", createSource(//
+        "library lib1;",
+        "import 'test.dart';",
+        "class B {}",
+        "g() { return new A(); }"));
+    LibraryElement library = resolve(source);
+    assertNotNull(library);
+    assertNoErrors();
+    verify(source, lib1);
+  }
+
+  public void test_cycles_coreLookUps() throws Exception {
+    // Each iteration resolves two new import cycles concurrently, both of which look up members of
+    // the same core classes and test the relations between the same core types.
+    for (int i = 0; i < 10; i++) {
+      Source source = addSource("/test" + i + ".dart", createSource(//
+          "library test" + i + ";",
+          "import 'a1_" + i + ".dart';",
+          "import 'b1_" + i + ".dart';",
+          "f() { return a1('', [0]) + b1('', [0]); }"));
+      Source[] cycleA = addCycle("a", i);
+      Source[] cycleB = addCycle("b", i);
+      LibraryElement library = resolve(source);
+      assertNotNull(library);
+      assertNoErrors();
+      verify(source);
+      verify(cycleA);
+      verify(cycleB);
+    }
+  }
+
+  public void test_independentImports() throws Exception {
+    Source source = addSource("/test.dart", createSource(//
+        "library test;",
+        "import 'lib1.dart';",
+        "import 'lib2.dart';",
+        "import 'lib3.dart';",
+        "f() { return g1() + g2() + g3(); }"));
+    Source lib1 = addSource("/lib1.dart", createSource(//
+        "library lib1;",
+        "import 'lib3.dart';",
+        "int g1() => g3();"));
+    Source lib2 = addSource("/lib2.dart", createSource(//
+        "library lib2;",
+        "import 'lib3.dart';",
+        "int g2() => g3();"));
+    Source lib3 = addSource("/lib3.dart", createSource(//
+        "library lib3;",
+        "int g3() => 0;"));
+    LibraryElement library = resolve(source);
+    assertNotNull(library);
+    assertNoErrors();
+    verify(source, lib1, lib2, lib3);
+  }
+
+  public void test_parts() throws Exception {
+    Source source = addSource("/test.dart", createSource(//
+        "library test;",
+        "part 'a.dart';",
+        "part 'b.dart';",
+        "f() { return new A().m(new B()); }"));
+    Source partA = addSource("/a.dart", createSource(//
+        "part of test;",
+        "class A { m(B b) => b; }"));
+    Source partB = addSource("/b.dart", createSource(//
+        "part of test;",
+        "class B extends A {}"));
+    resolve(source);
+    assertNoErrors();
+    verify(source, partA, partB);
+  }
+
+  /**
+   * Add the sources of a cycle of two libraries, whose names start with the given prefix, that use
+   * the members of core classes.
+   * 
+   * @param prefix the prefix of the names of the libraries and functions
+   * @param index the index distinguishing the libraries from those added before
+   * @return the sources of the libraries in the cycle
+   */
+  private Source[] addCycle(String prefix, int index) {
+    String name1 = prefix + "1";
+    String name2 = prefix + "2";
+    Source source1 = addSource("/" + name1 + "_" + index + ".dart", createSource(//
+        "library " + name1 + "_" + index + ";",
+        "import '" + name2 + "_" + index + ".dart';",
+        "int " + name1 + "(String s, List<int> list) {",
+        "  return s.length + list[0] + s.length.abs() + " + name2 + "(list[0]).round();",
+        "}"));
+    Source source2 = addSource("/" + name2 + "_" + index + ".dart", createSource(//
+        "library " + name2 + "_" + index + ";",
+        "import '" + name1 + "_" + index + ".dart';",
+        "num " + name2 + "(num n) {",
+        "  return n.abs() * n.floor() + " + name1 + "(n.toString(), <int>[n.toInt()]);",
+        "}"));
+    return new Source[] {source1, source2};
+  }
+
+  @Override
+  protected LibraryElement resolve(Source librarySource, Source... unitSources)
+      throws AnalysisException {
+    LibraryResolver resolver = new LibraryResolver(
+        (AnalysisContextImpl) getAnalysisContext(),
+        getErrorListener());
+    resolver.setExecutor(executor);
+    return resolver.resolveLibrary(librarySource, true);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    executor.shutdownNow();
+    super.tearDown();
+  }
+}
@@ -211,6 +211,42 @@ public abstract class AbstractScannerTest extends TestCase {
     assertToken(TokenType.IDENTIFIER, "result");
   }
 
+  public void test_identifier_keywordPrefix() throws Exception {
+    assertToken(TokenType.IDENTIFIER, "classes");
+  }
+
+  public void test_identifier_keywordWithUpperCase() throws Exception {
+    assertToken(TokenType.IDENTIFIER, "claSs");
+  }
+
+  public void test_identifier_repeated() throws Exception {
+    Token token = scan("abc xyz abc");
+    assertEquals("abc", token.getLexeme());
+    assertEquals("xyz", token.getNext().getLexeme());
+    assertSame(token.getLexeme(), token.getNext().getNext().getLexeme());
+  }
+
+  public void test_identifier_repeated_manyIdentifiers() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("name");
+      builder.append(i);
+      builder.append(' ');
+    }
+    builder.append("name0 name999");
+    Token token = scan(builder.toString());
+    Token first = token;
+    Token last = null;
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("name" + i, token.getLexeme());
+      last = token;
+      token = token.getNext();
+    }
+    assertSame(first.getLexeme(), token.getLexeme());
+    assertSame(last.getLexeme(), token.getNext().getLexeme());
+    assertEquals(TokenType.EOF, token.getNext().getNext().getType());
+  }
+
   public void test_illegalChar() throws Exception {
     assertError(ScannerErrorCode.ILLEGAL_CHARACTER, 0, "\u0312");
   }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.GatheringErrorListener;
+
+public class IncrementalScannerTest extends EngineTestCase {
+  public void test_isBalanced_false_unmatched() throws Exception {
+    Token firstToken = scan("a(b) { c");
+    Token lastToken = firstToken;
+    while (lastToken.getNext().getType() != TokenType.EOF) {
+      lastToken = lastToken.getNext();
+    }
+    assertFalse(IncrementalScanner.isBalanced(firstToken, lastToken));
+  }
+
+  public void test_isBalanced_false_unmatchedInRange() throws Exception {
+    Token firstToken = scan("a(b)");
+    // the range "a(" does not contain the closing parenthesis
+    assertFalse(IncrementalScanner.isBalanced(firstToken, firstToken.getNext()));
+  }
+
+  public void test_isBalanced_true() throws Exception {
+    Token firstToken = scan("a(b) { c[0]; }");
+    Token lastToken = firstToken;
+    while (lastToken.getNext().getType() != TokenType.EOF) {
+      lastToken = lastToken.getNext();
+    }
+    assertTrue(IncrementalScanner.isBalanced(firstToken, lastToken));
+  }
+
+  public void test_replace() throws Exception {
+    String oldContents = "a { b; }\nc;";
+    String newContents = "a { bb\n; }\nc;";
+    Token firstToken = scan(oldContents);
+    Token oldFirst = firstToken.getNext();
+    Token oldLast = oldFirst.getNext().getNext().getNext();
+    assertEquals("}", oldLast.getLexeme());
+    IncrementalScanner scanner = new IncrementalScanner(null);
+    assertTrue(scanner.scan(newContents, 2, 8 + 2));
+    assertEquals(2, scanner.getFirstToken().getOffset());
+    assertEquals(9, scanner.getLastToken().getOffset());
+    assertEquals(1, scanner.getLineStarts().length);
+    scanner.replace(oldFirst, oldLast, 2);
+    new TokenStreamValidator().validate(firstToken);
+    Token expected = scan(newContents);
+    Token actual = firstToken;
+    while (expected.getType() != TokenType.EOF) {
+      assertEquals(expected.getLexeme(), actual.getLexeme());
+      assertEquals(expected.getOffset(), actual.getOffset());
+      expected = expected.getNext();
+      actual = actual.getNext();
+    }
+    assertEquals(TokenType.EOF, actual.getType());
+    assertEquals(expected.getOffset(), actual.getOffset());
+  }
+
+  public void test_scan_error() throws Exception {
+    IncrementalScanner scanner = new IncrementalScanner(null);
+    assertFalse(scanner.scan("a { 'b; }", 2, 9));
+  }
+
+  public void test_scan_unbalanced() throws Exception {
+    IncrementalScanner scanner = new IncrementalScanner(null);
+    assertFalse(scanner.scan("a { b; } }", 2, 10));
+  }
+
+  public void test_scan_whitespace() throws Exception {
+    IncrementalScanner scanner = new IncrementalScanner(null);
+    assertFalse(scanner.scan("a   b", 1, 4));
+  }
+
+  private Token scan(String source) {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    Token token = new StringScanner(null, source, listener).tokenize();
+    listener.assertNoErrors();
+    return token;
+  }
+}
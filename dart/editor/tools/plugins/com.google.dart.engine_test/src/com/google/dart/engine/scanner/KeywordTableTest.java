@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import junit.framework.TestCase;
+
+public class KeywordTableTest extends TestCase {
+  public void test_getCandidate_keyword() throws Exception {
+    KeywordTable table = KeywordTable.KEYWORD_TABLE;
+    for (Keyword keyword : Keyword.values()) {
+      String syntax = keyword.getSyntax();
+      assertSame(syntax, keyword, table.getCandidate(syntax.hashCode(), syntax.length()));
+    }
+  }
+
+  public void test_getCandidate_notKeyword() throws Exception {
+    KeywordTable table = KeywordTable.KEYWORD_TABLE;
+    for (Keyword keyword : Keyword.values()) {
+      String syntax = keyword.getSyntax();
+      String longer = syntax + "x";
+      assertNull(longer, table.getCandidate(longer.hashCode(), longer.length()));
+      String shorter = syntax.substring(0, syntax.length() - 1);
+      Keyword candidate = table.getCandidate(shorter.hashCode(), shorter.length());
+      if (candidate != null) {
+        // "i" is a prefix of "if", "in" and "is", but is not itself a keyword
+        assertEquals(shorter, candidate.getSyntax());
+      }
+    }
+  }
+
+  public void test_getCandidate_sameHashCode() throws Exception {
+    // "jT" has the same length and hash code as "is", so the characters must still be compared
+    assertEquals("is".hashCode(), "jT".hashCode());
+    assertSame(Keyword.IS, KeywordTable.KEYWORD_TABLE.getCandidate("jT".hashCode(), 2));
+  }
+
+  public void test_getSize() throws Exception {
+    int size = KeywordTable.KEYWORD_TABLE.getSize();
+    assertTrue(size >= Keyword.values().length);
+    assertEquals(0, size & (size - 1));
+  }
+}
@@ -17,6 +17,42 @@ import com.google.dart.engine.error.GatheringErrorListener;
 import com.google.dart.engine.source.TestSource;
 
 public class StringScannerTest extends AbstractScannerTest {
+  public void test_identifier_interned() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    Token first = new StringScanner(null, "a ab", listener).tokenize();
+    Token second = new StringScanner(null, "ab a", listener).tokenize();
+    listener.assertNoErrors();
+    assertSame(first.getLexeme(), second.getNext().getLexeme());
+    assertSame(first.getNext().getLexeme(), second.getLexeme());
+  }
+
+  public void test_setPreserveComments_false() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    StringScanner scanner = new StringScanner(null, "/* a */ /** b */ // c\n/// d\ne", listener);
+    scanner.setPreserveComments(false);
+    Token token = scanner.tokenize();
+    listener.assertNoErrors();
+    assertEquals(TokenType.IDENTIFIER, token.getType());
+    Token comment = token.getPrecedingComments();
+    assertNotNull(comment);
+    assertEquals("/** b */", comment.getLexeme());
+    comment = comment.getNext();
+    assertNotNull(comment);
+    assertEquals("/// d\n", comment.getLexeme());
+    assertNull(comment.getNext());
+  }
+
+  public void test_setPreserveComments_true() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    StringScanner scanner = new StringScanner(null, "/* a */ // b\ne", listener);
+    Token token = scanner.tokenize();
+    listener.assertNoErrors();
+    Token comment = token.getPrecedingComments();
+    assertNotNull(comment);
+    assertEquals("/* a */", comment.getLexeme());
+    assertEquals("// b\n", comment.getNext().getLexeme());
+  }
+
   public void test_setSourceStart() throws Exception {
     int offsetDelta = 42;
     GatheringErrorListener listener = new GatheringErrorListener();
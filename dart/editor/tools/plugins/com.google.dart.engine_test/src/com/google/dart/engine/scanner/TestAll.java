@@ -22,8 +22,11 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(CharBufferScannerTest.class);
+    suite.addTestSuite(IncrementalScannerTest.class);
     suite.addTestSuite(KeywordStateTest.class);
+    suite.addTestSuite(KeywordTableTest.class);
     suite.addTestSuite(StringScannerTest.class);
+    suite.addTestSuite(TokenStreamCompactorTest.class);
     suite.addTestSuite(TokenTypeTest.class);
     return suite;
   }
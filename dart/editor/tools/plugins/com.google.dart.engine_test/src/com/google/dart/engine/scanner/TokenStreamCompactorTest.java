@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.GatheringErrorListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TokenStreamCompactorTest extends EngineTestCase {
+  public void test_compact() throws Exception {
+    Token firstToken = scan("a(b, c);");
+    List<Token> tokens = new ArrayList<Token>();
+    Token token = firstToken;
+    while (token.getType() != TokenType.EOF) {
+      tokens.add(token);
+      token = token.getNext();
+    }
+    Token eofToken = token;
+    assertEquals(8, TokenStreamCompactor.compact(firstToken));
+    for (Token compactedToken : tokens) {
+      assertNull(compactedToken.getNext());
+      assertNull(compactedToken.getPrevious());
+    }
+    assertNull(eofToken.getNext());
+    assertNull(eofToken.getPrevious());
+    // the tokens themselves are unchanged
+    assertEquals("b", tokens.get(2).getLexeme());
+    assertEquals(2, tokens.get(2).getOffset());
+    assertSame(tokens.get(5), ((BeginToken) tokens.get(1)).getEndToken());
+  }
+
+  public void test_compact_empty() throws Exception {
+    Token eofToken = scan("");
+    assertEquals(TokenType.EOF, eofToken.getType());
+    assertEquals(1, TokenStreamCompactor.compact(eofToken));
+    assertNull(eofToken.getNext());
+  }
+
+  private Token scan(String source) {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    Token token = new StringScanner(null, source, listener).tokenize();
+    listener.assertNoErrors();
+    return token;
+  }
+}
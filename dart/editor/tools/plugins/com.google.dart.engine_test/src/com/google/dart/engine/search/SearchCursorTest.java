@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.dart.engine.EngineTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class SearchCursorTest extends EngineTestCase {
+  private final SearchMatch matchA = mock(SearchMatch.class);
+  private final SearchMatch matchB = mock(SearchMatch.class);
+  private final SearchMatch matchC = mock(SearchMatch.class);
+
+  public void test_cancel() throws Exception {
+    SearchCursor cursor = new SearchCursor(10);
+    cursor.matchFound(matchA);
+    cursor.cancel();
+    cursor.matchFound(matchB);
+    assertTrue(cursor.isCanceled());
+    assertTrue(cursor.isDone());
+    assertFalse(cursor.isComplete());
+    assertThat(cursor.getMatches()).containsExactly(matchA);
+  }
+
+  public void test_limit() throws Exception {
+    SearchCursor cursor = new SearchCursor(2);
+    cursor.matchFound(matchA);
+    assertFalse(cursor.isDone());
+    cursor.matchFound(matchB);
+    cursor.matchFound(matchC);
+    assertTrue(cursor.isDone());
+    assertFalse(cursor.isComplete());
+    assertFalse(cursor.isCanceled());
+    assertEquals(2, cursor.getMatchCount());
+    assertThat(cursor.getMatches()).containsExactly(matchA, matchB);
+  }
+
+  public void test_limit_invalid() throws Exception {
+    try {
+      new SearchCursor(0);
+      fail();
+    } catch (IllegalArgumentException exception) {
+      // expected
+    }
+  }
+
+  public void test_listener() throws Exception {
+    SearchListener listener = mock(SearchListener.class);
+    SearchCursor cursor = new SearchCursor(1, listener);
+    cursor.matchFound(matchA);
+    cursor.matchFound(matchB);
+    cursor.searchComplete();
+    verify(listener).matchFound(matchA);
+    verify(listener, times(1)).searchComplete();
+    verifyNoMoreInteractions(listener);
+    assertThat(cursor.getMatches()).isEmpty();
+  }
+
+  public void test_recordStatistics() throws Exception {
+    SearchCursor cursor = new SearchCursor(1);
+    cursor.recordQuery();
+    cursor.recordQuery();
+    cursor.recordSkippedQueries(3);
+    cursor.recordLocations(5, 2);
+    cursor.recordLocations(1, 0);
+    assertEquals(2, cursor.getQueryCount());
+    assertEquals(3, cursor.getSkippedQueryCount());
+    assertEquals(6, cursor.getLocationCount());
+    assertEquals(2, cursor.getOutOfScopeCount());
+  }
+
+  public void test_searchComplete_once() throws Exception {
+    SearchListener listener = mock(SearchListener.class);
+    SearchCursor cursor = new SearchCursor(10, listener);
+    cursor.searchComplete();
+    cursor.searchComplete();
+    verify(listener, times(1)).searchComplete();
+    assertTrue(cursor.isComplete());
+  }
+
+  public void test_waitForCompletion() throws Exception {
+    final SearchCursor cursor = new SearchCursor(10);
+    assertFalse(cursor.waitForCompletion(1));
+    new Thread() {
+      @Override
+      public void run() {
+        cursor.searchComplete();
+      }
+    }.start();
+    assertTrue(cursor.waitForCompletion(5000));
+  }
+}
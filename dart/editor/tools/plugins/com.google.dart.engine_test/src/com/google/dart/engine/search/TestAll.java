@@ -21,6 +21,7 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(SearchCursorTest.class);
     suite.addTestSuite(SearchEngineFactoryTest.class);
     suite.addTestSuite(SearchFilterTest.class);
     suite.addTestSuite(SearchMatchTest.class);
@@ -13,11 +13,15 @@
  */
 package com.google.dart.engine.source;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 import junit.framework.TestCase;
 
 import java.io.File;
+import java.nio.CharBuffer;
 
 public class FileBasedSourceTest extends TestCase {
   public void test_equals_false_differentFiles() {
@@ -45,6 +49,32 @@ public class FileBasedSourceTest extends TestCase {
     assertTrue(source1.equals(source2));
   }
 
+  public void test_getContents() throws Exception {
+    File file = File.createTempFile("test", ".dart");
+    file.deleteOnExit();
+    try {
+      Files.write("class A {}", file, Charsets.UTF_8);
+      SourceFactory factory = new SourceFactory(new ContentCache(), new FileContentCache());
+      FileBasedSource source = new FileBasedSource(factory, file);
+      final StringBuilder builder = new StringBuilder();
+      source.getContents(new Source.ContentReceiver() {
+        @Override
+        public void accept(CharBuffer contents) {
+          builder.append(contents);
+        }
+
+        @Override
+        public void accept(String contents) {
+          builder.append(contents);
+        }
+      });
+      assertEquals("class A {}", builder.toString());
+      assertEquals(10L, factory.getFileContentCache().getSize());
+    } finally {
+      file.delete();
+    }
+  }
+
   public void test_getEncoding() {
     SourceFactory factory = new SourceFactory(new FileUriResolver());
     String fullPath = "/does/not/exist.dart";
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.source;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.CharBuffer;
+
+public class FileContentCacheTest extends TestCase {
+  private File file;
+
+  public void test_decode_ascii() throws Exception {
+    CharBuffer contents = FileContentCache.decode(Charsets.UTF_8.encode("class A {}"));
+    assertEquals("class A {}", contents.toString());
+  }
+
+  public void test_decode_nonAscii() throws Exception {
+    CharBuffer contents = FileContentCache.decode(Charsets.UTF_8.encode("var s = 'é€';"));
+    assertEquals("var s = 'é€';", contents.toString());
+  }
+
+  public void test_getContents() throws Exception {
+    FileContentCache cache = new FileContentCache();
+    writeFile("class A {}");
+    CharBuffer first = cache.getContents(file);
+    assertEquals("class A {}", first.toString());
+    assertTrue(first.isReadOnly());
+    assertEquals(10L, cache.getSize());
+    // not modified, same contents
+    CharBuffer second = cache.getContents(file);
+    assertEquals("class A {}", second.toString());
+    assertEquals(10L, cache.getSize());
+  }
+
+  public void test_getContents_evict() throws Exception {
+    FileContentCache cache = new FileContentCache(15);
+    File fileA = newFile("class A {}");
+    File fileB = newFile("class B {}");
+    try {
+      cache.getContents(fileA);
+      cache.getContents(fileB);
+      // only the most recently used contents are kept
+      assertEquals(10L, cache.getSize());
+      assertEquals("class B {}", cache.getContents(fileB).toString());
+      assertEquals(10L, cache.getSize());
+    } finally {
+      fileA.delete();
+      fileB.delete();
+    }
+  }
+
+  public void test_getContents_large() throws Exception {
+    FileContentCache cache = new FileContentCache();
+    String text = Strings.repeat("// é comment\n", 10000);
+    writeFile(text);
+    assertEquals(text, cache.getContents(file).toString());
+  }
+
+  public void test_getContents_modified() throws Exception {
+    FileContentCache cache = new FileContentCache();
+    writeFile("class A {}");
+    assertEquals("class A {}", cache.getContents(file).toString());
+    // modify, different length
+    writeFile("class BB {}");
+    assertEquals("class BB {}", cache.getContents(file).toString());
+    assertEquals(11L, cache.getSize());
+  }
+
+  public void test_getContents_tooLarge() throws Exception {
+    FileContentCache cache = new FileContentCache(5);
+    writeFile("class A {}");
+    assertEquals("class A {}", cache.getContents(file).toString());
+    assertEquals(0L, cache.getSize());
+  }
+
+  public void test_new() throws Exception {
+    FileContentCache cache = new FileContentCache();
+    assertEquals(FileContentCache.DEFAULT_MAX_SIZE, cache.getMaxSize());
+    assertEquals(0L, cache.getSize());
+  }
+
+  public void test_removeContents() throws Exception {
+    FileContentCache cache = new FileContentCache();
+    writeFile("class A {}");
+    cache.getContents(file);
+    cache.removeContents(file);
+    assertEquals(0L, cache.getSize());
+    // clear
+    cache.getContents(file);
+    cache.clear();
+    assertEquals(0L, cache.getSize());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (file != null) {
+      file.delete();
+    }
+    super.tearDown();
+  }
+
+  private File newFile(String contents) throws Exception {
+    File newFile = File.createTempFile("test", ".dart");
+    newFile.deleteOnExit();
+    Files.write(contents, newFile, Charsets.UTF_8);
+    return newFile;
+  }
+
+  private void writeFile(String contents) throws Exception {
+    if (file == null) {
+      file = newFile(contents);
+    } else {
+      Files.write(contents, file, Charsets.UTF_8);
+    }
+  }
+}
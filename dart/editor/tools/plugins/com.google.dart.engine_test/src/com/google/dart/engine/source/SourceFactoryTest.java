@@ -109,4 +109,13 @@ public class SourceFactoryTest extends TestCase {
     Source source2 = new FileBasedSource(factory2, file);
     assertNull(factory2.getContents(source2));
   }
+
+  public void test_sharedFileContentCache() {
+    SourceFactory factory1 = new SourceFactory(new FileUriResolver());
+    SourceFactory factory2 = new SourceFactory(new FileUriResolver());
+    assertSame(factory1.getFileContentCache(), factory2.getFileContentCache());
+    FileContentCache cache = new FileContentCache();
+    SourceFactory factory3 = new SourceFactory(new ContentCache(), cache, new FileUriResolver());
+    assertSame(cache, factory3.getFileContentCache());
+  }
 }
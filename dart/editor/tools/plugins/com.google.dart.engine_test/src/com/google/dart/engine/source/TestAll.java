@@ -28,6 +28,7 @@ public class TestAll {
     suite.addTestSuite(DirectoryBasedSourceContainerTest.class);
     suite.addTestSuite(SourceFactoryTest.class);
     suite.addTestSuite(FileBasedSourceTest.class);
+    suite.addTestSuite(FileContentCacheTest.class);
     return suite;
   }
 }
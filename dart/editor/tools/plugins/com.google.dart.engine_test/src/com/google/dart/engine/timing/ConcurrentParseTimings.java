@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The class {@code ConcurrentParseTimings} defines a stress test that parses all of the sources in
+ * the SDK through a single analysis context using an increasing number of threads, in order to show
+ * that the throughput of the context scales with the number of available cores. The sources are
+ * distributed among the threads through a shared queue.
+ */
+public class ConcurrentParseTimings extends TestCase {
+  /**
+   * The number of times each measurement is repeated; the best time is reported.
+   */
+  private static final int REPETITION_COUNT = 3;
+
+  /**
+   * Recursively add the Dart files contained in the given directory to the given list.
+   */
+  private static void addDartFiles(List<File> files, File directory) {
+    for (File child : directory.listFiles()) {
+      if (child.isDirectory()) {
+        addDartFiles(files, child);
+      } else if (child.getName().endsWith(".dart")) {
+        files.add(child);
+      }
+    }
+  }
+
+  public void test_parse() throws Exception {
+    DartSdk sdk = DartSdk.getDefaultSdk();
+    assertNotNull(sdk);
+    List<File> files = new ArrayList<File>();
+    addDartFiles(files, sdk.getLibraryDirectory());
+    int processorCount = Runtime.getRuntime().availableProcessors();
+    // Warm-up
+    parseAll(sdk, files, processorCount);
+    // Measured
+    long singleThreadedTime = 0L;
+    for (int threadCount = 1; threadCount <= processorCount; threadCount *= 2) {
+      long bestTime = Long.MAX_VALUE;
+      for (int i = 0; i < REPETITION_COUNT; i++) {
+        bestTime = Math.min(bestTime, parseAll(sdk, files, threadCount));
+      }
+      if (threadCount == 1) {
+        singleThreadedTime = bestTime;
+      }
+      System.out.print(threadCount);
+      System.out.print(" thread(s): parsed ");
+      System.out.print(files.size());
+      System.out.print(" files in ");
+      System.out.print(bestTime);
+      System.out.print(" ms (speed-up ");
+      System.out.print(Math.round(singleThreadedTime * 100.0 / bestTime) / 100.0);
+      System.out.println(")");
+    }
+  }
+
+  /**
+   * Parse all of the given files through a newly created context using the given number of threads
+   * and return the number of milliseconds that were required.
+   */
+  private long parseAll(DartSdk sdk, List<File> files, int threadCount) throws Exception {
+    final AnalysisContextImpl context = new AnalysisContextImpl();
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
+    context.setSourceFactory(sourceFactory);
+    final ConcurrentLinkedQueue<Source> queue = new ConcurrentLinkedQueue<Source>();
+    for (File file : files) {
+      queue.add(new FileBasedSource(sourceFactory, file, true));
+    }
+    final List<Throwable> exceptions = new ArrayList<Throwable>();
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          Source source = queue.poll();
+          while (source != null) {
+            try {
+              context.parse(source);
+            } catch (AnalysisException exception) {
+              synchronized (exceptions) {
+                exceptions.add(exception);
+              }
+            }
+            source = queue.poll();
+          }
+        }
+      };
+    }
+    long start = System.currentTimeMillis();
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long end = System.currentTimeMillis();
+    assertTrue(exceptions.isEmpty());
+    return end - start;
+  }
+}
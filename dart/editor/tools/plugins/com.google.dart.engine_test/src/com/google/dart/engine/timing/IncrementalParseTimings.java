@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.parser.IncrementalParser;
+import com.google.dart.engine.parser.Parser;
+import com.google.dart.engine.scanner.StringScanner;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import junit.framework.TestCase;
+
+/**
+ * The class {@code IncrementalParseTimings} defines a micro-benchmark that compares the time
+ * required to parse a large compilation unit from scratch with the time required to update it
+ * incrementally after an edit inside one of its methods.
+ */
+public class IncrementalParseTimings extends TestCase {
+  /**
+   * The number of methods in the generated class; each method occupies five lines.
+   */
+  private static final int METHOD_COUNT = 1000;
+
+  /**
+   * The number of edits that are timed.
+   */
+  private static final int EDIT_COUNT = 1000;
+
+  /**
+   * An error listener that ignores all errors.
+   */
+  private static final AnalysisErrorListener NULL_LISTENER = new AnalysisErrorListener() {
+    @Override
+    public void onError(AnalysisError error) {
+    }
+  };
+
+  public void test_reparse() throws Exception {
+    String[] contents = {createContents("0"), createContents("10")};
+    // Warm-up
+    for (int i = 0; i < EDIT_COUNT; i++) {
+      parse(contents[i % 2]);
+    }
+    CompilationUnit unit = parse(contents[0]);
+    for (int i = 1; i <= EDIT_COUNT; i++) {
+      unit = new IncrementalParser(null).reparse(unit, contents[(i - 1) % 2], contents[i % 2]);
+      assertNotNull(unit);
+    }
+    // Measured
+    long start = System.nanoTime();
+    for (int i = 0; i < EDIT_COUNT; i++) {
+      parse(contents[i % 2]);
+    }
+    long parseTime = System.nanoTime() - start;
+    unit = parse(contents[0]);
+    start = System.nanoTime();
+    for (int i = 1; i <= EDIT_COUNT; i++) {
+      unit = new IncrementalParser(null).reparse(unit, contents[(i - 1) % 2], contents[i % 2]);
+    }
+    long reparseTime = System.nanoTime() - start;
+    System.out.print("compilation unit of ");
+    System.out.print(unit.getLineInfo().getLineStarts().length);
+    System.out.print(" lines (");
+    System.out.print(contents[0].length());
+    System.out.println(" characters)");
+    print("full parse", parseTime);
+    print("incremental reparse", reparseTime);
+  }
+
+  /**
+   * Return the contents of a compilation unit containing a single class with many methods, in which
+   * the method in the middle of the class returns the given value.
+   */
+  private String createContents(String value) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("library l;\n\nclass A {\n");
+    for (int i = 0; i < METHOD_COUNT; i++) {
+      builder.append("  int m");
+      builder.append(i);
+      builder.append("(int p) {\n    int v = p * 2 + ");
+      builder.append(i == METHOD_COUNT / 2 ? value : Integer.toString(i));
+      builder.append(";\n    return v;\n  }\n\n");
+    }
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  /**
+   * Parse the given contents as a compilation unit.
+   */
+  private CompilationUnit parse(String contents) {
+    StringScanner scanner = new StringScanner(null, contents, NULL_LISTENER);
+    CompilationUnit unit = new Parser(null, NULL_LISTENER).parseCompilationUnit(scanner.tokenize());
+    unit.setLineInfo(new LineInfo(scanner.getLineStarts()));
+    return unit;
+  }
+
+  /**
+   * Print the average time required for each edit by the named approach.
+   */
+  private void print(String name, long time) {
+    System.out.print(name);
+    System.out.print(": ");
+    System.out.print(time / EDIT_COUNT / 1000L);
+    System.out.println(" us per edit");
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.element.ElementFactory.functionElement;
+import static com.google.dart.engine.element.ElementFactory.library;
+
+import junit.framework.TestCase;
+
+/**
+ * The class {@code IndexStoreTimings} defines a test that compares the memory used by the
+ * {@link IndexStore} implementations to hold one million relationships, and the time it takes each
+ * of them to answer queries and to remove the relationships recorded for a single source.
+ */
+public class IndexStoreTimings extends TestCase {
+  /**
+   * The number of compilation units in which elements are declared.
+   */
+  private static final int UNIT_COUNT = 1000;
+
+  /**
+   * The number of elements declared in each compilation unit.
+   */
+  private static final int ELEMENTS_PER_UNIT = 100;
+
+  /**
+   * The number of locations recorded for each element.
+   */
+  private static final int LOCATIONS_PER_ELEMENT = 10;
+
+  /**
+   * The number of times all of the elements are queried.
+   */
+  private static final int QUERY_COUNT = 10;
+
+  /**
+   * Return the number of bytes currently used by the heap, after having attempted to collect all of
+   * the garbage.
+   */
+  private static long getUsedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private Element[][] elements;
+
+  private Relationship relationship = Relationship.getRelationship("test-relationship");
+
+  public void test_store() {
+    createElements();
+    // Warm-up
+    measure("warm-up", IndexFactory.newMemoryIndexStore(), false);
+    measure("warm-up", IndexFactory.newCompactIndexStore(), false);
+    // Measured
+    measure("memory", IndexFactory.newMemoryIndexStore(), true);
+    measure("compact", IndexFactory.newCompactIndexStore(), true);
+  }
+
+  /**
+   * Create the elements whose relationships will be recorded. Each element is declared in its own
+   * compilation unit so that removal by source can be measured.
+   */
+  private void createElements() {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory());
+    elements = new Element[UNIT_COUNT][];
+    for (int i = 0; i < UNIT_COUNT; i++) {
+      LibraryElementImpl library = library(context, "lib" + i);
+      FunctionElement[] functions = new FunctionElement[ELEMENTS_PER_UNIT];
+      for (int j = 0; j < ELEMENTS_PER_UNIT; j++) {
+        functions[j] = functionElement("f" + j);
+      }
+      ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setFunctions(functions);
+      elements[i] = functions;
+    }
+  }
+
+  /**
+   * Fill the given store, then report the memory it uses and the time needed to query it and to
+   * remove a single source from it.
+   */
+  private void measure(String name, IndexStore store, boolean print) {
+    long initialMemory = getUsedMemory();
+    long recordStart = System.currentTimeMillis();
+    int relationshipCount = 0;
+    for (int i = 0; i < UNIT_COUNT; i++) {
+      for (int j = 0; j < ELEMENTS_PER_UNIT; j++) {
+        Element element = elements[i][j];
+        for (int k = 0; k < LOCATIONS_PER_ELEMENT; k++) {
+          Element locationElement = elements[(i + k + 1) % UNIT_COUNT][j];
+          store.recordRelationship(element, relationship, new Location(
+              locationElement,
+              k * 10,
+              5,
+              null));
+          relationshipCount++;
+        }
+      }
+    }
+    long recordEnd = System.currentTimeMillis();
+    long usedMemory = getUsedMemory() - initialMemory;
+    // query
+    long queryStart = System.currentTimeMillis();
+    int locationCount = 0;
+    for (int q = 0; q < QUERY_COUNT; q++) {
+      for (int i = 0; i < UNIT_COUNT; i++) {
+        for (int j = 0; j < ELEMENTS_PER_UNIT; j++) {
+          locationCount += store.getRelationships(elements[i][j], relationship).length;
+        }
+      }
+    }
+    long queryEnd = System.currentTimeMillis();
+    assertEquals(relationshipCount * QUERY_COUNT, locationCount);
+    // remove
+    Element firstElement = elements[0][0];
+    long removeStart = System.nanoTime();
+    store.removeSource(firstElement.getContext(), firstElement.getSource());
+    long removeEnd = System.nanoTime();
+    if (print) {
+      System.out.println(name + ": " + relationshipCount + " relationships");
+      System.out.println("  record: " + (recordEnd - recordStart) + " ms");
+      System.out.println("  memory: " + (usedMemory / 1024) + " KB, "
+          + (usedMemory / relationshipCount) + " bytes per relationship");
+      int queryCount = QUERY_COUNT * UNIT_COUNT * ELEMENTS_PER_UNIT;
+      System.out.println("  query: " + (queryEnd - queryStart) + " ms for " + queryCount
+          + " queries");
+      System.out.println("  remove source: " + ((removeEnd - removeStart) / 1000) + " us");
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.scanner.CharBufferScanner;
+import com.google.dart.engine.scanner.StringScanner;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.utilities.io.FileUtilities;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class {@code ScannerTimings} defines a micro-benchmark that scans all of the sources in the
+ * SDK, which are read into memory first, with both a {@link StringScanner} and a
+ * {@link CharBufferScanner}, in order to measure the throughput of the scanner.
+ */
+public class ScannerTimings extends TestCase {
+  /**
+   * The number of times each measurement is repeated; the best time is reported.
+   */
+  private static final int REPETITION_COUNT = 10;
+
+  /**
+   * An error listener that ignores all errors.
+   */
+  private static final AnalysisErrorListener NULL_LISTENER = new AnalysisErrorListener() {
+    @Override
+    public void onError(AnalysisError error) {
+    }
+  };
+
+  /**
+   * Recursively add the Dart files contained in the given directory to the given list.
+   */
+  private static void addDartFiles(List<File> files, File directory) {
+    for (File child : directory.listFiles()) {
+      if (child.isDirectory()) {
+        addDartFiles(files, child);
+      } else if (child.getName().endsWith(".dart")) {
+        files.add(child);
+      }
+    }
+  }
+
+  public void test_scanSdk() throws Exception {
+    DartSdk sdk = DartSdk.getDefaultSdk();
+    assertNotNull(sdk);
+    List<File> files = new ArrayList<File>();
+    addDartFiles(files, sdk.getLibraryDirectory());
+    List<String> contents = new ArrayList<String>(files.size());
+    long charCount = 0L;
+    for (File file : files) {
+      String content = FileUtilities.getContents(file);
+      contents.add(content);
+      charCount += content.length();
+    }
+    // Warm-up
+    for (int i = 0; i < REPETITION_COUNT; i++) {
+      scanAll(contents, false);
+      scanAll(contents, true);
+    }
+    // Measured
+    long stringTime = Long.MAX_VALUE;
+    long bufferTime = Long.MAX_VALUE;
+    for (int i = 0; i < REPETITION_COUNT; i++) {
+      long start = System.nanoTime();
+      int tokenCount = scanAll(contents, false);
+      stringTime = Math.min(stringTime, System.nanoTime() - start);
+      start = System.nanoTime();
+      assertEquals(tokenCount, scanAll(contents, true));
+      bufferTime = Math.min(bufferTime, System.nanoTime() - start);
+    }
+    int tokenCount = scanAll(contents, false);
+    System.out.print("scanned ");
+    System.out.print(files.size());
+    System.out.print(" files (");
+    System.out.print(charCount);
+    System.out.print(" characters, ");
+    System.out.print(tokenCount);
+    System.out.println(" tokens)");
+    print("StringScanner", stringTime, tokenCount);
+    print("CharBufferScanner", bufferTime, tokenCount);
+  }
+
+  /**
+   * Print the time required to scan the given number of tokens with the named scanner.
+   */
+  private void print(String scannerName, long time, int tokenCount) {
+    System.out.print(scannerName);
+    System.out.print(": ");
+    System.out.print(time / 1000000L);
+    System.out.print(" ms (");
+    System.out.print(tokenCount * 1000000L / time);
+    System.out.println(" tokens per ms)");
+  }
+
+  /**
+   * Scan all of the given contents and return the number of tokens that were produced.
+   */
+  private int scanAll(List<String> contents, boolean useBuffer) {
+    int tokenCount = 0;
+    for (String content : contents) {
+      Token token;
+      if (useBuffer) {
+        token = new CharBufferScanner(null, CharBuffer.wrap(content), NULL_LISTENER).tokenize();
+      } else {
+        token = new StringScanner(null, content, NULL_LISTENER).tokenize();
+      }
+      while (token.getType() != TokenType.EOF) {
+        tokenCount++;
+        token = token.getNext();
+      }
+    }
+    return tokenCount;
+  }
+}
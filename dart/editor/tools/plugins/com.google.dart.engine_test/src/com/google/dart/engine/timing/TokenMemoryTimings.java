@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.SourceFactory;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class {@code TokenMemoryTimings} defines a benchmark that parses all of the sources in the
+ * SDK and reports the number of bytes of heap retained per line of source by the resulting
+ * compilation units, both with the full token streams and with compacted token streams, in order
+ * to measure the effect of token stream compaction on the memory used by cached ASTs.
+ */
+public class TokenMemoryTimings extends TestCase {
+  /**
+   * Recursively add the Dart files contained in the given directory to the given list.
+   */
+  private static void addDartFiles(List<File> files, File directory) {
+    for (File child : directory.listFiles()) {
+      if (child.isDirectory()) {
+        addDartFiles(files, child);
+      } else if (child.getName().endsWith(".dart")) {
+        files.add(child);
+      }
+    }
+  }
+
+  /**
+   * Return the number of lines in the given file.
+   */
+  private static int countLines(File file) throws Exception {
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      int lineCount = 0;
+      while (reader.readLine() != null) {
+        lineCount++;
+      }
+      return lineCount;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Return the number of bytes of heap that are currently in use, after collecting garbage.
+   */
+  private static long usedMemory() throws Exception {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public void test_parseSdk() throws Exception {
+    DartSdk sdk = DartSdk.getDefaultSdk();
+    assertNotNull(sdk);
+    List<File> files = new ArrayList<File>();
+    addDartFiles(files, sdk.getLibraryDirectory());
+    int lineCount = 0;
+    for (File file : files) {
+      lineCount += countLines(file);
+    }
+    // Warm-up
+    measure(sdk, files, false);
+    measure(sdk, files, true);
+    // Measured
+    long fullSize = measure(sdk, files, false);
+    long compactSize = measure(sdk, files, true);
+    System.out.print("parsed ");
+    System.out.print(files.size());
+    System.out.print(" files (");
+    System.out.print(lineCount);
+    System.out.println(" lines)");
+    System.out.print("full token streams: ");
+    System.out.print(fullSize / lineCount);
+    System.out.println(" bytes per line");
+    System.out.print("compacted token streams: ");
+    System.out.print(compactSize / lineCount);
+    System.out.println(" bytes per line");
+  }
+
+  /**
+   * Parse all of the given files, compacting their token streams if requested, and return the
+   * number of bytes of heap retained by the resulting compilation units.
+   */
+  private long measure(DartSdk sdk, List<File> files, boolean compact) throws Exception {
+    AnalysisContextImpl context = new AnalysisContextImpl();
+    context.setCompactTokenStreams(compact);
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
+    context.setSourceFactory(sourceFactory);
+    List<CompilationUnit> units = new ArrayList<CompilationUnit>(files.size());
+    long before = usedMemory();
+    for (File file : files) {
+      units.add(context.parse(new FileBasedSource(sourceFactory, file, true)));
+    }
+    long after = usedMemory();
+    assertEquals(files.size(), units.size());
+    return after - before;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.type.TypeRelationCache;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.sdk.SdkLibrary;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * The class {@code TypeRelationTimings} defines a micro-benchmark that resolves all of the libraries
+ * in the SDK through a newly created analysis context, both with and without a
+ * {@link TypeRelationCache}, in order to measure the effect of caching the subtype and least upper
+ * bound relations on resolution time.
+ */
+public class TypeRelationTimings extends TestCase {
+  /**
+   * The number of times each measurement is repeated; the best time is reported.
+   */
+  private static final int REPETITION_COUNT = 3;
+
+  public void test_resolveSdk() throws Exception {
+    DartSdk sdk = DartSdk.getDefaultSdk();
+    assertNotNull(sdk);
+    // Warm-up
+    resolveAll(new AnalysisContextImpl(), sdk, false);
+    resolveAll(new AnalysisContextImpl(), sdk, true);
+    // Measured
+    long uncachedTime = Long.MAX_VALUE;
+    long cachedTime = Long.MAX_VALUE;
+    TypeRelationCache cache = null;
+    for (int i = 0; i < REPETITION_COUNT; i++) {
+      uncachedTime = Math.min(uncachedTime, resolveAll(new AnalysisContextImpl(), sdk, false));
+      AnalysisContextImpl context = new AnalysisContextImpl();
+      cachedTime = Math.min(cachedTime, resolveAll(context, sdk, true));
+      cache = context.getTypeRelationCache();
+    }
+    System.out.print("resolved SDK without cache in ");
+    System.out.print(uncachedTime);
+    System.out.println(" ms");
+    System.out.print("resolved SDK with cache in ");
+    System.out.print(cachedTime);
+    System.out.print(" ms (");
+    System.out.print(cache.getHitCount());
+    System.out.print(" hits, ");
+    System.out.print(cache.getMissCount());
+    System.out.println(" misses)");
+  }
+
+  /**
+   * Resolve all of the libraries in the given SDK through the given newly created context, caching
+   * the relations between types if requested, and return the number of milliseconds that were
+   * required.
+   */
+  private long resolveAll(AnalysisContextImpl context, DartSdk sdk, boolean cacheTypeRelations)
+      throws Exception {
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk));
+    context.setSourceFactory(sourceFactory);
+    if (!cacheTypeRelations) {
+      context.setTypeRelationCache(null);
+    }
+    long start = System.currentTimeMillis();
+    for (SdkLibrary library : sdk.getSdkLibraries()) {
+      Source librarySource = sourceFactory.forUri(library.getShortName());
+      if (librarySource != null) {
+        context.getLibraryElement(librarySource);
+      }
+    }
+    return System.currentTimeMillis() - start;
+  }
+}
@@ -52,6 +52,20 @@ public class LineInfoTest extends TestCase {
     assertEquals(3, location.getColumnNumber());
   }
 
+  public void test_manyLines() {
+    int[] lineStarts = new int[100];
+    for (int i = 0; i < lineStarts.length; i++) {
+      lineStarts[i] = i * 10;
+    }
+    LineInfo info = new LineInfo(lineStarts);
+    for (int offset = 0; offset < 1005; offset++) {
+      LineInfo.Location location = info.getLocation(offset);
+      int line = Math.min(offset / 10, lineStarts.length - 1);
+      assertEquals(line + 1, location.getLineNumber());
+      assertEquals(offset - line * 10 + 1, location.getColumnNumber());
+    }
+  }
+
   public void test_middleLine() {
     LineInfo info = new LineInfo(new int[] {0, 12, 34});
     LineInfo.Location location = info.getLocation(12);
@@ -18,6 +18,8 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.SegmentedIndexStore;
+import com.google.dart.engine.internal.index.SdkIndex;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchEngineFactory;
@@ -42,12 +44,15 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.runtime.CoreException;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Concrete implementation of {@link ProjectManager}
@@ -57,7 +62,10 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
   private final IWorkspaceRoot resource;
   @VisibleForTesting
   protected final HashMap<IProject, Project> projects = new HashMap<IProject, Project>();
-  private final Index index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore());
+  private final SegmentedIndexStore indexStore = IndexFactory.newSegmentedIndexStore(null);
+  private final Index index = IndexFactory.newIndex(
+      indexStore,
+      Runtime.getRuntime().availableProcessors());
   private final DartSdk sdk;
   private final AnalysisContext sdkContext;
   private final DartIgnoreManager ignoreManager;
@@ -76,6 +84,12 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
         index.run();
       }
     }.start();
+    new Thread() {
+      @Override
+      public void run() {
+        openSdkIndex();
+      }
+    }.start();
   }
 
   @Override
@@ -246,4 +260,28 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
   public void removeProjectListener(ProjectListener listener) {
     listeners.remove(listener);
   }
+
+  /**
+   * Open the prebuilt index of the SDK, so that the SDK libraries do not need to be indexed. The
+   * index packaged with the analyzer is used if it was built for this version of the SDK, otherwise
+   * the SDK is indexed once and the index is kept in the state location of the plugin.
+   */
+  private void openSdkIndex() {
+    try {
+      File directory = DartCore.getPlugin().getStateLocation().append("sdk-index").toFile();
+      if (SdkIndex.openPackaged(indexStore, sdkContext, sdk, directory)) {
+        return;
+      }
+      int threadCount = Runtime.getRuntime().availableProcessors();
+      ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+      try {
+        SdkIndex.create(sdk, directory, executor);
+      } finally {
+        executor.shutdown();
+      }
+      SdkIndex.open(indexStore, sdkContext, sdk, directory);
+    } catch (Throwable exception) {
+      DartCore.logError("Could not open the SDK index", exception);
+    }
+  }
 }
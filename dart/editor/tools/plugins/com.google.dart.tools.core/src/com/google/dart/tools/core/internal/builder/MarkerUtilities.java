@@ -14,6 +14,9 @@
 
 package com.google.dart.tools.core.internal.builder;
 
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.utilities.source.LineInfo;
 import com.google.dart.tools.core.DartCore;
 
 import org.eclipse.core.resources.IContainer;
@@ -22,12 +25,48 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * A utility class to manipulate markers.
  */
 public class MarkerUtilities {
+  /**
+   * Instances of the class {@code MarkerAttributes} hold the values of the attributes of an error
+   * marker, in the order of {@link #ERROR_ATTRIBUTE_NAMES}, so that markers with the same attributes
+   * can be matched.
+   */
+  private static class MarkerAttributes {
+    private final Object[] values;
+
+    public MarkerAttributes(Object[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      return object instanceof MarkerAttributes
+          && Arrays.equals(values, ((MarkerAttributes) object).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(values);
+    }
+  }
+
   public static final String ISSUE_MARKER = DartCore.PLUGIN_ID + ".issue";
 
+  /**
+   * The names of the attributes of the markers created for analysis errors.
+   */
+  private static final String[] ERROR_ATTRIBUTE_NAMES = {
+      IMarker.SEVERITY, IMarker.CHAR_START, IMarker.CHAR_END, IMarker.LINE_NUMBER, IMarker.MESSAGE};
+
   public static void createErrorMarker(IFile file, String message, int line) throws CoreException {
     IMarker marker = file.createMarker(ISSUE_MARKER);
     marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
@@ -78,6 +117,78 @@ public class MarkerUtilities {
     file.deleteMarkers(ISSUE_MARKER, true, IResource.DEPTH_ZERO);
   }
 
+  /**
+   * Update the markers of the given type on the given resource so that they represent the given
+   * analysis errors. Markers that already represent one of the errors are left unchanged, so only
+   * the markers for errors that were fixed are deleted and only the markers for new errors are
+   * created. Errors whose severity is neither error nor warning are ignored.
+   * <p>
+   * Clients updating the markers of many resources should do so within a single workspace
+   * operation.
+   * 
+   * @param resource the resource (not {@code null})
+   * @param markerType the type of marker to be created (not {@code null})
+   * @param lineInfo the line information used to compute the line numbers of the errors
+   * @param errors the errors to be represented by markers (not {@code null})
+   */
+  public static void replaceErrorMarkers(IResource resource, String markerType, LineInfo lineInfo,
+      AnalysisError[] errors) throws CoreException {
+    // index the existing markers by their attributes
+    IMarker[] oldMarkers = resource.findMarkers(markerType, false, IResource.DEPTH_ZERO);
+    Map<MarkerAttributes, List<IMarker>> oldMarkerMap = new HashMap<MarkerAttributes, List<IMarker>>(
+        oldMarkers.length * 2);
+    for (IMarker marker : oldMarkers) {
+      MarkerAttributes attributes = new MarkerAttributes(marker.getAttributes(ERROR_ATTRIBUTE_NAMES));
+      List<IMarker> markers = oldMarkerMap.get(attributes);
+      if (markers == null) {
+        markers = new ArrayList<IMarker>(1);
+        oldMarkerMap.put(attributes, markers);
+      }
+      markers.add(marker);
+    }
+    // match the errors with the existing markers
+    List<Object[]> addedValues = new ArrayList<Object[]>();
+    for (AnalysisError error : errors) {
+      int severity;
+      ErrorSeverity errorSeverity = error.getErrorCode().getErrorSeverity();
+      if (errorSeverity == ErrorSeverity.ERROR) {
+        severity = IMarker.SEVERITY_ERROR;
+      } else if (errorSeverity == ErrorSeverity.WARNING) {
+        severity = IMarker.SEVERITY_WARNING;
+//      } else if (errorSeverity == ErrorSeverity.INFO) {
+//        severity = IMarker.SEVERITY_INFO;
+      } else {
+        continue;
+      }
+
+      int lineNum = lineInfo.getLocation(error.getOffset()).getLineNumber();
+
+      Object[] values = {
+          severity, error.getOffset(), error.getOffset() + error.getLength(), lineNum,
+          error.getMessage()};
+      List<IMarker> markers = oldMarkerMap.get(new MarkerAttributes(values));
+      if (markers != null && !markers.isEmpty()) {
+        markers.remove(markers.size() - 1);
+      } else {
+        addedValues.add(values);
+      }
+    }
+    // delete the markers that no longer represent an error
+    List<IMarker> removedMarkers = new ArrayList<IMarker>();
+    for (List<IMarker> markers : oldMarkerMap.values()) {
+      removedMarkers.addAll(markers);
+    }
+    if (!removedMarkers.isEmpty()) {
+      resource.getWorkspace().deleteMarkers(
+          removedMarkers.toArray(new IMarker[removedMarkers.size()]));
+    }
+    // create the markers for the new errors
+    for (Object[] values : addedValues) {
+      IMarker marker = resource.createMarker(markerType);
+      marker.setAttributes(ERROR_ATTRIBUTE_NAMES, values);
+    }
+  }
+
   private MarkerUtilities() {
 
   }
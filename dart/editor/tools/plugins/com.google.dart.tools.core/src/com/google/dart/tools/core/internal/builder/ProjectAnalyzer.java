@@ -18,7 +18,6 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
-import com.google.dart.engine.error.ErrorSeverity;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.LineInfo;
@@ -26,7 +25,6 @@ import com.google.dart.tools.core.DartCore;
 import com.google.dart.tools.core.analysis.model.Project;
 import com.google.dart.tools.core.internal.model.DartIgnoreManager;
 
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -229,31 +227,7 @@ public class ProjectAnalyzer extends DeltaAdapter {
      * @param markerType the type of marker to be created (not {@code null})
      */
     public void showErrors(IResource resource, String markerType) throws CoreException {
-      resource.deleteMarkers(markerType, false, IResource.DEPTH_ZERO);
-      for (AnalysisError error : errors) {
-        int severity;
-        ErrorSeverity errorSeverity = error.getErrorCode().getErrorSeverity();
-        if (errorSeverity == ErrorSeverity.ERROR) {
-          severity = IMarker.SEVERITY_ERROR;
-        } else if (errorSeverity == ErrorSeverity.WARNING) {
-          severity = IMarker.SEVERITY_WARNING;
-//        } else if (errorSeverity == ErrorSeverity.INFO) {
-//          severity = IMarker.SEVERITY_INFO;
-        } else {
-          continue;
-        }
-
-        int lineNum = lineInfo.getLocation(error.getOffset()).getLineNumber();
-
-        IMarker marker = resource.createMarker(markerType);
-        marker.setAttribute(IMarker.SEVERITY, severity);
-        marker.setAttribute(IMarker.CHAR_START, error.getOffset());
-        marker.setAttribute(IMarker.CHAR_END, error.getOffset() + error.getLength());
-        marker.setAttribute(IMarker.LINE_NUMBER, lineNum);
-//        marker.setAttribute("errorCode", error.getErrorCode());
-        marker.setAttribute(IMarker.MESSAGE, error.getMessage());
-      }
-
+      MarkerUtilities.replaceErrorMarkers(resource, markerType, lineInfo, errors);
     }
   }
 
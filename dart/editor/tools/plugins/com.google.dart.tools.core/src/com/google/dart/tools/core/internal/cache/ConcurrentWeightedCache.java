@@ -0,0 +1,588 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.core.internal.cache;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Instances of the class <code>ConcurrentWeightedCache</code> implement a cache that can be read
+ * concurrently without locking, whose size is bounded by the total weight of its entries rather
+ * than by their number.
+ * <p>
+ * Entries are replaced using a frequency-aware policy. New entries are always admitted into a small
+ * window, which holds about a tenth of the total weight and always keeps the most recently added
+ * entry. Entries that overflow the window become candidates for the main space. A candidate is only
+ * admitted if it has been used more often recently than the least recently used entry of the main
+ * space, as estimated by a {@link FrequencySketch}; otherwise the candidate itself is evicted. This
+ * keeps entries that are used repeatedly from being pushed out by a burst of entries that are only
+ * used once.
+ * <p>
+ * Reads are recorded in a lossy buffer that is applied to the replacement policy by whichever thread
+ * next acquires the lock used for writes, so reading never blocks. Writes are serialized by that
+ * lock. Evicting an entry invokes {@link #close(Object, Object)}, which may refuse, in which case the
+ * entry is kept and the cache is allowed to exceed its maximum weight until the entry can be
+ * closed.
+ * 
+ * @param <K> the type of the keys in the cache
+ * @param <V> the type of the values in the cache
+ */
+public abstract class ConcurrentWeightedCache<K, V> {
+  /**
+   * Instances of the class <code>Node</code> hold a single entry of the cache, and link it into
+   * the access order of the segment containing it.
+   */
+  private static final class Node<K, V> {
+    final K key;
+    volatile V value;
+    int weight;
+    boolean inWindow;
+    Node<K, V> previous;
+    Node<K, V> next;
+
+    Node(K key, V value, int weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+
+    boolean isLinked() {
+      return previous != null;
+    }
+  }
+
+  /**
+   * Instances of the class <code>Segment</code> are doubly linked lists of nodes in access order,
+   * from least to most recently used.
+   */
+  private static final class Segment<K, V> {
+    final Node<K, V> sentinel = new Node<K, V>(null, null, 0);
+    int weight;
+
+    Segment() {
+      sentinel.previous = sentinel;
+      sentinel.next = sentinel;
+    }
+
+    void addLast(Node<K, V> node) {
+      node.previous = sentinel.previous;
+      node.next = sentinel;
+      sentinel.previous.next = node;
+      sentinel.previous = node;
+      weight += node.weight;
+    }
+
+    Node<K, V> first() {
+      return sentinel.next == sentinel ? null : sentinel.next;
+    }
+
+    Node<K, V> last() {
+      return sentinel.previous == sentinel ? null : sentinel.previous;
+    }
+
+    Node<K, V> next(Node<K, V> node) {
+      return node.next == sentinel ? null : node.next;
+    }
+
+    void remove(Node<K, V> node) {
+      node.previous.next = node.next;
+      node.next.previous = node.previous;
+      node.previous = null;
+      node.next = null;
+      weight -= node.weight;
+    }
+  }
+
+  /**
+   * The number of slots in the buffer of reads waiting to be applied to the replacement policy.
+   */
+  private static final int READ_BUFFER_SIZE = 128;
+
+  /**
+   * The number of reads after which the buffer of reads is applied if the lock is available.
+   */
+  private static final int READ_DRAIN_THRESHOLD = 32;
+
+  /**
+   * The fraction of the maximum weight that is used for the admission window.
+   */
+  private static final double WINDOW_RATIO = 0.1;
+
+  /**
+   * The entries in the cache.
+   */
+  private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+
+  /**
+   * The lock that serializes the changes to the replacement policy.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * The most recently added entries, in access order.
+   */
+  private final Segment<K, V> window = new Segment<K, V>();
+
+  /**
+   * The admitted entries, in access order.
+   */
+  private final Segment<K, V> main = new Segment<K, V>();
+
+  /**
+   * The sketch used to estimate how often keys have been used recently.
+   */
+  private final FrequencySketch sketch;
+
+  /**
+   * The reads that have not yet been applied to the replacement policy.
+   */
+  private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<Node<K, V>>(
+      READ_BUFFER_SIZE);
+
+  /**
+   * The number of reads that have been recorded in the read buffer.
+   */
+  private final AtomicLong readCount = new AtomicLong();
+
+  /**
+   * The number of reads that found an entry.
+   */
+  private final AtomicLong hitCount = new AtomicLong();
+
+  /**
+   * The number of reads that did not find an entry.
+   */
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * The number of entries that have been evicted to make space.
+   */
+  private volatile long evictionCount;
+
+  /**
+   * The total weight of the entries that have been evicted to make space.
+   */
+  private volatile long evictionWeight;
+
+  /**
+   * The number of candidates that were evicted because they were used less often than the entry
+   * they would have replaced.
+   */
+  private volatile long rejectionCount;
+
+  /**
+   * The maximum total weight of the entries in the cache.
+   */
+  private volatile int maximumWeight;
+
+  /**
+   * Initialize a newly created cache to hold entries with at most the given total weight.
+   * 
+   * @param maximumWeight the maximum total weight of the entries in the cache
+   */
+  public ConcurrentWeightedCache(int maximumWeight) {
+    this.maximumWeight = Math.max(maximumWeight, 1);
+    this.sketch = new FrequencySketch(this.maximumWeight);
+  }
+
+  /**
+   * Return the value associated with the given key, or <code>null</code> if there is no such
+   * value. The use of the entry is recorded for the replacement policy.
+   * 
+   * @param key the key whose value is to be returned
+   * @return the value associated with the key
+   */
+  public V get(K key) {
+    Node<K, V> node = map.get(key);
+    if (node == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    recordRead(node);
+    return node.value;
+  }
+
+  /**
+   * Return the number of entries that have been evicted to make space.
+   * 
+   * @return the number of entries that have been evicted
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Return the total weight of the entries that have been evicted to make space.
+   * 
+   * @return the total weight of the entries that have been evicted
+   */
+  public long getEvictionWeight() {
+    return evictionWeight;
+  }
+
+  /**
+   * Return the number of reads that found an entry.
+   * 
+   * @return the number of reads that found an entry
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Return the fraction of the reads that found an entry, or <code>1.0</code> if there have been no
+   * reads.
+   * 
+   * @return the fraction of the reads that found an entry
+   */
+  public double getHitRate() {
+    long hits = hitCount.get();
+    long requests = hits + missCount.get();
+    return requests == 0 ? 1.0 : (double) hits / requests;
+  }
+
+  /**
+   * Return the key in the cache that is equal to the given key, or the given key if there is no
+   * such key in the cache.
+   * 
+   * @param key the key being looked up
+   * @return the key in the cache that is equal to the given key
+   */
+  public K getKey(K key) {
+    Node<K, V> node = map.get(key);
+    return node == null ? key : node.key;
+  }
+
+  /**
+   * Return the maximum total weight of the entries in the cache.
+   * 
+   * @return the maximum total weight of the entries in the cache
+   */
+  public int getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Return the number of reads that did not find an entry.
+   * 
+   * @return the number of reads that did not find an entry
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Return the number of candidates that were evicted because they were used less often than the
+   * entry they would have replaced.
+   * 
+   * @return the number of candidates that were not admitted
+   */
+  public long getRejectionCount() {
+    return rejectionCount;
+  }
+
+  /**
+   * Return the total weight of the entries in the cache.
+   * 
+   * @return the total weight of the entries in the cache
+   */
+  public int getWeightedSize() {
+    lock.lock();
+    try {
+      return window.weight + main.weight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return a set containing the keys in the cache. The set reflects later changes to the cache, and
+   * can be iterated while the cache is being changed.
+   * 
+   * @return the keys in the cache
+   */
+  public Set<K> keySet() {
+    return map.keySet();
+  }
+
+  /**
+   * Return the value associated with the given key, or <code>null</code> if there is no such
+   * value, without recording a use of the entry.
+   * 
+   * @param key the key whose value is to be returned
+   * @return the value associated with the key
+   */
+  public V peek(K key) {
+    Node<K, V> node = map.get(key);
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * Associate the given value with the given key, evicting other entries if the cache exceeds its
+   * maximum weight.
+   * 
+   * @param key the key with which the value is to be associated
+   * @param value the value to be associated with the key
+   * @return the value that was previously associated with the key
+   */
+  public V put(K key, V value) {
+    int weight = Math.max(weigh(value), 1);
+    lock.lock();
+    try {
+      drainReads();
+      V oldValue = null;
+      Node<K, V> node = map.get(key);
+      if (node != null && node.isLinked()) {
+        oldValue = node.value;
+        node.value = value;
+        Segment<K, V> segment = node.inWindow ? window : main;
+        segment.remove(node);
+        node.weight = weight;
+        segment.addLast(node);
+      } else {
+        node = new Node<K, V>(key, value, weight);
+        node.inWindow = true;
+        window.addLast(node);
+        map.put(key, node);
+      }
+      sketch.increment(key);
+      evict();
+      return oldValue;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the entry with the given key from the cache.
+   * 
+   * @param key the key of the entry to be removed
+   * @return the value that was associated with the key
+   */
+  public V remove(K key) {
+    lock.lock();
+    try {
+      Node<K, V> node = map.remove(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      return node.value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set the maximum total weight of the entries in the cache, evicting entries if the cache exceeds
+   * the new maximum.
+   * 
+   * @param maximumWeight the maximum total weight of the entries in the cache
+   */
+  public void setMaximumWeight(int maximumWeight) {
+    lock.lock();
+    try {
+      this.maximumWeight = Math.max(maximumWeight, 1);
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the number of entries in the cache.
+   * 
+   * @return the number of entries in the cache
+   */
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public String toString() {
+    return toStringFillingRation("Cache"); //$NON-NLS-1$
+  }
+
+  /**
+   * Return a description of how full the cache is and how well it is performing.
+   * 
+   * @param cacheName the name of the cache used in the description
+   * @return a description of the cache
+   */
+  public String toStringFillingRation(String cacheName) {
+    StringBuffer buffer = new StringBuffer();
+    buffer.append(cacheName);
+    buffer.append(": "); //$NON-NLS-1$
+    buffer.append(size());
+    buffer.append(" entries, weight "); //$NON-NLS-1$
+    buffer.append(getWeightedSize());
+    buffer.append('/');
+    buffer.append(maximumWeight);
+    buffer.append(", hit rate "); //$NON-NLS-1$
+    buffer.append(Math.round(getHitRate() * 100));
+    buffer.append("%, "); //$NON-NLS-1$
+    buffer.append(evictionCount);
+    buffer.append(" evictions ("); //$NON-NLS-1$
+    buffer.append(rejectionCount);
+    buffer.append(" not admitted)"); //$NON-NLS-1$
+    return buffer.toString();
+  }
+
+  /**
+   * Close the given entry so that it can be evicted from the cache, returning <code>true</code> if
+   * the entry can be evicted. The entry is removed from the cache after it is closed, if closing it
+   * did not already remove it.
+   * <p>
+   * This method is invoked while holding the lock used for writes, and can therefore change the
+   * cache.
+   * 
+   * @param key the key of the entry being evicted
+   * @param value the value of the entry being evicted
+   * @return <code>true</code> if the entry can be evicted
+   */
+  protected abstract boolean close(K key, V value);
+
+  /**
+   * Return the weight of the given value, which should be proportional to the amount of memory
+   * retained by it. The default weight of every value is one.
+   * 
+   * @param value the value being weighed
+   * @return the weight of the value
+   */
+  protected int weigh(V value) {
+    return 1;
+  }
+
+  /**
+   * Apply the reads that have been recorded in the read buffer to the replacement policy. This must
+   * only be invoked while holding the lock.
+   */
+  private void drainReads() {
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      Node<K, V> node = readBuffer.getAndSet(i, null);
+      if (node != null && node.isLinked()) {
+        sketch.increment(node.key);
+        Segment<K, V> segment = node.inWindow ? window : main;
+        segment.remove(node);
+        segment.addLast(node);
+      }
+    }
+  }
+
+  /**
+   * Evict entries until the cache no longer exceeds its maximum weight or until none of the
+   * remaining entries can be closed. This must only be invoked while holding the lock.
+   */
+  private void evict() {
+    Set<Node<K, V>> pinned = new HashSet<Node<K, V>>();
+    // Move the entries overflowing the window into the main space, where they compete for admission.
+    int windowMaximum = Math.max((int) (maximumWeight * WINDOW_RATIO), 1);
+    Node<K, V> candidate = null;
+    Node<K, V> node = window.first();
+    while (window.weight > windowMaximum && node != null && node != window.last()) {
+      Node<K, V> next = window.next(node);
+      window.remove(node);
+      node.inWindow = false;
+      main.addLast(node);
+      if (candidate == null) {
+        candidate = node;
+      }
+      node = next;
+    }
+    while (window.weight + main.weight > maximumWeight) {
+      Node<K, V> victim = firstUnpinned(main, main.first(), pinned);
+      candidate = firstUnpinned(main, candidate, pinned);
+      Node<K, V> evicted;
+      boolean rejected = false;
+      if (victim == null) {
+        evicted = firstUnpinned(window, window.first(), pinned);
+        if (evicted == window.last()) {
+          evicted = null;
+        }
+      } else if (candidate == null || candidate == victim) {
+        evicted = victim;
+      } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+        evicted = victim;
+      } else {
+        Node<K, V> next = main.next(candidate);
+        evicted = candidate;
+        rejected = true;
+        candidate = next;
+      }
+      if (evicted == null) {
+        return;
+      }
+      if (!evictNode(evicted)) {
+        pinned.add(evicted);
+      } else if (rejected) {
+        rejectionCount++;
+      }
+    }
+  }
+
+  /**
+   * Evict the given node, returning <code>true</code> if it could be closed.
+   */
+  private boolean evictNode(Node<K, V> node) {
+    if (!close(node.key, node.value)) {
+      return false;
+    }
+    map.remove(node.key, node);
+    unlink(node);
+    evictionCount++;
+    evictionWeight += node.weight;
+    return true;
+  }
+
+  /**
+   * Return the first node in the given segment, starting with the given node, that is not pinned.
+   */
+  private Node<K, V> firstUnpinned(Segment<K, V> segment, Node<K, V> node, Set<Node<K, V>> pinned) {
+    while (node != null && (pinned.contains(node) || !node.isLinked())) {
+      node = node.isLinked() ? segment.next(node) : null;
+    }
+    return node;
+  }
+
+  /**
+   * Record a read of the given node in the read buffer, and apply the buffered reads if enough of
+   * them have been recorded and the lock is available.
+   */
+  private void recordRead(Node<K, V> node) {
+    long count = readCount.getAndIncrement();
+    readBuffer.lazySet((int) (count % READ_BUFFER_SIZE), node);
+    if (count % READ_DRAIN_THRESHOLD == READ_DRAIN_THRESHOLD - 1 && lock.tryLock()) {
+      try {
+        drainReads();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Remove the given node from the segment containing it. This must only be invoked while holding
+   * the lock.
+   */
+  private void unlink(Node<K, V> node) {
+    if (node.isLinked()) {
+      (node.inWindow ? window : main).remove(node);
+    }
+  }
+}
@@ -21,29 +21,28 @@ import com.google.dart.tools.core.model.DartModelException;
 import com.google.dart.tools.core.model.OpenableElement;
 
 /**
- * Instances of the class <code>ElementCache</code> implement an LRU cache of
- * <code>DartElements</code>.
+ * Instances of the class <code>ElementCache</code> implement a cache of the information associated
+ * with openable Dart elements. The weight of each entry is one more than the number of children of
+ * the element, which approximates the amount of memory retained by the element and its children.
+ * Evicting an element closes it, unless it cannot be removed from the cache, such as when it has
+ * unsaved changes.
  */
-public class ElementCache extends OverflowingLRUCache<OpenableElement, OpenableElementInfo> {
-  private DartElement spaceLimitParent = null;
-
+public class ElementCache extends ConcurrentWeightedCache<OpenableElement, OpenableElementInfo> {
   /**
-   * Initialize a newly created cache.
-   * 
-   * @param size the size limit of the cache
+   * The fraction by which the weight needed for the children of a parent is increased when the
+   * maximum weight is grown to make space for them.
    */
-  public ElementCache(int size) {
-    super(size);
-  }
+  private static final double LOAD_FACTOR = 0.333;
+
+  private DartElement spaceLimitParent = null;
 
   /**
    * Initialize a newly created cache.
    * 
-   * @param size the size limit of the cache
-   * @param overflow the size of the overflow
+   * @param maximumWeight the maximum total weight of the entries in the cache
    */
-  public ElementCache(int size, int overflow) {
-    super(size, overflow);
+  public ElementCache(int maximumWeight) {
+    super(maximumWeight);
   }
 
   /*
@@ -53,11 +52,12 @@ public class ElementCache extends OverflowingLRUCache<OpenableElement, OpenableE
   public void ensureSpaceLimit(Object info, DartElement parent) {
     // ensure the children can be put without closing other elements
     int childrenSize = ((DartElementInfo) info).getChildren().length;
-    int spaceNeeded = 1 + (int) ((1 + this.loadFactor) * (childrenSize + this.overflow));
-    if (this.spaceLimit < spaceNeeded) {
+    int size = size();
+    int averageWeight = size == 0 ? 1 : Math.max(getWeightedSize() / size, 1);
+    int spaceNeeded = 1 + (int) ((1 + LOAD_FACTOR) * childrenSize * averageWeight);
+    if (getMaximumWeight() < spaceNeeded) {
       // parent is being opened with more children than the space limit
-      shrink(); // remove overflow
-      setSpaceLimit(spaceNeeded);
+      setMaximumWeight(spaceNeeded);
       this.spaceLimitParent = parent;
     }
   }
@@ -68,7 +68,7 @@ public class ElementCache extends OverflowingLRUCache<OpenableElement, OpenableE
    */
   public void resetSpaceLimit(int defaultLimit, DartElement parent) {
     if (parent.equals(this.spaceLimitParent)) {
-      setSpaceLimit(defaultLimit);
+      setMaximumWeight(defaultLimit);
       this.spaceLimitParent = null;
     }
   }
@@ -79,8 +79,8 @@ public class ElementCache extends OverflowingLRUCache<OpenableElement, OpenableE
    * NOTE: this triggers an external remove from the cache by closing the object.
    */
   @Override
-  protected boolean close(LRUCacheEntry<OpenableElement, OpenableElementInfo> entry) {
-    OpenableElementImpl element = (OpenableElementImpl) entry.key;
+  protected boolean close(OpenableElement key, OpenableElementInfo value) {
+    OpenableElementImpl element = (OpenableElementImpl) key;
     try {
       if (!element.canBeRemovedFromCache()) {
         return false;
@@ -93,11 +93,8 @@ public class ElementCache extends OverflowingLRUCache<OpenableElement, OpenableE
     }
   }
 
-  /*
-   * Return a new instance of the receiver.
-   */
   @Override
-  protected LRUCache<OpenableElement, OpenableElementInfo> newInstance(int size, int newOverflow) {
-    return new ElementCache(size, newOverflow);
+  protected int weigh(OpenableElementInfo value) {
+    return 1 + value.getChildren().length;
   }
 }
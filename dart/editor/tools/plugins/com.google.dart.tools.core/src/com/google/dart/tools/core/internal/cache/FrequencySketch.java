@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.core.internal.cache;
+
+/**
+ * Instances of the class <code>FrequencySketch</code> estimate how often each key has been used
+ * recently, using a fixed amount of memory regardless of the number of keys.
+ * <p>
+ * The sketch is a count-min sketch of four-bit counters: each key is counted in four counters
+ * selected by different hash functions, and the estimated frequency of a key is the smallest of
+ * them, which can over-estimate but never under-estimate the real count. Once a number of uses
+ * proportional to the size of the sketch has been recorded, all of the counters are halved, so that
+ * the estimates favor keys that have been used recently.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public class FrequencySketch {
+  /**
+   * The seeds used to select the counters for a key, one for each hash function.
+   */
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+  /**
+   * The largest value a counter can hold.
+   */
+  private static final int MAX_COUNT = 15;
+
+  /**
+   * The mask used to select the bits of a single counter.
+   */
+  private static final long COUNTER_MASK = 0x0F;
+
+  /**
+   * The mask used to clear the high-order bit of each counter after the counters are shifted when
+   * they are halved.
+   */
+  private static final long HALVING_MASK = 0x7777777777777777L;
+
+  /**
+   * Return a hash code for the given key in which all of the bits depend on the key's hash code.
+   */
+  private static int spread(Object key) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * The counters, sixteen to a word.
+   */
+  private final long[] table;
+
+  /**
+   * The mask used to select a word of the table.
+   */
+  private final int tableMask;
+
+  /**
+   * The number of uses that are recorded before all of the counters are halved.
+   */
+  private final int sampleSize;
+
+  /**
+   * The number of uses that have been recorded since the counters were last halved.
+   */
+  private int size;
+
+  /**
+   * Initialize a newly created sketch to estimate the frequencies of the keys in a cache holding
+   * about the given number of entries.
+   * 
+   * @param expectedSize the expected number of entries in the cache
+   */
+  public FrequencySketch(int expectedSize) {
+    int length = Integer.highestOneBit(Math.max(expectedSize, 16) - 1) << 1;
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = 10 * Math.max(expectedSize, 16);
+  }
+
+  /**
+   * Return the estimated number of times the given key has been used recently.
+   * 
+   * @param key the key whose frequency is to be returned
+   * @return the estimated frequency of the key, between <code>0</code> and <code>15</code>
+   */
+  public int frequency(Object key) {
+    int hash = spread(key);
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int shift = offsetOf(hash, i);
+      frequency = Math.min(frequency, (int) ((table[index] >>> shift) & COUNTER_MASK));
+    }
+    return frequency;
+  }
+
+  /**
+   * Record that the given key was used.
+   * 
+   * @param key the key that was used
+   */
+  public void increment(Object key) {
+    int hash = spread(key);
+    boolean incremented = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int shift = offsetOf(hash, i);
+      if (((table[index] >>> shift) & COUNTER_MASK) < MAX_COUNT) {
+        table[index] += 1L << shift;
+        incremented = true;
+      }
+    }
+    if (incremented && ++size >= sampleSize) {
+      halve();
+    }
+  }
+
+  /**
+   * Halve all of the counters, so that uses that were recorded long ago count for less than recent
+   * ones.
+   */
+  private void halve() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & HALVING_MASK;
+    }
+    size /= 2;
+  }
+
+  /**
+   * Return the index of the word containing the counter selected by the hash function with the
+   * given index for the given hash code.
+   */
+  private int indexOf(int hash, int function) {
+    long h = (hash + SEEDS[function]) * SEEDS[function];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  /**
+   * Return the position of the lowest bit of the counter selected by the hash function with the
+   * given index within its word.
+   */
+  private int offsetOf(int hash, int function) {
+    return (((hash >>> (function << 3)) & 0x03) << 2) | (function << 4);
+  }
+}
@@ -25,13 +25,16 @@ import com.google.dart.tools.core.model.OpenableElement;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Instances of the class <code>DartModelCache</code> implement a cache mapping Dart model elements
  * to the corresponding information objects.
+ * <p>
+ * Information can be read concurrently without locking. Changes to the cache must be serialized by
+ * the client, which is done by synchronizing on the cache.
  */
 public class DartModelCache {
   /**
@@ -62,6 +65,20 @@ public class DartModelCache {
    */
   public static final int DEFAULT_CHILDREN_SIZE = DEFAULT_OPENABLE_SIZE * 20;
 
+  /**
+   * The default maximum weight of the library cache. The weight of a library is one more than the
+   * number of its compilation units, and this allows for an average of 9 compilation units per
+   * library.
+   */
+  public static final int DEFAULT_LIBRARY_WEIGHT = DEFAULT_LIBRARY_SIZE * 10;
+
+  /**
+   * The default maximum weight of the openable cache. The weight of an openable is one more than the
+   * number of its children, so this is the weight of the default number of openables with the
+   * default number of children.
+   */
+  public static final int DEFAULT_OPENABLE_WEIGHT = DEFAULT_OPENABLE_SIZE + DEFAULT_CHILDREN_SIZE;
+
   public static final String RATIO_PROPERTY = "com.google.dart.tools.core.dartmodelcache.ratio"; //$NON-NLS-1$
 
   // public static final Object NON_EXISTING_JAR_TYPE_INFO = new Object();
@@ -74,12 +91,12 @@ public class DartModelCache {
   /**
    * Active Dart Model Info
    */
-  private DartModelInfo modelInfo;
+  private volatile DartModelInfo modelInfo;
 
   /**
    * Cache of open projects.
    */
-  private HashMap<DartElement, DartElementInfo> projectCache;
+  private Map<DartElement, DartElementInfo> projectCache;
 
   /**
    * Cache of open libraries.
@@ -110,14 +127,14 @@ public class DartModelCache {
     double openableRatio = getOpenableRatio();
     // NB: Don't use a LRUCache for projects as they are constantly reopened (e.g. during delta
     // processing)
-    projectCache = new HashMap<DartElement, DartElementInfo>(DEFAULT_PROJECT_SIZE);
+    projectCache = new ConcurrentHashMap<DartElement, DartElementInfo>(DEFAULT_PROJECT_SIZE);
     // if (VERBOSE) {
     //    openableCache = new VerboseElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio * openableRatio), "Openable cache"); //$NON-NLS-1$
     // } else {
-    libraryCache = new ElementCache((int) (DEFAULT_LIBRARY_SIZE * ratio));
-    openableCache = new ElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio * openableRatio));
+    libraryCache = new ElementCache((int) (DEFAULT_LIBRARY_WEIGHT * ratio));
+    openableCache = new ElementCache((int) (DEFAULT_OPENABLE_WEIGHT * ratio * openableRatio));
     // }
-    childrenCache = new HashMap<DartElement, DartElementInfo>(
+    childrenCache = new ConcurrentHashMap<DartElement, DartElementInfo>(
         (int) (DEFAULT_CHILDREN_SIZE * ratio * openableRatio));
     // resetJarTypeCache();
   }
@@ -296,12 +313,12 @@ public class DartModelCache {
         break;
       case DartElement.DART_PROJECT:
         projectCache.remove(element);
-        libraryCache.resetSpaceLimit((int) (DEFAULT_LIBRARY_SIZE * getMemoryRatio()), element);
+        libraryCache.resetSpaceLimit((int) (DEFAULT_LIBRARY_WEIGHT * getMemoryRatio()), element);
         break;
       case DartElement.LIBRARY:
         libraryCache.remove((DartLibraryImpl) element);
         openableCache.resetSpaceLimit(
-            (int) (DEFAULT_OPENABLE_SIZE * getMemoryRatio() * getOpenableRatio()),
+            (int) (DEFAULT_OPENABLE_WEIGHT * getMemoryRatio() * getOpenableRatio()),
             element);
         break;
       case DartElement.COMPILATION_UNIT:
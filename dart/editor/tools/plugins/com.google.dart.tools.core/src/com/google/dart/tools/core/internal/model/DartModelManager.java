@@ -677,8 +677,13 @@ public class DartModelManager {
         return result;
       }
     }
+    DartElementInfo info = infoCache.getInfo(element);
+    if (info != null) {
+      return info;
+    }
+    // the information might be in the process of being added, so wait for any change to complete
     synchronized (infoCache) {
-      return infoCache.getInfo(element);
+      return infoCache.peekAtInfo(element);
     }
   }
 
@@ -1053,6 +1058,11 @@ public class DartModelManager {
         return result;
       }
     }
+    DartElementInfo info = infoCache.peekAtInfo(element);
+    if (info != null) {
+      return info;
+    }
+    // the information might be in the process of being added, so wait for any change to complete
     synchronized (infoCache) {
       return infoCache.peekAtInfo(element);
     }
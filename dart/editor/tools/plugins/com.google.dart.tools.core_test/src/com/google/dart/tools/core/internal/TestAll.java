@@ -21,6 +21,7 @@ public class TestAll {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTest(com.google.dart.tools.core.internal.analysis.model.TestAll.suite());
     suite.addTest(com.google.dart.tools.core.internal.builder.TestAll.suite());
+    suite.addTest(com.google.dart.tools.core.internal.cache.TestAll.suite());
     suite.addTest(com.google.dart.tools.core.internal.completion.TestAll.suite());
     suite.addTest(com.google.dart.tools.core.internal.index.TestAll.suite());
     suite.addTest(com.google.dart.tools.core.internal.model.TestAll.suite());
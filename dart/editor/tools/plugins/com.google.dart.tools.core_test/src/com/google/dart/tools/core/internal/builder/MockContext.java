@@ -300,7 +300,7 @@ public class MockContext implements AnalysisContext {
 
   @Override
   public ChangeNotice[] performAnalysisTask() {
-    return ChangeNotice.EMPTY_ARRAY;
+    return null;
   }
 
   @Override
@@ -308,6 +308,10 @@ public class MockContext implements AnalysisContext {
     return null;
   }
 
+  @Override
+  public void setAnalysisPriorityOrder(List<Source> sources) {
+  }
+
   @Override
   public void setSourceFactory(SourceFactory sourceFactory) {
     factory = sourceFactory;
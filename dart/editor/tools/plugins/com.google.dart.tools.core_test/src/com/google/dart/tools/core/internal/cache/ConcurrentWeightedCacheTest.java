@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.core.internal.cache;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentWeightedCacheTest extends TestCase {
+  /**
+   * A cache whose values are their own weights, and which records the keys that were closed.
+   */
+  private static class TestCache extends ConcurrentWeightedCache<String, Integer> {
+    private final Set<String> closedKeys = new HashSet<String>();
+    private final Set<String> pinnedKeys = new HashSet<String>();
+
+    public TestCache(int maximumWeight) {
+      super(maximumWeight);
+    }
+
+    @Override
+    protected boolean close(String key, Integer value) {
+      if (pinnedKeys.contains(key)) {
+        return false;
+      }
+      closedKeys.add(key);
+      return true;
+    }
+
+    @Override
+    protected int weigh(Integer value) {
+      return value.intValue();
+    }
+  }
+
+  public void test_get() {
+    TestCache cache = new TestCache(10);
+    cache.put("a", 1);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRate(), 0.0);
+  }
+
+  public void test_get_concurrent() throws Exception {
+    final TestCache cache = new TestCache(1000);
+    for (int i = 0; i < 100; i++) {
+      cache.put("k" + i, 1);
+    }
+    final AtomicInteger misses = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            if (cache.get("k" + (i % 100)) == null) {
+              misses.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (int i = 100; i < 200; i++) {
+      cache.put("k" + i, 1);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, misses.get());
+    assertEquals(200, cache.size());
+    assertEquals(200, cache.getWeightedSize());
+  }
+
+  public void test_getKey() {
+    TestCache cache = new TestCache(10);
+    String key = new String("a");
+    cache.put(key, 1);
+    assertSame(key, cache.getKey(new String("a")));
+    String other = new String("b");
+    assertSame(other, cache.getKey(other));
+  }
+
+  public void test_peek() {
+    TestCache cache = new TestCache(10);
+    cache.put("a", 1);
+    assertEquals(Integer.valueOf(1), cache.peek("a"));
+    assertNull(cache.peek("b"));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+  }
+
+  public void test_put_admission() {
+    TestCache cache = new TestCache(20);
+    // fill the cache with entries that are used repeatedly
+    for (int i = 0; i < 20; i++) {
+      cache.put("hot" + i, 1);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 20; i++) {
+        cache.get("hot" + i);
+        cache.put("hot" + i, 1);
+      }
+    }
+    // a burst of entries that are only used once should not displace them
+    for (int i = 0; i < 100; i++) {
+      cache.put("cold" + i, 1);
+    }
+    int hotCount = 0;
+    for (int i = 0; i < 20; i++) {
+      if (cache.peek("hot" + i) != null) {
+        hotCount++;
+      }
+    }
+    assertTrue("hot entries kept: " + hotCount, hotCount >= 15);
+    assertNotNull(cache.peek("cold99"));
+    assertTrue(cache.getRejectionCount() > 0);
+    assertTrue(cache.getWeightedSize() <= 20);
+  }
+
+  public void test_put_evicts() {
+    TestCache cache = new TestCache(10);
+    for (int i = 0; i < 15; i++) {
+      cache.put("k" + i, 1);
+    }
+    assertEquals(10, cache.getWeightedSize());
+    assertEquals(10, cache.size());
+    assertEquals(5, cache.getEvictionCount());
+    assertEquals(5, cache.getEvictionWeight());
+    assertEquals(5, cache.closedKeys.size());
+    assertNotNull(cache.peek("k14"));
+  }
+
+  public void test_put_pinned() {
+    TestCache cache = new TestCache(4);
+    cache.pinnedKeys.add("a");
+    cache.pinnedKeys.add("b");
+    cache.put("a", 2);
+    cache.put("b", 2);
+    cache.put("c", 2);
+    assertNotNull(cache.peek("a"));
+    assertNotNull(cache.peek("b"));
+    assertNotNull(cache.peek("c"));
+    assertEquals(6, cache.getWeightedSize());
+    cache.pinnedKeys.clear();
+    cache.put("d", 1);
+    assertTrue(cache.getWeightedSize() <= 4);
+    assertNotNull(cache.peek("d"));
+  }
+
+  public void test_put_replace() {
+    TestCache cache = new TestCache(10);
+    assertNull(cache.put("a", 1));
+    assertEquals(Integer.valueOf(1), cache.put("a", 3));
+    assertEquals(Integer.valueOf(3), cache.peek("a"));
+    assertEquals(1, cache.size());
+    assertEquals(3, cache.getWeightedSize());
+  }
+
+  public void test_put_weighted() {
+    TestCache cache = new TestCache(10);
+    cache.put("a", 4);
+    cache.put("b", 4);
+    cache.put("c", 4);
+    assertTrue(cache.getWeightedSize() <= 10);
+    assertNotNull(cache.peek("c"));
+    assertEquals(2, cache.size());
+  }
+
+  public void test_remove() {
+    TestCache cache = new TestCache(10);
+    cache.put("a", 2);
+    assertEquals(Integer.valueOf(2), cache.remove("a"));
+    assertNull(cache.remove("a"));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getWeightedSize());
+    assertTrue(cache.closedKeys.isEmpty());
+  }
+
+  public void test_setMaximumWeight() {
+    TestCache cache = new TestCache(10);
+    for (int i = 0; i < 10; i++) {
+      cache.put("k" + i, 1);
+    }
+    cache.setMaximumWeight(5);
+    assertEquals(5, cache.getMaximumWeight());
+    assertEquals(5, cache.getWeightedSize());
+    assertEquals(5, cache.getEvictionCount());
+  }
+
+  public void test_toStringFillingRation() {
+    TestCache cache = new TestCache(10);
+    cache.put("a", 2);
+    cache.get("a");
+    assertEquals(
+        "Test cache: 1 entries, weight 2/10, hit rate 100%, 0 evictions (0 not admitted)",
+        cache.toStringFillingRation("Test cache"));
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.core.internal.cache;
+
+import junit.framework.TestCase;
+
+public class FrequencySketchTest extends TestCase {
+  public void test_frequency_aged() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 8; i++) {
+      sketch.increment("a");
+    }
+    // record enough other uses for the counters to be halved
+    for (int i = 0; i < 160; i++) {
+      sketch.increment(Integer.valueOf(i));
+    }
+    assertTrue(sketch.frequency("a") < 8);
+  }
+
+  public void test_frequency_counted() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("a");
+    }
+    sketch.increment("b");
+    assertTrue(sketch.frequency("a") >= 5);
+    assertTrue(sketch.frequency("a") > sketch.frequency("b"));
+  }
+
+  public void test_frequency_saturated() {
+    FrequencySketch sketch = new FrequencySketch(1024);
+    for (int i = 0; i < 100; i++) {
+      sketch.increment("a");
+    }
+    assertEquals(15, sketch.frequency("a"));
+  }
+
+  public void test_frequency_unused() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    assertEquals(0, sketch.frequency("a"));
+  }
+}
@@ -13,46 +13,277 @@
  */
 package com.google.dart.tools.ui.internal.text.dart;
 
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.source.Source;
+import com.google.dart.tools.core.DartCore;
+import com.google.dart.tools.core.internal.builder.MarkerUtilities;
+import com.google.dart.tools.ui.DartToolsPlugin;
+import com.google.dart.tools.ui.actions.InstrumentedJob;
+import com.google.dart.tools.ui.instrumentation.UIInstrumentationBuilder;
+import com.google.dart.tools.ui.internal.text.editor.DartEditor;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
 import org.eclipse.ui.texteditor.ITextEditor;
 
+/**
+ * Instances of the class {@code DartReconcilingStrategy} reconcile the contents of a
+ * {@link DartEditor} with the analysis engine.
+ * <p>
+ * Each reconcile pushes the contents of the editor into its {@link AnalysisContext} and schedules
+ * a background job that parses and resolves the unit, and then updates the semantic highlighting,
+ * the outline and the problem markers in a single pass. Because the reconciler already waits for
+ * typing to pause, and a job that is scheduled again before it has started only runs once, bursts
+ * of edits result in a single analysis of the latest contents. Analysis that is overtaken by a
+ * newer edit is abandoned between steps and its results are never published.
+ */
 public class DartReconcilingStrategy implements IReconcilingStrategy, IReconcilingStrategyExtension {
+  /**
+   * Instances of the class {@code ReconcileJob} analyze the contents of the editor in the
+   * background and publish the results.
+   */
+  private class ReconcileJob extends InstrumentedJob {
+    public ReconcileJob() {
+      super("Reconcile Dart editor");
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus doRun(IProgressMonitor monitor, UIInstrumentationBuilder instrumentation) {
+      long generation = getGeneration();
+      AnalysisContext context = editor.getInputContext();
+      Source source = editor.getInputSource();
+      if (context == null || source == null) {
+        return Status.OK_STATUS;
+      }
+      instrumentation.metric("Generation", generation);
+      try {
+        long startTime = System.currentTimeMillis();
+        context.parse(source);
+        long parseTime = System.currentTimeMillis();
+        instrumentation.metric("Parse-ms", parseTime - startTime);
+        if (isStale(generation, monitor)) {
+          instrumentation.metric("Stale", "Parse");
+          return Status.CANCEL_STATUS;
+        }
+        LibraryElement library = context.getLibraryElement(source);
+        if (library == null || isStale(generation, monitor)) {
+          instrumentation.metric("Stale", "Library");
+          return Status.CANCEL_STATUS;
+        }
+        CompilationUnit unit = context.resolve(source, library);
+        instrumentation.metric("Resolve-ms", System.currentTimeMillis() - parseTime);
+        if (unit == null || isStale(generation, monitor)) {
+          instrumentation.metric("Stale", "Resolve");
+          return Status.CANCEL_STATUS;
+        }
+        publish(unit, monitor);
+        long changeTime = takeChangeTime(generation);
+        if (changeTime != 0L) {
+          instrumentation.metric("ChangeToPublish-ms", (System.nanoTime() - changeTime) / 1000000L);
+        }
+      } catch (AnalysisException exception) {
+        instrumentation.metric("Problem", exception.getClass().toString());
+        DartToolsPlugin.log(exception);
+      }
+      return Status.OK_STATUS;
+    }
+  }
+
+  /**
+   * The editor whose contents are being reconciled, or {@code null} if the editor is not a
+   * {@link DartEditor}.
+   */
+  private final DartEditor editor;
+
+  /**
+   * The job used to analyze the contents of the editor, or {@code null} if the editor is not a
+   * {@link DartEditor}.
+   */
+  private final ReconcileJob job;
+
+  /**
+   * The lock used to access the generation and the change time.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * The number of times the contents of the editor have been pushed into the analysis context.
+   * Analysis started for an older generation is stale.
+   */
+  private long generation = 0L;
+
+  /**
+   * The value of {@link System#nanoTime()} when the earliest change to the document that has not
+   * yet been published was made, or {@code 0} if all of the changes have been published.
+   */
+  private long changeTime = 0L;
+
+  /**
+   * The document being reconciled.
+   */
+  private IDocument document;
+
+  /**
+   * The listener used to record the time of changes to the document.
+   */
+  private final IDocumentListener documentListener = new IDocumentListener() {
+    @Override
+    public void documentAboutToBeChanged(DocumentEvent event) {
+    }
 
-  @SuppressWarnings("unused")
-  private final ITextEditor editor;
+    @Override
+    public void documentChanged(DocumentEvent event) {
+      synchronized (lock) {
+        if (changeTime == 0L) {
+          changeTime = System.nanoTime();
+        }
+      }
+    }
+  };
 
   public DartReconcilingStrategy(ITextEditor editor) {
-    this.editor = editor;
+    this.editor = editor instanceof DartEditor ? (DartEditor) editor : null;
+    this.job = this.editor != null ? new ReconcileJob() : null;
+  }
+
+  /**
+   * Stop reconciling the editor. Analysis that is in progress is abandoned.
+   */
+  public void dispose() {
+    setDocument(null);
+    if (job != null) {
+      synchronized (lock) {
+        generation++;
+      }
+      job.cancel();
+    }
   }
 
   @Override
   public void initialReconcile() {
-    //TODO (pquitslund): implement new world reconciliation
+    reconcile();
   }
 
   @Override
   public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
-    //TODO (pquitslund): implement new world reconciliation
+    reconcile();
   }
 
   @Override
   public void reconcile(IRegion partition) {
-    //TODO (pquitslund): implement new world reconciliation
+    reconcile();
   }
 
   @Override
   public void setDocument(IDocument document) {
-    //TODO (pquitslund): implement new world reconciliation
+    if (this.document != null) {
+      this.document.removeDocumentListener(documentListener);
+    }
+    this.document = document;
+    if (document != null) {
+      document.addDocumentListener(documentListener);
+    }
   }
 
   @Override
   public void setProgressMonitor(IProgressMonitor monitor) {
-    //TODO (pquitslund): implement new world reconciliation
+    // The analysis is performed by a job that has its own progress monitor
+  }
+
+  /**
+   * Return the number of times the contents of the editor have been pushed into the analysis
+   * context.
+   */
+  private long getGeneration() {
+    synchronized (lock) {
+      return generation;
+    }
+  }
+
+  /**
+   * Return {@code true} if analysis started for the given generation should be abandoned, either
+   * because the contents of the editor have changed since then or because the job was canceled.
+   */
+  private boolean isStale(long generation, IProgressMonitor monitor) {
+    return monitor.isCanceled() || generation != getGeneration();
   }
 
+  /**
+   * Update the semantic highlighting, the outline and the problem markers of the editor to reflect
+   * the given resolved unit.
+   */
+  private void publish(final CompilationUnit unit, IProgressMonitor monitor) {
+    editor.applyResolvedUnit(unit, monitor);
+    final IResource resource = (IResource) editor.getEditorInput().getAdapter(IResource.class);
+    if (resource == null || !resource.exists()) {
+      return;
+    }
+    try {
+      ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+        @Override
+        public void run(IProgressMonitor monitor) throws CoreException {
+          MarkerUtilities.replaceErrorMarkers(
+              resource,
+              DartCore.DART_PARSING_PROBLEM_MARKER_TYPE,
+              unit.getLineInfo(),
+              unit.getParsingErrors());
+          MarkerUtilities.replaceErrorMarkers(
+              resource,
+              DartCore.DART_RESOLUTION_PROBLEM_MARKER_TYPE,
+              unit.getLineInfo(),
+              unit.getResolutionErrors());
+        }
+      }, resource, 0, monitor);
+    } catch (CoreException exception) {
+      DartToolsPlugin.log(exception);
+    }
+  }
+
+  /**
+   * Push the contents of the editor into the analysis context and schedule the analysis of the new
+   * contents, abandoning any analysis of older contents.
+   */
+  private void reconcile() {
+    if (editor == null) {
+      return;
+    }
+    editor.applyChangesToContext();
+    synchronized (lock) {
+      generation++;
+    }
+    job.cancel();
+    job.schedule();
+  }
+
+  /**
+   * Return the time of the earliest change that has not yet been published, and record that all of
+   * the changes have been published if the given generation is still the latest one.
+   */
+  private long takeChangeTime(long generation) {
+    synchronized (lock) {
+      long time = changeTime;
+      if (generation == this.generation) {
+        changeTime = 0L;
+      }
+      return time;
+    }
+  }
 }
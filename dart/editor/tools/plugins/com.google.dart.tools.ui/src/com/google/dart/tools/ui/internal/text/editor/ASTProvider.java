@@ -30,20 +30,36 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.IWindowListener;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides a shared AST for clients. The shared AST is the AST of the active Dart editor's input
  * element.
+ * <p>
+ * In addition, the ASTs of the input elements of the other open Dart editors are kept in a bounded
+ * cache, so that switching between editors does not require the AST to be created again. A cached
+ * AST is discarded as soon as the document of its editor is changed, and the ASTs of editors that
+ * are visible but not active are created in the background at a low priority.
  */
 public final class ASTProvider {
 
@@ -97,6 +113,9 @@ public final class ASTProvider {
      */
     @Override
     public void partClosed(IWorkbenchPartReference ref) {
+      if (isJavaEditor(ref)) {
+        editorClosed(ref.getPart(false));
+      }
       if (isActiveEditor(ref)) {
         if (DEBUG) {
           System.out.println(getThreadName()
@@ -126,6 +145,10 @@ public final class ASTProvider {
      */
     @Override
     public void partInputChanged(IWorkbenchPartReference ref) {
+      if (isJavaEditor(ref)) {
+        editorClosed(ref.getPart(false));
+        editorOpened(ref.getPart(false));
+      }
       if (isJavaEditor(ref) && isActiveEditor(ref)) {
         activeJavaEditorChanged(ref.getPart(true));
       }
@@ -136,6 +159,9 @@ public final class ASTProvider {
      */
     @Override
     public void partOpened(IWorkbenchPartReference ref) {
+      if (isJavaEditor(ref)) {
+        editorOpened(ref.getPart(false));
+      }
       if (isJavaEditor(ref) && !isActiveEditor(ref)) {
         activeJavaEditorChanged(ref.getPart(true));
       }
@@ -216,6 +242,79 @@ public final class ASTProvider {
     }
   }
 
+  /**
+   * An open Dart editor whose document is listened to, so that the cached AST of its input element
+   * can be discarded when the document is changed.
+   */
+  private class OpenEditor implements IDocumentListener {
+
+    private final DartElement fElement;
+    private final IDocument fDocument;
+
+    public OpenEditor(DartElement element, IDocument document) {
+      fElement = element;
+      fDocument = document;
+      fDocument.addDocumentListener(this);
+    }
+
+    @Override
+    public void documentAboutToBeChanged(DocumentEvent event) {
+    }
+
+    @Override
+    public void documentChanged(DocumentEvent event) {
+      invalidateAST(fElement);
+    }
+
+    /**
+     * Stops listening to the document of the editor.
+     */
+    public void dispose() {
+      fDocument.removeDocumentListener(this);
+    }
+  }
+
+  /**
+   * The job used to create the ASTs of editors that are visible but not active.
+   */
+  private class PreResolveJob extends Job {
+
+    public PreResolveJob() {
+      super(DartEditorMessages.ASTProvider_preResolve_job);
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      while (!monitor.isCanceled()) {
+        DartElement element;
+        long invalidationCount;
+        synchronized (ASTProvider.this) {
+          Iterator<DartElement> iterator = fPendingElements.iterator();
+          if (!iterator.hasNext()) {
+            return Status.OK_STATUS;
+          }
+          element = iterator.next();
+          iterator.remove();
+          if (fCachedASTs.containsKey(element) || !isOpen(element)) {
+            continue;
+          }
+          invalidationCount = fInvalidationCount;
+        }
+        if (DEBUG) {
+          System.out.println(getThreadName()
+              + " - " + DEBUG_PREFIX + "pre-resolving AST for: " + toString(element)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        DartUnit ast = createAST(element, monitor);
+        if (ast != null && !monitor.isCanceled()) {
+          rememberAST(element, ast, invalidationCount);
+        }
+      }
+      return Status.CANCEL_STATUS;
+    }
+  }
+
   /**
    * Wait flag indicating that a client requesting an AST wants to wait until an AST is ready.
    * <p>
@@ -251,6 +350,11 @@ public final class ASTProvider {
 
   private static final String DEBUG_PREFIX = "ASTProvider > "; //$NON-NLS-1$
 
+  /**
+   * The maximum number of ASTs kept for the input elements of the open editors.
+   */
+  private static final int MAX_CACHED_AST_COUNT = 16;
+
   /**
    * Returns the Java plug-in's AST provider.
    * 
@@ -270,6 +374,43 @@ public final class ASTProvider {
 
   private IWorkbenchPart fActiveEditor;
 
+  /**
+   * The ASTs of the input elements of the open editors, in the order in which they were last used.
+   */
+  private final LinkedHashMap<DartElement, DartUnit> fCachedASTs = new LinkedHashMap<DartElement, DartUnit>(
+      MAX_CACHED_AST_COUNT,
+      0.75f,
+      true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<DartElement, DartUnit> eldest) {
+      return size() > MAX_CACHED_AST_COUNT;
+    }
+  };
+
+  /**
+   * The open Dart editors, keyed by editor.
+   */
+  private final Map<IWorkbenchPart, OpenEditor> fOpenEditors = new HashMap<IWorkbenchPart, OpenEditor>();
+
+  /**
+   * The number of times a cached AST has been invalidated.
+   */
+  private long fInvalidationCount;
+
+  /**
+   * The value of {@link #fInvalidationCount} when the AST of each element was last invalidated. An
+   * AST that was started to be created before its element was last invalidated might not reflect the
+   * current contents of the document, and is not cached.
+   */
+  private final Map<DartElement, Long> fLastInvalidations = new HashMap<DartElement, Long>();
+
+  /**
+   * The elements whose ASTs are waiting to be created in the background.
+   */
+  private final LinkedHashSet<DartElement> fPendingElements = new LinkedHashSet<DartElement>();
+
+  private final PreResolveJob fPreResolveJob = new PreResolveJob();
+
   /**
    * Creates a new AST provider.
    */
@@ -286,6 +427,17 @@ public final class ASTProvider {
     PlatformUI.getWorkbench().removeWindowListener(fActivationListener);
     fActivationListener = null;
 
+    fPreResolveJob.cancel();
+    synchronized (this) {
+      for (OpenEditor openEditor : fOpenEditors.values()) {
+        openEditor.dispose();
+      }
+      fOpenEditors.clear();
+      fLastInvalidations.clear();
+      fPendingElements.clear();
+      fCachedASTs.clear();
+    }
+
     disposeAST();
 
     synchronized (fWaitLock) {
@@ -316,8 +468,21 @@ public final class ASTProvider {
     }
 
     boolean isActiveElement;
+    long invalidationCount;
     synchronized (this) {
+      invalidationCount = fInvalidationCount;
       isActiveElement = je.equals(fActiveJavaElement);
+      if (!isActiveElement) {
+        DartUnit cachedAST = fCachedASTs.get(je);
+        if (cachedAST != null) {
+          if (DEBUG) {
+            System.out.println(getThreadName()
+                + " - " + DEBUG_PREFIX + "returning cached AST of inactive editor for: " + je.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+          }
+
+          return cachedAST;
+        }
+      }
       if (isActiveElement) {
         if (fAST != null) {
           if (DEBUG) {
@@ -397,6 +562,8 @@ public final class ASTProvider {
         } else {
           reconciled(ast, je, null);
         }
+      } else if (ast != null) {
+        rememberAST(je, ast, invalidationCount);
       }
     }
 
@@ -419,8 +586,8 @@ public final class ASTProvider {
    * @param ast the compilation unit AST
    * @return <code>true</code> if the given AST is the cached one
    */
-  public boolean isCached(DartUnit ast) {
-    return ast != null && fAST == ast;
+  public synchronized boolean isCached(DartUnit ast) {
+    return ast != null && (fAST == ast || fCachedASTs.containsValue(ast));
   }
 
   /**
@@ -444,6 +611,7 @@ public final class ASTProvider {
       fIsReconciling = true;
       fReconcilingJavaElement = javaElement;
     }
+    invalidateAST(javaElement);
     cache(null, javaElement);
   }
 
@@ -505,7 +673,11 @@ public final class ASTProvider {
     synchronized (this) {
       fActiveEditor = editor;
       fActiveJavaElement = dartElement;
-      cache(null, dartElement);
+      cache(dartElement != null ? fCachedASTs.get(dartElement) : null, dartElement);
+    }
+
+    if (editor != null && editor.getSite() != null) {
+      schedulePreResolve(editor.getSite().getPage());
     }
 
     if (DEBUG) {
@@ -553,6 +725,9 @@ public final class ASTProvider {
     }
 
     fAST = ast;
+    if (ast != null && javaElement != null && isOpen(javaElement)) {
+      fCachedASTs.put(javaElement, ast);
+    }
 
     // Signal AST change
     synchronized (fWaitLock) {
@@ -631,6 +806,53 @@ public final class ASTProvider {
     cache(null, null);
   }
 
+  /**
+   * Stops listening to the document of the given editor, and discards the cached AST of its input
+   * element unless another open editor has the same input element.
+   * 
+   * @param part the editor that was closed
+   */
+  private void editorClosed(IWorkbenchPart part) {
+    synchronized (this) {
+      OpenEditor openEditor = fOpenEditors.remove(part);
+      if (openEditor == null) {
+        return;
+      }
+      openEditor.dispose();
+      if (!isOpen(openEditor.fElement)) {
+        fCachedASTs.remove(openEditor.fElement);
+        fLastInvalidations.remove(openEditor.fElement);
+        fPendingElements.remove(openEditor.fElement);
+      }
+    }
+  }
+
+  /**
+   * Starts listening to the document of the given editor, so that the cached AST of its input
+   * element can be discarded when the document is changed.
+   * 
+   * @param part the editor that was opened
+   */
+  private void editorOpened(IWorkbenchPart part) {
+    if (!(part instanceof DartEditor)) {
+      return;
+    }
+    DartEditor editor = (DartEditor) part;
+    DartElement element = editor.getInputDartElement();
+    if (element == null || editor.getDocumentProvider() == null) {
+      return;
+    }
+    IDocument document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+    if (document == null) {
+      return;
+    }
+    synchronized (this) {
+      if (!fOpenEditors.containsKey(part)) {
+        fOpenEditors.put(part, new OpenEditor(element, document));
+      }
+    }
+  }
+
   private String getThreadName() {
     String name = Thread.currentThread().getName();
     if (name != null) {
@@ -653,6 +875,31 @@ public final class ASTProvider {
     return element.getElementType() == DartElement.COMPILATION_UNIT;
   }
 
+  /**
+   * Discards the cached AST for the given element.
+   * 
+   * @param element the element whose AST is no longer valid
+   */
+  private synchronized void invalidateAST(DartElement element) {
+    fCachedASTs.remove(element);
+    fLastInvalidations.put(element, ++fInvalidationCount);
+  }
+
+  /**
+   * Tells whether the given element is the input element of an open editor.
+   * 
+   * @param element the element to test
+   * @return <code>true</code> if an open editor has the given element as its input
+   */
+  private synchronized boolean isOpen(DartElement element) {
+    for (OpenEditor openEditor : fOpenEditors.values()) {
+      if (openEditor.fElement.equals(element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Tells whether the given Java element is the one reported as currently being reconciled.
    * 
@@ -665,6 +912,52 @@ public final class ASTProvider {
     }
   }
 
+  /**
+   * Caches the given AST for the given element if the element is the input of an open editor and
+   * its AST has not been invalidated since the AST was started to be created.
+   * 
+   * @param element the element whose AST was created
+   * @param ast the AST that was created
+   * @param invalidationCount the number of invalidations before the AST was started to be created
+   */
+  private synchronized void rememberAST(DartElement element, DartUnit ast, long invalidationCount) {
+    Long lastInvalidation = fLastInvalidations.get(element);
+    if ((lastInvalidation == null || lastInvalidation.longValue() <= invalidationCount)
+        && isOpen(element)) {
+      fCachedASTs.put(element, ast);
+    }
+  }
+
+  /**
+   * Schedules the creation of the ASTs for the input elements of the editors that are visible in the
+   * given page but are not active.
+   * 
+   * @param page the page containing the editors
+   */
+  private void schedulePreResolve(IWorkbenchPage page) {
+    if (page == null) {
+      return;
+    }
+    boolean scheduled = false;
+    for (IEditorReference ref : page.getEditorReferences()) {
+      IWorkbenchPart part = ref.getPart(false);
+      if (part instanceof DartEditor && part != fActiveEditor && page.isPartVisible(part)) {
+        editorOpened(part);
+        DartElement element = ((DartEditor) part).getInputDartElement();
+        if (element != null) {
+          synchronized (this) {
+            if (!fCachedASTs.containsKey(element)) {
+              scheduled |= fPendingElements.add(element);
+            }
+          }
+        }
+      }
+    }
+    if (scheduled) {
+      fPreResolveJob.schedule();
+    }
+  }
+
   /**
    * Returns a string for the given Java element used for debugging.
    * 
@@ -1860,6 +1860,25 @@ public abstract class DartEditor extends AbstractDecoratedTextEditor implements
     }
   }
 
+  /**
+   * Notifies that {@link com.google.dart.engine.ast.CompilationUnit} of this {@link DartEditor} was
+   * resolved by the background reconciler, so the semantic highlighting and the outline should be
+   * updated to reflect it.
+   * 
+   * @param unit the resolved unit
+   * @param monitor the progress monitor used to cancel the update of the semantic highlighting
+   */
+  public void applyResolvedUnit(com.google.dart.engine.ast.CompilationUnit unit,
+      IProgressMonitor monitor) {
+    if (fSemanticManager != null) {
+      SemanticHighlightingReconciler reconciler = fSemanticManager.getReconciler();
+      if (reconciler != null) {
+        reconciler.reconciled(unit, monitor);
+      }
+    }
+    applyCompilationUnitElement(unit);
+  }
+
   /**
    * Collapses all foldable comments if supported by the folding structure provider.
    */
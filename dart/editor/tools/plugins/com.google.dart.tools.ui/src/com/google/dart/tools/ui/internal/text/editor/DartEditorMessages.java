@@ -35,6 +35,7 @@ final class DartEditorMessages extends NLS {
   public static String AddImportOnSelection_error_title;
   public static String AddImportOnSelection_dialog_title;
   public static String AddImportOnSelection_dialog_message;
+  public static String ASTProvider_preResolve_job;
   public static String ClassFileEditor_error_classfile_not_on_classpath;
   public static String ClassFileEditor_error_invalid_input_message;
   public static String ClassFileEditor_error_title;
@@ -33,6 +33,22 @@ import com.google.dart.compiler.ast.DartPropertyAccess;
 import com.google.dart.compiler.ast.DartSourceDirective;
 import com.google.dart.compiler.ast.DartStatement;
 import com.google.dart.compiler.ast.DartUnit;
+import com.google.dart.engine.ast.Comment;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.DoubleLiteral;
+import com.google.dart.engine.ast.IntegerLiteral;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.LocalVariableElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.PropertyInducingElement;
+import com.google.dart.engine.element.TypeVariableElement;
 import com.google.dart.tools.core.model.DartElement;
 import com.google.dart.tools.core.model.SourceRange;
 import com.google.dart.tools.ui.DartToolsPlugin;
@@ -57,7 +73,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Semantic highlighting reconciler - Background thread implementation.
@@ -265,6 +283,95 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     }
   }
 
+  /**
+   * Collects positions from a resolved AST produced by the analysis engine.
+   */
+  private class ResolvedPositionCollector extends RecursiveASTVisitor<Void> {
+
+    /**
+     * The enabled highlightings, keyed by the preference key of their semantic highlighting.
+     */
+    private final Map<String, Highlighting> highlightings = new HashMap<String, Highlighting>();
+
+    public ResolvedPositionCollector() {
+      for (int i = 0, n = fJobSemanticHighlightings.length; i < n; i++) {
+        if (fJobHighlightings[i].isEnabled()) {
+          highlightings.put(fJobSemanticHighlightings[i].getPreferenceKey(), fJobHighlightings[i]);
+        }
+      }
+    }
+
+    @Override
+    public Void visitComment(Comment node) {
+      return null;
+    }
+
+    @Override
+    public Void visitDoubleLiteral(DoubleLiteral node) {
+      addPosition(node.getOffset(), node.getLength(), SemanticHighlightings.NUMBER);
+      return null;
+    }
+
+    @Override
+    public Void visitIntegerLiteral(IntegerLiteral node) {
+      addPosition(node.getOffset(), node.getLength(), SemanticHighlightings.NUMBER);
+      return null;
+    }
+
+    @Override
+    public Void visitSimpleIdentifier(SimpleIdentifier node) {
+      addPosition(node.getOffset(), node.getLength(), getPreferenceKey(node));
+      return null;
+    }
+
+    private void addPosition(int offset, int length, String preferenceKey) {
+      if (preferenceKey == null || offset < 0 || length <= 0) {
+        return;
+      }
+      Highlighting highlighting = highlightings.get(preferenceKey);
+      if (highlighting != null) {
+        fCollector.addPosition(offset, length, highlighting);
+      }
+    }
+
+    /**
+     * Return the preference key of the semantic highlighting that applies to the given identifier,
+     * or {@code null} if no semantic highlighting applies to it.
+     */
+    private String getPreferenceKey(SimpleIdentifier node) {
+      Element element = node.getElement();
+      if (element instanceof PropertyAccessorElement) {
+        PropertyAccessorElement accessor = (PropertyAccessorElement) element;
+        if (node.inDeclarationContext() && !accessor.isSynthetic()) {
+          return accessor.isGetter() ? SemanticHighlightings.GETTER_DECLARATION
+              : SemanticHighlightings.SETTER_DECLARATION;
+        }
+        element = accessor.getVariable();
+      }
+      if (element instanceof ClassElement) {
+        return SemanticHighlightings.CLASS;
+      } else if (element instanceof TypeVariableElement) {
+        return SemanticHighlightings.TYPE_VARIABLE;
+      } else if (element instanceof FieldElement) {
+        return ((PropertyInducingElement) element).isStatic() ? SemanticHighlightings.STATIC_FIELD
+            : SemanticHighlightings.FIELD;
+      } else if (element instanceof MethodElement) {
+        boolean isStatic = ((ExecutableElement) element).isStatic();
+        if (node.inDeclarationContext()) {
+          return isStatic ? SemanticHighlightings.STATIC_METHOD_DECLARATION
+              : SemanticHighlightings.METHOD_DECLARATION;
+        }
+        return isStatic ? SemanticHighlightings.STATIC_METHOD : SemanticHighlightings.METHOD;
+      } else if (element instanceof LocalVariableElement) {
+        return node.inDeclarationContext() ? SemanticHighlightings.LOCAL_VARIABLE_DECLARATION
+            : SemanticHighlightings.LOCAL_VARIABLE;
+      } else if (element instanceof ParameterElement) {
+        return SemanticHighlightings.PARAMETER_VARIABLE;
+      }
+      return null;
+    }
+  }
+
   /** Position collector */
   private final PositionCollector fCollector = new PositionCollector();
 
@@ -446,6 +553,68 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     }
   }
 
+  /**
+   * Reconcile the semantic highlighting with the given resolved unit. This is invoked by the
+   * background reconciler once the analysis engine has resolved the contents of the editor.
+   * 
+   * @param unit the resolved unit, or {@code null} if the unit could not be resolved
+   * @param progressMonitor the progress monitor used to cancel the reconciling
+   */
+  public void reconciled(CompilationUnit unit, IProgressMonitor progressMonitor) {
+    // don't update semantic highlighting if there are parsing problems to avoid "flashing"
+    if (unit == null || unit.getParsingErrors().length > 0) {
+      return;
+    }
+
+    // ensure at most one thread can be reconciling at any time
+    synchronized (fReconcileLock) {
+      if (fIsReconciling) {
+        return;
+      } else {
+        fIsReconciling = true;
+      }
+    }
+    fJobPresenter = fPresenter;
+    fJobSemanticHighlightings = fSemanticHighlightings;
+    fJobHighlightings = fHighlightings;
+
+    try {
+      if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null) {
+        return;
+      }
+
+      fJobPresenter.setCanceled(progressMonitor.isCanceled());
+
+      if (fJobPresenter.isCanceled()) {
+        return;
+      }
+
+      startReconcilingPositions();
+
+      if (!fJobPresenter.isCanceled()) {
+        reconcilePositions(unit);
+      }
+
+      TextPresentation textPresentation = null;
+      if (!fJobPresenter.isCanceled()) {
+        textPresentation = fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
+      }
+
+      if (!fJobPresenter.isCanceled()) {
+        updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+      }
+
+      stopReconcilingPositions();
+    } finally {
+      fJobPresenter = null;
+      fJobSemanticHighlightings = null;
+      fJobHighlightings = null;
+      synchronized (fReconcileLock) {
+        fIsReconciling = false;
+      }
+    }
+  }
+
   /**
    * Refreshes the highlighting.
    */
@@ -486,6 +655,17 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     return new DartNode[] {node};
   }
 
+  /**
+   * Copy the positions that are currently highlighted into a sorted array so that the positions
+   * that are still valid can be found while collecting positions.
+   */
+  private void prepareRemovedPositions() {
+    // copy fRemovedPositions into removedPositions and removedPositionsDeleted
+    removedPositions = fRemovedPositions.toArray(new Position[fRemovedPositions.size()]);
+    Arrays.sort(removedPositions, positionsComparator);
+    removedPositionsDeleted = new boolean[removedPositions.length];
+  }
+
   private final void processNode(SemanticToken token, DartNode node) {
     token.update(node);
     token.attachSource(fSourceViewer.getDocument());
@@ -526,16 +706,24 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     token.clear();
   }
 
+  /**
+   * Reconcile positions based on the given resolved unit.
+   * 
+   * @param unit the resolved unit
+   */
+  private void reconcilePositions(CompilationUnit unit) {
+    prepareRemovedPositions();
+    unit.accept(new ResolvedPositionCollector());
+    updateRemovedPositions();
+  }
+
   /**
    * Reconcile positions based on the AST subtrees
    * 
    * @param subtrees the AST subtrees
    */
   private void reconcilePositions(DartNode[] subtrees) {
-    // copy fRemovedPositions into removedPositions and removedPositionsDeleted
-    removedPositions = fRemovedPositions.toArray(new Position[fRemovedPositions.size()]);
-    Arrays.sort(removedPositions, positionsComparator);
-    removedPositionsDeleted = new boolean[removedPositions.length];
+    prepareRemovedPositions();
 
     // FIXME: remove positions not covered by subtrees
     for (int i = 0, n = subtrees.length; i < n; i++) {
@@ -543,26 +731,7 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
       subtrees[i].accept(fCollector);
     }
 
-    // copy removedPositions and removedPositionsDeleted into fRemovedPositions
-    fRemovedPositions = new ArrayList<Position>(removedPositions.length);
-    for (int i = 0; i < removedPositions.length; i++) {
-      if (!removedPositionsDeleted[i]) {
-        fRemovedPositions.add(removedPositions[i]);
-      }
-    }
-
-    List<Position> oldPositions = fRemovedPositions;
-    List<Position> newPositions = new ArrayList<Position>(fNOfRemovedPositions);
-    for (int i = 0, n = oldPositions.size(); i < n; i++) {
-      Position current = oldPositions.get(i);
-      if (current != null) {
-        newPositions.add(current);
-      }
-    }
-    fRemovedPositions = newPositions;
-
-    Collections.sort(fRemovedPositions, positionsComparator);
-    Collections.sort(fAddedPositions, positionsComparator);
+    updateRemovedPositions();
   }
 
   /**
@@ -632,6 +801,33 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     fAddedPositions.clear();
   }
 
+  /**
+   * Copy the positions that are no longer valid back into the list of removed positions once the
+   * positions have been collected.
+   */
+  private void updateRemovedPositions() {
+    // copy removedPositions and removedPositionsDeleted into fRemovedPositions
+    fRemovedPositions = new ArrayList<Position>(removedPositions.length);
+    for (int i = 0; i < removedPositions.length; i++) {
+      if (!removedPositionsDeleted[i]) {
+        fRemovedPositions.add(removedPositions[i]);
+      }
+    }
+
+    List<Position> oldPositions = fRemovedPositions;
+    List<Position> newPositions = new ArrayList<Position>(fNOfRemovedPositions);
+    for (int i = 0, n = oldPositions.size(); i < n; i++) {
+      Position current = oldPositions.get(i);
+      if (current != null) {
+        newPositions.add(current);
+      }
+    }
+    fRemovedPositions = newPositions;
+
+    Collections.sort(fRemovedPositions, positionsComparator);
+    Collections.sort(fAddedPositions, positionsComparator);
+  }
+
   /**
    * Update the presentation.
    * 
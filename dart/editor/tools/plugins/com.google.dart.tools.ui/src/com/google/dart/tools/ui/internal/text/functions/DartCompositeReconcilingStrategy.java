@@ -13,6 +13,9 @@
  */
 package com.google.dart.tools.ui.internal.text.functions;
 
+import com.google.dart.tools.ui.internal.text.dart.DartReconcilingStrategy;
+
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.ui.texteditor.ITextEditor;
 
@@ -24,6 +27,7 @@ public class DartCompositeReconcilingStrategy extends CompositeReconcilingStrate
 
   @SuppressWarnings("unused")
   private final ITextEditor editor;
+  private final DartReconcilingStrategy dartStrategy;
 
   /**
    * Creates a new Dart reconciling strategy.
@@ -35,7 +39,15 @@ public class DartCompositeReconcilingStrategy extends CompositeReconcilingStrate
   public DartCompositeReconcilingStrategy(ISourceViewer viewer, ITextEditor editor,
       String documentPartitioning) {
     this.editor = editor;
-    //TODO (pquitslund): implement new world reconciliation
+    dartStrategy = new DartReconcilingStrategy(editor);
+    setReconcilingStrategies(new IReconcilingStrategy[] {dartStrategy});
+  }
+
+  /**
+   * Stops reconciling and abandons any analysis that is in progress.
+   */
+  public void dispose() {
+    dartStrategy.dispose();
   }
 
 }
@@ -13,21 +13,16 @@
  */
 package com.google.dart.tools.ui.internal.text.functions;
 
-import com.google.dart.engine.ast.CompilationUnit;
-import com.google.dart.engine.element.CompilationUnitElement;
-import com.google.dart.tools.ui.internal.text.editor.DartEditor;
-
-import org.eclipse.jface.text.ITextViewer;
-import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.MonoReconciler;
 import org.eclipse.ui.texteditor.ITextEditor;
 
 /**
- * "New world" dart reconciler.
+ * "New world" dart reconciler. The analysis itself is performed in the background by the
+ * {@link DartCompositeReconcilingStrategy}, so this reconciler only delays reconciling until typing
+ * pauses.
  */
 public class DartReconciler extends MonoReconciler {
-  private final DartEditor editor;
-  private volatile Thread thread;
+  private final DartCompositeReconcilingStrategy strategy;
 
   /**
    * Creates a new reconciler.
@@ -39,59 +34,12 @@ public class DartReconciler extends MonoReconciler {
   public DartReconciler(ITextEditor editor, DartCompositeReconcilingStrategy strategy,
       boolean isIncremental) {
     super(strategy, isIncremental);
-    this.editor = editor instanceof DartEditor ? (DartEditor) editor : null;
-  }
-
-  @Override
-  public void install(ITextViewer textViewer) {
-    super.install(textViewer);
-    if (editor != null) {
-      thread = new Thread() {
-        @Override
-        public void run() {
-          refreshLoop();
-        }
-      };
-      thread.setDaemon(true);
-      thread.start();
-    }
+    this.strategy = strategy;
   }
 
   @Override
   public void uninstall() {
     super.uninstall();
-    thread = null;
-  }
-
-  @Override
-  protected void process(DirtyRegion dirtyRegion) {
-    super.process(dirtyRegion);
-    if (editor != null) {
-      DartEditor dartEditor = editor;
-      dartEditor.applyChangesToContext();
-    }
-  }
-
-  /**
-   * Performs main refresh loop to reflect changes in {@link DartEditor} and/or environment.
-   */
-  private void refreshLoop() {
-    CompilationUnitElement previousUnitElement = null;
-    while (thread != null) {
-      try {
-        CompilationUnit unitNode = editor.getInputUnit();
-        CompilationUnitElement unitElement = unitNode.getElement();
-        if (unitElement != previousUnitElement) {
-          previousUnitElement = unitElement;
-//          System.out.println("unitElement: " + ObjectUtils.identityToString(unitElement));
-          // unit was resolved
-          if (unitElement != null) {
-            editor.applyCompilationUnitElement(unitNode);
-          }
-        }
-        Thread.sleep(50);
-      } catch (InterruptedException e) {
-      }
-    }
+    strategy.dispose();
   }
 }